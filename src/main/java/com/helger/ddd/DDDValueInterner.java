@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A bounded interning layer for low-cardinality values like syntax IDs, customization IDs, country
+ * codes or identifier schemes. Equal strings are mapped to one canonical instance, so that
+ * {@link DocumentDetails} objects retained in caches or queues share them. If the maximum size is
+ * reached, new values are no longer interned but returned as provided.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDValueInterner
+{
+  /** The default maximum number of distinct values to be interned */
+  public static final int DEFAULT_MAX_SIZE = 10_000;
+
+  private static final class SingletonHolder
+  {
+    static final DDDValueInterner INSTANCE = new DDDValueInterner (DEFAULT_MAX_SIZE);
+  }
+
+  private final int m_nMaxSize;
+  private final ConcurrentHashMap <String, String> m_aMap = new ConcurrentHashMap <> ();
+
+  /**
+   * Constructor
+   *
+   * @param nMaxSize
+   *        The maximum number of distinct values to be interned. Must be &gt; 0.
+   */
+  public DDDValueInterner (@Nonnegative final int nMaxSize)
+  {
+    ValueEnforcer.isGT0 (nMaxSize, "MaxSize");
+    m_nMaxSize = nMaxSize;
+  }
+
+  /**
+   * @return The shared default instance with {@link #DEFAULT_MAX_SIZE} entries. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public static DDDValueInterner getDefaultInstance ()
+  {
+    return SingletonHolder.INSTANCE;
+  }
+
+  /**
+   * @return The maximum number of distinct values as provided in the constructor. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxSize ()
+  {
+    return m_nMaxSize;
+  }
+
+  /**
+   * @return The number of currently interned values. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getSize ()
+  {
+    return m_aMap.size ();
+  }
+
+  /**
+   * Get the canonical instance of the provided value.
+   *
+   * @param sValue
+   *        The value to intern. May be <code>null</code>.
+   * @return <code>null</code> if the provided value is <code>null</code>. The canonical instance if
+   *         the value was interned before, or the provided value otherwise.
+   */
+  @Nullable
+  public String intern (@Nullable final String sValue)
+  {
+    if (sValue == null)
+      return null;
+
+    final String ret = m_aMap.get (sValue);
+    if (ret != null)
+      return ret;
+
+    // Bounded - don't grow any further
+    if (m_aMap.size () >= m_nMaxSize)
+      return sValue;
+
+    final String sOld = m_aMap.putIfAbsent (sValue, sValue);
+    return sOld != null ? sOld : sValue;
+  }
+
+  /**
+   * Remove all interned values.
+   */
+  public void clear ()
+  {
+    m_aMap.clear ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxSize", m_nMaxSize).append ("Size", getSize ()).getToString ();
+  }
+}
@@ -16,15 +16,18 @@
  */
 package com.helger.ddd;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.w3c.dom.Element;
 
+import com.helger.annotation.Nonnegative;
 import com.helger.annotation.concurrent.Immutable;
 import com.helger.annotation.style.ReturnsMutableCopy;
-import com.helger.annotation.style.ReturnsMutableObject;
 import com.helger.base.builder.IBuilder;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.equals.EqualsHelper;
@@ -32,23 +35,34 @@ import com.helger.base.hashcode.HashCodeGenerator;
 import com.helger.base.string.StringHelper;
 import com.helger.base.tostring.ToStringGenerator;
 import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
 import com.helger.collection.commons.CommonsLinkedHashSet;
 import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
 import com.helger.collection.commons.ICommonsOrderedSet;
+import com.helger.ddd.model.EDDDSourceField;
 import com.helger.json.IJsonObject;
 import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
 import com.helger.peppolid.IProcessIdentifier;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.SimpleIdentifierFactory;
 import com.helger.xml.microdom.IMicroElement;
 
 /**
- * Document details determined from the payload, with all fields optional.
+ * Document details determined from the payload, with all fields optional.<br>
+ * Since 0.8.11 the representation is compact: flags and wrappers are stored as small arrays. The
+ * identifiers are still created when the object is built, so that invalid values are detected at
+ * that time.
  *
  * @author Philip Helger
  */
 @Immutable
 public class DocumentDetails
 {
+  private static final String [] EMPTY_STRING_ARRAY = new String [0];
+  private static final EDDDSourceField [] SOURCE_FIELDS = EDDDSourceField.values ();
+
   private final String m_sSyntaxID;
   private final String m_sSyntaxVersion;
   private final IParticipantIdentifier m_aSenderID;
@@ -63,8 +77,11 @@ public class DocumentDetails
   private final String m_sReceiverCountryCode;
   private final String m_sVESID;
   private final String m_sProfileName;
-  private final ICommonsOrderedSet <String> m_aFlags;
-  private final ICommonsList <String> m_aWrappers;
+  // Unique, in insertion order
+  private final String [] m_aFlags;
+  private final String [] m_aWrappers;
+  // Optional extracted source values, indexed by EDDDSourceField ordinal. null if not retained
+  private final String [] m_aSourceValues;
 
   /**
    * Internal constructor. All fields are optional. Don't use this ctor directly, use
@@ -122,22 +139,52 @@ public class DocumentDetails
                              @NonNull final ICommonsOrderedSet <String> aFlags,
                              @NonNull final ICommonsList <String> aWrappers)
   {
-    m_sSyntaxID = sSyntaxID;
-    m_aSenderID = aSenderID;
-    m_aReceiverID = aReceiverID;
-    m_aDocTypeID = aDocTypeID;
-    m_sCustomizationID = sCustomizationID;
-    m_sSyntaxVersion = sSyntaxVersion;
-    m_aProcessID = aProcessID;
-    m_sBusinessDocumentID = sBusinessDocumentID;
-    m_sSenderName = sSenderName;
-    m_sSenderCountryCode = sSenderCountryCode;
-    m_sReceiverName = sReceiverName;
-    m_sReceiverCountryCode = sReceiverCountryCode;
-    m_sVESID = sVESID;
-    m_sProfileName = sProfileName;
-    m_aFlags = aFlags.getClone ();
-    m_aWrappers = aWrappers.getClone ();
+    this (builder ().syntaxID (sSyntaxID)
+                    .syntaxVersion (sSyntaxVersion)
+                    .senderID (aSenderID)
+                    .receiverID (aReceiverID)
+                    .documentTypeID (aDocTypeID)
+                    .processID (aProcessID)
+                    .customizationID (sCustomizationID)
+                    .businessDocumentID (sBusinessDocumentID)
+                    .senderName (sSenderName)
+                    .senderCountryCode (sSenderCountryCode)
+                    .receiverName (sReceiverName)
+                    .receiverCountryCode (sReceiverCountryCode)
+                    .vesid (sVESID)
+                    .profileName (sProfileName)
+                    .flags (aFlags)
+                    .wrappers (aWrappers));
+  }
+
+  /**
+   * Internal constructor taking all values from the builder.
+   *
+   * @param aBuilder
+   *        The builder to take the values from. May not be <code>null</code>.
+   * @since 0.8.11
+   */
+  protected DocumentDetails (@NonNull final Builder aBuilder)
+  {
+    ValueEnforcer.notNull (aBuilder, "Builder");
+    m_sSyntaxID = aBuilder.m_sSyntaxID;
+    m_sSyntaxVersion = aBuilder.m_sSyntaxVersion;
+    m_aSenderID = aBuilder.m_aSenderID;
+    m_aReceiverID = aBuilder.m_aReceiverID;
+    m_aDocTypeID = aBuilder.m_aDocTypeID;
+    m_aProcessID = aBuilder.m_aProcessID;
+    m_sCustomizationID = aBuilder.m_sCustomizationID;
+    m_sBusinessDocumentID = aBuilder.m_sBusinessDocumentID;
+    m_sSenderName = aBuilder.m_sSenderName;
+    m_sSenderCountryCode = aBuilder.m_sSenderCountryCode;
+    m_sReceiverName = aBuilder.m_sReceiverName;
+    m_sReceiverCountryCode = aBuilder.m_sReceiverCountryCode;
+    m_sVESID = aBuilder.m_sVESID;
+    m_sProfileName = aBuilder.m_sProfileName;
+    m_aFlags = aBuilder.m_aFlags.isEmpty () ? EMPTY_STRING_ARRAY : aBuilder.m_aFlags.toArray (EMPTY_STRING_ARRAY);
+    m_aWrappers = aBuilder.m_aWrappers.isEmpty () ? EMPTY_STRING_ARRAY
+                                                  : aBuilder.m_aWrappers.toArray (EMPTY_STRING_ARRAY);
+    m_aSourceValues = aBuilder.m_aSourceValues == null ? null : aBuilder.m_aSourceValues.clone ();
   }
 
   public final boolean hasSyntaxID ()
@@ -337,7 +384,56 @@ public class DocumentDetails
 
   public final boolean hasFlags ()
   {
-    return m_aFlags.isNotEmpty ();
+    return m_aFlags.length > 0;
+  }
+
+  /**
+   * @param sFlag
+   *        The flag to check. May be <code>null</code>.
+   * @return <code>true</code> if the provided flag is contained, <code>false</code> if not.
+   * @since 0.8.11
+   */
+  public final boolean hasFlag (@Nullable final String sFlag)
+  {
+    if (sFlag != null)
+      for (final String s : m_aFlags)
+        if (s.equals (sFlag))
+          return true;
+    return false;
+  }
+
+  /**
+   * @return The number of contained flags. Always &ge; 0.
+   * @since 0.8.11
+   */
+  @Nonnegative
+  public final int getFlagCount ()
+  {
+    return m_aFlags.length;
+  }
+
+  /**
+   * Invoke the provided consumer for each flag in insertion order, without creating a copy.
+   *
+   * @param aConsumer
+   *        The consumer to invoke. May not be <code>null</code>.
+   * @since 0.8.11
+   */
+  public final void forEachFlag (@NonNull final Consumer <? super String> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    for (final String s : m_aFlags)
+      aConsumer.accept (s);
+  }
+
+  /**
+   * @return The internal flag array for same-package serializers. Never <code>null</code>. Must not
+   *         be modified.
+   */
+  @NonNull
+  final String [] internalGetFlags ()
+  {
+    return m_aFlags;
   }
 
   /**
@@ -348,23 +444,63 @@ public class DocumentDetails
   @ReturnsMutableCopy
   public final ICommonsOrderedSet <String> getAllFlags ()
   {
-    return m_aFlags.getClone ();
+    return new CommonsLinkedHashSet <> (m_aFlags);
   }
 
   /**
-   * @return A copy of the contained flags. Never <code>null</code> but maybe empty.
+   * @return A copy of the contained flags. Never <code>null</code> but maybe empty. Before 0.8.11
+   *         this was the live internal set, so changes to the returned set are no longer reflected
+   *         in this object.
    * @since 0.5.0
+   * @deprecated Since 0.8.11. Use {@link #getAllFlags()} for a copy or {@link #hasFlag(String)}
+   *             and {@link #forEachFlag(Consumer)} to avoid the copy.
    */
+  @Deprecated (forRemoval = true, since = "0.8.11")
   @NonNull
-  @ReturnsMutableObject
+  @ReturnsMutableCopy
   public final ICommonsOrderedSet <String> flags ()
   {
-    return m_aFlags;
+    return getAllFlags ();
   }
 
   public final boolean hasWrappers ()
   {
-    return m_aWrappers.isNotEmpty ();
+    return m_aWrappers.length > 0;
+  }
+
+  /**
+   * @return The number of detected wrapper types. Always &ge; 0.
+   * @since 0.8.11
+   */
+  @Nonnegative
+  public final int getWrapperCount ()
+  {
+    return m_aWrappers.length;
+  }
+
+  /**
+   * Invoke the provided consumer for each wrapper type from outside to inside, without creating a
+   * copy.
+   *
+   * @param aConsumer
+   *        The consumer to invoke. May not be <code>null</code>.
+   * @since 0.8.11
+   */
+  public final void forEachWrapper (@NonNull final Consumer <? super String> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+    for (final String s : m_aWrappers)
+      aConsumer.accept (s);
+  }
+
+  /**
+   * @return The internal wrapper array for same-package serializers. Never <code>null</code>. Must
+   *         not be modified.
+   */
+  @NonNull
+  final String [] internalGetWrappers ()
+  {
+    return m_aWrappers;
   }
 
   /**
@@ -375,18 +511,70 @@ public class DocumentDetails
   @ReturnsMutableCopy
   public final ICommonsList <String> getAllWrappers ()
   {
-    return m_aWrappers.getClone ();
+    return new CommonsArrayList <> (m_aWrappers);
   }
 
   /**
-   * @return The detected wrapper types. Never <code>null</code> but maybe empty.
+   * @return A copy of the detected wrapper types. Never <code>null</code> but maybe empty. Before
+   *         0.8.11 this was the live internal list, so changes to the returned list are no longer
+   *         reflected in this object.
    * @since 0.8.4
+   * @deprecated Since 0.8.11. Use {@link #getAllWrappers()} for a copy or
+   *             {@link #forEachWrapper(Consumer)} to avoid the copy.
    */
+  @Deprecated (forRemoval = true, since = "0.8.11")
   @NonNull
-  @ReturnsMutableObject
+  @ReturnsMutableCopy
   public final ICommonsList <String> wrappers ()
   {
-    return m_aWrappers;
+    return getAllWrappers ();
+  }
+
+  /**
+   * @return <code>true</code> if the values extracted from the source document were retained, so
+   *         that these details can be reclassified without parsing the source document again.
+   * @see DocumentDetailsDeterminator#reclassify(DocumentDetails, com.helger.ddd.model.DDDValueProviderList)
+   * @since 0.8.11
+   */
+  public final boolean hasSourceValues ()
+  {
+    return m_aSourceValues != null;
+  }
+
+  /**
+   * Get the retained value of a single source field. Note: for self-billing documents the source
+   * values are not swapped.
+   *
+   * @param eField
+   *        The field to query. May be <code>null</code>.
+   * @return <code>null</code> if no source values were retained, or if the source field had no
+   *         value.
+   * @since 0.8.11
+   */
+  @Nullable
+  public final String getSourceValue (@Nullable final EDDDSourceField eField)
+  {
+    return eField == null || m_aSourceValues == null ? null : m_aSourceValues[eField.ordinal ()];
+  }
+
+  /**
+   * @return A copy of all retained non-<code>null</code> source values. Never <code>null</code>
+   *         but maybe empty.
+   * @since 0.8.11
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public final ICommonsMap <EDDDSourceField, String> getAllSourceValues ()
+  {
+    final ICommonsMap <EDDDSourceField, String> ret = new CommonsEnumMap <> (EDDDSourceField.class);
+    if (m_aSourceValues != null)
+      for (final EDDDSourceField eField : SOURCE_FIELDS)
+      {
+        final String sValue = m_aSourceValues[eField.ordinal ()];
+        if (sValue != null)
+          ret.put (eField, sValue);
+      }
+    return ret;
   }
 
   /**
@@ -424,12 +612,41 @@ public class DocumentDetails
     DocumentDetailsXMLHelper.appendToDOMElement (this, aTarget);
   }
 
+  private static boolean _flagsEqual (@NonNull final String [] aFlags1, @NonNull final String [] aFlags2)
+  {
+    // Set semantics - order does not matter; flags are unique
+    if (aFlags1.length != aFlags2.length)
+      return false;
+    for (final String sFlag1 : aFlags1)
+    {
+      boolean bFound = false;
+      for (final String sFlag2 : aFlags2)
+        if (sFlag1.equals (sFlag2))
+        {
+          bFound = true;
+          break;
+        }
+      if (!bFound)
+        return false;
+    }
+    return true;
+  }
+
+  private static int _flagsHashCode (@NonNull final String [] aFlags)
+  {
+    // Set semantics - order does not matter
+    int ret = 0;
+    for (final String sFlag : aFlags)
+      ret += sFlag.hashCode ();
+    return ret;
+  }
+
   @Override
   public boolean equals (final Object o)
   {
     if (o == this)
       return true;
-    if (!getClass ().equals (o.getClass ()))
+    if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final DocumentDetails rhs = (DocumentDetails) o;
     return EqualsHelper.equals (m_sSyntaxID, rhs.m_sSyntaxID) &&
@@ -446,8 +663,9 @@ public class DocumentDetails
            EqualsHelper.equals (m_sReceiverCountryCode, rhs.m_sReceiverCountryCode) &&
            EqualsHelper.equals (m_sVESID, rhs.m_sVESID) &&
            EqualsHelper.equals (m_sProfileName, rhs.m_sProfileName) &&
-           EqualsHelper.equals (m_aFlags, rhs.m_aFlags) &&
-           EqualsHelper.equals (m_aWrappers, rhs.m_aWrappers);
+           _flagsEqual (m_aFlags, rhs.m_aFlags) &&
+           Arrays.equals (m_aWrappers, rhs.m_aWrappers) &&
+           Arrays.equals (m_aSourceValues, rhs.m_aSourceValues);
   }
 
   @Override
@@ -467,8 +685,9 @@ public class DocumentDetails
                                        .append (m_sReceiverCountryCode)
                                        .append (m_sVESID)
                                        .append (m_sProfileName)
-                                       .append (m_aFlags)
-                                       .append (m_aWrappers)
+                                       .append (_flagsHashCode (m_aFlags))
+                                       .append (Arrays.hashCode (m_aWrappers))
+                                       .append (Arrays.hashCode (m_aSourceValues))
                                        .getHashCode ();
   }
 
@@ -489,8 +708,9 @@ public class DocumentDetails
                                        .append ("ReceiverCountryCode", m_sReceiverCountryCode)
                                        .append ("VESID", m_sVESID)
                                        .append ("ProfileName", m_sProfileName)
-                                       .append ("Flags", m_aFlags)
-                                       .append ("Wrappers", m_aWrappers)
+                                       .append ("Flags", getAllFlags ())
+                                       .append ("Wrappers", getAllWrappers ())
+                                       .appendIfNotNull ("SourceValues", m_aSourceValues == null ? null : getAllSourceValues ())
                                        .getToString ();
   }
 
@@ -524,9 +744,18 @@ public class DocumentDetails
   {
     private String m_sSyntaxID;
     private String m_sSyntaxVersion;
+    private IIdentifierFactory m_aIF = SimpleIdentifierFactory.INSTANCE;
+    private String m_sSenderIDScheme;
+    private String m_sSenderIDValue;
     private IParticipantIdentifier m_aSenderID;
+    private String m_sReceiverIDScheme;
+    private String m_sReceiverIDValue;
     private IParticipantIdentifier m_aReceiverID;
+    private String m_sDocTypeIDScheme;
+    private String m_sDocTypeIDValue;
     private IDocumentTypeIdentifier m_aDocTypeID;
+    private String m_sProcessIDScheme;
+    private String m_sProcessIDValue;
     private IProcessIdentifier m_aProcessID;
     private String m_sCustomizationID;
     private String m_sBusinessDocumentID;
@@ -538,6 +767,7 @@ public class DocumentDetails
     private String m_sProfileName;
     private final ICommonsOrderedSet <String> m_aFlags = new CommonsLinkedHashSet <> ();
     private final ICommonsList <String> m_aWrappers = new CommonsArrayList <> ();
+    private String [] m_aSourceValues;
 
     /**
      * Builder constructor with all fields empty.
@@ -554,21 +784,24 @@ public class DocumentDetails
     public Builder (@NonNull final DocumentDetails aSource)
     {
       ValueEnforcer.notNull (aSource, "Source");
-      syntaxID (aSource.getSyntaxID ()).syntaxVersion (aSource.getSyntaxVersion ())
-                                       .senderID (aSource.getSenderID ())
-                                       .receiverID (aSource.getReceiverID ())
-                                       .documentTypeID (aSource.getDocumentTypeID ())
-                                       .processID (aSource.getProcessID ())
-                                       .businessDocumentID (aSource.getBusinessDocumentID ())
-                                       .customizationID (aSource.getCustomizationID ())
-                                       .senderName (aSource.getSenderName ())
-                                       .senderCountryCode (aSource.getSenderCountryCode ())
-                                       .receiverName (aSource.getReceiverName ())
-                                       .receiverCountryCode (aSource.getReceiverCountryCode ())
-                                       .vesid (aSource.getVESID ())
-                                       .profileName (aSource.getProfileName ())
-                                       .flags (aSource.flags ())
-                                       .wrappers (aSource.wrappers ());
+      m_sSyntaxID = aSource.m_sSyntaxID;
+      m_sSyntaxVersion = aSource.m_sSyntaxVersion;
+      m_aSenderID = aSource.m_aSenderID;
+      m_aReceiverID = aSource.m_aReceiverID;
+      m_aDocTypeID = aSource.m_aDocTypeID;
+      m_aProcessID = aSource.m_aProcessID;
+      m_sCustomizationID = aSource.m_sCustomizationID;
+      m_sBusinessDocumentID = aSource.m_sBusinessDocumentID;
+      m_sSenderName = aSource.m_sSenderName;
+      m_sSenderCountryCode = aSource.m_sSenderCountryCode;
+      m_sReceiverName = aSource.m_sReceiverName;
+      m_sReceiverCountryCode = aSource.m_sReceiverCountryCode;
+      m_sVESID = aSource.m_sVESID;
+      m_sProfileName = aSource.m_sProfileName;
+      flags (aSource.m_aFlags);
+      wrappers (aSource.m_aWrappers);
+      if (aSource.m_aSourceValues != null)
+        m_aSourceValues = aSource.m_aSourceValues.clone ();
     }
 
     @NonNull
@@ -585,34 +818,138 @@ public class DocumentDetails
       return this;
     }
 
+    /**
+     * Set the identifier factory to be used in {@link #build()} to create the identifiers provided as
+     * scheme and value. If none is set, the {@link SimpleIdentifierFactory} is used.
+     *
+     * @param a
+     *        The identifier factory to use. May be <code>null</code> to use the default.
+     * @return this for chaining
+     * @since 0.8.11
+     */
+    @NonNull
+    public final Builder identifierFactory (@Nullable final IIdentifierFactory a)
+    {
+      m_aIF = a != null ? a : SimpleIdentifierFactory.INSTANCE;
+      return this;
+    }
+
     @NonNull
     public final Builder senderID (@Nullable final IParticipantIdentifier a)
     {
+      m_sSenderIDScheme = null;
+      m_sSenderIDValue = null;
       m_aSenderID = a;
       return this;
     }
 
+    /**
+     * Set the sender ID from its parts. The identifier object is created with the identifier
+     * factory in {@link #build()}.
+     *
+     * @param sScheme
+     *        Participant identifier scheme. May be <code>null</code>.
+     * @param sValue
+     *        Participant identifier value. If <code>null</code> no sender ID is set.
+     * @return this for chaining
+     * @since 0.8.11
+     */
+    @NonNull
+    public final Builder senderID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sSenderIDScheme = sScheme;
+      m_sSenderIDValue = sValue;
+      m_aSenderID = null;
+      return this;
+    }
+
     @NonNull
     public final Builder receiverID (@Nullable final IParticipantIdentifier a)
     {
+      m_sReceiverIDScheme = null;
+      m_sReceiverIDValue = null;
       m_aReceiverID = a;
       return this;
     }
 
+    /**
+     * Set the receiver ID from its parts. The identifier object is created with the identifier
+     * factory in {@link #build()}.
+     *
+     * @param sScheme
+     *        Participant identifier scheme. May be <code>null</code>.
+     * @param sValue
+     *        Participant identifier value. If <code>null</code> no receiver ID is set.
+     * @return this for chaining
+     * @since 0.8.11
+     */
+    @NonNull
+    public final Builder receiverID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sReceiverIDScheme = sScheme;
+      m_sReceiverIDValue = sValue;
+      m_aReceiverID = null;
+      return this;
+    }
+
     @NonNull
     public final Builder documentTypeID (@Nullable final IDocumentTypeIdentifier a)
     {
+      m_sDocTypeIDScheme = null;
+      m_sDocTypeIDValue = null;
       m_aDocTypeID = a;
       return this;
     }
 
+    /**
+     * Set the document type ID from its parts. The identifier object is created with the
+     * identifier factory in {@link #build()}.
+     *
+     * @param sScheme
+     *        Document type identifier scheme. May be <code>null</code>.
+     * @param sValue
+     *        Document type identifier value. If <code>null</code> no document type ID is set.
+     * @return this for chaining
+     * @since 0.8.11
+     */
+    @NonNull
+    public final Builder documentTypeID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sDocTypeIDScheme = sScheme;
+      m_sDocTypeIDValue = sValue;
+      m_aDocTypeID = null;
+      return this;
+    }
+
     @NonNull
     public final Builder processID (@Nullable final IProcessIdentifier a)
     {
+      m_sProcessIDScheme = null;
+      m_sProcessIDValue = null;
       m_aProcessID = a;
       return this;
     }
 
+    /**
+     * Set the process ID from its parts. The identifier object is created with the identifier
+     * factory in {@link #build()}.
+     *
+     * @param sScheme
+     *        Process identifier scheme. May be <code>null</code>.
+     * @param sValue
+     *        Process identifier value. If <code>null</code> no process ID is set.
+     * @return this for chaining
+     * @since 0.8.11
+     */
+    @NonNull
+    public final Builder processID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sProcessIDScheme = sScheme;
+      m_sProcessIDValue = sValue;
+      m_aProcessID = null;
+      return this;
+    }
+
     @NonNull
     public final Builder customizationID (@Nullable final String s)
     {
@@ -709,26 +1046,65 @@ public class DocumentDetails
       return this;
     }
 
+    /**
+     * Set a single source value. Setting at least one source value (even if <code>null</code>)
+     * marks the source values as retained.
+     *
+     * @param eField
+     *        The source field. May not be <code>null</code>.
+     * @param sValue
+     *        The extracted value. May be <code>null</code>.
+     * @return this for chaining
+     * @since 0.8.11
+     */
+    @NonNull
+    public final Builder sourceValue (@NonNull final EDDDSourceField eField, @Nullable final String sValue)
+    {
+      ValueEnforcer.notNull (eField, "Field");
+      if (m_aSourceValues == null)
+        m_aSourceValues = new String [SOURCE_FIELDS.length];
+      m_aSourceValues[eField.ordinal ()] = sValue;
+      return this;
+    }
+
+    /**
+     * Set all source values. All previously set source values are discarded.
+     *
+     * @param a
+     *        The source values to use. May be <code>null</code> to indicate that no source values
+     *        are retained.
+     * @return this for chaining
+     * @since 0.8.11
+     */
+    @NonNull
+    public final Builder sourceValues (@Nullable final Map <EDDDSourceField, String> a)
+    {
+      if (a == null)
+        m_aSourceValues = null;
+      else
+      {
+        m_aSourceValues = new String [SOURCE_FIELDS.length];
+        for (final Map.Entry <EDDDSourceField, String> aEntry : a.entrySet ())
+          m_aSourceValues[aEntry.getKey ().ordinal ()] = aEntry.getValue ();
+      }
+      return this;
+    }
+
     @NonNull
     public DocumentDetails build ()
     {
+      // Resolve the identifiers provided as scheme and value
+      if (m_sSenderIDValue != null)
+        m_aSenderID = m_aIF.createParticipantIdentifier (m_sSenderIDScheme, m_sSenderIDValue);
+      if (m_sReceiverIDValue != null)
+        m_aReceiverID = m_aIF.createParticipantIdentifier (m_sReceiverIDScheme, m_sReceiverIDValue);
+      if (m_sDocTypeIDValue != null)
+        m_aDocTypeID = m_aIF.createDocumentTypeIdentifier (m_sDocTypeIDScheme, m_sDocTypeIDValue);
+      if (m_sProcessIDValue != null)
+        m_aProcessID = m_aIF.createProcessIdentifier (m_sProcessIDScheme, m_sProcessIDValue);
+
       // All fields are optional
-      return new DocumentDetails (m_sSyntaxID,
-                                  m_sSyntaxVersion,
-                                  m_aSenderID,
-                                  m_aReceiverID,
-                                  m_aDocTypeID,
-                                  m_aProcessID,
-                                  m_sCustomizationID,
-                                  m_sBusinessDocumentID,
-                                  m_sSenderName,
-                                  m_sSenderCountryCode,
-                                  m_sReceiverName,
-                                  m_sReceiverCountryCode,
-                                  m_sVESID,
-                                  m_sProfileName,
-                                  m_aFlags,
-                                  m_aWrappers);
+      return new DocumentDetails (this);
     }
   }
 }
@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.parse.DDDBatchReader;
+import com.helger.ddd.parse.DDDPrunedDocumentBuilder;
+import com.helger.ddd.parse.DDDXMLParserPool;
+
+/**
+ * Determine the document details of all files of a directory in parallel, e.g. thousands of Peppol
+ * EUSR and TSR reports that need to be reconciled at once. The files are listed and read with
+ * {@link DDDBatchReader}, so each file is streamed once with {@link DDDPrunedDocumentBuilder} and
+ * the reading stops as soon as the extractor of the syntax has all header values it needs. At most
+ * twice the thread count of files are in flight at any time, so the memory consumption does not
+ * depend on the number of files in the directory.<br>
+ * The results are written as NDJSON (newline delimited JSON) in the order of the file names - one
+ * line per file with the file name, the processing latency and the document details. The returned
+ * {@link Summary} contains the total duration and throughput.<br>
+ * Note: the files are processed in worker threads, so the error handler of the
+ * {@link DocumentDetailsDeterminator} (see {@link DocumentDetailsDeterminator#getErrorHdl()}) and
+ * the value providers are invoked from several threads concurrently and must be thread-safe. The
+ * NDJSON target is only written from the calling thread.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DocumentDetailsBatchProcessor
+{
+  public static final String JSON_FILE = "file";
+  public static final String JSON_LATENCY_MICROS = "latencyMicros";
+  public static final String JSON_DOCUMENT_DETAILS = "documentDetails";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (DocumentDetailsBatchProcessor.class);
+
+  /**
+   * The result of a single file.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class FileResult
+  {
+    private final Path m_aFile;
+    private final DocumentDetails m_aDocumentDetails;
+    private final long m_nLatencyNanos;
+
+    FileResult (@NonNull final Path aFile, @Nullable final DocumentDetails aDocumentDetails, final long nLatencyNanos)
+    {
+      m_aFile = aFile;
+      m_aDocumentDetails = aDocumentDetails;
+      m_nLatencyNanos = nLatencyNanos;
+    }
+
+    /**
+     * @return The processed file. Never <code>null</code>.
+     */
+    @NonNull
+    public Path getFile ()
+    {
+      return m_aFile;
+    }
+
+    /**
+     * @return The determined document details or <code>null</code> if the file could not be read,
+     *         is not well-formed or if the document type could not be determined.
+     */
+    @Nullable
+    public DocumentDetails getDocumentDetails ()
+    {
+      return m_aDocumentDetails;
+    }
+
+    /**
+     * @return The time it took to process the file in nanoseconds. Waiting for a free thread is not
+     *         included.
+     */
+    @Nonnegative
+    public long getLatencyNanos ()
+    {
+      return m_nLatencyNanos;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("File", m_aFile)
+                                         .append ("DocumentDetails", m_aDocumentDetails)
+                                         .append ("LatencyNanos", m_nLatencyNanos)
+                                         .getToString ();
+    }
+  }
+
+  /**
+   * The summary of a whole batch.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class Summary
+  {
+    private final int m_nFileCount;
+    private final int m_nSuccessCount;
+    private final long m_nTotalNanos;
+    private final long m_nSumLatencyNanos;
+    private final long m_nMaxLatencyNanos;
+
+    Summary (@Nonnegative final int nFileCount,
+             @Nonnegative final int nSuccessCount,
+             @Nonnegative final long nTotalNanos,
+             @Nonnegative final long nSumLatencyNanos,
+             @Nonnegative final long nMaxLatencyNanos)
+    {
+      m_nFileCount = nFileCount;
+      m_nSuccessCount = nSuccessCount;
+      m_nTotalNanos = nTotalNanos;
+      m_nSumLatencyNanos = nSumLatencyNanos;
+      m_nMaxLatencyNanos = nMaxLatencyNanos;
+    }
+
+    /**
+     * @return The number of processed files. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getFileCount ()
+    {
+      return m_nFileCount;
+    }
+
+    /**
+     * @return The number of files for which document details could be determined. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getSuccessCount ()
+    {
+      return m_nSuccessCount;
+    }
+
+    /**
+     * @return The number of files for which no document details could be determined. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getFailureCount ()
+    {
+      return m_nFileCount - m_nSuccessCount;
+    }
+
+    /**
+     * @return The wall clock duration of the whole batch in nanoseconds, including writing the
+     *         NDJSON output.
+     */
+    @Nonnegative
+    public long getTotalNanos ()
+    {
+      return m_nTotalNanos;
+    }
+
+    /**
+     * @return The average latency per file in nanoseconds. 0 if no file was processed.
+     */
+    @Nonnegative
+    public long getAverageLatencyNanos ()
+    {
+      return m_nFileCount == 0 ? 0 : m_nSumLatencyNanos / m_nFileCount;
+    }
+
+    /**
+     * @return The maximum latency of a single file in nanoseconds. 0 if no file was processed.
+     */
+    @Nonnegative
+    public long getMaxLatencyNanos ()
+    {
+      return m_nMaxLatencyNanos;
+    }
+
+    /**
+     * @return The number of processed files per second. 0 if no file was processed.
+     */
+    @Nonnegative
+    public double getThroughputPerSecond ()
+    {
+      return m_nTotalNanos == 0 ? 0 : m_nFileCount * (double) TimeUnit.SECONDS.toNanos (1) / m_nTotalNanos;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("FileCount", m_nFileCount)
+                                         .append ("SuccessCount", m_nSuccessCount)
+                                         .append ("TotalNanos", m_nTotalNanos)
+                                         .append ("SumLatencyNanos", m_nSumLatencyNanos)
+                                         .append ("MaxLatencyNanos", m_nMaxLatencyNanos)
+                                         .getToString ();
+    }
+  }
+
+  private final DDDBatchReader m_aReader;
+  private final int m_nThreadCount;
+
+  /**
+   * Constructor using one thread per available processor.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        processor is in use and its error handler must be thread-safe.
+   */
+  public DocumentDetailsBatchProcessor (@NonNull final DocumentDetailsDeterminator aDeterminator)
+  {
+    this (aDeterminator, Runtime.getRuntime ().availableProcessors ());
+  }
+
+  /**
+   * Constructor using the default parser pool.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        processor is in use and its error handler must be thread-safe.
+   * @param nThreadCount
+   *        The number of files to process in parallel. Must be &gt; 0.
+   */
+  public DocumentDetailsBatchProcessor (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                                        final int nThreadCount)
+  {
+    this (aDeterminator, DDDXMLParserPool.getDefaultInstance (), nThreadCount);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        processor is in use and its error handler must be thread-safe.
+   * @param aParserPool
+   *        The parser pool whose StAX factory is used. May not be <code>null</code>.
+   * @param nThreadCount
+   *        The number of files to process in parallel. Must be &gt; 0.
+   */
+  public DocumentDetailsBatchProcessor (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                                        @NonNull final DDDXMLParserPool aParserPool,
+                                        final int nThreadCount)
+  {
+    ValueEnforcer.isGT0 (nThreadCount, "ThreadCount");
+    m_aReader = new DDDBatchReader (aDeterminator, aParserPool);
+    m_nThreadCount = nThreadCount;
+  }
+
+  /**
+   * @return The number of files processed in parallel. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getThreadCount ()
+  {
+    return m_nThreadCount;
+  }
+
+  /**
+   * Process a single file. This method may be called from several threads concurrently.
+   *
+   * @param aFile
+   *        The file to process. May not be <code>null</code>.
+   * @return The result of the file. Never <code>null</code>.
+   */
+  @NonNull
+  public FileResult processFile (@NonNull final Path aFile)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+
+    return _processFile (aFile, m_aReader.newWorkDocument ());
+  }
+
+  @NonNull
+  private FileResult _processFile (@NonNull final Path aFile, @NonNull final Document aWorkDoc)
+  {
+    final long nStart = System.nanoTime ();
+    final DocumentDetails aDD = m_aReader.readFile (aFile, aWorkDoc);
+    return new FileResult (aFile, aDD, System.nanoTime () - nStart);
+  }
+
+  /**
+   * Write a single file result as one NDJSON line.
+   *
+   * @param aResult
+   *        The result to write. May not be <code>null</code>.
+   * @param aTarget
+   *        The target to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case writing fails
+   */
+  public static void writeNDJSONLine (@NonNull final FileResult aResult,
+                                      @NonNull final Appendable aTarget) throws IOException
+  {
+    ValueEnforcer.notNull (aResult, "Result");
+    ValueEnforcer.notNull (aTarget, "Target");
+
+    aTarget.append ('{');
+    DocumentDetailsJsonWriter.writeJsonString (JSON_FILE, aTarget);
+    aTarget.append (':');
+    DocumentDetailsJsonWriter.writeJsonString (aResult.getFile ().getFileName ().toString (), aTarget);
+    aTarget.append (',');
+    DocumentDetailsJsonWriter.writeJsonString (JSON_LATENCY_MICROS, aTarget);
+    aTarget.append (':').append (Long.toString (TimeUnit.NANOSECONDS.toMicros (aResult.getLatencyNanos ())));
+    aTarget.append (',');
+    DocumentDetailsJsonWriter.writeJsonString (JSON_DOCUMENT_DETAILS, aTarget);
+    aTarget.append (':');
+    final DocumentDetails aDD = aResult.getDocumentDetails ();
+    if (aDD == null)
+      aTarget.append ("null");
+    else
+      DocumentDetailsJsonWriter.write (aDD, aTarget);
+    aTarget.append ("}\n");
+  }
+
+  /**
+   * Process all files in the provided directory whose name ends with the provided suffix in
+   * parallel and write one NDJSON line per file in the order of the file names. Sub directories are
+   * not considered. The directory is listed with {@link DDDBatchReader#listFiles(Path, String)} and
+   * only a bounded number of files is submitted ahead of the output.
+   *
+   * @param aDir
+   *        The directory to process. May not be <code>null</code>.
+   * @param sFilenameSuffix
+   *        The file name suffix like <code>.xml</code>. May not be <code>null</code> but may be empty
+   *        to process all files.
+   * @param aNDJSONTarget
+   *        The target to write the NDJSON lines to. May not be <code>null</code>. It is only written
+   *        from the calling thread.
+   * @return The summary of the batch. Never <code>null</code>.
+   * @throws IOException
+   *         If the directory cannot be listed or if writing fails.
+   */
+  @NonNull
+  public Summary processDirectory (@NonNull final Path aDir,
+                                   @NonNull final String sFilenameSuffix,
+                                   @NonNull final Appendable aNDJSONTarget) throws IOException
+  {
+    ValueEnforcer.notNull (aNDJSONTarget, "NDJSONTarget");
+
+    final long nStart = System.nanoTime ();
+
+    final ICommonsList <Path> aFiles = DDDBatchReader.listFiles (aDir, sFilenameSuffix);
+    final int nMaxInFlight = m_nThreadCount * 2;
+    // The work documents are reused between the files of this run only. At most one per thread is
+    // created, and they are released together with this run.
+    final Queue <Document> aWorkDocs = new ConcurrentLinkedQueue <> ();
+
+    int nSuccessCount = 0;
+    long nSumLatencyNanos = 0;
+    long nMaxLatencyNanos = 0;
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (Math.min (m_nThreadCount,
+                                                                              Math.max (aFiles.size (), 1)));
+    try
+    {
+      final Deque <Future <FileResult>> aInFlight = new ArrayDeque <> (nMaxInFlight);
+      int nNextFile = 0;
+      while (nNextFile < aFiles.size () || !aInFlight.isEmpty ())
+      {
+        // Keep the workers busy, but never submit more than the window
+        while (nNextFile < aFiles.size () && aInFlight.size () < nMaxInFlight)
+        {
+          final Path aFile = aFiles.get (nNextFile++);
+          aInFlight.addLast (aExecutor.submit ( () -> {
+            Document aWorkDoc = aWorkDocs.poll ();
+            if (aWorkDoc == null)
+              aWorkDoc = m_aReader.newWorkDocument ();
+            try
+            {
+              return _processFile (aFile, aWorkDoc);
+            }
+            finally
+            {
+              aWorkDocs.offer (aWorkDoc);
+            }
+          }));
+        }
+
+        // Write in the original order, while the remaining files are still processed
+        final FileResult aResult;
+        try
+        {
+          aResult = aInFlight.removeFirst ().get ();
+        }
+        catch (final InterruptedException ex)
+        {
+          Thread.currentThread ().interrupt ();
+          throw new InterruptedIOException ("Interrupted while processing directory '" + aDir + "'");
+        }
+        catch (final ExecutionException ex)
+        {
+          throw new IllegalStateException ("Failed to process a file of directory '" + aDir + "'", ex.getCause ());
+        }
+
+        if (aResult.getDocumentDetails () != null)
+          nSuccessCount++;
+        nSumLatencyNanos += aResult.getLatencyNanos ();
+        nMaxLatencyNanos = Math.max (nMaxLatencyNanos, aResult.getLatencyNanos ());
+        writeNDJSONLine (aResult, aNDJSONTarget);
+      }
+    }
+    finally
+    {
+      aExecutor.shutdownNow ();
+    }
+
+    final Summary ret = new Summary (aFiles.size (),
+                                     nSuccessCount,
+                                     System.nanoTime () - nStart,
+                                     nSumLatencyNanos,
+                                     nMaxLatencyNanos);
+    if (LOGGER.isInfoEnabled ())
+      LOGGER.info ("Processed " +
+                   ret.getFileCount () +
+                   " files of directory '" +
+                   aDir +
+                   "' in " +
+                   TimeUnit.NANOSECONDS.toMillis (ret.getTotalNanos ()) +
+                   " ms (" +
+                   ret.getFailureCount () +
+                   " failures, " +
+                   Math.round (ret.getThroughputPerSecond ()) +
+                   " files/s)");
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Reader", m_aReader)
+                                       .append ("ThreadCount", m_nThreadCount)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.ddd.model.EDDDSourceField;
+import com.helger.peppolid.factory.IIdentifierFactory;
+
+/**
+ * Decoder for the binary format created by {@link DocumentDetailsBinaryWriter}. Records are decoded
+ * directly into {@link DocumentDetails} objects. Identifiers are created by the provided identifier
+ * factory. Lengths and counts read from the stream are validated, so that malformed input always
+ * results in an {@link IOException}.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@NotThreadSafe
+public class DocumentDetailsBinaryReader
+{
+  /** The maximum number of UTF-8 bytes of a single string that is accepted */
+  public static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+  /** The maximum number of flags or wrappers of a single record that is accepted */
+  public static final int MAX_STRING_COUNT = 64 * 1024;
+
+  private static final String [] EMPTY_STRING_ARRAY = new String [0];
+
+  private final InputStream m_aIS;
+  private final IIdentifierFactory m_aIF;
+  private final List <String> m_aDictionary = new ArrayList <> ();
+  private final String [] m_aValues = new String [DocumentDetailsBinaryWriter.FIELD_COUNT];
+  private final byte [] m_aChunk = new byte [8 * 1024];
+  private boolean m_bHeaderRead = false;
+  private long m_nRecordCount = 0;
+
+  /**
+   * Constructor.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>. It is not closed by this
+   *        class. Using a buffered stream is recommended.
+   * @param aIF
+   *        The identifier factory to be used to create the identifiers. May not be
+   *        <code>null</code>.
+   */
+  public DocumentDetailsBinaryReader (@NonNull final InputStream aIS, @NonNull final IIdentifierFactory aIF)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aIF, "IdentifierFactory");
+    m_aIS = aIS;
+    m_aIF = aIF;
+  }
+
+  /**
+   * @return The number of records read so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public final long getRecordCount ()
+  {
+    return m_nRecordCount;
+  }
+
+  private int _readByte () throws IOException
+  {
+    final int ret = m_aIS.read ();
+    if (ret < 0)
+      throw new EOFException ("Unexpected end of binary DocumentDetails stream");
+    return ret;
+  }
+
+  private int _readVarInt (final int nFirstByte) throws IOException
+  {
+    int ret = nFirstByte & 0x7f;
+    int b = nFirstByte;
+    int nShift = 7;
+    while ((b & 0x80) != 0)
+    {
+      b = _readByte ();
+      // The 5th byte may only contain the remaining 3 bits of a non-negative int
+      if (nShift == 28 && (b & 0xf8) != 0)
+        throw new IOException ("Malformed varint in binary DocumentDetails stream");
+      ret |= (b & 0x7f) << nShift;
+      nShift += 7;
+    }
+    return ret;
+  }
+
+  @Nonnegative
+  private int _readSize (@Nonnegative final int nMax, @NonNull final String sWhat) throws IOException
+  {
+    final int ret = _readVarInt ();
+    if (ret > nMax)
+      throw new IOException ("The " + sWhat + " " + ret + " exceeds the maximum of " + nMax);
+    return ret;
+  }
+
+  private void _readFully (@Nonnegative final int nLen) throws IOException
+  {
+    if (m_aIS.readNBytes (m_aChunk, 0, nLen) != nLen)
+      throw new EOFException ("Unexpected end of binary DocumentDetails stream");
+  }
+
+  @NonNull
+  private String _readUTF8 (@Nonnegative final int nLen) throws IOException
+  {
+    if (nLen <= m_aChunk.length)
+    {
+      _readFully (nLen);
+      return new String (m_aChunk, 0, nLen, StandardCharsets.UTF_8);
+    }
+
+    // Read in chunks, so that a corrupt length cannot allocate more than the stream contains
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream (m_aChunk.length * 2))
+    {
+      int nRemaining = nLen;
+      while (nRemaining > 0)
+      {
+        final int nChunk = Math.min (nRemaining, m_aChunk.length);
+        _readFully (nChunk);
+        aBAOS.write (m_aChunk, 0, nChunk);
+        nRemaining -= nChunk;
+      }
+      return new String (aBAOS.toByteArray (), StandardCharsets.UTF_8);
+    }
+  }
+
+  private int _readVarInt () throws IOException
+  {
+    return _readVarInt (_readByte ());
+  }
+
+  @NonNull
+  private String _readString () throws IOException
+  {
+    final int nTag = _readVarInt ();
+    if (nTag >= DocumentDetailsBinaryWriter.STRING_REF_OFFSET)
+    {
+      final int nIndex = nTag - DocumentDetailsBinaryWriter.STRING_REF_OFFSET;
+      if (nIndex >= m_aDictionary.size ())
+        throw new IOException ("Invalid dictionary reference " + nIndex + " in binary DocumentDetails stream");
+      return m_aDictionary.get (nIndex);
+    }
+
+    final String ret = _readUTF8 (_readSize (MAX_STRING_BYTES, "string length"));
+    if (nTag == DocumentDetailsBinaryWriter.STRING_LITERAL_DICT)
+      m_aDictionary.add (ret);
+    return ret;
+  }
+
+  @NonNull
+  private String [] _readStrings () throws IOException
+  {
+    final int nCount = _readSize (MAX_STRING_COUNT, "string count");
+    if (nCount == 0)
+      return EMPTY_STRING_ARRAY;
+    final String [] ret = new String [nCount];
+    for (int i = 0; i < nCount; ++i)
+      ret[i] = _readString ();
+    return ret;
+  }
+
+  /**
+   * Read the next record.
+   *
+   * @return <code>null</code> if the end of the stream was reached.
+   * @throws IOException
+   *         In case reading fails or if the stream is malformed
+   */
+  @Nullable
+  public DocumentDetails read () throws IOException
+  {
+    if (!m_bHeaderRead)
+    {
+      final byte [] aHeader = m_aIS.readNBytes (DocumentDetailsBinaryWriter.MAGIC.length + 1);
+      if (aHeader.length == 0)
+        return null;
+      for (int i = 0; i < DocumentDetailsBinaryWriter.MAGIC.length; ++i)
+        if (i >= aHeader.length || aHeader[i] != DocumentDetailsBinaryWriter.MAGIC[i])
+          throw new IOException ("Not a binary DocumentDetails stream");
+      if (aHeader.length <= DocumentDetailsBinaryWriter.MAGIC.length)
+        throw new EOFException ("Unexpected end of binary DocumentDetails stream");
+      final byte nVersion = aHeader[DocumentDetailsBinaryWriter.MAGIC.length];
+      if (nVersion != DocumentDetailsBinaryWriter.VERSION_1)
+        throw new IOException ("Unsupported binary DocumentDetails version " + nVersion);
+      m_bHeaderRead = true;
+    }
+
+    final int nFirstByte = m_aIS.read ();
+    if (nFirstByte < 0)
+    {
+      // Regular end of stream
+      return null;
+    }
+
+    final int nMask = _readVarInt (nFirstByte);
+    final String [] aValues = m_aValues;
+    for (int i = 0; i < DocumentDetailsBinaryWriter.FIELD_COUNT; ++i)
+      aValues[i] = (nMask & (1 << i)) != 0 ? _readString () : null;
+    final String [] aFlags = _readStrings ();
+    final String [] aWrappers = _readStrings ();
+    final int nSourceMask = _readVarInt ();
+    ICommonsMap <EDDDSourceField, String> aSourceValues = null;
+    if (nSourceMask > 0)
+    {
+      aSourceValues = new CommonsEnumMap <> (EDDDSourceField.class);
+      for (final EDDDSourceField eField : DocumentDetailsBinaryWriter.SOURCE_FIELDS)
+        if (((nSourceMask - 1) & (1 << eField.ordinal ())) != 0)
+          aSourceValues.put (eField, _readString ());
+    }
+
+    m_nRecordCount++;
+    return DocumentDetails.builder ()
+                          .identifierFactory (m_aIF)
+                          .syntaxID (aValues[DocumentDetailsBinaryWriter.FIELD_SYNTAX_ID])
+                          .syntaxVersion (aValues[DocumentDetailsBinaryWriter.FIELD_SYNTAX_VERSION])
+                          .senderID (aValues[DocumentDetailsBinaryWriter.FIELD_SENDER_ID_SCHEME],
+                                     aValues[DocumentDetailsBinaryWriter.FIELD_SENDER_ID_VALUE])
+                          .receiverID (aValues[DocumentDetailsBinaryWriter.FIELD_RECEIVER_ID_SCHEME],
+                                       aValues[DocumentDetailsBinaryWriter.FIELD_RECEIVER_ID_VALUE])
+                          .documentTypeID (aValues[DocumentDetailsBinaryWriter.FIELD_DOC_TYPE_ID_SCHEME],
+                                           aValues[DocumentDetailsBinaryWriter.FIELD_DOC_TYPE_ID_VALUE])
+                          .processID (aValues[DocumentDetailsBinaryWriter.FIELD_PROCESS_ID_SCHEME],
+                                      aValues[DocumentDetailsBinaryWriter.FIELD_PROCESS_ID_VALUE])
+                          .customizationID (aValues[DocumentDetailsBinaryWriter.FIELD_CUSTOMIZATION_ID])
+                          .businessDocumentID (aValues[DocumentDetailsBinaryWriter.FIELD_BUSINESS_DOCUMENT_ID])
+                          .senderName (aValues[DocumentDetailsBinaryWriter.FIELD_SENDER_NAME])
+                          .senderCountryCode (aValues[DocumentDetailsBinaryWriter.FIELD_SENDER_COUNTRY_CODE])
+                          .receiverName (aValues[DocumentDetailsBinaryWriter.FIELD_RECEIVER_NAME])
+                          .receiverCountryCode (aValues[DocumentDetailsBinaryWriter.FIELD_RECEIVER_COUNTRY_CODE])
+                          .vesid (aValues[DocumentDetailsBinaryWriter.FIELD_VESID])
+                          .profileName (aValues[DocumentDetailsBinaryWriter.FIELD_PROFILE_NAME])
+                          .flags (aFlags)
+                          .wrappers (aWrappers)
+                          .sourceValues (aSourceValues)
+                          .build ();
+  }
+
+  /**
+   * Decode a single {@link DocumentDetails} object from a byte array created by
+   * {@link DocumentDetailsBinaryWriter#getAsBytes(DocumentDetails)}.
+   *
+   * @param aBytes
+   *        The bytes to decode. May be <code>null</code>.
+   * @param aIF
+   *        The identifier factory to be used. May not be <code>null</code>.
+   * @return <code>null</code> if the byte array is <code>null</code> or empty.
+   * @throws IllegalArgumentException
+   *         if the bytes are not a valid binary DocumentDetails representation
+   */
+  @Nullable
+  public static DocumentDetails getAsDocumentDetails (@Nullable final byte [] aBytes,
+                                                      @NonNull final IIdentifierFactory aIF)
+  {
+    if (aBytes == null)
+      return null;
+
+    try (final NonBlockingByteArrayInputStream aBAIS = new NonBlockingByteArrayInputStream (aBytes))
+    {
+      return new DocumentDetailsBinaryReader (aBAIS, aIF).read ();
+    }
+    catch (final IOException ex)
+    {
+      throw new IllegalArgumentException ("Failed to decode binary DocumentDetails", ex);
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("IF", m_aIF)
+                                       .append ("DictionarySize", m_aDictionary.size ())
+                                       .append ("RecordCount", m_nRecordCount)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.ddd.model.EDDDSourceField;
+import com.helger.peppolid.IIdentifier;
+
+/**
+ * Compact, versioned binary encoder for {@link DocumentDetails}, e.g. for queueing and caching.
+ * Use {@link DocumentDetailsBinaryReader} to read the data back.<br>
+ * Layout: a header consisting of the 3 magic bytes <code>DDB</code> and a version byte, followed by
+ * an arbitrary number of records. Each record starts with a varint bit mask of the contained
+ * fields, followed by the contained fields, the flag and wrapper lists and the optional source
+ * values. All numbers are unsigned
+ * varints. Repeated low-cardinality strings (syntax IDs, schemes, VESIDs, flags etc.) are written
+ * only once per stream and afterwards referenced via their dictionary index.<br>
+ * Identifiers are written as scheme and value.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@NotThreadSafe
+public class DocumentDetailsBinaryWriter
+{
+  /** The magic bytes at the beginning of each stream */
+  public static final byte [] MAGIC = { 'D', 'D', 'B' };
+  /** The current format version */
+  public static final byte VERSION_1 = 1;
+  /** The default maximum number of dictionary entries per stream */
+  public static final int DEFAULT_MAX_DICTIONARY_SIZE = 4096;
+
+  // Field bits in the record mask - never change the values
+  static final int FIELD_SYNTAX_ID = 0;
+  static final int FIELD_SYNTAX_VERSION = 1;
+  static final int FIELD_SENDER_ID_SCHEME = 2;
+  static final int FIELD_SENDER_ID_VALUE = 3;
+  static final int FIELD_RECEIVER_ID_SCHEME = 4;
+  static final int FIELD_RECEIVER_ID_VALUE = 5;
+  static final int FIELD_DOC_TYPE_ID_SCHEME = 6;
+  static final int FIELD_DOC_TYPE_ID_VALUE = 7;
+  static final int FIELD_PROCESS_ID_SCHEME = 8;
+  static final int FIELD_PROCESS_ID_VALUE = 9;
+  static final int FIELD_CUSTOMIZATION_ID = 10;
+  static final int FIELD_BUSINESS_DOCUMENT_ID = 11;
+  static final int FIELD_SENDER_NAME = 12;
+  static final int FIELD_SENDER_COUNTRY_CODE = 13;
+  static final int FIELD_RECEIVER_NAME = 14;
+  static final int FIELD_RECEIVER_COUNTRY_CODE = 15;
+  static final int FIELD_VESID = 16;
+  static final int FIELD_PROFILE_NAME = 17;
+  static final int FIELD_COUNT = 18;
+  static final EDDDSourceField [] SOURCE_FIELDS = EDDDSourceField.values ();
+
+  // String tags
+  /** A string literal that is not added to the dictionary */
+  static final int STRING_LITERAL = 0;
+  /** A string literal that is added to the dictionary */
+  static final int STRING_LITERAL_DICT = 1;
+  /** Dictionary references start at this tag */
+  static final int STRING_REF_OFFSET = 2;
+
+  private final OutputStream m_aOS;
+  private final int m_nMaxDictionarySize;
+  private final Map <String, Integer> m_aDictionary = new HashMap <> ();
+  private final String [] m_aValues = new String [FIELD_COUNT];
+  private boolean m_bHeaderWritten = false;
+  private long m_nRecordCount = 0;
+
+  /**
+   * Constructor using the default maximum dictionary size.
+   *
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>. It is not closed by this
+   *        class. Using a buffered stream is recommended.
+   */
+  public DocumentDetailsBinaryWriter (@NonNull final OutputStream aOS)
+  {
+    this (aOS, DEFAULT_MAX_DICTIONARY_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>. It is not closed by this
+   *        class. Using a buffered stream is recommended.
+   * @param nMaxDictionarySize
+   *        The maximum number of dictionary entries. If the dictionary is full, new strings are
+   *        written as plain literals. Must be &ge; 0.
+   */
+  public DocumentDetailsBinaryWriter (@NonNull final OutputStream aOS, @Nonnegative final int nMaxDictionarySize)
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    ValueEnforcer.isGE0 (nMaxDictionarySize, "MaxDictionarySize");
+    m_aOS = aOS;
+    m_nMaxDictionarySize = nMaxDictionarySize;
+  }
+
+  /**
+   * @return The maximum number of dictionary entries as provided in the constructor.
+   */
+  @Nonnegative
+  public final int getMaxDictionarySize ()
+  {
+    return m_nMaxDictionarySize;
+  }
+
+  /**
+   * @return The number of records written so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public final long getRecordCount ()
+  {
+    return m_nRecordCount;
+  }
+
+  /**
+   * Determine if the provided field uses the dictionary or if it is always written as a literal.
+   * High-cardinality fields like the business document ID are never added to the dictionary, so
+   * that it does not grow with each record.
+   */
+  private static boolean _isDictionaryField (final int nField)
+  {
+    switch (nField)
+    {
+      case FIELD_SENDER_ID_VALUE:
+      case FIELD_RECEIVER_ID_VALUE:
+      case FIELD_BUSINESS_DOCUMENT_ID:
+      case FIELD_SENDER_NAME:
+      case FIELD_RECEIVER_NAME:
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  static void writeVarInt (@NonNull final OutputStream aOS, final int nValue) throws IOException
+  {
+    int n = nValue;
+    while ((n & ~0x7f) != 0)
+    {
+      aOS.write ((n & 0x7f) | 0x80);
+      n >>>= 7;
+    }
+    aOS.write (n);
+  }
+
+  private void _writeLiteral (final int nTag, @NonNull final String s) throws IOException
+  {
+    final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+    writeVarInt (m_aOS, nTag);
+    writeVarInt (m_aOS, aBytes.length);
+    m_aOS.write (aBytes);
+  }
+
+  private void _writeString (@NonNull final String s, final boolean bUseDictionary) throws IOException
+  {
+    if (bUseDictionary)
+    {
+      final Integer aIndex = m_aDictionary.get (s);
+      if (aIndex != null)
+      {
+        writeVarInt (m_aOS, STRING_REF_OFFSET + aIndex.intValue ());
+        return;
+      }
+      if (m_aDictionary.size () < m_nMaxDictionarySize)
+      {
+        // The reader assigns the same index when reading the literal
+        m_aDictionary.put (s, Integer.valueOf (m_aDictionary.size ()));
+        _writeLiteral (STRING_LITERAL_DICT, s);
+        return;
+      }
+    }
+    _writeLiteral (STRING_LITERAL, s);
+  }
+
+  private void _writeStrings (@NonNull final String [] aValues) throws IOException
+  {
+    writeVarInt (m_aOS, aValues.length);
+    for (final String s : aValues)
+      _writeString (s, true);
+  }
+
+  @Nullable
+  private static String _getScheme (@Nullable final IIdentifier aID)
+  {
+    return aID == null ? null : aID.getScheme ();
+  }
+
+  @Nullable
+  private static String _getValue (@Nullable final IIdentifier aID)
+  {
+    return aID == null ? null : aID.getValue ();
+  }
+
+  /**
+   * Write a single record. The stream header is written before the first record.
+   *
+   * @param aDD
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @throws IOException
+   *         In case writing fails
+   */
+  public void write (@NonNull final DocumentDetails aDD) throws IOException
+  {
+    ValueEnforcer.notNull (aDD, "DocumentDetails");
+
+    if (!m_bHeaderWritten)
+    {
+      m_aOS.write (MAGIC);
+      m_aOS.write (VERSION_1);
+      m_bHeaderWritten = true;
+    }
+
+    final String [] aValues = m_aValues;
+    aValues[FIELD_SYNTAX_ID] = aDD.getSyntaxID ();
+    aValues[FIELD_SYNTAX_VERSION] = aDD.getSyntaxVersion ();
+    aValues[FIELD_SENDER_ID_SCHEME] = _getScheme (aDD.getSenderID ());
+    aValues[FIELD_SENDER_ID_VALUE] = _getValue (aDD.getSenderID ());
+    aValues[FIELD_RECEIVER_ID_SCHEME] = _getScheme (aDD.getReceiverID ());
+    aValues[FIELD_RECEIVER_ID_VALUE] = _getValue (aDD.getReceiverID ());
+    aValues[FIELD_DOC_TYPE_ID_SCHEME] = _getScheme (aDD.getDocumentTypeID ());
+    aValues[FIELD_DOC_TYPE_ID_VALUE] = _getValue (aDD.getDocumentTypeID ());
+    aValues[FIELD_PROCESS_ID_SCHEME] = _getScheme (aDD.getProcessID ());
+    aValues[FIELD_PROCESS_ID_VALUE] = _getValue (aDD.getProcessID ());
+    aValues[FIELD_CUSTOMIZATION_ID] = aDD.getCustomizationID ();
+    aValues[FIELD_BUSINESS_DOCUMENT_ID] = aDD.getBusinessDocumentID ();
+    aValues[FIELD_SENDER_NAME] = aDD.getSenderName ();
+    aValues[FIELD_SENDER_COUNTRY_CODE] = aDD.getSenderCountryCode ();
+    aValues[FIELD_RECEIVER_NAME] = aDD.getReceiverName ();
+    aValues[FIELD_RECEIVER_COUNTRY_CODE] = aDD.getReceiverCountryCode ();
+    aValues[FIELD_VESID] = aDD.getVESID ();
+    aValues[FIELD_PROFILE_NAME] = aDD.getProfileName ();
+
+    int nMask = 0;
+    for (int i = 0; i < FIELD_COUNT; ++i)
+      if (aValues[i] != null)
+        nMask |= 1 << i;
+    writeVarInt (m_aOS, nMask);
+
+    for (int i = 0; i < FIELD_COUNT; ++i)
+      if (aValues[i] != null)
+        _writeString (aValues[i], _isDictionaryField (i));
+
+    _writeStrings (aDD.internalGetFlags ());
+    _writeStrings (aDD.internalGetWrappers ());
+
+    // Optional source values: 0 if not retained, else the bit mask of present values plus 1
+    if (aDD.hasSourceValues ())
+    {
+      int nSourceMask = 0;
+      for (final EDDDSourceField eField : SOURCE_FIELDS)
+        if (aDD.getSourceValue (eField) != null)
+          nSourceMask |= 1 << eField.ordinal ();
+      writeVarInt (m_aOS, nSourceMask + 1);
+      for (final EDDDSourceField eField : SOURCE_FIELDS)
+      {
+        final String sValue = aDD.getSourceValue (eField);
+        if (sValue != null)
+          _writeString (sValue, eField.isLowCardinality ());
+      }
+    }
+    else
+      writeVarInt (m_aOS, 0);
+    m_nRecordCount++;
+  }
+
+  /**
+   * Flush the underlying output stream.
+   *
+   * @throws IOException
+   *         In case flushing fails
+   */
+  public void flush () throws IOException
+  {
+    m_aOS.flush ();
+  }
+
+  /**
+   * Encode a single {@link DocumentDetails} object into a self-contained byte array that can be
+   * decoded via {@link DocumentDetailsBinaryReader#getAsDocumentDetails(byte[], com.helger.peppolid.factory.IIdentifierFactory)}.
+   *
+   * @param aDD
+   *        The Document Details to be encoded. May not be <code>null</code>.
+   * @return The encoded bytes. Never <code>null</code>.
+   */
+  @NonNull
+  public static byte [] getAsBytes (@NonNull final DocumentDetails aDD)
+  {
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream (256))
+    {
+      new DocumentDetailsBinaryWriter (aBAOS).write (aDD);
+      return aBAOS.toByteArray ();
+    }
+    catch (final IOException ex)
+    {
+      // Cannot happen on a byte array
+      throw new IllegalStateException ("Failed to write to byte array", ex);
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxDictionarySize", m_nMaxDictionarySize)
+                                       .append ("DictionarySize", m_aDictionary.size ())
+                                       .append ("RecordCount", m_nRecordCount)
+                                       .getToString ();
+  }
+}
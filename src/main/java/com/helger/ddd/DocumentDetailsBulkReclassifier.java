@@ -0,0 +1,375 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.ddd.model.DDDSyntax;
+import com.helger.ddd.model.EDDDSourceField;
+import com.helger.ddd.model.IDDDValueProviderList;
+import com.helger.ddd.model.VPDeterminedFlags;
+import com.helger.ddd.model.VPDeterminedValues;
+import com.helger.ddd.model.VPIf;
+import com.helger.ddd.model.VPSelect;
+import com.helger.json.IJsonObject;
+import com.helger.json.serialize.JsonReader;
+
+/**
+ * Bulk reclassification of stored {@link DocumentDetails} that were created with retained source
+ * values (see {@link DocumentDetailsDeterminator#setRetainSourceValues(boolean)}). For each syntax
+ * only the source fields that are actually referenced by the value providers are relevant for the
+ * deduction. Records are grouped by the distinct tuple of these values, and the deduction runs only
+ * once per distinct tuple. Records are processed in a streaming fashion - only the deduction
+ * results are kept in memory.<br>
+ * Records that cannot be reclassified (no source values, unknown syntax) are passed through
+ * unchanged.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@NotThreadSafe
+public class DocumentDetailsBulkReclassifier
+{
+  /** The default maximum number of cached deduction results */
+  public static final int DEFAULT_MAX_CACHE_SIZE = 100_000;
+
+  /**
+   * The cache key: syntax ID and the values of all source fields relevant for the deduction.
+   */
+  private static final class TupleKey
+  {
+    private final String m_sSyntaxID;
+    private final String [] m_aValues;
+    private final int m_nHashCode;
+
+    TupleKey (@NonNull final String sSyntaxID, @NonNull final String [] aValues)
+    {
+      m_sSyntaxID = sSyntaxID;
+      m_aValues = aValues;
+      m_nHashCode = 31 * sSyntaxID.hashCode () + Arrays.hashCode (aValues);
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      if (o == this)
+        return true;
+      if (!(o instanceof TupleKey))
+        return false;
+      final TupleKey rhs = (TupleKey) o;
+      return m_sSyntaxID.equals (rhs.m_sSyntaxID) && Arrays.equals (m_aValues, rhs.m_aValues);
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return m_nHashCode;
+    }
+  }
+
+  /**
+   * The result of a single deduction. Never modified after creation.
+   */
+  private static final class Deduction
+  {
+    private final VPDeterminedValues m_aValues;
+    private final VPDeterminedFlags m_aFlags;
+
+    Deduction (@NonNull final VPDeterminedValues aValues, @NonNull final VPDeterminedFlags aFlags)
+    {
+      m_aValues = aValues;
+      m_aFlags = aFlags;
+    }
+  }
+
+  /**
+   * Per syntax information
+   */
+  private static final class SyntaxInfo
+  {
+    private final DDDSyntax m_aSyntax;
+    private final EDDDSourceField [] m_aRelevantFields;
+
+    SyntaxInfo (@NonNull final DDDSyntax aSyntax, @NonNull final IDDDValueProviderList aValueProviderList)
+    {
+      m_aSyntax = aSyntax;
+      final Set <EDDDSourceField> aFields = EnumSet.noneOf (EDDDSourceField.class);
+      aValueProviderList.forEachValueProviderPerSyntax (aSyntax.getID (),
+                                                        x -> _collectFields (x.getSelectsView (), aFields));
+      m_aRelevantFields = aFields.toArray (new EDDDSourceField [0]);
+    }
+
+    private static void _collectFields (@NonNull final Map <EDDDSourceField, VPSelect> aSelects,
+                                        @NonNull final Set <EDDDSourceField> aTarget)
+    {
+      for (final Map.Entry <EDDDSourceField, VPSelect> aEntry : aSelects.entrySet ())
+      {
+        aTarget.add (aEntry.getKey ());
+        for (final Map.Entry <String, VPIf> aIfEntry : aEntry.getValue ())
+          if (aIfEntry.getValue ().hasNestedSelects ())
+            _collectFields (aIfEntry.getValue ().nestedSelects (), aTarget);
+      }
+    }
+  }
+
+  private final DocumentDetailsDeterminator m_aDeterminator;
+  private final IDDDValueProviderList m_aValueProviderList;
+  private final int m_nMaxCacheSize;
+  private final Map <String, SyntaxInfo> m_aSyntaxInfos = new HashMap <> ();
+  private final Map <TupleKey, Deduction> m_aCache = new HashMap <> ();
+  private long m_nRecordCount = 0;
+  private long m_nDeductionCount = 0;
+  private long m_nSkippedCount = 0;
+
+  /**
+   * Constructor using the default maximum cache size.
+   *
+   * @param aDeterminator
+   *        The determinator providing the syntax list, identifier factory and scheme settings. May
+   *        not be <code>null</code>.
+   * @param aValueProviderList
+   *        The (new) value provider list to classify with. May not be <code>null</code>.
+   */
+  public DocumentDetailsBulkReclassifier (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                                          @NonNull final IDDDValueProviderList aValueProviderList)
+  {
+    this (aDeterminator, aValueProviderList, DEFAULT_MAX_CACHE_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param aDeterminator
+   *        The determinator providing the syntax list, identifier factory and scheme settings. May
+   *        not be <code>null</code>.
+   * @param aValueProviderList
+   *        The (new) value provider list to classify with. May not be <code>null</code>.
+   * @param nMaxCacheSize
+   *        The maximum number of distinct tuples to cache. If the cache is full, the deduction is
+   *        performed for every record with a new tuple. Must be &ge; 0.
+   */
+  public DocumentDetailsBulkReclassifier (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                                          @NonNull final IDDDValueProviderList aValueProviderList,
+                                          @Nonnegative final int nMaxCacheSize)
+  {
+    ValueEnforcer.notNull (aDeterminator, "Determinator");
+    ValueEnforcer.notNull (aValueProviderList, "ValueProviderList");
+    ValueEnforcer.isGE0 (nMaxCacheSize, "MaxCacheSize");
+    m_aDeterminator = aDeterminator;
+    m_aValueProviderList = aValueProviderList;
+    m_nMaxCacheSize = nMaxCacheSize;
+  }
+
+  /**
+   * @return The number of records processed so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public final long getRecordCount ()
+  {
+    return m_nRecordCount;
+  }
+
+  /**
+   * @return The number of deductions actually performed so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public final long getDeductionCount ()
+  {
+    return m_nDeductionCount;
+  }
+
+  /**
+   * @return The number of records that could not be reclassified so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public final long getSkippedCount ()
+  {
+    return m_nSkippedCount;
+  }
+
+  /**
+   * @return The number of currently cached distinct tuples. Always &ge; 0.
+   */
+  @Nonnegative
+  public final int getDistinctTupleCount ()
+  {
+    return m_aCache.size ();
+  }
+
+  @Nullable
+  private SyntaxInfo _getSyntaxInfo (@Nullable final String sSyntaxID)
+  {
+    if (sSyntaxID == null)
+      return null;
+
+    SyntaxInfo ret = m_aSyntaxInfos.get (sSyntaxID);
+    if (ret == null && !m_aSyntaxInfos.containsKey (sSyntaxID))
+    {
+      final DDDSyntax aSyntax = m_aDeterminator.getEffectiveSyntaxList ().getSyntaxOfID (sSyntaxID);
+      if (aSyntax != null && m_aValueProviderList.containsValueProviderForSyntax (sSyntaxID))
+        ret = new SyntaxInfo (aSyntax, m_aValueProviderList);
+      // Also remember unsupported syntaxes
+      m_aSyntaxInfos.put (sSyntaxID, ret);
+    }
+    return ret;
+  }
+
+  /**
+   * Reclassify a single record.
+   *
+   * @param aDD
+   *        The document details to reclassify. May not be <code>null</code>.
+   * @return The reclassified document details or <code>null</code> if the record has no source
+   *         values or if its syntax is not supported.
+   */
+  @Nullable
+  public DocumentDetails reclassify (@NonNull final DocumentDetails aDD)
+  {
+    ValueEnforcer.notNull (aDD, "DocumentDetails");
+
+    m_nRecordCount++;
+    final SyntaxInfo aInfo = aDD.hasSourceValues () ? _getSyntaxInfo (aDD.getSyntaxID ()) : null;
+    if (aInfo == null)
+    {
+      m_nSkippedCount++;
+      return null;
+    }
+
+    final String [] aValues = new String [aInfo.m_aRelevantFields.length];
+    for (int i = 0; i < aValues.length; ++i)
+      aValues[i] = aDD.getSourceValue (aInfo.m_aRelevantFields[i]);
+    final TupleKey aKey = new TupleKey (aInfo.m_aSyntax.getID (), aValues);
+
+    Deduction aDeduction = m_aCache.get (aKey);
+    if (aDeduction == null)
+    {
+      final VPDeterminedValues aDeterminedValues = new VPDeterminedValues ();
+      final VPDeterminedFlags aDeterminedFlags = new VPDeterminedFlags ();
+      m_aValueProviderList.forAllDeducedValues (aInfo.m_aSyntax.getID (),
+                                                aDD::getSourceValue,
+                                                aDeterminedValues,
+                                                aDeterminedFlags);
+      m_nDeductionCount++;
+
+      aDeduction = new Deduction (aDeterminedValues, aDeterminedFlags);
+      if (m_aCache.size () < m_nMaxCacheSize)
+        m_aCache.put (aKey, aDeduction);
+    }
+
+    // The flags are modified during assembly
+    return m_aDeterminator.internalAssembleReclassified (aDD,
+                                                         aInfo.m_aSyntax,
+                                                         aDeduction.m_aValues,
+                                                         aDeduction.m_aFlags.getClone ());
+  }
+
+  /**
+   * Reclassify all records of an NDJSON stream as created by
+   * {@link DocumentDetailsJsonWriter#writeNDJSON(Iterable, Appendable)} and write the results as
+   * NDJSON in the same order. Empty lines are ignored.
+   *
+   * @param aReader
+   *        The reader to read the NDJSON from. May not be <code>null</code>.
+   * @param aTarget
+   *        The target to write the NDJSON to. May not be <code>null</code>.
+   * @return The number of records written. Always &ge; 0.
+   * @throws IOException
+   *         In case reading or writing fails or in case a line is not a JSON object
+   */
+  @Nonnegative
+  public long reclassifyNDJSON (@NonNull final BufferedReader aReader, @NonNull final Appendable aTarget) throws IOException
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aTarget, "Target");
+
+    long nCount = 0;
+    String sLine;
+    while ((sLine = aReader.readLine ()) != null)
+    {
+      if (StringHelper.isEmpty (sLine.trim ()))
+        continue;
+
+      final IJsonObject aJson = JsonReader.builder ().source (sLine).readAsObject ();
+      if (aJson == null)
+        throw new IOException ("Failed to parse NDJSON line as JSON object: " + sLine);
+
+      final DocumentDetails aDD = DocumentDetailsJsonHelper.getAsDocumentDetails (aJson,
+                                                                                  m_aDeterminator.getIdentifierFactory ());
+      final DocumentDetails aNewDD = reclassify (aDD);
+      DocumentDetailsJsonWriter.write (aNewDD != null ? aNewDD : aDD, aTarget);
+      aTarget.append ('\n');
+      nCount++;
+    }
+    return nCount;
+  }
+
+  /**
+   * Reclassify all records of a binary stream as created by {@link DocumentDetailsBinaryWriter}
+   * and write the results in the same format and order.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>. It is flushed but not
+   *        closed.
+   * @return The number of records written. Always &ge; 0.
+   * @throws IOException
+   *         In case reading or writing fails
+   */
+  @Nonnegative
+  public long reclassifyBinary (@NonNull final InputStream aIS, @NonNull final OutputStream aOS) throws IOException
+  {
+    final DocumentDetailsBinaryReader aReader = new DocumentDetailsBinaryReader (aIS,
+                                                                                 m_aDeterminator.getIdentifierFactory ());
+    final DocumentDetailsBinaryWriter aWriter = new DocumentDetailsBinaryWriter (aOS);
+    DocumentDetails aDD;
+    while ((aDD = aReader.read ()) != null)
+    {
+      final DocumentDetails aNewDD = reclassify (aDD);
+      aWriter.write (aNewDD != null ? aNewDD : aDD);
+    }
+    aWriter.flush ();
+    return aWriter.getRecordCount ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxCacheSize", m_nMaxCacheSize)
+                                       .append ("RecordCount", m_nRecordCount)
+                                       .append ("DeductionCount", m_nDeductionCount)
+                                       .append ("SkippedCount", m_nSkippedCount)
+                                       .append ("DistinctTupleCount", m_aCache.size ())
+                                       .getToString ();
+  }
+}
@@ -16,6 +16,7 @@
  */
 package com.helger.ddd;
 
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -28,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 
+import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.string.StringHelper;
 import com.helger.collection.commons.CommonsArrayList;
@@ -35,12 +37,15 @@ import com.helger.collection.commons.ICommonsList;
 import com.helger.ddd.model.DDDSyntax;
 import com.helger.ddd.model.DDDSyntaxList;
 import com.helger.ddd.model.DDDValueProviderList;
-import com.helger.ddd.model.DDDValueProviderPerSyntax;
 import com.helger.ddd.model.EDDDSourceField;
+import com.helger.ddd.model.IDDDSourceValueExtractor;
+import com.helger.ddd.model.IDDDSyntaxList;
+import com.helger.ddd.model.IDDDValueProviderList;
 import com.helger.ddd.model.VPDeterminedFlags;
 import com.helger.ddd.model.VPDeterminedValues;
 import com.helger.ddd.unwrap.DDDDocumentUnwrapperSBDH;
 import com.helger.ddd.unwrap.DDDDocumentUnwrapperXHE;
+import com.helger.ddd.unwrap.DDDSBDHHeader;
 import com.helger.diagnostics.error.list.ErrorList;
 import com.helger.peppolid.IDocumentTypeIdentifier;
 import com.helger.peppolid.IParticipantIdentifier;
@@ -49,6 +54,7 @@ import com.helger.peppolid.factory.IIdentifierFactory;
 import com.helger.peppolid.factory.PeppolIdentifierFactory;
 import com.helger.peppolid.factory.SimpleIdentifierFactory;
 import com.helger.peppolid.peppol.PeppolIdentifierHelper;
+import com.helger.peppolid.peppol.doctype.IPeppolDocumentTypeIdentifierParts;
 import com.helger.peppolid.peppol.doctype.PeppolDocumentTypeIdentifierParts;
 import com.helger.xml.XMLHelper;
 
@@ -62,22 +68,52 @@ public final class DocumentDetailsDeterminator
   public static final String DEFAULT_PARTICIPANT_ID_SCHEME = PeppolIdentifierHelper.PARTICIPANT_SCHEME_ISO6523_ACTORID_UPIS;
 
   private static final Logger LOGGER = LoggerFactory.getLogger (DocumentDetailsDeterminator.class);
+  private static final EDDDSourceField [] SOURCE_FIELDS = EDDDSourceField.values ();
+  private static final IDDDDocumentUnwrapper [] NO_UNWRAPPERS = new IDDDDocumentUnwrapper [0];
 
-  private final DDDSyntaxList m_aSyntaxList;
-  private final DDDValueProviderList m_aValueProviderList;
+  private final IDDDSyntaxList m_aSyntaxList;
+  private final IDDDValueProviderList m_aValueProviderList;
   private IIdentifierFactory m_aIF = SimpleIdentifierFactory.INSTANCE;
   private IParticipantIdentifier m_aFallbackSenderID;
   private IParticipantIdentifier m_aFallbackReceiverID;
   private String m_sParticipantIDScheme = DEFAULT_PARTICIPANT_ID_SCHEME;
   private Function <String, String> m_aDocTypeIDSchemeDeterminator = PeppolIdentifierFactory.INSTANCE::getDefaultDocumentTypeIdentifierScheme;
   private Function <String, String> m_aProcessIDSchemeDeterminator = x -> PeppolIdentifierHelper.DEFAULT_PROCESS_SCHEME;
-  private final ICommonsList <IDDDDocumentUnwrapper> m_aUnwrappers = new CommonsArrayList <> ();
+  // Array instead of a list, so that no iterator is needed on the hot path
+  private IDDDDocumentUnwrapper [] m_aUnwrappers = NO_UNWRAPPERS;
   private Consumer <String> m_aInfoHdl = LOGGER::info;
   private Consumer <String> m_aWarnHdl = LOGGER::warn;
   private Consumer <String> m_aErrorHdl = LOGGER::error;
+  private DDDValueInterner m_aValueInterner;
+  private boolean m_bRetainSourceValues = false;
 
+  /**
+   * Constructor
+   *
+   * @param aSyntaxList
+   *        The syntax list to use. May not be <code>null</code>.
+   * @param aValueProviderList
+   *        The value provider list to use. May not be <code>null</code>.
+   */
   public DocumentDetailsDeterminator (@NonNull final DDDSyntaxList aSyntaxList,
                                       @NonNull final DDDValueProviderList aValueProviderList)
+  {
+    this ((IDDDSyntaxList) aSyntaxList, (IDDDValueProviderList) aValueProviderList);
+  }
+
+  /**
+   * Constructor that also accepts layered lists.
+   *
+   * @param aSyntaxList
+   *        The syntax list to use. May not be <code>null</code>. This may also be a layered
+   *        {@link com.helger.ddd.model.DDDSyntaxListOverlay}.
+   * @param aValueProviderList
+   *        The value provider list to use. May not be <code>null</code>. This may also be a layered
+   *        {@link com.helger.ddd.model.DDDValueProviderListOverlay}.
+   * @since 0.8.11
+   */
+  public DocumentDetailsDeterminator (@NonNull final IDDDSyntaxList aSyntaxList,
+                                      @NonNull final IDDDValueProviderList aValueProviderList)
   {
     ValueEnforcer.notNull (aSyntaxList, "SyntaxList");
     ValueEnforcer.notNull (aValueProviderList, "ValueProviderList");
@@ -85,24 +121,86 @@ public final class DocumentDetailsDeterminator
     m_aValueProviderList = aValueProviderList;
   }
 
+  /**
+   * Copy constructor. The syntax list, the value provider list and all other settings are shared
+   * with the source object.
+   *
+   * @param aOther
+   *        The determinator to copy the settings from. May not be <code>null</code>.
+   * @since 0.8.11
+   */
+  public DocumentDetailsDeterminator (@NonNull final DocumentDetailsDeterminator aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_aSyntaxList = aOther.m_aSyntaxList;
+    m_aValueProviderList = aOther.m_aValueProviderList;
+    m_aIF = aOther.m_aIF;
+    m_aFallbackSenderID = aOther.m_aFallbackSenderID;
+    m_aFallbackReceiverID = aOther.m_aFallbackReceiverID;
+    m_sParticipantIDScheme = aOther.m_sParticipantIDScheme;
+    m_aDocTypeIDSchemeDeterminator = aOther.m_aDocTypeIDSchemeDeterminator;
+    m_aProcessIDSchemeDeterminator = aOther.m_aProcessIDSchemeDeterminator;
+    // The array is never modified, only replaced
+    m_aUnwrappers = aOther.m_aUnwrappers;
+    m_aInfoHdl = aOther.m_aInfoHdl;
+    m_aWarnHdl = aOther.m_aWarnHdl;
+    m_aErrorHdl = aOther.m_aErrorHdl;
+    m_aValueInterner = aOther.m_aValueInterner;
+    m_bRetainSourceValues = aOther.m_bRetainSourceValues;
+  }
+
+  /**
+   * @return The syntax list provided in the constructor. Never <code>null</code>. This may also be a
+   *         layered {@link com.helger.ddd.model.DDDSyntaxListOverlay}.
+   * @since 0.8.11
+   */
+  @NonNull
+  public IDDDSyntaxList getEffectiveSyntaxList ()
+  {
+    return m_aSyntaxList;
+  }
+
   /**
    * @return The syntax list provided in the constructor. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         Since 0.8.11, if a layered syntax list was provided in the constructor
    * @since 0.3.3
+   * @deprecated Since 0.8.11. Use {@link #getEffectiveSyntaxList()} instead.
    */
+  @Deprecated (forRemoval = true, since = "0.8.11")
   @NonNull
   public DDDSyntaxList getSyntaxList ()
   {
-    return m_aSyntaxList;
+    if (m_aSyntaxList instanceof final DDDSyntaxList aSyntaxList)
+      return aSyntaxList;
+    throw new IllegalStateException ("The determinator uses a layered syntax list - use getEffectiveSyntaxList () instead");
+  }
+
+  /**
+   * @return The value provider list provided in the constructor. Never <code>null</code>. This may
+   *         also be a layered {@link com.helger.ddd.model.DDDValueProviderListOverlay}.
+   * @since 0.8.11
+   */
+  @NonNull
+  public IDDDValueProviderList getEffectiveValueProviderList ()
+  {
+    return m_aValueProviderList;
   }
 
   /**
    * @return The value provider list provided in the constructor. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         Since 0.8.11, if a layered value provider list was provided in the constructor
    * @since 0.3.3
+   * @deprecated Since 0.8.11. Use {@link #getEffectiveValueProviderList()} instead.
    */
+  @Deprecated (forRemoval = true, since = "0.8.11")
   @NonNull
   public DDDValueProviderList getValueProviderList ()
   {
-    return m_aValueProviderList;
+    if (m_aValueProviderList instanceof final DDDValueProviderList aValueProviderList)
+      return aValueProviderList;
+    throw new IllegalStateException ("The determinator uses a layered value provider list - use getEffectiveValueProviderList () instead");
   }
 
   /**
@@ -272,6 +370,62 @@ public final class DocumentDetailsDeterminator
     return this;
   }
 
+  /**
+   * @return The value interner used for low-cardinality values. May be <code>null</code> which is
+   *         the default and means no interning takes place.
+   * @since 0.8.11
+   */
+  @Nullable
+  public DDDValueInterner getValueInterner ()
+  {
+    return m_aValueInterner;
+  }
+
+  /**
+   * Set the value interner to be used. If set, the low-cardinality source fields (see
+   * {@link EDDDSourceField#isLowCardinality()}), the determined values and the identifier schemes
+   * and document type ID values are mapped to canonical instances, so that retained
+   * {@link DocumentDetails} objects share them.
+   *
+   * @param aValueInterner
+   *        The value interner to use. May be <code>null</code> to disable interning.
+   * @return this for chaining
+   * @see DDDValueInterner#getDefaultInstance()
+   * @since 0.8.11
+   */
+  @NonNull
+  public DocumentDetailsDeterminator setValueInterner (@Nullable final DDDValueInterner aValueInterner)
+  {
+    m_aValueInterner = aValueInterner;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if the extracted source values are stored in the resulting
+   *         {@link DocumentDetails}, <code>false</code> if not. Default is <code>false</code>.
+   * @since 0.8.11
+   */
+  public boolean isRetainSourceValues ()
+  {
+    return m_bRetainSourceValues;
+  }
+
+  /**
+   * Enable or disable storing the extracted source values in the resulting {@link DocumentDetails}.
+   * This is the prerequisite for {@link #reclassify(DocumentDetails, IDDDValueProviderList)}.
+   *
+   * @param bRetainSourceValues
+   *        <code>true</code> to retain the source values, <code>false</code> to not do it.
+   * @return this for chaining
+   * @since 0.8.11
+   */
+  @NonNull
+  public DocumentDetailsDeterminator setRetainSourceValues (final boolean bRetainSourceValues)
+  {
+    m_bRetainSourceValues = bRetainSourceValues;
+    return this;
+  }
+
   /**
    * Add a single document unwrapper for detecting and extracting payloads from envelope formats.
    *
@@ -284,7 +438,7 @@ public final class DocumentDetailsDeterminator
   public DocumentDetailsDeterminator addUnwrapper (@NonNull final IDDDDocumentUnwrapper aUnwrapper)
   {
     ValueEnforcer.notNull (aUnwrapper, "Unwrapper");
-    m_aUnwrappers.add (aUnwrapper);
+    _addUnwrappers (aUnwrapper);
     return this;
   }
 
@@ -297,11 +451,70 @@ public final class DocumentDetailsDeterminator
   @NonNull
   public DocumentDetailsDeterminator addDefaultUnwrappers ()
   {
-    m_aUnwrappers.add (DDDDocumentUnwrapperSBDH.INSTANCE);
-    m_aUnwrappers.add (DDDDocumentUnwrapperXHE.INSTANCE);
+    _addUnwrappers (DDDDocumentUnwrapperSBDH.INSTANCE, DDDDocumentUnwrapperXHE.INSTANCE);
     return this;
   }
 
+  private void _addUnwrappers (@NonNull final IDDDDocumentUnwrapper... aUnwrappers)
+  {
+    final IDDDDocumentUnwrapper [] aNew = Arrays.copyOf (m_aUnwrappers, m_aUnwrappers.length + aUnwrappers.length);
+    System.arraycopy (aUnwrappers, 0, aNew, m_aUnwrappers.length, aUnwrappers.length);
+    m_aUnwrappers = aNew;
+  }
+
+  /**
+   * @return A copy of all unwrappers in the order they are applied. Never <code>null</code> but
+   *         maybe empty.
+   * @since 0.8.11
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IDDDDocumentUnwrapper> getAllUnwrappers ()
+  {
+    return new CommonsArrayList <> (m_aUnwrappers);
+  }
+
+  /**
+   * Quick check based on the qualified name of the root element only, if a document might be
+   * supported. This allows streaming front ends to reject documents before they are parsed
+   * completely.
+   *
+   * @param sNamespaceURI
+   *        The namespace URI of the root element. May be <code>null</code>.
+   * @param sLocalName
+   *        The local name of the root element. May be <code>null</code>.
+   * @return <code>false</code> if the document is guaranteed to be unsupported, <code>true</code>
+   *         if it may be supported.
+   * @see IDDDDocumentUnwrapper#isPotentialWrapper(String, String)
+   * @since 0.8.11
+   */
+  public boolean isPotentiallySupportedRoot (@Nullable final String sNamespaceURI, @Nullable final String sLocalName)
+  {
+    if (m_aSyntaxList.findMatchingSyntax (sNamespaceURI, sLocalName) != null)
+      return true;
+    for (final IDDDDocumentUnwrapper aUnwrapper : m_aUnwrappers)
+      if (aUnwrapper.isPotentialWrapper (sNamespaceURI, sLocalName))
+        return true;
+    return false;
+  }
+
+  @Nullable
+  private String _intern (@Nullable final String sValue)
+  {
+    final DDDValueInterner aInterner = m_aValueInterner;
+    return aInterner == null ? sValue : aInterner.intern (sValue);
+  }
+
+  @Nullable
+  private String _getValue (@NonNull final DDDSyntax aSyntax,
+                            @NonNull final EDDDSourceField eField,
+                            @NonNull final Element aSourceElement,
+                            @NonNull final ErrorList aErrorList)
+  {
+    final String ret = aSyntax.getValue (eField, aSourceElement, aErrorList);
+    return eField.isLowCardinality () ? _intern (ret) : ret;
+  }
+
   @Nullable
   private IParticipantIdentifier _createPID (@Nullable final String sSchemeID, @Nullable final String sValue)
   {
@@ -407,8 +620,7 @@ public final class DocumentDetailsDeterminator
     }
 
     // Find the value provider for the selected syntax
-    final DDDValueProviderPerSyntax aValueProvider = m_aValueProviderList.getValueProviderPerSyntax (aSyntax.getID ());
-    if (aValueProvider == null)
+    if (!m_aValueProviderList.containsValueProviderForSyntax (aSyntax.getID ()))
     {
       m_aErrorHdl.accept ("The value provider has no mapping for syntax with ID '" + aSyntax.getID () + "'");
       return null;
@@ -416,36 +628,234 @@ public final class DocumentDetailsDeterminator
 
     // Get all the values from the source XML
     final ErrorList aErrorList = new ErrorList ();
-    final String sCustomizationID = aSyntax.getValue (EDDDSourceField.CUSTOMIZATION_ID, aEffectiveElement, aErrorList);
-    // optional
-    String sProcessID = aSyntax.getValue (EDDDSourceField.PROCESS_ID, aEffectiveElement, aErrorList);
-    final String sSenderIDScheme = aSyntax.getValue (EDDDSourceField.SENDER_ID_SCHEME, aEffectiveElement, aErrorList);
-    final String sSenderIDValue = aSyntax.getValue (EDDDSourceField.SENDER_ID_VALUE, aEffectiveElement, aErrorList);
-    IParticipantIdentifier aSenderID = _createPID (sSenderIDScheme, sSenderIDValue);
-    final String sReceiverIDScheme = aSyntax.getValue (EDDDSourceField.RECEIVER_ID_SCHEME,
-                                                       aEffectiveElement,
-                                                       aErrorList);
-    final String sReceiverIDValue = aSyntax.getValue (EDDDSourceField.RECEIVER_ID_VALUE, aEffectiveElement, aErrorList);
-    IParticipantIdentifier aReceiverID = _createPID (sReceiverIDScheme, sReceiverIDValue);
-    final String sBusinessDocumentID = aSyntax.getValue (EDDDSourceField.BUSINESS_DOCUMENT_ID,
-                                                         aEffectiveElement,
-                                                         aErrorList);
-    final String sSenderName = aSyntax.getValue (EDDDSourceField.SENDER_NAME, aEffectiveElement, aErrorList);
-    final String sSenderCountryCode = aSyntax.getValue (EDDDSourceField.SENDER_COUNTRY_CODE,
-                                                        aEffectiveElement,
-                                                        aErrorList);
-    final String sReceiverName = aSyntax.getValue (EDDDSourceField.RECEIVER_NAME, aEffectiveElement, aErrorList);
-    final String sReceiverCountryCode = aSyntax.getValue (EDDDSourceField.RECEIVER_COUNTRY_CODE,
-                                                          aEffectiveElement,
-                                                          aErrorList);
-    // optional value
-    String sSyntaxVersion = aSyntax.getVersion ();
-    String sVESID = null;
+    final String [] aSourceValues = new String [SOURCE_FIELDS.length];
+    final IDDDSourceValueExtractor aExtractor = aSyntax.getSourceValueExtractor ();
+    if (aExtractor != null)
+    {
+      // Single pass over the document
+      aExtractor.extractSourceValues (aEffectiveElement, (eField, sValue) -> {
+        aSourceValues[eField.ordinal ()] = eField.isLowCardinality () ? _intern (sValue) : sValue;
+      }, aErrorList);
+    }
+    else
+      for (final EDDDSourceField eField : SOURCE_FIELDS)
+        aSourceValues[eField.ordinal ()] = _getValue (aSyntax, eField, aEffectiveElement, aErrorList);
 
     // Debug log specific value found while retrieving certain values
     if (LOGGER.isDebugEnabled ())
       aErrorList.getAllFailures ().forEach (x -> LOGGER.debug (x.getAsString (Locale.US)));
 
+    return _deduceDocumentDetails (aSyntax,
+                                   m_aValueProviderList,
+                                   aEffectiveElement.getNamespaceURI (),
+                                   aEffectiveElement.getLocalName (),
+                                   field -> aSourceValues[field.ordinal ()],
+                                   aWrappingTypes);
+  }
+
+  /**
+   * Build the document details only from the values of a Peppol Standard Business Document Header,
+   * without looking at the payload. The syntax is determined from the root element contained in the
+   * document type identifier, the customization ID is taken from the document type identifier and
+   * the process ID from the process identifier. Sender, receiver and the sender country code (from
+   * <code>COUNTRY_C1</code>) are taken from the header, all other source values are
+   * <code>null</code>. The value providers are applied as usual and the result contains the
+   * <code>SBDH</code> wrapper. The document type and process identifiers of the result are the ones
+   * of the header, including their schemes. Sender and receiver are never swapped for
+   * self-billing, because the header already contains the actual sender and receiver.<br>
+   * This is the fast path for routing decisions when the SBDH is trusted. The payload is never
+   * parsed, so the result may differ from {@link #findDocumentDetails(Element)} in all fields that
+   * are not contained in the header (e.g. the business document ID or the party names).
+   *
+   * @param aHeader
+   *        The SBDH values. May not be <code>null</code>.
+   * @return <code>null</code> if the header is incomplete (see {@link DDDSBDHHeader#isComplete()}),
+   *         if the document type identifier is not a Peppol document type identifier value or if
+   *         the contained syntax is not supported.
+   * @since 0.8.11
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetailsFromSBDH (@NonNull final DDDSBDHHeader aHeader)
+  {
+    ValueEnforcer.notNull (aHeader, "Header");
+
+    if (!aHeader.isComplete ())
+    {
+      m_aInfoHdl.accept ("The SBDH is incomplete and cannot be used to determine the document details");
+      return null;
+    }
+
+    final IPeppolDocumentTypeIdentifierParts aParts;
+    try
+    {
+      aParts = PeppolDocumentTypeIdentifierParts.extractFromString (aHeader.getDocumentTypeIDValue ());
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      m_aErrorHdl.accept ("The SBDH document type identifier '" +
+                          aHeader.getDocumentTypeIDValue () +
+                          "' cannot be parsed: " +
+                          ex.getMessage ());
+      return null;
+    }
+
+    final QName aQName = new QName (aParts.getRootNS (), aParts.getLocalName ());
+    m_aInfoHdl.accept ("Searching document details for " + aQName.toString () + " from the SBDH");
+
+    final DDDSyntax aSyntax = m_aSyntaxList.findMatchingSyntax (aParts.getRootNS (), aParts.getLocalName ());
+    if (aSyntax == null)
+    {
+      m_aErrorHdl.accept ("Unsupported Document Type syntax " + aQName.toString ());
+      return null;
+    }
+
+    if (!m_aValueProviderList.containsValueProviderForSyntax (aSyntax.getID ()))
+    {
+      m_aErrorHdl.accept ("The value provider has no mapping for syntax with ID '" + aSyntax.getID () + "'");
+      return null;
+    }
+
+    final String [] aSourceValues = new String [SOURCE_FIELDS.length];
+    aSourceValues[EDDDSourceField.CUSTOMIZATION_ID.ordinal ()] = aParts.getCustomizationID ();
+    aSourceValues[EDDDSourceField.PROCESS_ID.ordinal ()] = aHeader.getProcessIDValue ();
+    // The participant values contain the scheme (e.g. "0088:123") - split them like the payload
+    // provides them
+    _splitParticipantValue (aHeader.getSenderIDValue (),
+                            aSourceValues,
+                            EDDDSourceField.SENDER_ID_SCHEME,
+                            EDDDSourceField.SENDER_ID_VALUE);
+    _splitParticipantValue (aHeader.getReceiverIDValue (),
+                            aSourceValues,
+                            EDDDSourceField.RECEIVER_ID_SCHEME,
+                            EDDDSourceField.RECEIVER_ID_VALUE);
+    aSourceValues[EDDDSourceField.SENDER_COUNTRY_CODE.ordinal ()] = aHeader.getCountryC1 ();
+    for (final EDDDSourceField eField : SOURCE_FIELDS)
+      if (eField.isLowCardinality ())
+        aSourceValues[eField.ordinal ()] = _intern (aSourceValues[eField.ordinal ()]);
+
+    final Function <EDDDSourceField, String> fctFieldProvider = field -> aSourceValues[field.ordinal ()];
+    final VPDeterminedValues aDeterminedMatches = new VPDeterminedValues ();
+    final VPDeterminedFlags aDeterminedFlags = new VPDeterminedFlags ();
+    m_aValueProviderList.forAllDeducedValues (aSyntax.getID (), fctFieldProvider, aDeterminedMatches, aDeterminedFlags);
+
+    return _assembleDocumentDetails (aSyntax,
+                                     aParts.getRootNS (),
+                                     aParts.getLocalName (),
+                                     fctFieldProvider,
+                                     aDeterminedMatches,
+                                     aDeterminedFlags,
+                                     new CommonsArrayList <> (DDDDocumentUnwrapperSBDH.WRAPPING_TYPE),
+                                     aHeader);
+  }
+
+  private static void _splitParticipantValue (@Nullable final String sPIDValue,
+                                              @NonNull final String [] aSourceValues,
+                                              @NonNull final EDDDSourceField eSchemeField,
+                                              @NonNull final EDDDSourceField eValueField)
+  {
+    if (sPIDValue == null)
+      return;
+
+    final int nIndex = sPIDValue.indexOf (':');
+    if (nIndex < 0)
+      aSourceValues[eValueField.ordinal ()] = sPIDValue;
+    else
+    {
+      aSourceValues[eSchemeField.ordinal ()] = sPIDValue.substring (0, nIndex);
+      aSourceValues[eValueField.ordinal ()] = sPIDValue.substring (nIndex + 1);
+    }
+  }
+
+  /**
+   * Run the deduction stage on the provided source values and build the resulting document
+   * details.
+   *
+   * @param aSyntax
+   *        The matched syntax. May not be <code>null</code>.
+   * @param aValueProviderList
+   *        The value provider list to deduce from. May not be <code>null</code>.
+   * @param sRootNamespaceURI
+   *        The namespace URI of the effective root element. May be <code>null</code>.
+   * @param sRootLocalName
+   *        The local name of the effective root element. May not be <code>null</code>.
+   * @param fctFieldProvider
+   *        The source value provider. May not be <code>null</code>.
+   * @param aWrappingTypes
+   *        The detected wrapper types. May not be <code>null</code>.
+   * @return The document details. Never <code>null</code>.
+   */
+  @NonNull
+  private DocumentDetails _deduceDocumentDetails (@NonNull final DDDSyntax aSyntax,
+                                                  @NonNull final IDDDValueProviderList aValueProviderList,
+                                                  @Nullable final String sRootNamespaceURI,
+                                                  @NonNull final String sRootLocalName,
+                                                  @NonNull final Function <EDDDSourceField, String> fctFieldProvider,
+                                                  @NonNull final ICommonsList <String> aWrappingTypes)
+  {
+    final VPDeterminedValues aDeterminedMatches = new VPDeterminedValues ();
+    final VPDeterminedFlags aDeterminedFlags = new VPDeterminedFlags ();
+    aValueProviderList.forAllDeducedValues (aSyntax.getID (), fctFieldProvider, aDeterminedMatches, aDeterminedFlags);
+
+    return _assembleDocumentDetails (aSyntax,
+                                     sRootNamespaceURI,
+                                     sRootLocalName,
+                                     fctFieldProvider,
+                                     aDeterminedMatches,
+                                     aDeterminedFlags,
+                                     aWrappingTypes,
+                                     null);
+  }
+
+  /**
+   * Build the resulting document details from the source values and the already deduced values and
+   * flags.
+   *
+   * @param aSyntax
+   *        The matched syntax. May not be <code>null</code>.
+   * @param sRootNamespaceURI
+   *        The namespace URI of the effective root element. May be <code>null</code>.
+   * @param sRootLocalName
+   *        The local name of the effective root element. May not be <code>null</code>.
+   * @param fctFieldProvider
+   *        The source value provider. May not be <code>null</code>.
+   * @param aDeterminedMatches
+   *        The deduced values. Only read. May not be <code>null</code>.
+   * @param aDeterminedFlags
+   *        The deduced flags. Gets modified. May not be <code>null</code>.
+   * @param aWrappingTypes
+   *        The detected wrapper types. May not be <code>null</code>.
+   * @param aSBDH
+   *        The SBDH the source values were taken from. If present, its document type and process
+   *        identifiers are used as they are, and sender and receiver are not swapped. May be
+   *        <code>null</code>.
+   * @return The document details. Never <code>null</code>.
+   */
+  @NonNull
+  private DocumentDetails _assembleDocumentDetails (@NonNull final DDDSyntax aSyntax,
+                                                    @Nullable final String sRootNamespaceURI,
+                                                    @NonNull final String sRootLocalName,
+                                                    @NonNull final Function <EDDDSourceField, String> fctFieldProvider,
+                                                    @NonNull final VPDeterminedValues aDeterminedMatches,
+                                                    @NonNull final VPDeterminedFlags aDeterminedFlags,
+                                                    @NonNull final ICommonsList <String> aWrappingTypes,
+                                                    @Nullable final DDDSBDHHeader aSBDH)
+  {
+    final String sCustomizationID = fctFieldProvider.apply (EDDDSourceField.CUSTOMIZATION_ID);
+    // optional
+    String sProcessID = fctFieldProvider.apply (EDDDSourceField.PROCESS_ID);
+    IParticipantIdentifier aSenderID = _createPID (fctFieldProvider.apply (EDDDSourceField.SENDER_ID_SCHEME),
+                                                   fctFieldProvider.apply (EDDDSourceField.SENDER_ID_VALUE));
+    IParticipantIdentifier aReceiverID = _createPID (fctFieldProvider.apply (EDDDSourceField.RECEIVER_ID_SCHEME),
+                                                     fctFieldProvider.apply (EDDDSourceField.RECEIVER_ID_VALUE));
+    final String sBusinessDocumentID = fctFieldProvider.apply (EDDDSourceField.BUSINESS_DOCUMENT_ID);
+    final String sSenderName = fctFieldProvider.apply (EDDDSourceField.SENDER_NAME);
+    final String sSenderCountryCode = fctFieldProvider.apply (EDDDSourceField.SENDER_COUNTRY_CODE);
+    final String sReceiverName = fctFieldProvider.apply (EDDDSourceField.RECEIVER_NAME);
+    final String sReceiverCountryCode = fctFieldProvider.apply (EDDDSourceField.RECEIVER_COUNTRY_CODE);
+    // optional value
+    String sSyntaxVersion = aSyntax.getVersion ();
+    String sVESID = null;
+
     // Handle fallbacks (if any)
     if (aSenderID == null && m_aFallbackSenderID != null)
     {
@@ -458,89 +868,172 @@ public final class DocumentDetailsDeterminator
       aReceiverID = m_aFallbackReceiverID;
     }
 
-    // Source value provider
-    final String sSourceProcessID = sProcessID;
-    final Function <EDDDSourceField, String> fctFieldProvider = field -> (switch (field)
-    {
-      case CUSTOMIZATION_ID -> sCustomizationID;
-      case PROCESS_ID -> sSourceProcessID;
-      case BUSINESS_DOCUMENT_ID -> sBusinessDocumentID;
-      case SENDER_ID_SCHEME -> sSenderIDScheme;
-      case SENDER_ID_VALUE -> sSenderIDValue;
-      case SENDER_NAME -> sSenderName;
-      case SENDER_COUNTRY_CODE -> sSenderCountryCode;
-      case RECEIVER_ID_SCHEME -> sReceiverIDScheme;
-      case RECEIVER_ID_VALUE -> sReceiverIDValue;
-      case RECEIVER_NAME -> sReceiverName;
-      case RECEIVER_COUNTRY_CODE -> sReceiverCountryCode;
-      default -> throw new IllegalArgumentException ("Unsupported field " + field);
-    });
-
-    // Target value setter
-    final VPDeterminedValues aDeterminedMatches = new VPDeterminedValues ();
-    final VPDeterminedFlags aDeterminedFlags = new VPDeterminedFlags ();
-    aValueProvider.forAllDeducedValues (fctFieldProvider, aDeterminedMatches, aDeterminedFlags);
-
     String sProfileName = null;
     for (final var aEntry : aDeterminedMatches)
     {
       final String sNewValue = aEntry.getValue ();
       switch (aEntry.getKey ())
       {
-        case PROCESS_ID -> sProcessID = sNewValue;
-        case SYNTAX_VERSION -> sSyntaxVersion = sNewValue;
-        case VESID -> sVESID = sNewValue;
-        case PROFILE_NAME -> sProfileName = sNewValue;
+        case PROCESS_ID -> sProcessID = _intern (sNewValue);
+        case SYNTAX_VERSION -> sSyntaxVersion = _intern (sNewValue);
+        case VESID -> sVESID = _intern (sNewValue);
+        case PROFILE_NAME -> sProfileName = _intern (sNewValue);
         default -> throw new IllegalStateException ("The field " + aEntry.getKey () + " is unknown");
       }
     }
 
     // Assemble Document Type ID
     final IDocumentTypeIdentifier aDocTypeID;
-    if (StringHelper.isNotEmpty (sCustomizationID) && StringHelper.isNotEmpty (sSyntaxVersion))
+    if (aSBDH != null)
     {
-      final String sDocTypeIDValue = new PeppolDocumentTypeIdentifierParts (aEffectiveElement.getNamespaceURI (),
-                                                                            aEffectiveElement.getLocalName (),
-                                                                            sCustomizationID,
-                                                                            sSyntaxVersion).getAsDocumentTypeIdentifierValue ();
-      final String sDocTypeIDScheme = m_aDocTypeIDSchemeDeterminator.apply (sDocTypeIDValue);
+      // Keep the one from the SBDH
+      final String sDocTypeIDValue = _intern (aSBDH.getDocumentTypeIDValue ());
+      final String sDocTypeIDScheme = _intern (StringHelper.isNotEmpty (aSBDH.getDocumentTypeIDScheme ()) ? aSBDH.getDocumentTypeIDScheme ()
+                                                                                                          : m_aDocTypeIDSchemeDeterminator.apply (sDocTypeIDValue));
       aDocTypeID = m_aIF.createDocumentTypeIdentifier (sDocTypeIDScheme, sDocTypeIDValue);
     }
     else
-      aDocTypeID = null;
+      if (StringHelper.isNotEmpty (sCustomizationID) && StringHelper.isNotEmpty (sSyntaxVersion))
+      {
+        final String sDocTypeIDValue = _intern (new PeppolDocumentTypeIdentifierParts (sRootNamespaceURI,
+                                                                                       sRootLocalName,
+                                                                                       sCustomizationID,
+                                                                                       sSyntaxVersion).getAsDocumentTypeIdentifierValue ());
+        final String sDocTypeIDScheme = _intern (m_aDocTypeIDSchemeDeterminator.apply (sDocTypeIDValue));
+        aDocTypeID = m_aIF.createDocumentTypeIdentifier (sDocTypeIDScheme, sDocTypeIDValue);
+      }
+      else
+        aDocTypeID = null;
 
     // Assemble Process ID
     final IProcessIdentifier aProcessID;
-    if (StringHelper.isNotEmpty (sProcessID))
+    if (aSBDH != null)
     {
-      final String sProcessIDScheme = m_aProcessIDSchemeDeterminator.apply (sProcessID);
+      // Keep the one from the SBDH
+      sProcessID = _intern (aSBDH.getProcessIDValue ());
+      final String sProcessIDScheme = _intern (StringHelper.isNotEmpty (aSBDH.getProcessIDScheme ()) ? aSBDH.getProcessIDScheme ()
+                                                                                                    : m_aProcessIDSchemeDeterminator.apply (sProcessID));
       aProcessID = m_aIF.createProcessIdentifier (sProcessIDScheme, sProcessID);
     }
     else
-      aProcessID = null;
+      if (StringHelper.isNotEmpty (sProcessID))
+      {
+        final String sProcessIDScheme = _intern (m_aProcessIDSchemeDeterminator.apply (sProcessID));
+        aProcessID = m_aIF.createProcessIdentifier (sProcessIDScheme, sProcessID);
+      }
+      else
+        aProcessID = null;
 
     // Swap sender and receiver for self-billing?
     // Don't keep this action in the resulting flags
-    final boolean bSwapSenderAndReceiver = aDeterminedFlags.remove ("Action-SwapSenderAndReceiver").isChanged ();
+    // The SBDH already contains the actual sender and receiver
+    final boolean bSwapSenderAndReceiver = aDeterminedFlags.remove ("Action-SwapSenderAndReceiver").isChanged () &&
+                                           aSBDH == null;
 
     // All elements are optional
-    return DocumentDetails.builder ()
-                          .syntaxID (aSyntax.getID ())
-                          .senderID (bSwapSenderAndReceiver ? aReceiverID : aSenderID)
-                          .receiverID (bSwapSenderAndReceiver ? aSenderID : aReceiverID)
-                          .documentTypeID (aDocTypeID)
-                          .customizationID (sCustomizationID)
-                          .syntaxVersion (sSyntaxVersion)
-                          .processID (aProcessID)
-                          .businessDocumentID (sBusinessDocumentID)
-                          .senderName (bSwapSenderAndReceiver ? sReceiverName : sSenderName)
-                          .senderCountryCode (bSwapSenderAndReceiver ? sReceiverCountryCode : sSenderCountryCode)
-                          .receiverName (bSwapSenderAndReceiver ? sSenderName : sReceiverName)
-                          .receiverCountryCode (bSwapSenderAndReceiver ? sSenderCountryCode : sReceiverCountryCode)
-                          .vesid (sVESID)
-                          .profileName (sProfileName)
-                          .flags (aDeterminedFlags.getAsSet ())
-                          .wrappers (aWrappingTypes)
-                          .build ();
+    final DocumentDetails.Builder aBuilder = DocumentDetails.builder ();
+    if (m_bRetainSourceValues)
+    {
+      // Keep the unswapped source values for later reclassification
+      for (final EDDDSourceField eField : SOURCE_FIELDS)
+        aBuilder.sourceValue (eField, fctFieldProvider.apply (eField));
+    }
+    return aBuilder.syntaxID (aSyntax.getID ())
+                   .senderID (bSwapSenderAndReceiver ? aReceiverID : aSenderID)
+                   .receiverID (bSwapSenderAndReceiver ? aSenderID : aReceiverID)
+                   .documentTypeID (aDocTypeID)
+                   .customizationID (sCustomizationID)
+                   .syntaxVersion (sSyntaxVersion)
+                   .processID (aProcessID)
+                   .businessDocumentID (sBusinessDocumentID)
+                   .senderName (bSwapSenderAndReceiver ? sReceiverName : sSenderName)
+                   .senderCountryCode (bSwapSenderAndReceiver ? sReceiverCountryCode : sSenderCountryCode)
+                   .receiverName (bSwapSenderAndReceiver ? sSenderName : sReceiverName)
+                   .receiverCountryCode (bSwapSenderAndReceiver ? sSenderCountryCode : sReceiverCountryCode)
+                   .vesid (sVESID)
+                   .profileName (sProfileName)
+                   .flags (aDeterminedFlags.getAsSet ())
+                   .wrappers (aWrappingTypes)
+                   .build ();
+  }
+
+  /**
+   * Assemble reclassified document details from already deduced values and flags. Used by
+   * {@link DocumentDetailsBulkReclassifier} which caches the deduction results.
+   *
+   * @param aDD
+   *        The document details with source values. May not be <code>null</code>.
+   * @param aSyntax
+   *        The syntax matching the syntax ID of the document details. May not be <code>null</code>.
+   * @param aDeterminedMatches
+   *        The deduced values. Only read. May not be <code>null</code>.
+   * @param aDeterminedFlags
+   *        The deduced flags. Gets modified. May not be <code>null</code>.
+   * @return The new document details. Never <code>null</code>.
+   */
+  @NonNull
+  DocumentDetails internalAssembleReclassified (@NonNull final DocumentDetails aDD,
+                                                @NonNull final DDDSyntax aSyntax,
+                                                @NonNull final VPDeterminedValues aDeterminedMatches,
+                                                @NonNull final VPDeterminedFlags aDeterminedFlags)
+  {
+    return _assembleDocumentDetails (aSyntax,
+                                     aSyntax.getRootElementNamespaceURI (),
+                                     aSyntax.getRootElementLocalName (),
+                                     aDD::getSourceValue,
+                                     aDeterminedMatches,
+                                     aDeterminedFlags,
+                                     aDD.getAllWrappers (),
+                                     null);
+  }
+
+  /**
+   * Rerun only the deduction stage (value providers, identifier assembly and flags) on document
+   * details that were created with {@link #setRetainSourceValues(boolean)} enabled. The source
+   * document is not needed, so this is the cheap way to update stored results after the value
+   * providers changed. The syntax is resolved by the contained syntax ID from the syntax list of
+   * this determinator, and the document type ID is built from the root element of that syntax.
+   *
+   * @param aDD
+   *        The document details to reclassify. May not be <code>null</code>.
+   * @param aValueProviderList
+   *        The value provider list to use. May not be <code>null</code>. Usually this is the
+   *        updated value provider list.
+   * @return The new document details or <code>null</code> if the provided document details have
+   *         no source values or if the syntax is not supported.
+   * @since 0.8.11
+   */
+  @Nullable
+  public DocumentDetails reclassify (@NonNull final DocumentDetails aDD,
+                                     @NonNull final IDDDValueProviderList aValueProviderList)
+  {
+    ValueEnforcer.notNull (aDD, "DocumentDetails");
+    ValueEnforcer.notNull (aValueProviderList, "ValueProviderList");
+
+    if (!aDD.hasSourceValues ())
+    {
+      m_aErrorHdl.accept ("The document details contain no source values and cannot be reclassified");
+      return null;
+    }
+
+    final DDDSyntax aSyntax = m_aSyntaxList.getSyntaxOfID (aDD.getSyntaxID ());
+    if (aSyntax == null)
+    {
+      m_aErrorHdl.accept ("Unsupported Document Type syntax ID '" + aDD.getSyntaxID () + "'");
+      return null;
+    }
+
+    if (!aValueProviderList.containsValueProviderForSyntax (aSyntax.getID ()))
+    {
+      m_aErrorHdl.accept ("The value provider has no mapping for syntax with ID '" + aSyntax.getID () + "'");
+      return null;
+    }
+
+    return _deduceDocumentDetails (aSyntax,
+                                   aValueProviderList,
+                                   aSyntax.getRootElementNamespaceURI (),
+                                   aSyntax.getRootElementLocalName (),
+                                   aDD::getSourceValue,
+                                   aDD.getAllWrappers ());
   }
 }
@@ -0,0 +1,532 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.builder.IBuilder;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.equals.EqualsHelper;
+import com.helger.base.hashcode.HashCodeGenerator;
+import com.helger.base.state.EChange;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.IIdentifierFactory;
+
+/**
+ * A registry for many tenants sharing a single configuration. The syntax list, the value provider
+ * list, the unwrappers, the handlers and all other settings are taken once from a template
+ * {@link DocumentDetailsDeterminator} and shared by all tenants. Per tenant only a small
+ * {@link TenantSettings} object is stored.<br>
+ * The {@link FrozenDocumentDetailsDeterminator} objects for the tenants are created lazily.
+ * Tenants with equal settings share the same determinator, and only a bounded number of
+ * determinators is kept in an LRU cache, so that the memory consumption does not grow with the
+ * number of tenants. Looking up a cached determinator does not lock; a lock is only taken to
+ * create a missing determinator and to evict the least recently used ones.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DocumentDetailsDeterminatorRegistry
+{
+  /** The default maximum number of cached determinators */
+  public static final int DEFAULT_MAX_CACHED_DETERMINATORS = 1_000;
+
+  /**
+   * The settings that may differ between tenants. A <code>null</code> value means that the value
+   * of the template determinator is used. To remove a fallback ID of the template for a tenant, use
+   * {@link Builder#noFallbackSenderID()} or {@link Builder#noFallbackReceiverID()}.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class TenantSettings
+  {
+    /** Settings that use the template values only */
+    public static final TenantSettings DEFAULT = new TenantSettings (null, null, null, null);
+
+    private final IIdentifierFactory m_aIF;
+    private final IParticipantIdentifier m_aFallbackSenderID;
+    private final boolean m_bNoFallbackSenderID;
+    private final IParticipantIdentifier m_aFallbackReceiverID;
+    private final boolean m_bNoFallbackReceiverID;
+    private final String m_sParticipantIDScheme;
+
+    /**
+     * Constructor
+     *
+     * @param aIF
+     *        The identifier factory to use. May be <code>null</code>.
+     * @param aFallbackSenderID
+     *        The fallback sender ID to use. May be <code>null</code>.
+     * @param aFallbackReceiverID
+     *        The fallback receiver ID to use. May be <code>null</code>.
+     * @param sParticipantIDScheme
+     *        The participant ID scheme to use. May be <code>null</code>.
+     */
+    public TenantSettings (@Nullable final IIdentifierFactory aIF,
+                           @Nullable final IParticipantIdentifier aFallbackSenderID,
+                           @Nullable final IParticipantIdentifier aFallbackReceiverID,
+                           @Nullable final String sParticipantIDScheme)
+    {
+      this (aIF, aFallbackSenderID, false, aFallbackReceiverID, false, sParticipantIDScheme);
+    }
+
+    private TenantSettings (@Nullable final IIdentifierFactory aIF,
+                            @Nullable final IParticipantIdentifier aFallbackSenderID,
+                            final boolean bNoFallbackSenderID,
+                            @Nullable final IParticipantIdentifier aFallbackReceiverID,
+                            final boolean bNoFallbackReceiverID,
+                            @Nullable final String sParticipantIDScheme)
+    {
+      m_aIF = aIF;
+      m_aFallbackSenderID = aFallbackSenderID;
+      m_bNoFallbackSenderID = bNoFallbackSenderID;
+      m_aFallbackReceiverID = aFallbackReceiverID;
+      m_bNoFallbackReceiverID = bNoFallbackReceiverID;
+      m_sParticipantIDScheme = sParticipantIDScheme;
+    }
+
+    @Nullable
+    public IIdentifierFactory getIdentifierFactory ()
+    {
+      return m_aIF;
+    }
+
+    @Nullable
+    public IParticipantIdentifier getFallbackSenderID ()
+    {
+      return m_aFallbackSenderID;
+    }
+
+    /**
+     * @return <code>true</code> if the tenant has no fallback sender ID, even if the template has
+     *         one.
+     */
+    public boolean isNoFallbackSenderID ()
+    {
+      return m_bNoFallbackSenderID;
+    }
+
+    @Nullable
+    public IParticipantIdentifier getFallbackReceiverID ()
+    {
+      return m_aFallbackReceiverID;
+    }
+
+    /**
+     * @return <code>true</code> if the tenant has no fallback receiver ID, even if the template has
+     *         one.
+     */
+    public boolean isNoFallbackReceiverID ()
+    {
+      return m_bNoFallbackReceiverID;
+    }
+
+    @Nullable
+    public String getParticipantIDScheme ()
+    {
+      return m_sParticipantIDScheme;
+    }
+
+    @NonNull
+    FrozenDocumentDetailsDeterminator createDeterminator (@NonNull final DocumentDetailsDeterminator aTemplate)
+    {
+      final FrozenDocumentDetailsDeterminator.Builder aBuilder = FrozenDocumentDetailsDeterminator.builder (aTemplate);
+      if (m_aIF != null)
+        aBuilder.identifierFactory (m_aIF);
+      if (m_aFallbackSenderID != null || m_bNoFallbackSenderID)
+        aBuilder.fallbackSenderID (m_aFallbackSenderID);
+      if (m_aFallbackReceiverID != null || m_bNoFallbackReceiverID)
+        aBuilder.fallbackReceiverID (m_aFallbackReceiverID);
+      if (m_sParticipantIDScheme != null)
+        aBuilder.participantIDScheme (m_sParticipantIDScheme);
+      return aBuilder.build ();
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      if (o == this)
+        return true;
+      if (o == null || !getClass ().equals (o.getClass ()))
+        return false;
+      final TenantSettings rhs = (TenantSettings) o;
+      return EqualsHelper.identityEqual (m_aIF, rhs.m_aIF) &&
+             EqualsHelper.equals (m_aFallbackSenderID, rhs.m_aFallbackSenderID) &&
+             m_bNoFallbackSenderID == rhs.m_bNoFallbackSenderID &&
+             EqualsHelper.equals (m_aFallbackReceiverID, rhs.m_aFallbackReceiverID) &&
+             m_bNoFallbackReceiverID == rhs.m_bNoFallbackReceiverID &&
+             EqualsHelper.equals (m_sParticipantIDScheme, rhs.m_sParticipantIDScheme);
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return new HashCodeGenerator (this).append (System.identityHashCode (m_aIF))
+                                         .append (m_aFallbackSenderID)
+                                         .append (m_bNoFallbackSenderID)
+                                         .append (m_aFallbackReceiverID)
+                                         .append (m_bNoFallbackReceiverID)
+                                         .append (m_sParticipantIDScheme)
+                                         .getHashCode ();
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).appendIfNotNull ("IdentifierFactory", m_aIF)
+                                         .appendIfNotNull ("FallbackSenderID", m_aFallbackSenderID)
+                                         .append ("NoFallbackSenderID", m_bNoFallbackSenderID)
+                                         .appendIfNotNull ("FallbackReceiverID", m_aFallbackReceiverID)
+                                         .append ("NoFallbackReceiverID", m_bNoFallbackReceiverID)
+                                         .appendIfNotNull ("ParticipantIDScheme", m_sParticipantIDScheme)
+                                         .getToString ();
+    }
+
+    /**
+     * @return A new builder for tenant settings. Never <code>null</code>.
+     */
+    @NonNull
+    public static Builder builder ()
+    {
+      return new Builder ();
+    }
+
+    /**
+     * Builder for {@link TenantSettings}. All values that are not set are taken from the template
+     * determinator.
+     *
+     * @author Philip Helger
+     */
+    public static final class Builder implements IBuilder <TenantSettings>
+    {
+      private IIdentifierFactory m_aIF;
+      private IParticipantIdentifier m_aFallbackSenderID;
+      private boolean m_bNoFallbackSenderID;
+      private IParticipantIdentifier m_aFallbackReceiverID;
+      private boolean m_bNoFallbackReceiverID;
+      private String m_sParticipantIDScheme;
+
+      Builder ()
+      {}
+
+      @NonNull
+      public Builder identifierFactory (@Nullable final IIdentifierFactory a)
+      {
+        m_aIF = a;
+        return this;
+      }
+
+      @NonNull
+      public Builder fallbackSenderID (@Nullable final IParticipantIdentifier a)
+      {
+        m_aFallbackSenderID = a;
+        m_bNoFallbackSenderID = false;
+        return this;
+      }
+
+      /**
+       * Use no fallback sender ID, even if the template has one.
+       *
+       * @return this for chaining
+       */
+      @NonNull
+      public Builder noFallbackSenderID ()
+      {
+        m_aFallbackSenderID = null;
+        m_bNoFallbackSenderID = true;
+        return this;
+      }
+
+      @NonNull
+      public Builder fallbackReceiverID (@Nullable final IParticipantIdentifier a)
+      {
+        m_aFallbackReceiverID = a;
+        m_bNoFallbackReceiverID = false;
+        return this;
+      }
+
+      /**
+       * Use no fallback receiver ID, even if the template has one.
+       *
+       * @return this for chaining
+       */
+      @NonNull
+      public Builder noFallbackReceiverID ()
+      {
+        m_aFallbackReceiverID = null;
+        m_bNoFallbackReceiverID = true;
+        return this;
+      }
+
+      @NonNull
+      public Builder participantIDScheme (@Nullable final String s)
+      {
+        m_sParticipantIDScheme = s;
+        return this;
+      }
+
+      @NonNull
+      public TenantSettings build ()
+      {
+        return new TenantSettings (m_aIF,
+                                   m_aFallbackSenderID,
+                                   m_bNoFallbackSenderID,
+                                   m_aFallbackReceiverID,
+                                   m_bNoFallbackReceiverID,
+                                   m_sParticipantIDScheme);
+      }
+    }
+  }
+
+  /**
+   * A cached determinator with the time of its last use.
+   *
+   * @author Philip Helger
+   */
+  private static final class CacheEntry
+  {
+    private final FrozenDocumentDetailsDeterminator m_aDeterminator;
+    // Written without lock - only used to find eviction candidates
+    private volatile long m_nLastAccess;
+
+    CacheEntry (@NonNull final FrozenDocumentDetailsDeterminator aDeterminator)
+    {
+      m_aDeterminator = aDeterminator;
+      m_nLastAccess = System.nanoTime ();
+    }
+
+    @NonNull
+    FrozenDocumentDetailsDeterminator access ()
+    {
+      m_nLastAccess = System.nanoTime ();
+      return m_aDeterminator;
+    }
+  }
+
+  private final DocumentDetailsDeterminator m_aTemplate;
+  private final int m_nMaxCachedDeterminators;
+  private final Map <String, TenantSettings> m_aTenants = new ConcurrentHashMap <> ();
+  // Read without lock; entries are only added and removed while holding m_aLock
+  private final Map <TenantSettings, CacheEntry> m_aCache = new ConcurrentHashMap <> ();
+  private final ReentrantLock m_aLock = new ReentrantLock ();
+  // Only written while holding m_aLock
+  private volatile long m_nCreationCount = 0;
+
+  /**
+   * Constructor using the default maximum number of cached determinators.
+   *
+   * @param aTemplate
+   *        The template determinator providing all shared settings. May not be <code>null</code>.
+   */
+  public DocumentDetailsDeterminatorRegistry (@NonNull final DocumentDetailsDeterminator aTemplate)
+  {
+    this (aTemplate, DEFAULT_MAX_CACHED_DETERMINATORS);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aTemplate
+   *        The template determinator providing all shared settings. May not be <code>null</code>. A
+   *        copy is taken, so later modifications of the template have no effect. To share compiled
+   *        state, it should be created with compiled overlays (see
+   *        {@link com.helger.ddd.model.DDDSyntaxListOverlay#getCompiled()} and
+   *        {@link com.helger.ddd.model.DDDValueProviderListOverlay#getCompiled()}) or with the
+   *        plain lists.
+   * @param nMaxCachedDeterminators
+   *        The maximum number of determinators to keep in memory. Must be &gt; 0.
+   */
+  public DocumentDetailsDeterminatorRegistry (@NonNull final DocumentDetailsDeterminator aTemplate,
+                                              @Nonnegative final int nMaxCachedDeterminators)
+  {
+    ValueEnforcer.notNull (aTemplate, "Template");
+    ValueEnforcer.isGT0 (nMaxCachedDeterminators, "MaxCachedDeterminators");
+    m_aTemplate = new DocumentDetailsDeterminator (aTemplate);
+    m_nMaxCachedDeterminators = nMaxCachedDeterminators;
+  }
+
+  /**
+   * @return The maximum number of cached determinators as provided in the constructor. Always &gt;
+   *         0.
+   */
+  @Nonnegative
+  public int getMaxCachedDeterminators ()
+  {
+    return m_nMaxCachedDeterminators;
+  }
+
+  /**
+   * Register a tenant or replace the settings of an existing tenant.
+   *
+   * @param sTenantID
+   *        The tenant ID. May neither be <code>null</code> nor empty.
+   * @param aSettings
+   *        The settings of the tenant. May not be <code>null</code>.
+   * @return {@link EChange#CHANGED} if the tenant was added or its settings changed.
+   */
+  @NonNull
+  public EChange registerTenant (@NonNull @Nonempty final String sTenantID, @NonNull final TenantSettings aSettings)
+  {
+    ValueEnforcer.notEmpty (sTenantID, "TenantID");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    final TenantSettings aOld = m_aTenants.put (sTenantID, aSettings);
+    return EChange.valueOf (!aSettings.equals (aOld));
+  }
+
+  /**
+   * Remove a tenant.
+   *
+   * @param sTenantID
+   *        The tenant ID. May be <code>null</code>.
+   * @return {@link EChange#CHANGED} if the tenant was removed.
+   */
+  @NonNull
+  public EChange unregisterTenant (@Nullable final String sTenantID)
+  {
+    if (sTenantID == null)
+      return EChange.UNCHANGED;
+    return EChange.valueOf (m_aTenants.remove (sTenantID) != null);
+  }
+
+  /**
+   * @return The number of registered tenants. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getTenantCount ()
+  {
+    return m_aTenants.size ();
+  }
+
+  /**
+   * Get the settings of a tenant.
+   *
+   * @param sTenantID
+   *        The tenant ID. May be <code>null</code>.
+   * @return <code>null</code> if no such tenant is registered.
+   */
+  @Nullable
+  public TenantSettings getTenantSettings (@Nullable final String sTenantID)
+  {
+    return sTenantID == null ? null : m_aTenants.get (sTenantID);
+  }
+
+  /**
+   * Get the determinator for the provided settings. It is taken from the cache or created and
+   * cached.
+   *
+   * @param aSettings
+   *        The settings to use. May not be <code>null</code>.
+   * @return The shared immutable determinator. Never <code>null</code>.
+   */
+  @NonNull
+  public FrozenDocumentDetailsDeterminator getDeterminator (@NonNull final TenantSettings aSettings)
+  {
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    // Lock free in the common case
+    final CacheEntry aEntry = m_aCache.get (aSettings);
+    if (aEntry != null)
+      return aEntry.access ();
+
+    m_aLock.lock ();
+    try
+    {
+      // Another thread may have created it in the meantime
+      CacheEntry aNewEntry = m_aCache.get (aSettings);
+      if (aNewEntry == null)
+      {
+        aNewEntry = new CacheEntry (aSettings.createDeterminator (m_aTemplate));
+        m_nCreationCount++;
+        m_aCache.put (aSettings, aNewEntry);
+        _evictLeastRecentlyUsed (aSettings);
+      }
+      return aNewEntry.access ();
+    }
+    finally
+    {
+      m_aLock.unlock ();
+    }
+  }
+
+  private void _evictLeastRecentlyUsed (@NonNull final TenantSettings aKeep)
+  {
+    // Must be called while holding the lock. Only called on a miss, so the linear scan is fine.
+    while (m_aCache.size () > m_nMaxCachedDeterminators)
+    {
+      Map.Entry <TenantSettings, CacheEntry> aOldest = null;
+      for (final Map.Entry <TenantSettings, CacheEntry> aCur : m_aCache.entrySet ())
+        if (!aCur.getKey ().equals (aKeep) &&
+            (aOldest == null || aCur.getValue ().m_nLastAccess - aOldest.getValue ().m_nLastAccess < 0))
+          aOldest = aCur;
+      m_aCache.remove (aOldest.getKey ());
+    }
+  }
+
+  /**
+   * Get the determinator for the provided tenant.
+   *
+   * @param sTenantID
+   *        The tenant ID. May be <code>null</code>.
+   * @return <code>null</code> if no such tenant is registered. The returned determinator is shared
+   *         and immutable.
+   */
+  @Nullable
+  public FrozenDocumentDetailsDeterminator getDeterminatorOfTenant (@Nullable final String sTenantID)
+  {
+    final TenantSettings aSettings = getTenantSettings (sTenantID);
+    return aSettings == null ? null : getDeterminator (aSettings);
+  }
+
+  /**
+   * @return The number of currently cached determinators. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getCachedDeterminatorCount ()
+  {
+    return m_aCache.size ();
+  }
+
+  /**
+   * @return The number of determinators created so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getCreationCount ()
+  {
+    return m_nCreationCount;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxCachedDeterminators", m_nMaxCachedDeterminators)
+                                       .append ("TenantCount", getTenantCount ())
+                                       .getToString ();
+  }
+}
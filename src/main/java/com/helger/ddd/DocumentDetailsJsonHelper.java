@@ -21,6 +21,9 @@ import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.concurrent.Immutable;
 import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.ddd.model.EDDDSourceField;
 import com.helger.json.IJson;
 import com.helger.json.IJsonArray;
 import com.helger.json.IJsonObject;
@@ -37,22 +40,23 @@ import com.helger.peppolid.factory.IIdentifierFactory;
 @Immutable
 public final class DocumentDetailsJsonHelper
 {
-  private static final String JSON_SYNTAX_ID = "syntaxID";
-  private static final String JSON_SYNTAX_VERSION = "syntaxVersion";
-  private static final String JSON_SENDER_ID = "sender";
-  private static final String JSON_RECEIVER_ID = "receiver";
-  private static final String JSON_DOC_TYPE_ID = "doctype";
-  private static final String JSON_PROCESS_ID = "process";
-  private static final String JSON_CUSTOMIZATION_ID = "customizationID";
-  private static final String JSON_BUSINESS_DOCUMENT_ID = "bdid";
-  private static final String JSON_SENDER_NAME = "senderName";
-  private static final String JSON_SENDER_COUNTRY_CODE = "senderCountryCode";
-  private static final String JSON_RECEIVER_NAME = "receiverName";
-  private static final String JSON_RECEIVER_COUNTRY_CODE = "receiverCountryCode";
-  private static final String JSON_VESID = "vesid";
-  private static final String JSON_PROFILE_NAME = "profileName";
-  private static final String JSON_FLAGS = "flags";
-  private static final String JSON_WRAPPERS = "wrappers";
+  static final String JSON_SYNTAX_ID = "syntaxID";
+  static final String JSON_SYNTAX_VERSION = "syntaxVersion";
+  static final String JSON_SENDER_ID = "sender";
+  static final String JSON_RECEIVER_ID = "receiver";
+  static final String JSON_DOC_TYPE_ID = "doctype";
+  static final String JSON_PROCESS_ID = "process";
+  static final String JSON_CUSTOMIZATION_ID = "customizationID";
+  static final String JSON_BUSINESS_DOCUMENT_ID = "bdid";
+  static final String JSON_SENDER_NAME = "senderName";
+  static final String JSON_SENDER_COUNTRY_CODE = "senderCountryCode";
+  static final String JSON_RECEIVER_NAME = "receiverName";
+  static final String JSON_RECEIVER_COUNTRY_CODE = "receiverCountryCode";
+  static final String JSON_VESID = "vesid";
+  static final String JSON_PROFILE_NAME = "profileName";
+  static final String JSON_FLAGS = "flags";
+  static final String JSON_WRAPPERS = "wrappers";
+  static final String JSON_SOURCE_VALUES = "sourceValues";
 
   private DocumentDetailsJsonHelper ()
   {}
@@ -99,9 +103,20 @@ public final class DocumentDetailsJsonHelper
     if (aDD.hasProfileName ())
       ret.add (JSON_PROFILE_NAME, aDD.getProfileName ());
     if (aDD.hasFlags ())
-      ret.add (JSON_FLAGS, new JsonArray ().addAll (aDD.flags ()));
+      ret.add (JSON_FLAGS, new JsonArray ().addAll (aDD.getAllFlags ()));
     if (aDD.hasWrappers ())
-      ret.add (JSON_WRAPPERS, new JsonArray ().addAll (aDD.wrappers ()));
+      ret.add (JSON_WRAPPERS, new JsonArray ().addAll (aDD.getAllWrappers ()));
+    if (aDD.hasSourceValues ())
+    {
+      final JsonObject aSourceValues = new JsonObject ();
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aDD.getSourceValue (eField);
+        if (sValue != null)
+          aSourceValues.add (eField.getID (), sValue);
+      }
+      ret.add (JSON_SOURCE_VALUES, aSourceValues);
+    }
     return ret;
   }
 
@@ -126,6 +141,20 @@ public final class DocumentDetailsJsonHelper
 
     final IJsonArray aFlags = aObj.getAsArray (JSON_FLAGS);
     final IJsonArray aWrappers = aObj.getAsArray (JSON_WRAPPERS);
+    final IJsonObject aSourceValues = aObj.getAsObject (JSON_SOURCE_VALUES);
+    final ICommonsMap <EDDDSourceField, String> aSourceValueMap;
+    if (aSourceValues == null)
+      aSourceValueMap = null;
+    else
+    {
+      aSourceValueMap = new CommonsEnumMap <> (EDDDSourceField.class);
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aSourceValues.getAsString (eField.getID ());
+        if (sValue != null)
+          aSourceValueMap.put (eField, sValue);
+      }
+    }
     return DocumentDetails.builder ()
                           .syntaxID (aObj.getAsString (JSON_SYNTAX_ID))
                           .syntaxVersion (aObj.getAsString (JSON_SYNTAX_VERSION))
@@ -148,6 +177,7 @@ public final class DocumentDetailsJsonHelper
                                                                          .getAllMapped (IJson::isValue,
                                                                                         x -> x.getAsValue ()
                                                                                                .getAsString ()))
+                          .sourceValues (aSourceValueMap)
                           .build ();
   }
 }
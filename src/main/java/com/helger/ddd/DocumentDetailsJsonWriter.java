@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.ddd.model.EDDDSourceField;
+
+/**
+ * Streaming JSON serialization of {@link DocumentDetails} without building an intermediate
+ * {@link com.helger.json.IJsonObject}. The created JSON is equivalent to the one created by
+ * {@link DocumentDetailsJsonHelper#getAsJson(DocumentDetails)}: it contains the same properties in
+ * the same order and parses to an equal JSON object, but the escaping of special characters may
+ * differ. It can be read back via
+ * {@link DocumentDetailsJsonHelper#getAsDocumentDetails(com.helger.json.IJsonObject, com.helger.peppolid.factory.IIdentifierFactory)}.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DocumentDetailsJsonWriter
+{
+  private static final char [] HEX = "0123456789abcdef".toCharArray ();
+
+  private DocumentDetailsJsonWriter ()
+  {}
+
+  // Package private for the NDJSON summary of the batch processor
+  static void writeJsonString (@NonNull final String s, @NonNull final Appendable aTarget) throws IOException
+  {
+    aTarget.append ('"');
+    final int nLen = s.length ();
+    int nStart = 0;
+    for (int i = 0; i < nLen; ++i)
+    {
+      final char c = s.charAt (i);
+      final String sReplacement;
+      switch (c)
+      {
+        case '"':
+          sReplacement = "\\\"";
+          break;
+        case '\\':
+          sReplacement = "\\\\";
+          break;
+        case '\b':
+          sReplacement = "\\b";
+          break;
+        case '\f':
+          sReplacement = "\\f";
+          break;
+        case '\n':
+          sReplacement = "\\n";
+          break;
+        case '\r':
+          sReplacement = "\\r";
+          break;
+        case '\t':
+          sReplacement = "\\t";
+          break;
+        default:
+          if (c >= 0x20)
+            continue;
+          sReplacement = "\\u00" + HEX[(c >> 4) & 0xf] + HEX[c & 0xf];
+          break;
+      }
+      // Write the unescaped part in one go
+      if (i > nStart)
+        aTarget.append (s, nStart, i);
+      aTarget.append (sReplacement);
+      nStart = i + 1;
+    }
+    if (nStart < nLen)
+      aTarget.append (s, nStart, nLen);
+    aTarget.append ('"');
+  }
+
+  private static final class JsonObjectWriter
+  {
+    private final Appendable m_aTarget;
+    private boolean m_bFirst = true;
+
+    JsonObjectWriter (@NonNull final Appendable aTarget)
+    {
+      m_aTarget = aTarget;
+    }
+
+    void name (@NonNull final String sName) throws IOException
+    {
+      if (m_bFirst)
+        m_bFirst = false;
+      else
+        m_aTarget.append (',');
+      writeJsonString (sName, m_aTarget);
+      m_aTarget.append (':');
+    }
+
+    void value (@NonNull final String sName, @Nullable final String sValue) throws IOException
+    {
+      name (sName);
+      writeJsonString (sValue, m_aTarget);
+    }
+  }
+
+  /**
+   * Write a single {@link DocumentDetails} object as a JSON object to the provided target. No line
+   * break is written at the end.
+   *
+   * @param aDD
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @param aTarget
+   *        The target to write to. May be a {@link Writer} or a {@link StringBuilder}. May not be
+   *        <code>null</code>.
+   * @throws IOException
+   *         In case writing fails
+   */
+  public static void write (@NonNull final DocumentDetails aDD, @NonNull final Appendable aTarget) throws IOException
+  {
+    ValueEnforcer.notNull (aDD, "DocumentDetails");
+    ValueEnforcer.notNull (aTarget, "Target");
+
+    final JsonObjectWriter w = new JsonObjectWriter (aTarget);
+    aTarget.append ('{');
+    if (aDD.hasSyntaxID ())
+      w.value (DocumentDetailsJsonHelper.JSON_SYNTAX_ID, aDD.getSyntaxID ());
+    if (aDD.hasSyntaxVersion ())
+      w.value (DocumentDetailsJsonHelper.JSON_SYNTAX_VERSION, aDD.getSyntaxVersion ());
+    if (aDD.hasSenderID ())
+      w.value (DocumentDetailsJsonHelper.JSON_SENDER_ID, aDD.getSenderID ().getURIEncoded ());
+    if (aDD.hasReceiverID ())
+      w.value (DocumentDetailsJsonHelper.JSON_RECEIVER_ID, aDD.getReceiverID ().getURIEncoded ());
+    if (aDD.hasDocumentTypeID ())
+      w.value (DocumentDetailsJsonHelper.JSON_DOC_TYPE_ID, aDD.getDocumentTypeID ().getURIEncoded ());
+    if (aDD.hasProcessID ())
+      w.value (DocumentDetailsJsonHelper.JSON_PROCESS_ID, aDD.getProcessID ().getURIEncoded ());
+    if (aDD.hasCustomizationID ())
+      w.value (DocumentDetailsJsonHelper.JSON_CUSTOMIZATION_ID, aDD.getCustomizationID ());
+    if (aDD.hasBusinessDocumentID ())
+      w.value (DocumentDetailsJsonHelper.JSON_BUSINESS_DOCUMENT_ID, aDD.getBusinessDocumentID ());
+    if (aDD.hasSenderName ())
+      w.value (DocumentDetailsJsonHelper.JSON_SENDER_NAME, aDD.getSenderName ());
+    if (aDD.hasSenderCountryCode ())
+      w.value (DocumentDetailsJsonHelper.JSON_SENDER_COUNTRY_CODE, aDD.getSenderCountryCode ());
+    if (aDD.hasReceiverName ())
+      w.value (DocumentDetailsJsonHelper.JSON_RECEIVER_NAME, aDD.getReceiverName ());
+    if (aDD.hasReceiverCountryCode ())
+      w.value (DocumentDetailsJsonHelper.JSON_RECEIVER_COUNTRY_CODE, aDD.getReceiverCountryCode ());
+    if (aDD.hasVESID ())
+      w.value (DocumentDetailsJsonHelper.JSON_VESID, aDD.getVESID ());
+    if (aDD.hasProfileName ())
+      w.value (DocumentDetailsJsonHelper.JSON_PROFILE_NAME, aDD.getProfileName ());
+    if (aDD.hasFlags ())
+    {
+      w.name (DocumentDetailsJsonHelper.JSON_FLAGS);
+      _writeArray (aDD.internalGetFlags (), aTarget);
+    }
+    if (aDD.hasWrappers ())
+    {
+      w.name (DocumentDetailsJsonHelper.JSON_WRAPPERS);
+      _writeArray (aDD.internalGetWrappers (), aTarget);
+    }
+    if (aDD.hasSourceValues ())
+    {
+      w.name (DocumentDetailsJsonHelper.JSON_SOURCE_VALUES);
+      final JsonObjectWriter aSourceValueWriter = new JsonObjectWriter (aTarget);
+      aTarget.append ('{');
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aDD.getSourceValue (eField);
+        if (sValue != null)
+          aSourceValueWriter.value (eField.getID (), sValue);
+      }
+      aTarget.append ('}');
+    }
+    aTarget.append ('}');
+  }
+
+  private static void _writeArray (@NonNull final String [] aValues, @NonNull final Appendable aTarget) throws IOException
+  {
+    aTarget.append ('[');
+    for (int i = 0; i < aValues.length; ++i)
+    {
+      if (i > 0)
+        aTarget.append (',');
+      writeJsonString (aValues[i], aTarget);
+    }
+    aTarget.append (']');
+  }
+
+  /**
+   * Write a single {@link DocumentDetails} object as UTF-8 encoded JSON to the provided output
+   * stream. The stream is flushed but not closed.
+   *
+   * @param aDD
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @throws IOException
+   *         In case writing fails
+   */
+  public static void write (@NonNull final DocumentDetails aDD, @NonNull final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+
+    final Writer aWriter = new BufferedWriter (new OutputStreamWriter (aOS, StandardCharsets.UTF_8));
+    write (aDD, aWriter);
+    aWriter.flush ();
+  }
+
+  /**
+   * Get the provided {@link DocumentDetails} as a JSON string.
+   *
+   * @param aDD
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @return The JSON string. Never <code>null</code>.
+   */
+  @NonNull
+  public static String getAsJsonString (@NonNull final DocumentDetails aDD)
+  {
+    final StringBuilder aSB = new StringBuilder (512);
+    try
+    {
+      write (aDD, aSB);
+    }
+    catch (final IOException ex)
+    {
+      // Cannot happen on a StringBuilder
+      throw new IllegalStateException ("Failed to write to StringBuilder", ex);
+    }
+    return aSB.toString ();
+  }
+
+  /**
+   * Write all provided {@link DocumentDetails} as NDJSON (newline delimited JSON) - one JSON object
+   * per line, each line terminated by <code>\n</code>.
+   *
+   * @param aDDs
+   *        The Document Details to be written. May not be <code>null</code> and may not contain
+   *        <code>null</code> elements.
+   * @param aTarget
+   *        The target to write to. May not be <code>null</code>.
+   * @return The number of written lines. Always &ge; 0.
+   * @throws IOException
+   *         In case writing fails
+   */
+  public static long writeNDJSON (@NonNull final Iterable <? extends DocumentDetails> aDDs,
+                                  @NonNull final Appendable aTarget) throws IOException
+  {
+    ValueEnforcer.notNull (aDDs, "DocumentDetails");
+    ValueEnforcer.notNull (aTarget, "Target");
+
+    long nCount = 0;
+    for (final DocumentDetails aDD : aDDs)
+    {
+      write (aDD, aTarget);
+      aTarget.append ('\n');
+      nCount++;
+    }
+    return nCount;
+  }
+
+  /**
+   * Write all provided {@link DocumentDetails} as UTF-8 encoded NDJSON (newline delimited JSON) to
+   * the provided output stream. The stream is flushed but not closed.
+   *
+   * @param aDDs
+   *        The Document Details to be written. May not be <code>null</code> and may not contain
+   *        <code>null</code> elements.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @return The number of written lines. Always &ge; 0.
+   * @throws IOException
+   *         In case writing fails
+   */
+  public static long writeNDJSON (@NonNull final Iterable <? extends DocumentDetails> aDDs,
+                                  @NonNull final OutputStream aOS) throws IOException
+  {
+    ValueEnforcer.notNull (aOS, "OutputStream");
+
+    final Writer aWriter = new BufferedWriter (new OutputStreamWriter (aOS, StandardCharsets.UTF_8));
+    final long ret = writeNDJSON (aDDs, aWriter);
+    aWriter.flush ();
+    return ret;
+  }
+}
@@ -0,0 +1,469 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.ddd.model.EDDDSourceField;
+import com.helger.peppolid.factory.IIdentifierFactory;
+
+/**
+ * StAX based streaming XML serialization of {@link DocumentDetails}. The same element names as in
+ * {@link DocumentDetailsXMLHelper} are used, so the created XML is interchangeable with the tree
+ * based variants. Multiple records can be written into and read from a single wrapper document with
+ * constant memory usage.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DocumentDetailsStAXHelper
+{
+  /** Default element name of the wrapper element for multiple records */
+  public static final String XML_DEFAULT_LIST_ELEMENT = "DocumentDetailsList";
+  /** Default element name of a single record */
+  public static final String XML_DEFAULT_RECORD_ELEMENT = "DocumentDetails";
+
+  private static final XMLInputFactory XML_INPUT_FACTORY;
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory ();
+
+  static
+  {
+    final XMLInputFactory aXIF = XMLInputFactory.newFactory ();
+    // Secure processing
+    aXIF.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    aXIF.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    XML_INPUT_FACTORY = aXIF;
+  }
+
+  private DocumentDetailsStAXHelper ()
+  {}
+
+  private static void _writeStartElement (@NonNull final XMLStreamWriter aWriter,
+                                          @Nullable final String sNamespaceURI,
+                                          @NonNull final String sLocalName) throws XMLStreamException
+  {
+    if (StringHelper.isEmpty (sNamespaceURI))
+      aWriter.writeStartElement (sLocalName);
+    else
+      aWriter.writeStartElement (XMLConstants.DEFAULT_NS_PREFIX, sLocalName, sNamespaceURI);
+  }
+
+  private static void _writeElement (@NonNull final XMLStreamWriter aWriter,
+                                     @Nullable final String sNamespaceURI,
+                                     @NonNull final String sLocalName,
+                                     @NonNull final String sValue) throws XMLStreamException
+  {
+    _writeStartElement (aWriter, sNamespaceURI, sLocalName);
+    aWriter.writeCharacters (sValue);
+    aWriter.writeEndElement ();
+  }
+
+  /**
+   * Write all document details as child elements of the currently open element. This is the
+   * streaming equivalent of
+   * {@link DocumentDetailsXMLHelper#appendToMicroElement(DocumentDetails, com.helger.xml.microdom.IMicroElement)}.
+   *
+   * @param aDD
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>.
+   * @param sNamespaceURI
+   *        The namespace URI of the created elements. May be <code>null</code>. If a namespace is
+   *        provided, it must be the default namespace at this point.
+   * @throws XMLStreamException
+   *         In case writing fails
+   */
+  public static void writeChildElements (@NonNull final DocumentDetails aDD,
+                                         @NonNull final XMLStreamWriter aWriter,
+                                         @Nullable final String sNamespaceURI) throws XMLStreamException
+  {
+    ValueEnforcer.notNull (aDD, "DocumentDetails");
+    ValueEnforcer.notNull (aWriter, "Writer");
+
+    if (aDD.hasSyntaxID ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_SYNTAX_ID, aDD.getSyntaxID ());
+    if (aDD.hasSyntaxVersion ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_SYNTAX_VERSION, aDD.getSyntaxVersion ());
+    if (aDD.hasSenderID ())
+      _writeElement (aWriter,
+                     sNamespaceURI,
+                     DocumentDetailsXMLHelper.XML_SENDER_ID,
+                     aDD.getSenderID ().getURIEncoded ());
+    if (aDD.hasReceiverID ())
+      _writeElement (aWriter,
+                     sNamespaceURI,
+                     DocumentDetailsXMLHelper.XML_RECEIVER_ID,
+                     aDD.getReceiverID ().getURIEncoded ());
+    if (aDD.hasDocumentTypeID ())
+      _writeElement (aWriter,
+                     sNamespaceURI,
+                     DocumentDetailsXMLHelper.XML_DOC_TYPE_ID,
+                     aDD.getDocumentTypeID ().getURIEncoded ());
+    if (aDD.hasProcessID ())
+      _writeElement (aWriter,
+                     sNamespaceURI,
+                     DocumentDetailsXMLHelper.XML_PROCESS_ID,
+                     aDD.getProcessID ().getURIEncoded ());
+    if (aDD.hasCustomizationID ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_CUSTOMIZATION_ID, aDD.getCustomizationID ());
+    if (aDD.hasBusinessDocumentID ())
+      _writeElement (aWriter,
+                     sNamespaceURI,
+                     DocumentDetailsXMLHelper.XML_BUSINESS_DOCUMENT_ID,
+                     aDD.getBusinessDocumentID ());
+    if (aDD.hasSenderName ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_SENDER_NAME, aDD.getSenderName ());
+    if (aDD.hasSenderCountryCode ())
+      _writeElement (aWriter,
+                     sNamespaceURI,
+                     DocumentDetailsXMLHelper.XML_SENDER_COUNTRY_CODE,
+                     aDD.getSenderCountryCode ());
+    if (aDD.hasReceiverName ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_RECEIVER_NAME, aDD.getReceiverName ());
+    if (aDD.hasReceiverCountryCode ())
+      _writeElement (aWriter,
+                     sNamespaceURI,
+                     DocumentDetailsXMLHelper.XML_RECEIVER_COUNTRY_CODE,
+                     aDD.getReceiverCountryCode ());
+    if (aDD.hasVESID ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_VESID, aDD.getVESID ());
+    if (aDD.hasProfileName ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_PROFILE_NAME, aDD.getProfileName ());
+    for (final String sFlag : aDD.internalGetFlags ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_FLAG, sFlag);
+    for (final String sWrapper : aDD.internalGetWrappers ())
+      _writeElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_WRAPPER, sWrapper);
+    if (aDD.hasSourceValues ())
+    {
+      _writeStartElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_SOURCE_VALUES);
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aDD.getSourceValue (eField);
+        if (sValue != null)
+        {
+          _writeStartElement (aWriter, sNamespaceURI, DocumentDetailsXMLHelper.XML_SOURCE_VALUE);
+          aWriter.writeAttribute (DocumentDetailsXMLHelper.XML_SOURCE_VALUE_ATTR_FIELD, eField.getID ());
+          aWriter.writeCharacters (sValue);
+          aWriter.writeEndElement ();
+        }
+      }
+      aWriter.writeEndElement ();
+    }
+  }
+
+  /**
+   * Write a single record element containing all document details.
+   *
+   * @param aDD
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @param aWriter
+   *        The writer to write to. May not be <code>null</code>.
+   * @param sNamespaceURI
+   *        The namespace URI of the created elements. May be <code>null</code>. If a namespace is
+   *        provided, it must be the default namespace at this point.
+   * @param sElementName
+   *        The local name of the record element. May neither be <code>null</code> nor empty.
+   * @throws XMLStreamException
+   *         In case writing fails
+   */
+  public static void writeElement (@NonNull final DocumentDetails aDD,
+                                   @NonNull final XMLStreamWriter aWriter,
+                                   @Nullable final String sNamespaceURI,
+                                   @NonNull @Nonempty final String sElementName) throws XMLStreamException
+  {
+    ValueEnforcer.notEmpty (sElementName, "ElementName");
+
+    _writeStartElement (aWriter, sNamespaceURI, sElementName);
+    writeChildElements (aDD, aWriter, sNamespaceURI);
+    aWriter.writeEndElement ();
+  }
+
+  /**
+   * Write a complete UTF-8 encoded XML document with a {@link #XML_DEFAULT_LIST_ELEMENT} root
+   * element containing one {@link #XML_DEFAULT_RECORD_ELEMENT} element per provided record. No
+   * namespace is used. The output stream is flushed but not closed.
+   *
+   * @param aDDs
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @return The number of written records. Always &ge; 0.
+   * @throws XMLStreamException
+   *         In case writing fails
+   */
+  @Nonnegative
+  public static long writeDocument (@NonNull final Iterable <? extends DocumentDetails> aDDs,
+                                    @NonNull final OutputStream aOS) throws XMLStreamException
+  {
+    return writeDocument (aDDs, aOS, null, XML_DEFAULT_LIST_ELEMENT, XML_DEFAULT_RECORD_ELEMENT);
+  }
+
+  /**
+   * Write a complete UTF-8 encoded XML document with a wrapper root element containing one element
+   * per provided record. The output stream is flushed but not closed.
+   *
+   * @param aDDs
+   *        The Document Details to be written. May not be <code>null</code>.
+   * @param aOS
+   *        The output stream to write to. May not be <code>null</code>.
+   * @param sNamespaceURI
+   *        The namespace URI of all created elements. May be <code>null</code>.
+   * @param sListElementName
+   *        The local name of the root element. May neither be <code>null</code> nor empty.
+   * @param sRecordElementName
+   *        The local name of each record element. May neither be <code>null</code> nor empty.
+   * @return The number of written records. Always &ge; 0.
+   * @throws XMLStreamException
+   *         In case writing fails
+   */
+  @Nonnegative
+  public static long writeDocument (@NonNull final Iterable <? extends DocumentDetails> aDDs,
+                                    @NonNull final OutputStream aOS,
+                                    @Nullable final String sNamespaceURI,
+                                    @NonNull @Nonempty final String sListElementName,
+                                    @NonNull @Nonempty final String sRecordElementName) throws XMLStreamException
+  {
+    ValueEnforcer.notNull (aDDs, "DocumentDetails");
+    ValueEnforcer.notNull (aOS, "OutputStream");
+    ValueEnforcer.notEmpty (sListElementName, "ListElementName");
+    ValueEnforcer.notEmpty (sRecordElementName, "RecordElementName");
+
+    final XMLStreamWriter aWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter (aOS, StandardCharsets.UTF_8.name ());
+    try
+    {
+      aWriter.writeStartDocument (StandardCharsets.UTF_8.name (), "1.0");
+      _writeStartElement (aWriter, sNamespaceURI, sListElementName);
+      if (StringHelper.isNotEmpty (sNamespaceURI))
+        aWriter.writeDefaultNamespace (sNamespaceURI);
+
+      long nCount = 0;
+      for (final DocumentDetails aDD : aDDs)
+      {
+        writeElement (aDD, aWriter, sNamespaceURI, sRecordElementName);
+        nCount++;
+      }
+
+      aWriter.writeEndElement ();
+      aWriter.writeEndDocument ();
+      aWriter.flush ();
+      return nCount;
+    }
+    finally
+    {
+      // Does not close the underlying stream
+      aWriter.close ();
+    }
+  }
+
+  private static void _skipElement (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    int nDepth = 1;
+    while (nDepth > 0)
+    {
+      final int nEvent = aReader.next ();
+      if (nEvent == XMLStreamConstants.START_ELEMENT)
+        nDepth++;
+      else
+        if (nEvent == XMLStreamConstants.END_ELEMENT)
+          nDepth--;
+    }
+  }
+
+  @NonNull
+  private static ICommonsMap <EDDDSourceField, String> _readSourceValues (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    final ICommonsMap <EDDDSourceField, String> ret = new CommonsEnumMap <> (EDDDSourceField.class);
+    while (aReader.nextTag () == XMLStreamConstants.START_ELEMENT)
+    {
+      if (DocumentDetailsXMLHelper.XML_SOURCE_VALUE.equals (aReader.getLocalName ()))
+      {
+        final EDDDSourceField eField = EDDDSourceField.getFromIDOrNull (aReader.getAttributeValue (null,
+                                                                                                   DocumentDetailsXMLHelper.XML_SOURCE_VALUE_ATTR_FIELD));
+        final String sValue = aReader.getElementText ();
+        if (eField != null)
+          ret.put (eField, sValue);
+      }
+      else
+        _skipElement (aReader);
+    }
+    return ret;
+  }
+
+  /**
+   * Read a single record element. The reader must be positioned on the start element of the record
+   * and will be positioned on the matching end element afterwards. Unknown child elements are
+   * ignored. Element namespaces are not checked. Like
+   * {@link DocumentDetailsXMLHelper#getAsDocumentDetails(org.w3c.dom.Element, IIdentifierFactory)}
+   * all values are taken as is, without trimming.
+   *
+   * @param aReader
+   *        The reader to read from. May not be <code>null</code>.
+   * @param aIF
+   *        The identifier factory that should be used to parse the participant, document type and
+   *        process identifiers. May not be <code>null</code>.
+   * @return The read Document Details. Never <code>null</code>.
+   * @throws XMLStreamException
+   *         In case reading fails
+   */
+  @NonNull
+  public static DocumentDetails readElement (@NonNull final XMLStreamReader aReader,
+                                             @NonNull final IIdentifierFactory aIF) throws XMLStreamException
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aIF, "IdentifierFactory");
+    aReader.require (XMLStreamConstants.START_ELEMENT, null, null);
+
+    final DocumentDetails.Builder aBuilder = DocumentDetails.builder ();
+    final ICommonsList <String> aFlags = new CommonsArrayList <> ();
+    final ICommonsList <String> aWrappers = new CommonsArrayList <> ();
+    while (aReader.nextTag () == XMLStreamConstants.START_ELEMENT)
+    {
+      final String sLocalName = aReader.getLocalName ();
+      switch (sLocalName)
+      {
+        case DocumentDetailsXMLHelper.XML_SYNTAX_ID:
+          aBuilder.syntaxID (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_SYNTAX_VERSION:
+          aBuilder.syntaxVersion (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_SENDER_ID:
+          aBuilder.senderID (aIF.parseParticipantIdentifier (aReader.getElementText ()));
+          break;
+        case DocumentDetailsXMLHelper.XML_RECEIVER_ID:
+          aBuilder.receiverID (aIF.parseParticipantIdentifier (aReader.getElementText ()));
+          break;
+        case DocumentDetailsXMLHelper.XML_DOC_TYPE_ID:
+          aBuilder.documentTypeID (aIF.parseDocumentTypeIdentifier (aReader.getElementText ()));
+          break;
+        case DocumentDetailsXMLHelper.XML_PROCESS_ID:
+          aBuilder.processID (aIF.parseProcessIdentifier (aReader.getElementText ()));
+          break;
+        case DocumentDetailsXMLHelper.XML_CUSTOMIZATION_ID:
+          aBuilder.customizationID (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_BUSINESS_DOCUMENT_ID:
+          aBuilder.businessDocumentID (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_SENDER_NAME:
+          aBuilder.senderName (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_SENDER_COUNTRY_CODE:
+          aBuilder.senderCountryCode (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_RECEIVER_NAME:
+          aBuilder.receiverName (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_RECEIVER_COUNTRY_CODE:
+          aBuilder.receiverCountryCode (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_VESID:
+          aBuilder.vesid (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_PROFILE_NAME:
+          aBuilder.profileName (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_FLAG:
+          aFlags.add (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_WRAPPER:
+          aWrappers.add (aReader.getElementText ());
+          break;
+        case DocumentDetailsXMLHelper.XML_SOURCE_VALUES:
+          aBuilder.sourceValues (_readSourceValues (aReader));
+          break;
+        default:
+          // Ignore unknown elements
+          _skipElement (aReader);
+          break;
+      }
+    }
+    return aBuilder.flags (aFlags).wrappers (aWrappers).build ();
+  }
+
+  /**
+   * Read all records from an XML document with an arbitrary root element, where each child element
+   * of the root element is considered a record. Each record is passed to the consumer directly
+   * after it was read, so memory consumption is independent of the number of records.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>. It is not closed by this
+   *        method.
+   * @param aIF
+   *        The identifier factory that should be used to parse the participant, document type and
+   *        process identifiers. May not be <code>null</code>.
+   * @param aConsumer
+   *        The consumer that receives all records. May not be <code>null</code>.
+   * @return The number of read records. Always &ge; 0.
+   * @throws XMLStreamException
+   *         In case reading fails
+   */
+  @Nonnegative
+  public static long readDocument (@NonNull final InputStream aIS,
+                                   @NonNull final IIdentifierFactory aIF,
+                                   @NonNull final Consumer <? super DocumentDetails> aConsumer) throws XMLStreamException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aIF, "IdentifierFactory");
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    final XMLStreamReader aReader = XML_INPUT_FACTORY.createXMLStreamReader (aIS);
+    try
+    {
+      // Go to the root element
+      aReader.nextTag ();
+      aReader.require (XMLStreamConstants.START_ELEMENT, null, null);
+
+      long nCount = 0;
+      while (aReader.nextTag () == XMLStreamConstants.START_ELEMENT)
+      {
+        aConsumer.accept (readElement (aReader, aIF));
+        nCount++;
+      }
+      return nCount;
+    }
+    finally
+    {
+      // Does not close the underlying stream
+      aReader.close ();
+    }
+  }
+}
@@ -29,7 +29,10 @@ import org.w3c.dom.Node;
 import com.helger.annotation.concurrent.Immutable;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
 import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.ddd.model.EDDDSourceField;
 import com.helger.peppolid.factory.IIdentifierFactory;
 import com.helger.xml.XMLHelper;
 import com.helger.xml.microdom.IMicroElement;
@@ -60,6 +63,12 @@ public final class DocumentDetailsXMLHelper
   public static final String XML_PROFILE_NAME = "ProfileName";
   public static final String XML_FLAG = "Flag";
   public static final String XML_WRAPPER = "Wrapper";
+  /** @since 0.8.11 */
+  public static final String XML_SOURCE_VALUES = "SourceValues";
+  /** @since 0.8.11 */
+  public static final String XML_SOURCE_VALUE = "SourceValue";
+  /** @since 0.8.11 */
+  public static final String XML_SOURCE_VALUE_ATTR_FIELD = "field";
 
   private DocumentDetailsXMLHelper ()
   {}
@@ -106,12 +115,20 @@ public final class DocumentDetailsXMLHelper
       aTarget.addElementNS (sNamespaceURI, XML_VESID).addText (aDD.getVESID ());
     if (aDD.hasProfileName ())
       aTarget.addElementNS (sNamespaceURI, XML_PROFILE_NAME).addText (aDD.getProfileName ());
-    if (aDD.hasFlags ())
-      for (final String sFlag : aDD.flags ())
-        aTarget.addElementNS (sNamespaceURI, XML_FLAG).addText (sFlag);
-    if (aDD.hasWrappers ())
-      for (final String sWrapper : aDD.wrappers ())
-        aTarget.addElementNS (sNamespaceURI, XML_WRAPPER).addText (sWrapper);
+    aDD.forEachFlag (x -> aTarget.addElementNS (sNamespaceURI, XML_FLAG).addText (x));
+    aDD.forEachWrapper (x -> aTarget.addElementNS (sNamespaceURI, XML_WRAPPER).addText (x));
+    if (aDD.hasSourceValues ())
+    {
+      final IMicroElement eSourceValues = aTarget.addElementNS (sNamespaceURI, XML_SOURCE_VALUES);
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aDD.getSourceValue (eField);
+        if (sValue != null)
+          eSourceValues.addElementNS (sNamespaceURI, XML_SOURCE_VALUE)
+                 .setAttribute (XML_SOURCE_VALUE_ATTR_FIELD, eField.getID ())
+                 .addText (sValue);
+      }
+    }
   }
 
   /**
@@ -135,6 +152,22 @@ public final class DocumentDetailsXMLHelper
 
     final ICommonsList <IMicroElement> aFlags = aObj.getAllChildElements (XML_FLAG);
     final ICommonsList <IMicroElement> aWrappers = aObj.getAllChildElements (XML_WRAPPER);
+    final IMicroElement eSourceValues = aObj.getFirstChildElement (XML_SOURCE_VALUES);
+    final ICommonsMap <EDDDSourceField, String> aSourceValues;
+    if (eSourceValues == null)
+      aSourceValues = null;
+    else
+    {
+      aSourceValues = new CommonsEnumMap <> (EDDDSourceField.class);
+      final ICommonsList <IMicroElement> aSourceValueElements = eSourceValues.getAllChildElements (XML_SOURCE_VALUE);
+      if (aSourceValueElements != null)
+        for (final IMicroElement eSourceValue : aSourceValueElements)
+        {
+          final EDDDSourceField eField = EDDDSourceField.getFromIDOrNull (eSourceValue.getAttributeValue (XML_SOURCE_VALUE_ATTR_FIELD));
+          if (eField != null)
+            aSourceValues.put (eField, eSourceValue.getTextContent ());
+        }
+    }
     return DocumentDetails.builder ()
                           .syntaxID (MicroHelper.getChildTextContent (aObj, XML_SYNTAX_ID))
                           .syntaxVersion (MicroHelper.getChildTextContent (aObj, XML_SYNTAX_VERSION))
@@ -157,6 +190,7 @@ public final class DocumentDetailsXMLHelper
                           .flags (aFlags == null ? null : aFlags.getAllMapped (IMicroElement::getTextContentTrimmed))
                           .wrappers (aWrappers == null ? null
                                                        : aWrappers.getAllMapped (IMicroElement::getTextContentTrimmed))
+                          .sourceValues (aSourceValues)
                           .build ();
   }
 
@@ -209,12 +243,22 @@ public final class DocumentDetailsXMLHelper
       fAppend.accept (XML_VESID, aDD.getVESID ());
     if (aDD.hasProfileName ())
       fAppend.accept (XML_PROFILE_NAME, aDD.getProfileName ());
-    if (aDD.hasFlags ())
-      for (final String sFlag : aDD.flags ())
-        fAppend.accept (XML_FLAG, sFlag);
-    if (aDD.hasWrappers ())
-      for (final String sWrapper : aDD.wrappers ())
-        fAppend.accept (XML_WRAPPER, sWrapper);
+    aDD.forEachFlag (x -> fAppend.accept (XML_FLAG, x));
+    aDD.forEachWrapper (x -> fAppend.accept (XML_WRAPPER, x));
+    if (aDD.hasSourceValues ())
+    {
+      final Node eSourceValues = aTarget.appendChild (fCreate.apply (XML_SOURCE_VALUES));
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aDD.getSourceValue (eField);
+        if (sValue != null)
+        {
+          final Element eSourceValue = (Element) eSourceValues.appendChild (fCreate.apply (XML_SOURCE_VALUE));
+          eSourceValue.setAttribute (XML_SOURCE_VALUE_ATTR_FIELD, eField.getID ());
+          eSourceValue.appendChild (aDoc.createTextNode (sValue));
+        }
+      }
+    }
   }
 
   /**
@@ -244,6 +288,21 @@ public final class DocumentDetailsXMLHelper
     final ICommonsList <Element> aFlags = new CommonsArrayList <> (XMLHelper.getChildElementIterator (aObj, XML_FLAG));
     final ICommonsList <Element> aWrappers = new CommonsArrayList <> (XMLHelper.getChildElementIterator (aObj,
                                                                                                          XML_WRAPPER));
+    final Element eSourceValues = XMLHelper.getFirstChildElementOfName (aObj, XML_SOURCE_VALUES);
+    final ICommonsMap <EDDDSourceField, String> aSourceValues;
+    if (eSourceValues == null)
+      aSourceValues = null;
+    else
+    {
+      aSourceValues = new CommonsEnumMap <> (EDDDSourceField.class);
+      for (final Element eSourceValue : new CommonsArrayList <> (XMLHelper.getChildElementIterator (eSourceValues,
+                                                                                                      XML_SOURCE_VALUE)))
+      {
+        final EDDDSourceField eField = EDDDSourceField.getFromIDOrNull (eSourceValue.getAttribute (XML_SOURCE_VALUE_ATTR_FIELD));
+        if (eField != null)
+          aSourceValues.put (eField, eSourceValue.getTextContent ());
+      }
+    }
     return DocumentDetails.builder ()
                           .syntaxID (fGet.apply (aObj, XML_SYNTAX_ID))
                           .syntaxVersion (fGet.apply (aObj, XML_SYNTAX_VERSION))
@@ -261,6 +320,7 @@ public final class DocumentDetailsXMLHelper
                           .profileName (fGet.apply (aObj, XML_PROFILE_NAME))
                           .flags (aFlags.getAllMapped (Element::getTextContent))
                           .wrappers (aWrappers.getAllMapped (Element::getTextContent))
+                          .sourceValues (aSourceValues)
                           .build ();
   }
 }
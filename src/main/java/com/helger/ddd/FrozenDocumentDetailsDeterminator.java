@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Element;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.model.IDDDSyntaxList;
+import com.helger.ddd.model.IDDDValueProviderList;
+import com.helger.ddd.unwrap.DDDSBDHHeader;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.IIdentifierFactory;
+
+/**
+ * An immutable variant of {@link DocumentDetailsDeterminator}. It is created via a {@link Builder}
+ * or via {@link #createFrozenCopy(DocumentDetailsDeterminator)} and offers only the read-only part
+ * of the API. All settings are held by a private determinator, that is only reachable via a final
+ * field and never modified after construction. Therefore an instance can be published once (e.g.
+ * via a static field or a plain field) and shared between any number of threads without volatile
+ * reads, locks or defensive copies.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class FrozenDocumentDetailsDeterminator
+{
+  /**
+   * Builder for {@link FrozenDocumentDetailsDeterminator} objects. The builder itself is mutable and
+   * may be used to build more than one object.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static final class Builder
+  {
+    private final DocumentDetailsDeterminator m_aDDD;
+
+    Builder (@NonNull final DocumentDetailsDeterminator aDDD)
+    {
+      m_aDDD = aDDD;
+    }
+
+    @NonNull
+    public Builder identifierFactory (@NonNull final IIdentifierFactory a)
+    {
+      m_aDDD.setIdentifierFactory (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder fallbackSenderID (@Nullable final IParticipantIdentifier a)
+    {
+      m_aDDD.setFallbackSenderID (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder fallbackReceiverID (@Nullable final IParticipantIdentifier a)
+    {
+      m_aDDD.setFallbackReceiverID (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder participantIDScheme (@Nullable final String s)
+    {
+      m_aDDD.setParticipantIDScheme (s);
+      return this;
+    }
+
+    @NonNull
+    public Builder docTypeIDSchemeDeterminator (@NonNull final Function <String, String> a)
+    {
+      m_aDDD.setDocTypeIDSchemeDeterminator (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder processIDSchemeDeterminator (@NonNull final Function <String, String> a)
+    {
+      m_aDDD.setProcessIDSchemeDeterminator (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder infoHdl (@NonNull final Consumer <String> a)
+    {
+      m_aDDD.setInfoHdl (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder warnHdl (@NonNull final Consumer <String> a)
+    {
+      m_aDDD.setWarnHdl (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder errorHdl (@NonNull final Consumer <String> a)
+    {
+      m_aDDD.setErrorHdl (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder valueInterner (@Nullable final DDDValueInterner a)
+    {
+      m_aDDD.setValueInterner (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder retainSourceValues (final boolean b)
+    {
+      m_aDDD.setRetainSourceValues (b);
+      return this;
+    }
+
+    @NonNull
+    public Builder addUnwrapper (@NonNull final IDDDDocumentUnwrapper a)
+    {
+      m_aDDD.addUnwrapper (a);
+      return this;
+    }
+
+    @NonNull
+    public Builder addDefaultUnwrappers ()
+    {
+      m_aDDD.addDefaultUnwrappers ();
+      return this;
+    }
+
+    /**
+     * @return A new frozen determinator with the current settings of this builder. Never
+     *         <code>null</code>.
+     */
+    @NonNull
+    public FrozenDocumentDetailsDeterminator build ()
+    {
+      return createFrozenCopy (m_aDDD);
+    }
+  }
+
+  // Private copy - never exposed and never modified
+  private final DocumentDetailsDeterminator m_aDDD;
+
+  private FrozenDocumentDetailsDeterminator (@NonNull final DocumentDetailsDeterminator aDDD)
+  {
+    m_aDDD = aDDD;
+  }
+
+  @NonNull
+  public IDDDSyntaxList getEffectiveSyntaxList ()
+  {
+    return m_aDDD.getEffectiveSyntaxList ();
+  }
+
+  @NonNull
+  public IDDDValueProviderList getEffectiveValueProviderList ()
+  {
+    return m_aDDD.getEffectiveValueProviderList ();
+  }
+
+  @NonNull
+  public IIdentifierFactory getIdentifierFactory ()
+  {
+    return m_aDDD.getIdentifierFactory ();
+  }
+
+  @Nullable
+  public IParticipantIdentifier getFallbackSenderID ()
+  {
+    return m_aDDD.getFallbackSenderID ();
+  }
+
+  @Nullable
+  public IParticipantIdentifier getFallbackReceiverID ()
+  {
+    return m_aDDD.getFallbackReceiverID ();
+  }
+
+  @Nullable
+  public String getParticipantIDScheme ()
+  {
+    return m_aDDD.getParticipantIDScheme ();
+  }
+
+  @NonNull
+  public Function <String, String> getDocTypeIDSchemeDeterminator ()
+  {
+    return m_aDDD.getDocTypeIDSchemeDeterminator ();
+  }
+
+  @NonNull
+  public Function <String, String> getProcessIDSchemeDeterminator ()
+  {
+    return m_aDDD.getProcessIDSchemeDeterminator ();
+  }
+
+  @Nullable
+  public DDDValueInterner getValueInterner ()
+  {
+    return m_aDDD.getValueInterner ();
+  }
+
+  public boolean isRetainSourceValues ()
+  {
+    return m_aDDD.isRetainSourceValues ();
+  }
+
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IDDDDocumentUnwrapper> getAllUnwrappers ()
+  {
+    return m_aDDD.getAllUnwrappers ();
+  }
+
+  /**
+   * @return A new mutable determinator with the same settings, e.g. to be used with
+   *         {@link DocumentDetailsBulkReclassifier}. Never <code>null</code>.
+   */
+  @NonNull
+  public DocumentDetailsDeterminator getAsMutableCopy ()
+  {
+    return new DocumentDetailsDeterminator (m_aDDD);
+  }
+
+  /**
+   * Quick check based on the qualified name of the root element only.
+   *
+   * @param sNamespaceURI
+   *        The namespace URI of the root element. May be <code>null</code>.
+   * @param sLocalName
+   *        The local name of the root element. May be <code>null</code>.
+   * @return <code>false</code> if the document is guaranteed to be unsupported.
+   * @see DocumentDetailsDeterminator#isPotentiallySupportedRoot(String, String)
+   */
+  public boolean isPotentiallySupportedRoot (@Nullable final String sNamespaceURI, @Nullable final String sLocalName)
+  {
+    return m_aDDD.isPotentiallySupportedRoot (sNamespaceURI, sLocalName);
+  }
+
+  /**
+   * Find the document details from the provided XML root element.
+   *
+   * @param aRootElement
+   *        The root element of the XML document. May not be <code>null</code>.
+   * @return The document details or <code>null</code> if the document type could not be determined.
+   * @see DocumentDetailsDeterminator#findDocumentDetails(Element)
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final Element aRootElement)
+  {
+    return m_aDDD.findDocumentDetails (aRootElement);
+  }
+
+  /**
+   * Find the document details from the provided XML root element.
+   *
+   * @param aRootElement
+   *        The root element of the XML document. May not be <code>null</code>.
+   * @param aUnwrappingCallback
+   *        The unwrapping callback to be invoked for each unwrapping level. May be
+   *        <code>null</code>.
+   * @param aEffectiveElementConsumer
+   *        An optional consumer that receives the effective (potentially unwrapped) element. May be
+   *        <code>null</code>.
+   * @return The document details or <code>null</code> if the document type could not be determined.
+   * @see DocumentDetailsDeterminator#findDocumentDetails(Element, IDDDDocumentUnwrappingCallback,
+   *      Consumer)
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final Element aRootElement,
+                                              @Nullable final IDDDDocumentUnwrappingCallback aUnwrappingCallback,
+                                              @Nullable final Consumer <Element> aEffectiveElementConsumer)
+  {
+    return m_aDDD.findDocumentDetails (aRootElement, aUnwrappingCallback, aEffectiveElementConsumer);
+  }
+
+  /**
+   * Build the document details only from the values of a Peppol SBDH.
+   *
+   * @param aHeader
+   *        The SBDH values. May not be <code>null</code>.
+   * @return The document details or <code>null</code> if the header is incomplete or unsupported.
+   * @see DocumentDetailsDeterminator#findDocumentDetailsFromSBDH(DDDSBDHHeader)
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetailsFromSBDH (@NonNull final DDDSBDHHeader aHeader)
+  {
+    return m_aDDD.findDocumentDetailsFromSBDH (aHeader);
+  }
+
+  /**
+   * Rerun only the deduction stage on document details with retained source values.
+   *
+   * @param aDD
+   *        The document details to reclassify. May not be <code>null</code>.
+   * @param aValueProviderList
+   *        The value provider list to use. May not be <code>null</code>.
+   * @return The new document details or <code>null</code> if it cannot be reclassified.
+   * @see DocumentDetailsDeterminator#reclassify(DocumentDetails, IDDDValueProviderList)
+   */
+  @Nullable
+  public DocumentDetails reclassify (@NonNull final DocumentDetails aDD,
+                                     @NonNull final IDDDValueProviderList aValueProviderList)
+  {
+    return m_aDDD.reclassify (aDD, aValueProviderList);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("SyntaxList", getEffectiveSyntaxList ())
+                                       .append ("ValueProviderList", getEffectiveValueProviderList ())
+                                       .append ("Unwrappers", getAllUnwrappers ())
+                                       .getToString ();
+  }
+
+  /**
+   * Create a new builder.
+   *
+   * @param aSyntaxList
+   *        The syntax list to use. May not be <code>null</code>.
+   * @param aValueProviderList
+   *        The value provider list to use. May not be <code>null</code>.
+   * @return A new builder with the default settings of {@link DocumentDetailsDeterminator}. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  public static Builder builder (@NonNull final IDDDSyntaxList aSyntaxList,
+                                 @NonNull final IDDDValueProviderList aValueProviderList)
+  {
+    return new Builder (new DocumentDetailsDeterminator (aSyntaxList, aValueProviderList));
+  }
+
+  /**
+   * Create a new builder based on the settings of an existing determinator.
+   *
+   * @param aTemplate
+   *        The determinator to take the settings from. May not be <code>null</code>. It is not
+   *        modified by the builder.
+   * @return A new builder. Never <code>null</code>.
+   */
+  @NonNull
+  public static Builder builder (@NonNull final DocumentDetailsDeterminator aTemplate)
+  {
+    return new Builder (new DocumentDetailsDeterminator (aTemplate));
+  }
+
+  /**
+   * Create a frozen copy of the provided determinator. Later modifications of the source
+   * determinator have no effect on the returned object.
+   *
+   * @param aSource
+   *        The determinator to copy. May not be <code>null</code>.
+   * @return The frozen copy. Never <code>null</code>.
+   */
+  @NonNull
+  public static FrozenDocumentDetailsDeterminator createFrozenCopy (@NonNull final DocumentDetailsDeterminator aSource)
+  {
+    ValueEnforcer.notNull (aSource, "Source");
+    return new FrozenDocumentDetailsDeterminator (new DocumentDetailsDeterminator (aSource));
+  }
+}
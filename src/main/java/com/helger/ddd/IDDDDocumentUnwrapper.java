@@ -51,4 +51,21 @@ public interface IDDDDocumentUnwrapper
    */
   @Nullable
   Element unwrap (@NonNull Element aRootElement);
+
+  /**
+   * Quick check based on the qualified name of a root element only, if this unwrapper might handle
+   * a document. This is used to reject unsupported documents before the full document is parsed.
+   * The default implementation returns <code>true</code> to be on the safe side.
+   *
+   * @param sNamespaceURI
+   *        The namespace URI of the root element. May be <code>null</code>.
+   * @param sLocalName
+   *        The local name of the root element. May be <code>null</code>.
+   * @return <code>false</code> only if this unwrapper is guaranteed to not handle the document.
+   * @since 0.8.11
+   */
+  default boolean isPotentialWrapper (@Nullable final String sNamespaceURI, @Nullable final String sLocalName)
+  {
+    return true;
+  }
 }
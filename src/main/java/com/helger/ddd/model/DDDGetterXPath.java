@@ -16,6 +16,9 @@
  */
 package com.helger.ddd.model;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -27,9 +30,12 @@ import org.w3c.dom.NodeList;
 
 import com.helger.annotation.Nonempty;
 import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.string.StringHelper;
 import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
 import com.helger.diagnostics.error.SingleError;
 import com.helger.diagnostics.error.list.IErrorList;
 
@@ -41,9 +47,25 @@ import com.helger.diagnostics.error.list.IErrorList;
 @Immutable
 public class DDDGetterXPath implements IDDDGetter
 {
+  // E.g. "*[local-name()='A']/*[local-name()='B'][1]/text()" or "*[local-name()='A']/@schemeID"
+  private static final Pattern SIMPLE_PATH = Pattern.compile ("((?:\\*\\[local-name\\(\\)='[^']+'\\]" +
+                                                             "(?:\\[[1-9][0-9]*\\])?/)*)" +
+                                                             "(text\\(\\)|@[A-Za-z_][A-Za-z0-9_.\\-]*)");
+  // E.g. "ebinterface-6p1" including the quotes
+  private static final Pattern STRING_LITERAL = Pattern.compile ("\"[^\"]*\"|'[^']*'");
+  private static final Pattern SIMPLE_PATH_STEP = Pattern.compile ("\\*\\[local-name\\(\\)='([^']+)'\\]" +
+                                                                  "(?:\\[([1-9][0-9]*)\\])?");
+
   private final String m_sXPath;
   // Status variable
   private final XPathExpression m_aXPathExpr;
+  // Only set for simple child paths
+  private final String [] m_aSimplePathSteps;
+  // 0 for steps without positional predicate
+  private final int [] m_aSimplePathStepPositions;
+  private final boolean m_bSimplePathSelectsText;
+  private final String m_sSimplePathAttributeName;
+  private final boolean m_bStringLiteral;
 
   public DDDGetterXPath (@NonNull @Nonempty final String sXPath)
   {
@@ -59,6 +81,35 @@ public class DDDGetterXPath implements IDDDGetter
     {
       throw new IllegalArgumentException ("The provided XPath expression '" + sXPath + "' is invalid", ex);
     }
+
+    m_bStringLiteral = STRING_LITERAL.matcher (sXPath).matches ();
+    final Matcher aMatcher = SIMPLE_PATH.matcher (sXPath);
+    if (aMatcher.matches ())
+    {
+      final ICommonsList <String> aSteps = new CommonsArrayList <> ();
+      final ICommonsList <Integer> aPositions = new CommonsArrayList <> ();
+      final Matcher aStepMatcher = SIMPLE_PATH_STEP.matcher (aMatcher.group (1));
+      while (aStepMatcher.find ())
+      {
+        aSteps.add (aStepMatcher.group (1));
+        final String sPosition = aStepMatcher.group (2);
+        aPositions.add (Integer.valueOf (sPosition == null ? 0 : Integer.parseInt (sPosition)));
+      }
+      m_aSimplePathSteps = aSteps.toArray (new String [0]);
+      m_aSimplePathStepPositions = new int [aPositions.size ()];
+      for (int i = 0; i < m_aSimplePathStepPositions.length; ++i)
+        m_aSimplePathStepPositions[i] = aPositions.get (i).intValue ();
+      final String sLast = aMatcher.group (2);
+      m_bSimplePathSelectsText = sLast.startsWith ("text");
+      m_sSimplePathAttributeName = m_bSimplePathSelectsText ? null : sLast.substring (1);
+    }
+    else
+    {
+      m_aSimplePathSteps = null;
+      m_aSimplePathStepPositions = null;
+      m_bSimplePathSelectsText = false;
+      m_sSimplePathAttributeName = null;
+    }
   }
 
   /**
@@ -73,6 +124,85 @@ public class DDDGetterXPath implements IDDDGetter
     return m_sXPath;
   }
 
+  /**
+   * @return <code>true</code> if the XPath expression is a plain string literal like
+   *         <code>"constant"</code>, whose result does not depend on the source node at all.
+   * @since 0.8.11
+   */
+  public final boolean isStringLiteral ()
+  {
+    return m_bStringLiteral;
+  }
+
+  /**
+   * Check if the XPath expression is a simple child path. A simple child path consists only of
+   * child element steps of the form <code>*[local-name()='X']</code> (optionally followed by a
+   * positional predicate) and ends with either <code>text()</code> or an attribute step. The result
+   * of a simple child path only depends on the elements along the path, which allows streaming
+   * front ends to discard everything else.
+   *
+   * @return <code>true</code> if the expression is a simple child path, <code>false</code> if not.
+   * @since 0.8.11
+   */
+  public final boolean isSimplePath ()
+  {
+    return m_aSimplePathSteps != null;
+  }
+
+  /**
+   * @return The local names of the child element steps of a simple child path, in document order.
+   *         May be empty if the expression selects text or an attribute of the source node itself.
+   *         <code>null</code> if this is not a simple child path.
+   * @see #isSimplePath()
+   * @since 0.8.11
+   */
+  @Nullable
+  @ReturnsMutableCopy
+  public final ICommonsList <String> getSimplePathSteps ()
+  {
+    return m_aSimplePathSteps == null ? null : new CommonsArrayList <> (m_aSimplePathSteps);
+  }
+
+  /**
+   * @return <code>true</code> if this is a simple child path selecting the text of the last
+   *         element, <code>false</code> if it selects an attribute or if it is not a simple child
+   *         path.
+   * @see #isSimplePath()
+   * @since 0.8.11
+   */
+  public final boolean isSimplePathSelectingText ()
+  {
+    return m_bSimplePathSelectsText;
+  }
+
+  /**
+   * @return The positional predicates of the child element steps of a simple child path, in the
+   *         same order as {@link #getSimplePathSteps()}. A value of 0 means the step has no
+   *         positional predicate, a value of <code>n &gt; 0</code> means the step is followed by
+   *         <code>[n]</code>. <code>null</code> if this is not a simple child path.
+   * @see #isSimplePath()
+   * @since 0.8.11
+   */
+  @Nullable
+  @ReturnsMutableCopy
+  public final int [] getSimplePathStepPositions ()
+  {
+    return m_aSimplePathStepPositions == null ? null : m_aSimplePathStepPositions.clone ();
+  }
+
+  /**
+   * @return The local name of the attribute selected by a simple child path (e.g.
+   *         <code>schemeID</code> for <code>.../@schemeID</code>). <code>null</code> if this is a
+   *         simple child path selecting text or if it is not a simple child path.
+   * @see #isSimplePath()
+   * @since 0.8.11
+   */
+  @Nullable
+  public final String getSimplePathAttributeName ()
+  {
+    return m_sSimplePathAttributeName;
+  }
+
   @Nullable
   public String getValue (@NonNull final Node aSourceNode, @NonNull final IErrorList aErrorList)
   {
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsSet;
+
+/**
+ * Generic {@link IDDDSourceValueExtractor} for syntaxes whose getters only read header elements,
+ * like CII, ZUGFeRD 1.0, KSeF, FatturaPA and the Peppol reporting syntaxes EUSR and TSR. Each
+ * element is visited at most once and only the elements on the getter paths are descended into.
+ * The scan stops at the first of the configured stop elements (the <code>stopelements</code>
+ * attribute in the syntax definition), independent of its depth. Only elements that by the schema
+ * of the syntax are never followed by an element on a getter path may be configured as stop
+ * elements - e.g. the CII header trade delivery that follows the header trade agreement. Without
+ * stop elements the scan never stops early, which is e.g. needed for FatturaPA batches with
+ * multiple bodies.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public class DDDSourceValueExtractorHeader extends DDDSourceValueExtractorSimplePath
+{
+  private final ICommonsSet <String> m_aStopElements;
+
+  /**
+   * Constructor without stop elements
+   *
+   * @param aGetters
+   *        The getters of the syntax. May neither be <code>null</code> nor empty.
+   * @throws IllegalArgumentException
+   *         If at least one getter is neither a simple child path nor a string literal.
+   */
+  public DDDSourceValueExtractorHeader (@NonNull @Nonempty final Map <EDDDSourceField, List <IDDDGetter>> aGetters)
+  {
+    this (aGetters, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aGetters
+   *        The getters of the syntax. May neither be <code>null</code> nor empty.
+   * @param aStopElements
+   *        The local names of the elements at which the scan stops. May be <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If at least one getter is neither a simple child path nor a string literal.
+   */
+  public DDDSourceValueExtractorHeader (@NonNull @Nonempty final Map <EDDDSourceField, List <IDDDGetter>> aGetters,
+                                        @Nullable final Collection <String> aStopElements)
+  {
+    super (aGetters);
+    m_aStopElements = aStopElements == null ? new CommonsHashSet <> () : new CommonsHashSet <> (aStopElements);
+  }
+
+  /**
+   * @return A copy of the local names of all stop elements. Never <code>null</code> but maybe
+   *         empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsSet <String> getAllStopElements ()
+  {
+    return m_aStopElements.getClone ();
+  }
+
+  @Override
+  public boolean isStopElement (@Nonnegative final int nDepth, @NonNull final String sLocalName)
+  {
+    // Only called for elements not referenced by a getter
+    return m_aStopElements.contains (sLocalName);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return ToStringGenerator.getDerived (super.toString ()).append ("StopElements", m_aStopElements).getToString ();
+  }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.diagnostics.error.SingleError;
+import com.helger.diagnostics.error.list.IErrorList;
+
+/**
+ * Generic {@link IDDDSourceValueExtractor} for syntaxes whose getters are all simple child paths
+ * (see {@link DDDGetterXPath#isSimplePath()}) or string literals. All paths are merged into a
+ * single tree, so each element of the document is visited at most once and only the children
+ * that are on at least one path are descended into. The semantics of the XPath getters are
+ * retained: a getter only delivers a value if it matches exactly one node, and the first getter of
+ * a field that delivers a value wins.<br>
+ * Subclasses may stop the scan early via {@link #isStopElement(int, String)}.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public class DDDSourceValueExtractorSimplePath implements IDDDSourceValueExtractor
+{
+  /**
+   * A single element step in the merged path tree.
+   */
+  private static final class PathNode
+  {
+    // 0 for "all elements of that name"
+    private final int m_nPosition;
+    private final ICommonsMap <String, ICommonsList <PathNode>> m_aChildren = new CommonsHashMap <> ();
+    private boolean m_bHasPositionalChild;
+    // Indices of the getters selecting the text of this element
+    private final ICommonsList <Integer> m_aTextGetters = new CommonsArrayList <> ();
+    // Indices of the getters selecting an attribute of this element
+    private final ICommonsList <Integer> m_aAttrGetters = new CommonsArrayList <> ();
+
+    PathNode (final int nPosition)
+    {
+      m_nPosition = nPosition;
+    }
+
+    @NonNull
+    PathNode getOrCreateChild (@NonNull final String sLocalName, final int nPosition)
+    {
+      final ICommonsList <PathNode> aList = m_aChildren.computeIfAbsent (sLocalName, k -> new CommonsArrayList <> ());
+      for (final PathNode aChild : aList)
+        if (aChild.m_nPosition == nPosition)
+          return aChild;
+      final PathNode ret = new PathNode (nPosition);
+      aList.add (ret);
+      if (nPosition > 0)
+        m_bHasPositionalChild = true;
+      return ret;
+    }
+  }
+
+  private final EDDDSourceField [] m_aFields;
+  // Per field: the getter indices in the order of precedence
+  private final int [] [] m_aFieldGetters;
+  private final String [] m_aGetterXPaths;
+  // Only set for string literal getters
+  private final String [] m_aGetterConstants;
+  // Only set for attribute getters
+  private final String [] m_aGetterAttrNames;
+  private final PathNode m_aRoot = new PathNode (0);
+
+  /**
+   * Constructor
+   *
+   * @param aGetters
+   *        The getters of a syntax. May neither be <code>null</code> nor empty.
+   * @throws IllegalArgumentException
+   *         If at least one getter is neither a simple child path nor a string literal.
+   * @see #isSupported(Map)
+   */
+  public DDDSourceValueExtractorSimplePath (@NonNull @Nonempty final Map <EDDDSourceField, List <IDDDGetter>> aGetters)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aGetters, "Getters");
+
+    int nGetterCount = 0;
+    for (final List <IDDDGetter> aList : aGetters.values ())
+      nGetterCount += aList.size ();
+
+    m_aFields = aGetters.keySet ().toArray (new EDDDSourceField [0]);
+    m_aFieldGetters = new int [m_aFields.length] [];
+    m_aGetterXPaths = new String [nGetterCount];
+    m_aGetterConstants = new String [nGetterCount];
+    m_aGetterAttrNames = new String [nGetterCount];
+
+    int nGetterIndex = 0;
+    for (int nField = 0; nField < m_aFields.length; ++nField)
+    {
+      final List <IDDDGetter> aList = aGetters.get (m_aFields[nField]);
+      m_aFieldGetters[nField] = new int [aList.size ()];
+      for (int i = 0; i < aList.size (); ++i)
+      {
+        final IDDDGetter aGetter = aList.get (i);
+        if (!(aGetter instanceof final DDDGetterXPath aXPathGetter))
+          throw new IllegalArgumentException ("The getter " +
+                                              aGetter +
+                                              " of field " +
+                                              m_aFields[nField] +
+                                              " is not an XPath getter");
+
+        final String sXPath = aXPathGetter.getXPath ();
+        m_aGetterXPaths[nGetterIndex] = sXPath;
+        if (aXPathGetter.isStringLiteral ())
+        {
+          // Strip the quotes - an empty literal never delivers a value
+          m_aGetterConstants[nGetterIndex] = sXPath.substring (1, sXPath.length () - 1);
+        }
+        else
+        {
+          if (!aXPathGetter.isSimplePath ())
+            throw new IllegalArgumentException ("The XPath getter '" +
+                                                sXPath +
+                                                "' of field " +
+                                                m_aFields[nField] +
+                                                " is not a simple child path");
+
+          final ICommonsList <String> aSteps = aXPathGetter.getSimplePathSteps ();
+          final int [] aPositions = aXPathGetter.getSimplePathStepPositions ();
+          PathNode aNode = m_aRoot;
+          for (int nStep = 0; nStep < aSteps.size (); ++nStep)
+            aNode = aNode.getOrCreateChild (aSteps.get (nStep), aPositions[nStep]);
+          if (aXPathGetter.isSimplePathSelectingText ())
+            aNode.m_aTextGetters.add (Integer.valueOf (nGetterIndex));
+          else
+          {
+            m_aGetterAttrNames[nGetterIndex] = aXPathGetter.getSimplePathAttributeName ();
+            aNode.m_aAttrGetters.add (Integer.valueOf (nGetterIndex));
+          }
+        }
+        m_aFieldGetters[nField][i] = nGetterIndex;
+        nGetterIndex++;
+      }
+    }
+  }
+
+  /**
+   * Check if this extractor can be used for the provided getters.
+   *
+   * @param aGetters
+   *        The getters of a syntax. May be <code>null</code>.
+   * @return <code>true</code> if all getters are XPath getters with either a simple child path or
+   *         a string literal.
+   */
+  public static boolean isSupported (@Nullable final Map <EDDDSourceField, List <IDDDGetter>> aGetters)
+  {
+    if (aGetters == null || aGetters.isEmpty ())
+      return false;
+    for (final List <IDDDGetter> aList : aGetters.values ())
+      for (final IDDDGetter aGetter : aList)
+        if (!(aGetter instanceof final DDDGetterXPath aXPathGetter) ||
+            !(aXPathGetter.isSimplePath () || aXPathGetter.isStringLiteral ()))
+          return false;
+    return true;
+  }
+
+  /**
+   * Check if the scan should stop at the provided element. This is only called for elements that
+   * are not on any getter path but whose parent element is. Only elements that by the schema of
+   * the syntax are never followed by an element on a getter path (in document order) may be stop
+   * elements - e.g. the first line element. Everything from this element on is ignored. Streaming
+   * front ends may stop reading the input at this element as well.
+   *
+   * @param nDepth
+   *        The depth of the element below the root element. 1 for the root children.
+   * @param sLocalName
+   *        The local name of the element. Never <code>null</code>.
+   * @return <code>true</code> to stop the scan, <code>false</code> to continue. The default
+   *         implementation always returns <code>false</code>.
+   */
+  public boolean isStopElement (@Nonnegative final int nDepth, @NonNull final String sLocalName)
+  {
+    return false;
+  }
+
+  @NonNull
+  private static String _getLocalName (@NonNull final Node aNode)
+  {
+    final String ret = aNode.getLocalName ();
+    return ret != null ? ret : aNode.getNodeName ();
+  }
+
+  private static boolean _isText (@NonNull final Node aNode)
+  {
+    final short nType = aNode.getNodeType ();
+    return nType == Node.TEXT_NODE || nType == Node.CDATA_SECTION_NODE;
+  }
+
+  /**
+   * @return <code>true</code> if a stop element was found and the scan needs to end.
+   */
+  private boolean _scan (@NonNull final Element aElement,
+                         @NonNull final PathNode aPathNode,
+                         final int nDepth,
+                         @NonNull final int [] aMatchCounts,
+                         @NonNull final String [] aMatchValues)
+  {
+    if (aPathNode.m_aTextGetters.isNotEmpty ())
+    {
+      // Adjacent text and CDATA nodes form a single XPath text node
+      int nTextNodes = 0;
+      String sFirstText = null;
+      boolean bInText = false;
+      for (Node aChild = aElement.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+        if (_isText (aChild))
+        {
+          if (!bInText)
+          {
+            if (nTextNodes == 0)
+              sFirstText = aChild.getNodeValue ();
+            nTextNodes++;
+            bInText = true;
+          }
+        }
+        else
+          bInText = false;
+
+      if (nTextNodes > 0)
+        for (final Integer aIdx : aPathNode.m_aTextGetters)
+        {
+          final int nIdx = aIdx.intValue ();
+          if (aMatchCounts[nIdx] == 0)
+            aMatchValues[nIdx] = sFirstText;
+          aMatchCounts[nIdx] += nTextNodes;
+        }
+    }
+
+    for (final Integer aIdx : aPathNode.m_aAttrGetters)
+    {
+      final int nIdx = aIdx.intValue ();
+      final Attr aAttr = aElement.getAttributeNodeNS (null, m_aGetterAttrNames[nIdx]);
+      if (aAttr != null)
+      {
+        if (aMatchCounts[nIdx] == 0)
+          aMatchValues[nIdx] = aAttr.getValue ();
+        aMatchCounts[nIdx]++;
+      }
+    }
+
+    if (aPathNode.m_aChildren.isNotEmpty ())
+    {
+      // Only needed for positional predicates like "[1]"
+      final Map <String, int []> aPositions = aPathNode.m_bHasPositionalChild ? new HashMap <> () : null;
+      for (Node aChild = aElement.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+        if (aChild.getNodeType () == Node.ELEMENT_NODE)
+        {
+          final String sLocalName = _getLocalName (aChild);
+          final ICommonsList <PathNode> aChildPathNodes = aPathNode.m_aChildren.get (sLocalName);
+          if (aChildPathNodes == null)
+          {
+            if (isStopElement (nDepth + 1, sLocalName))
+              return true;
+            continue;
+          }
+
+          int nPosition = 0;
+          if (aPositions != null)
+            nPosition = ++aPositions.computeIfAbsent (sLocalName, k -> new int [1])[0];
+
+          for (final PathNode aChildPathNode : aChildPathNodes)
+            if (aChildPathNode.m_nPosition == 0 || aChildPathNode.m_nPosition == nPosition)
+              if (_scan ((Element) aChild, aChildPathNode, nDepth + 1, aMatchCounts, aMatchValues))
+                return true;
+        }
+    }
+    return false;
+  }
+
+  public void extractSourceValues (@NonNull final Element aSourceElement,
+                                   @NonNull final BiConsumer <EDDDSourceField, String> aValueConsumer,
+                                   @NonNull final IErrorList aErrorList)
+  {
+    ValueEnforcer.notNull (aSourceElement, "SourceElement");
+    ValueEnforcer.notNull (aValueConsumer, "ValueConsumer");
+    ValueEnforcer.notNull (aErrorList, "ErrorList");
+
+    final int [] aMatchCounts = new int [m_aGetterXPaths.length];
+    final String [] aMatchValues = new String [m_aGetterXPaths.length];
+    _scan (aSourceElement, m_aRoot, 0, aMatchCounts, aMatchValues);
+
+    // Resolve in the same way as DDDSyntax.getValue
+    for (int nField = 0; nField < m_aFields.length; ++nField)
+      for (final int nIdx : m_aFieldGetters[nField])
+      {
+        String sValue = null;
+        if (m_aGetterConstants[nIdx] != null)
+        {
+          if (!m_aGetterConstants[nIdx].isEmpty ())
+            sValue = m_aGetterConstants[nIdx];
+        }
+        else
+          if (aMatchCounts[nIdx] == 1)
+            sValue = aMatchValues[nIdx];
+
+        if (sValue != null)
+        {
+          aValueConsumer.accept (m_aFields[nField], sValue.trim ());
+          break;
+        }
+
+        final int nSize = aMatchCounts[nIdx];
+        aErrorList.add (SingleError.builderError ()
+                                   .errorText ("The XPath expression '" +
+                                               m_aGetterXPaths[nIdx] +
+                                               "' returned " +
+                                               (nSize == 0 ? "an empty NodeSet" : "a NodeSet with " +
+                                                                                  nSize +
+                                                                                  " elements"))
+                                   .build ());
+      }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Fields", m_aFields).append ("XPaths", m_aGetterXPaths).getToString ();
+  }
+}
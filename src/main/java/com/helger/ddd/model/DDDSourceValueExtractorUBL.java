@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+
+/**
+ * Specific {@link IDDDSourceValueExtractor} for the UBL 2.x family. In UBL all header elements
+ * (like <code>CustomizationID</code>, <code>ProfileID</code> and <code>ID</code>) are direct
+ * children of the root element and precede the parties, and the line elements (like
+ * <code>InvoiceLine</code> or <code>OrderLine</code>) are always the last root children. The root
+ * children are therefore scanned only once, only the party elements referenced by the getters
+ * (like <code>AccountingSupplierParty</code>) are descended into, and the scan stops at the first
+ * line element.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public class DDDSourceValueExtractorUBL extends DDDSourceValueExtractorSimplePath
+{
+  /** The suffix of the local names of all UBL line elements */
+  public static final String LINE_ELEMENT_SUFFIX = "Line";
+
+  /**
+   * Constructor
+   *
+   * @param aGetters
+   *        The getters of a UBL syntax. May neither be <code>null</code> nor empty.
+   * @throws IllegalArgumentException
+   *         If at least one getter is neither a simple child path nor a string literal.
+   */
+  public DDDSourceValueExtractorUBL (@NonNull @Nonempty final Map <EDDDSourceField, List <IDDDGetter>> aGetters)
+  {
+    super (aGetters);
+  }
+
+  @Override
+  public boolean isStopElement (@Nonnegative final int nDepth, @NonNull final String sLocalName)
+  {
+    // Only called for elements not referenced by a getter
+    return nDepth == 1 && sLocalName.endsWith (LINE_ELEMENT_SUFFIX);
+  }
+}
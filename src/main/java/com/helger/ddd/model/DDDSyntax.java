@@ -16,6 +16,10 @@
  */
 package com.helger.ddd.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.jspecify.annotations.NonNull;
@@ -24,6 +28,7 @@ import org.w3c.dom.Node;
 
 import com.helger.annotation.Nonempty;
 import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsImmutableObject;
 import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.base.enforce.ValueEnforcer;
 import com.helger.base.id.IHasID;
@@ -31,7 +36,7 @@ import com.helger.base.name.IHasName;
 import com.helger.base.string.StringHelper;
 import com.helger.base.tostring.ToStringGenerator;
 import com.helger.collection.commons.CommonsArrayList;
-import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsEnumMap;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.collection.commons.ICommonsMap;
 import com.helger.ddd.model.jaxb.syntax1.GetType;
@@ -51,7 +56,16 @@ public class DDDSyntax implements IHasID <String>, IHasName
   private final String m_sRootElementLocalName;
   private final String m_sName;
   private final String m_sVersion;
-  private final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> m_aGetters;
+  // Indexed by source field - no hashing on lookup
+  private final EnumMap <EDDDSourceField, ICommonsList <IDDDGetter>> m_aGetters;
+  // Read-only view on the getters, created once
+  private final Map <EDDDSourceField, List <IDDDGetter>> m_aGettersView;
+  // Derived from the getters, created once
+  private final DDDSyntaxPathIndex m_aPathIndex;
+  private final EDDDExtractorType m_eExtractorType;
+  private final ICommonsList <String> m_aStopElements;
+  // Derived from the getters, created once. May be null
+  private final IDDDSourceValueExtractor m_aExtractor;
 
   public DDDSyntax (@NonNull @Nonempty final String sID,
                     @NonNull @Nonempty final String sRootElementNamespaceURI,
@@ -59,19 +73,108 @@ public class DDDSyntax implements IHasID <String>, IHasName
                     @NonNull @Nonempty final String sName,
                     @Nullable final String sVersion,
                     @NonNull @Nonempty final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters)
+  {
+    this (sID, sRootElementNamespaceURI, sRootElementLocalName, sName, sVersion, aGetters, EDDDExtractorType.DEFAULT);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param sID
+   *        Syntax ID. May neither be <code>null</code> nor empty.
+   * @param sRootElementNamespaceURI
+   *        Root element namespace URI. May neither be <code>null</code> nor empty.
+   * @param sRootElementLocalName
+   *        Root element local name. May neither be <code>null</code> nor empty.
+   * @param sName
+   *        Display name. May neither be <code>null</code> nor empty.
+   * @param sVersion
+   *        Syntax version. May be <code>null</code>.
+   * @param aGetters
+   *        The getters per source field. May neither be <code>null</code> nor empty.
+   * @param eExtractorType
+   *        The way how the source values are extracted. May not be <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the getters are not supported by the extractor type
+   * @since 0.8.11
+   */
+  public DDDSyntax (@NonNull @Nonempty final String sID,
+                    @NonNull @Nonempty final String sRootElementNamespaceURI,
+                    @NonNull @Nonempty final String sRootElementLocalName,
+                    @NonNull @Nonempty final String sName,
+                    @Nullable final String sVersion,
+                    @NonNull @Nonempty final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters,
+                    @NonNull final EDDDExtractorType eExtractorType)
+  {
+    this (sID, sRootElementNamespaceURI, sRootElementLocalName, sName, sVersion, aGetters, eExtractorType, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param sID
+   *        Syntax ID. May neither be <code>null</code> nor empty.
+   * @param sRootElementNamespaceURI
+   *        Root element namespace URI. May neither be <code>null</code> nor empty.
+   * @param sRootElementLocalName
+   *        Root element local name. May neither be <code>null</code> nor empty.
+   * @param sName
+   *        Display name. May neither be <code>null</code> nor empty.
+   * @param sVersion
+   *        Syntax version. May be <code>null</code>.
+   * @param aGetters
+   *        The getters per source field. May neither be <code>null</code> nor empty.
+   * @param eExtractorType
+   *        The way how the source values are extracted. May not be <code>null</code>.
+   * @param aStopElements
+   *        The local names of the elements at which the extractor stops. May be <code>null</code>.
+   *        Only supported if {@link EDDDExtractorType#isSupportsStopElements()} is
+   *        <code>true</code>.
+   * @throws IllegalArgumentException
+   *         If the getters are not supported by the extractor type or if stop elements are
+   *         provided for an extractor type that does not support them
+   * @since 0.8.11
+   */
+  public DDDSyntax (@NonNull @Nonempty final String sID,
+                    @NonNull @Nonempty final String sRootElementNamespaceURI,
+                    @NonNull @Nonempty final String sRootElementLocalName,
+                    @NonNull @Nonempty final String sName,
+                    @Nullable final String sVersion,
+                    @NonNull @Nonempty final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters,
+                    @NonNull final EDDDExtractorType eExtractorType,
+                    @Nullable final ICommonsList <String> aStopElements)
   {
     ValueEnforcer.notEmpty (sID, "ID");
     ValueEnforcer.notEmpty (sRootElementNamespaceURI, "RootElementNamespaceURI");
     ValueEnforcer.notEmpty (sRootElementLocalName, "RootElementLocalName");
     ValueEnforcer.notEmpty (sName, "Name");
     ValueEnforcer.notEmptyNoNullValue (aGetters, "Getters");
+    ValueEnforcer.notNull (eExtractorType, "ExtractorType");
+    if (aStopElements != null && aStopElements.isNotEmpty () && !eExtractorType.isSupportsStopElements ())
+      throw new IllegalArgumentException ("Syntax with ID '" +
+                                          sID +
+                                          "': the extractor '" +
+                                          eExtractorType.getID () +
+                                          "' does not support stop elements");
 
     m_sID = sID;
     m_sRootElementNamespaceURI = sRootElementNamespaceURI;
     m_sRootElementLocalName = sRootElementLocalName;
     m_sName = sName;
     m_sVersion = sVersion;
-    m_aGetters = aGetters;
+    m_aGetters = new EnumMap <> (EDDDSourceField.class);
+    final EnumMap <EDDDSourceField, List <IDDDGetter>> aView = new EnumMap <> (EDDDSourceField.class);
+    for (final Map.Entry <EDDDSourceField, ICommonsList <IDDDGetter>> e : aGetters.entrySet ())
+    {
+      final ICommonsList <IDDDGetter> aList = e.getValue ().getClone ();
+      m_aGetters.put (e.getKey (), aList);
+      aView.put (e.getKey (), Collections.unmodifiableList (aList));
+    }
+    m_aGettersView = Collections.unmodifiableMap (aView);
+    m_aPathIndex = DDDSyntaxPathIndex.create (m_aGettersView);
+    m_eExtractorType = eExtractorType;
+    m_aStopElements = aStopElements == null ? new CommonsArrayList <> () : aStopElements.getClone ();
+    m_aExtractor = eExtractorType.createExtractor (m_aGettersView, m_aStopElements);
   }
 
   /**
@@ -133,12 +236,99 @@ public class DDDSyntax implements IHasID <String>, IHasName
   public final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> getAllGetters ()
   {
     // Deep clone
-    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> ret = new CommonsHashMap <> ();
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> ret = new CommonsEnumMap <> (EDDDSourceField.class);
     for (final Map.Entry <EDDDSourceField, ICommonsList <IDDDGetter>> e : m_aGetters.entrySet ())
       ret.put (e.getKey (), e.getValue ().getClone ());
     return ret;
   }
 
+  /**
+   * @return A read-only view on all getters. Compared to {@link #getAllGetters()} no copy is
+   *         created. Never <code>null</code> nor empty.
+   * @since 0.8.11
+   */
+  @NonNull
+  @Nonempty
+  @ReturnsImmutableObject
+  public final Map <EDDDSourceField, List <IDDDGetter>> getGettersView ()
+  {
+    return m_aGettersView;
+  }
+
+  /**
+   * Check if at least one getter for the provided source field is present.
+   *
+   * @param eField
+   *        The source field to check. May be <code>null</code>.
+   * @return <code>true</code> if a getter is present, <code>false</code> if not.
+   * @since 0.8.11
+   */
+  public final boolean hasGetters (@Nullable final EDDDSourceField eField)
+  {
+    return eField != null && m_aGetters.containsKey (eField);
+  }
+
+  /**
+   * Get the getters for a single source field without copying.
+   *
+   * @param eField
+   *        The source field to query. May be <code>null</code>.
+   * @return A read-only list of getters or <code>null</code> if no getter for the field is defined.
+   * @since 0.8.11
+   */
+  @Nullable
+  @ReturnsImmutableObject
+  public final List <IDDDGetter> getGettersOfField (@Nullable final EDDDSourceField eField)
+  {
+    return eField == null ? null : m_aGettersView.get (eField);
+  }
+
+  /**
+   * @return The index of all element paths read by the getters of this syntax. Never
+   *         <code>null</code>.
+   * @since 0.8.11
+   */
+  @NonNull
+  public final DDDSyntaxPathIndex getPathIndex ()
+  {
+    return m_aPathIndex;
+  }
+
+  /**
+   * @return The way how the source values of this syntax are extracted. Never <code>null</code>.
+   * @since 0.8.11
+   */
+  @NonNull
+  public final EDDDExtractorType getExtractorType ()
+  {
+    return m_eExtractorType;
+  }
+
+  /**
+   * @return A copy of the local names of the elements at which the extractor stops. Never
+   *         <code>null</code> but maybe empty.
+   * @since 0.8.11
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public final ICommonsList <String> getAllStopElements ()
+  {
+    return m_aStopElements.getClone ();
+  }
+
+  /**
+   * @return The extractor to be used instead of evaluating the getters one by one via
+   *         {@link #getValue(EDDDSourceField, Node, IErrorList)}. May be <code>null</code> if the
+   *         getters should be evaluated one by one.
+   * @see #getExtractorType()
+   * @since 0.8.11
+   */
+  @Nullable
+  public final IDDDSourceValueExtractor getSourceValueExtractor ()
+  {
+    return m_aExtractor;
+  }
+
   @Nullable
   public String getValue (@NonNull final EDDDSourceField eGetter,
                           @NonNull final Node aSourceNode,
@@ -175,12 +365,38 @@ public class DDDSyntax implements IHasID <String>, IHasName
                                        .append ("Name", m_sName)
                                        .append ("Version", m_sVersion)
                                        .append ("Getters", m_aGetters)
+                                       .append ("ExtractorType", m_eExtractorType)
+                                       .append ("StopElements", m_aStopElements)
                                        .getToString ();
   }
 
   @NonNull
   public static DDDSyntax createFromJaxb (@NonNull final SyntaxType aSyntax)
   {
+    return createFromJaxb (aSyntax, new HashMap <> ());
+  }
+
+  /**
+   * Create a new syntax from the JAXB representation and share the getters with other syntaxes.
+   *
+   * @param aSyntax
+   *        The JAXB syntax to read. May not be <code>null</code>.
+   * @param aGetterCache
+   *        The cache of already created getters, with the XPath expression as the key. Syntaxes
+   *        created with the same cache use the same getter object for the same XPath expression,
+   *        so that it is compiled only once. May not be <code>null</code>. The cache is modified.
+   * @return The created syntax. Never <code>null</code>.
+   * @throws IllegalArgumentException
+   *         If the syntax definition is invalid
+   * @since 0.8.11
+   */
+  @NonNull
+  public static DDDSyntax createFromJaxb (@NonNull final SyntaxType aSyntax,
+                                          @NonNull final Map <String, IDDDGetter> aGetterCache)
+  {
+    ValueEnforcer.notNull (aSyntax, "Syntax");
+    ValueEnforcer.notNull (aGetterCache, "GetterCache");
+
     final String sSyntaxID = aSyntax.getId ();
     final String sLogPrefix = "Syntax with ID '" + sSyntaxID + "': ";
 
@@ -192,8 +408,26 @@ public class DDDSyntax implements IHasID <String>, IHasName
     // Version (optional)
     final String sVersion = aSyntax.getVersion ();
 
+    // Extractor (optional)
+    final String sExtractor = aSyntax.getExtractor ();
+    EDDDExtractorType eExtractorType = EDDDExtractorType.DEFAULT;
+    if (StringHelper.isNotEmpty (sExtractor))
+    {
+      eExtractorType = EDDDExtractorType.getFromIDOrNull (sExtractor.trim ());
+      if (eExtractorType == null)
+        throw new IllegalArgumentException (sLogPrefix + "The extractor '" + sExtractor + "' is invalid");
+    }
+
+    // Stop elements (optional)
+    final ICommonsList <String> aStopElements = new CommonsArrayList <> ();
+    final String sStopElements = aSyntax.getStopelements ();
+    if (StringHelper.isNotEmpty (sStopElements))
+      for (final String sStopElement : sStopElements.trim ().split ("\\s+"))
+        if (sStopElement.length () > 0)
+          aStopElements.add (sStopElement);
+
     // Getters
-    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsHashMap <> ();
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsEnumMap <> (EDDDSourceField.class);
     for (final GetType aGet : aSyntax.getGet ())
     {
       // Resolve source field
@@ -205,7 +439,7 @@ public class DDDSyntax implements IHasID <String>, IHasName
       // Build XPath getters
       final ICommonsList <IDDDGetter> aGetterList = new CommonsArrayList <> ();
       for (String sXPath : aGet.getXpath ())
-        aGetterList.add (new DDDGetterXPath (sXPath.trim ()));
+        aGetterList.add (aGetterCache.computeIfAbsent (sXPath.trim (), DDDGetterXPath::new));
       if (aGetterList.isEmpty ())
         throw new IllegalArgumentException (sLogPrefix + "The getter '" + sFieldID + "' contains no actual getter");
 
@@ -226,6 +460,8 @@ public class DDDSyntax implements IHasID <String>, IHasName
                           aSyntax.getRoot ().trim (),
                           sName,
                           sVersion == null ? null : sVersion.trim (),
-                          aGetters);
+                          aGetters,
+                          eExtractorType,
+                          aStopElements);
   }
 }
@@ -17,6 +17,7 @@
 package com.helger.ddd.model;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.jspecify.annotations.NonNull;
@@ -41,7 +42,7 @@ import com.helger.io.resource.IReadableResource;
  *
  * @author Philip Helger
  */
-public class DDDSyntaxList
+public class DDDSyntaxList implements IDDDSyntaxList
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (DDDSyntaxList.class);
 
@@ -61,18 +62,28 @@ public class DDDSyntaxList
 
   private final LocalDate m_aLastMod;
   private final ICommonsMap <String, DDDSyntax> m_aSyntaxes;
+  // Root element namespace URI to root element local name to syntax
+  private final ICommonsMap <String, ICommonsMap <String, DDDSyntax>> m_aRootIndex = new CommonsHashMap <> ();
 
   public DDDSyntaxList (@NonNull final LocalDate aLastMod, @NonNull final ICommonsMap <String, DDDSyntax> aSyntaxes)
   {
     ValueEnforcer.notNull (aLastMod, "LastMod");
     ValueEnforcer.notNullNoNullValue (aSyntaxes, "Syntaxes");
     m_aLastMod = aLastMod;
-    m_aSyntaxes = aSyntaxes;
+    // Copy, so that the root index stays consistent
+    m_aSyntaxes = aSyntaxes.getClone ();
+    for (final DDDSyntax aSyntax : m_aSyntaxes.values ())
+    {
+      // The first syntax with a certain root element wins
+      m_aRootIndex.computeIfAbsent (aSyntax.getRootElementNamespaceURI (), k -> new CommonsHashMap <> ())
+                  .putIfAbsent (aSyntax.getRootElementLocalName (), aSyntax);
+    }
   }
 
   /**
    * @return The last modification of the syntax list.
    */
+  @Override
   @NonNull
   public final LocalDate getLastModification ()
   {
@@ -83,6 +94,7 @@ public class DDDSyntaxList
    * @return A map with all contained syntaxes. Key is the syntax ID and value is the
    *         {@link DDDSyntax} object. Never <code>null</code>.
    */
+  @Override
   @NonNull
   @ReturnsMutableCopy
   public final ICommonsMap <String, DDDSyntax> getAllSyntaxes ()
@@ -97,6 +109,7 @@ public class DDDSyntaxList
    *        The syntax ID to search. May be <code>null</code>.
    * @return <code>null</code> if no such syntax exists.
    */
+  @Override
   @Nullable
   public DDDSyntax getSyntaxOfID (@Nullable final String sSyntaxID)
   {
@@ -115,17 +128,16 @@ public class DDDSyntaxList
    *         registered syntaxes have a non-<code>null</code> namespace URI and local name.
    * @since 0.8.9
    */
+  @Override
   @Nullable
   public DDDSyntax findMatchingSyntax (@Nullable final String sNamespaceURI, @Nullable final String sLocalName)
   {
     if (sNamespaceURI == null || sLocalName == null)
       return null;
 
-    for (final DDDSyntax aSyntax : m_aSyntaxes.values ())
-      if (aSyntax.matches (sNamespaceURI, sLocalName))
-        return aSyntax;
-
-    return null;
+    // Single lookup instead of checking all syntaxes
+    final ICommonsMap <String, DDDSyntax> aPerNamespace = m_aRootIndex.get (sNamespaceURI);
+    return aPerNamespace == null ? null : aPerNamespace.get (sLocalName);
   }
 
   /**
@@ -135,6 +147,7 @@ public class DDDSyntaxList
    *        The root element of an XML document. May not be <code>null</code>.
    * @return <code>null</code> if no matching syntax was found.
    */
+  @Override
   @Nullable
   public DDDSyntax findMatchingSyntax (@NonNull final Element aRootElement)
   {
@@ -195,9 +208,11 @@ public class DDDSyntaxList
     final LocalDate aLastMod = aJaxbSyntaxes.getLastmod ().toLocalDate ();
 
     final ICommonsMap <String, DDDSyntax> aSyntaxes = new CommonsHashMap <> ();
+    // Syntaxes of the same family (like all ebInterface versions) share most getters
+    final Map <String, IDDDGetter> aGetterCache = new HashMap <> ();
     for (final SyntaxType aJaxbSyntax : aJaxbSyntaxes.getSyntax ())
     {
-      final DDDSyntax aSyntax = DDDSyntax.createFromJaxb (aJaxbSyntax);
+      final DDDSyntax aSyntax = DDDSyntax.createFromJaxb (aJaxbSyntax, aGetterCache);
       if (aSyntaxes.containsKey (aSyntax.getID ()))
         throw new IllegalStateException ("Another DDD syntax with ID '" + aSyntax.getID () + "' is already contained");
 
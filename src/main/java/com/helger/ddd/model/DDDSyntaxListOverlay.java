@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+
+/**
+ * A layered view on a base {@link IDDDSyntaxList} and an arbitrary number of additional layers.
+ * Nothing is copied on construction - every lookup walks through the layers in the order defined
+ * by the {@link EDDDOverlayPrecedence}. A layer defining a syntax with the same ID as a lower
+ * layer completely replaces the syntax of the lower layer.<br>
+ * For heavily used overlays, {@link #getCompiled()} creates an equivalent overlay with hash based
+ * indices, so that each lookup is a single map access.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DDDSyntaxListOverlay implements IDDDSyntaxList
+{
+  private final IDDDSyntaxList m_aBase;
+  private final EDDDOverlayPrecedence m_ePrecedence;
+  private final ICommonsList <IDDDSyntaxList> m_aLayers;
+  // All syntax lists in lookup order
+  private final IDDDSyntaxList [] m_aLookupOrder;
+  private final LocalDate m_aLastMod;
+  // Only present if compiled
+  private final ICommonsMap <String, DDDSyntax> m_aCompiledByID;
+  private final ICommonsMap <String, ICommonsMap <String, DDDSyntax>> m_aCompiledByRoot;
+
+  /**
+   * Constructor
+   *
+   * @param aBase
+   *        The base syntax list that is shared between many overlays. May not be
+   *        <code>null</code>.
+   * @param ePrecedence
+   *        The precedence between the base and the layers. May not be <code>null</code>.
+   * @param aLayers
+   *        The layers to put on top of the base. May neither be <code>null</code> nor contain
+   *        <code>null</code> elements but may be empty.
+   */
+  public DDDSyntaxListOverlay (@NonNull final IDDDSyntaxList aBase,
+                               @NonNull final EDDDOverlayPrecedence ePrecedence,
+                               @NonNull final IDDDSyntaxList... aLayers)
+  {
+    ValueEnforcer.notNull (aBase, "Base");
+    ValueEnforcer.notNull (ePrecedence, "Precedence");
+    ValueEnforcer.notNullNoNullValue (aLayers, "Layers");
+
+    m_aBase = aBase;
+    m_ePrecedence = ePrecedence;
+    m_aLayers = new CommonsArrayList <> (aLayers);
+
+    final int nCount = aLayers.length + 1;
+    m_aLookupOrder = new IDDDSyntaxList [nCount];
+    LocalDate aLastMod = aBase.getLastModification ();
+    if (ePrecedence == EDDDOverlayPrecedence.LAYERS_FIRST)
+    {
+      for (int i = 0; i < aLayers.length; ++i)
+        m_aLookupOrder[i] = aLayers[aLayers.length - 1 - i];
+      m_aLookupOrder[nCount - 1] = aBase;
+    }
+    else
+    {
+      m_aLookupOrder[0] = aBase;
+      System.arraycopy (aLayers, 0, m_aLookupOrder, 1, aLayers.length);
+    }
+    for (final IDDDSyntaxList aLayer : aLayers)
+      if (aLayer.getLastModification ().isAfter (aLastMod))
+        aLastMod = aLayer.getLastModification ();
+    m_aLastMod = aLastMod;
+    m_aCompiledByID = null;
+    m_aCompiledByRoot = null;
+  }
+
+  private DDDSyntaxListOverlay (@NonNull final DDDSyntaxListOverlay aSrc,
+                                @NonNull final ICommonsMap <String, DDDSyntax> aCompiledByID,
+                                @NonNull final ICommonsMap <String, ICommonsMap <String, DDDSyntax>> aCompiledByRoot)
+  {
+    m_aBase = aSrc.m_aBase;
+    m_ePrecedence = aSrc.m_ePrecedence;
+    m_aLayers = aSrc.m_aLayers;
+    m_aLookupOrder = aSrc.m_aLookupOrder;
+    m_aLastMod = aSrc.m_aLastMod;
+    m_aCompiledByID = aCompiledByID;
+    m_aCompiledByRoot = aCompiledByRoot;
+  }
+
+  /**
+   * @return The base syntax list as provided in the constructor. Never <code>null</code>.
+   */
+  @NonNull
+  public IDDDSyntaxList getBase ()
+  {
+    return m_aBase;
+  }
+
+  /**
+   * @return The precedence as provided in the constructor. Never <code>null</code>.
+   */
+  @NonNull
+  public EDDDOverlayPrecedence getPrecedence ()
+  {
+    return m_ePrecedence;
+  }
+
+  /**
+   * @return The number of layers on top of the base. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getLayerCount ()
+  {
+    return m_aLayers.size ();
+  }
+
+  /**
+   * @return A copy of all layers in the order provided in the constructor. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IDDDSyntaxList> getAllLayers ()
+  {
+    return m_aLayers.getClone ();
+  }
+
+  /**
+   * @return <code>true</code> if this overlay was created via {@link #getCompiled()} and uses hash
+   *         based indices, <code>false</code> if the layers are walked on every lookup.
+   */
+  public boolean isCompiled ()
+  {
+    return m_aCompiledByID != null;
+  }
+
+  /**
+   * @return The latest last modification of the base and all layers. Never <code>null</code>.
+   */
+  @Override
+  @NonNull
+  public LocalDate getLastModification ()
+  {
+    return m_aLastMod;
+  }
+
+  @Override
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsMap <String, DDDSyntax> getAllSyntaxes ()
+  {
+    if (m_aCompiledByID != null)
+      return m_aCompiledByID.getClone ();
+
+    final ICommonsMap <String, DDDSyntax> ret = new CommonsHashMap <> ();
+    for (final IDDDSyntaxList aList : m_aLookupOrder)
+      for (final Map.Entry <String, DDDSyntax> aEntry : aList.getAllSyntaxes ().entrySet ())
+        ret.putIfAbsent (aEntry.getKey (), aEntry.getValue ());
+    return ret;
+  }
+
+  @Override
+  @Nullable
+  public DDDSyntax getSyntaxOfID (@Nullable final String sSyntaxID)
+  {
+    if (m_aCompiledByID != null)
+      return m_aCompiledByID.get (sSyntaxID);
+
+    for (final IDDDSyntaxList aList : m_aLookupOrder)
+    {
+      final DDDSyntax ret = aList.getSyntaxOfID (sSyntaxID);
+      if (ret != null)
+        return ret;
+    }
+    return null;
+  }
+
+  @Override
+  @Nullable
+  public DDDSyntax findMatchingSyntax (@Nullable final String sNamespaceURI, @Nullable final String sLocalName)
+  {
+    if (sNamespaceURI == null || sLocalName == null)
+      return null;
+
+    if (m_aCompiledByRoot != null)
+    {
+      final ICommonsMap <String, DDDSyntax> aPerNamespace = m_aCompiledByRoot.get (sNamespaceURI);
+      return aPerNamespace == null ? null : aPerNamespace.get (sLocalName);
+    }
+
+    for (final IDDDSyntaxList aList : m_aLookupOrder)
+    {
+      final DDDSyntax ret = aList.findMatchingSyntax (sNamespaceURI, sLocalName);
+      // Ignore syntaxes that are replaced by a layer with higher precedence
+      if (ret != null && getSyntaxOfID (ret.getID ()) == ret)
+        return ret;
+    }
+    return null;
+  }
+
+  /**
+   * Create a compiled version of this overlay. The compiled version resolves all layers once and
+   * answers all lookups from hash based indices. The contained {@link DDDSyntax} objects are shared
+   * and not copied. Compiling an already compiled overlay returns the same object.
+   *
+   * @return The compiled overlay. Never <code>null</code>.
+   */
+  @NonNull
+  public DDDSyntaxListOverlay getCompiled ()
+  {
+    if (isCompiled ())
+      return this;
+
+    final ICommonsMap <String, DDDSyntax> aByID = getAllSyntaxes ();
+    final ICommonsMap <String, ICommonsMap <String, DDDSyntax>> aByRoot = new CommonsHashMap <> ();
+    for (final IDDDSyntaxList aList : m_aLookupOrder)
+      for (final DDDSyntax aSyntax : aList.getAllSyntaxes ().values ())
+        if (aByID.get (aSyntax.getID ()) == aSyntax)
+          aByRoot.computeIfAbsent (aSyntax.getRootElementNamespaceURI (), k -> new CommonsHashMap <> ())
+                 .putIfAbsent (aSyntax.getRootElementLocalName (), aSyntax);
+    return new DDDSyntaxListOverlay (this, aByID, aByRoot);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Base", m_aBase)
+                                       .append ("Precedence", m_ePrecedence)
+                                       .append ("Layers", m_aLayers)
+                                       .append ("Compiled", isCompiled ())
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsSet;
+
+/**
+ * A tree of all element paths that are read by the getters of a single {@link DDDSyntax}, starting
+ * at the root element of the syntax. It is used by streaming front ends to discard all parts of a
+ * document that can never influence any getter result. The index is only complete if all getters
+ * are simple child paths (see {@link DDDGetterXPath#isSimplePath()}) or string literals (see
+ * {@link DDDGetterXPath#isStringLiteral()}) - otherwise the complete document must be retained.<br>
+ * Additionally each index contains a skip list: the local names of elements that are known to carry
+ * large embedded content like base64 encoded attachments (see
+ * {@link #getAllDefaultSkipCandidates()}) and that are not referenced by any getter of the syntax.
+ * Subtrees of skipped elements can be discarded even if the index is not complete.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DDDSyntaxPathIndex
+{
+  /**
+   * A single element on a getter path.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class PathNode
+  {
+    private final Map <String, PathNode> m_aChildren;
+    private final boolean m_bTextRequired;
+
+    private PathNode (@NonNull final MutablePathNode aSrc)
+    {
+      if (aSrc.m_aChildren.isEmpty ())
+        m_aChildren = Map.of ();
+      else
+      {
+        m_aChildren = new HashMap <> (aSrc.m_aChildren.size () * 2);
+        for (final Map.Entry <String, MutablePathNode> e : aSrc.m_aChildren.entrySet ())
+          m_aChildren.put (e.getKey (), new PathNode (e.getValue ()));
+      }
+      m_bTextRequired = aSrc.m_bTextRequired;
+    }
+
+    /**
+     * Get the path node of a child element.
+     *
+     * @param sLocalName
+     *        The local name of the child element. May be <code>null</code>.
+     * @return <code>null</code> if no getter reads the child element with the provided name.
+     */
+    @Nullable
+    public PathNode getChild (@Nullable final String sLocalName)
+    {
+      return sLocalName == null ? null : m_aChildren.get (sLocalName);
+    }
+
+    /**
+     * @return The number of different child elements read by getters. Always &ge; 0.
+     */
+    @Nonnegative
+    public int getChildCount ()
+    {
+      return m_aChildren.size ();
+    }
+
+    /**
+     * @return <code>true</code> if at least one getter reads the text of this element,
+     *         <code>false</code> if the text content can be discarded.
+     */
+    public boolean isTextRequired ()
+    {
+      return m_bTextRequired;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("Children", m_aChildren)
+                                         .append ("TextRequired", m_bTextRequired)
+                                         .getToString ();
+    }
+  }
+
+  private static final class MutablePathNode
+  {
+    private final Map <String, MutablePathNode> m_aChildren = new HashMap <> ();
+    private boolean m_bTextRequired;
+  }
+
+  // UBL, CII, FatturaPA, ebInterface
+  private static final Set <String> DEFAULT_SKIP_CANDIDATES = Set.of ("EmbeddedDocumentBinaryObject",
+                                                                      "EmbeddedDocument",
+                                                                      "Attachment",
+                                                                      "AttachmentBinaryObject",
+                                                                      "Allegati",
+                                                                      "Attachments");
+
+  private final PathNode m_aRoot;
+  private final int m_nPathCount;
+  private final Set <String> m_aSkippedElementNames;
+
+  private DDDSyntaxPathIndex (@Nullable final PathNode aRoot,
+                              @Nonnegative final int nPathCount,
+                              @NonNull final Set <String> aSkippedElementNames)
+  {
+    m_aRoot = aRoot;
+    m_nPathCount = nPathCount;
+    m_aSkippedElementNames = aSkippedElementNames;
+  }
+
+  /**
+   * @return The local names of elements that are known to carry large embedded content in the
+   *         supported syntaxes and are therefore candidates for the skip list. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public static ICommonsSet <String> getAllDefaultSkipCandidates ()
+  {
+    return new CommonsHashSet <> (DEFAULT_SKIP_CANDIDATES);
+  }
+
+  /**
+   * @return <code>true</code> if all getters of the syntax are covered by this index,
+   *         <code>false</code> if at least one getter is not a simple child path and the complete
+   *         document must be retained.
+   */
+  public boolean isComplete ()
+  {
+    return m_aRoot != null;
+  }
+
+  /**
+   * @return The path node of the syntax root element. Only <code>null</code> if this index is not
+   *         complete.
+   */
+  @Nullable
+  public PathNode getRoot ()
+  {
+    return m_aRoot;
+  }
+
+  /**
+   * @return The number of getter paths contained in this index. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getPathCount ()
+  {
+    return m_nPathCount;
+  }
+
+  /**
+   * Check if the subtree of an element with the provided local name can always be discarded.
+   *
+   * @param sLocalName
+   *        The local name of the element to check. May be <code>null</code>.
+   * @return <code>true</code> if the element is on the skip list, <code>false</code> if not.
+   */
+  public boolean isSkippedElement (@Nullable final String sLocalName)
+  {
+    return sLocalName != null && m_aSkippedElementNames.contains (sLocalName);
+  }
+
+  /**
+   * @return The local names of all elements on the skip list. Never <code>null</code> but maybe
+   *         empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsSet <String> getAllSkippedElementNames ()
+  {
+    return new CommonsHashSet <> (m_aSkippedElementNames);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Root", m_aRoot)
+                                       .append ("PathCount", m_nPathCount)
+                                       .append ("SkippedElementNames", m_aSkippedElementNames)
+                                       .getToString ();
+  }
+
+  @NonNull
+  private static Set <String> _getSkippedElementNames (@NonNull final Map <EDDDSourceField, List <IDDDGetter>> aGetters,
+                                                       @NonNull final Set <String> aSkipCandidates)
+  {
+    final Set <String> ret = new CommonsHashSet <> (aSkipCandidates);
+    for (final List <IDDDGetter> aList : aGetters.values ())
+      for (final IDDDGetter aGetter : aList)
+      {
+        if (!(aGetter instanceof final DDDGetterXPath aXPathGetter))
+        {
+          // Unknown getter implementation - cannot tell what it reads
+          return Set.of ();
+        }
+        // Deliberately conservative: any textual reference disqualifies the candidate
+        final String sXPath = aXPathGetter.getXPath ();
+        ret.removeIf (sXPath::contains);
+      }
+    return ret;
+  }
+
+  /**
+   * Create the path index for the provided getters, using the default skip candidates.
+   *
+   * @param aGetters
+   *        The getters of a single syntax. May not be <code>null</code>.
+   * @return The new path index. Never <code>null</code>.
+   */
+  @NonNull
+  public static DDDSyntaxPathIndex create (@NonNull final Map <EDDDSourceField, List <IDDDGetter>> aGetters)
+  {
+    return create (aGetters, DEFAULT_SKIP_CANDIDATES);
+  }
+
+  /**
+   * Create the path index for the provided getters.
+   *
+   * @param aGetters
+   *        The getters of a single syntax. May not be <code>null</code>.
+   * @param aSkipCandidates
+   *        The local names of elements that should be skipped, unless referenced by a getter. May
+   *        not be <code>null</code> but may be empty.
+   * @return The new path index. Never <code>null</code>.
+   */
+  @NonNull
+  public static DDDSyntaxPathIndex create (@NonNull final Map <EDDDSourceField, List <IDDDGetter>> aGetters,
+                                           @NonNull final Set <String> aSkipCandidates)
+  {
+    ValueEnforcer.notNull (aGetters, "Getters");
+    ValueEnforcer.notNullNoNullValue (aSkipCandidates, "SkipCandidates");
+
+    final Set <String> aSkippedElementNames = _getSkippedElementNames (aGetters, aSkipCandidates);
+
+    final MutablePathNode aRoot = new MutablePathNode ();
+    int nPathCount = 0;
+    for (final List <IDDDGetter> aList : aGetters.values ())
+      for (final IDDDGetter aGetter : aList)
+      {
+        if (!(aGetter instanceof final DDDGetterXPath aXPathGetter))
+        {
+          // Unknown getter implementation - cannot be pruned
+          return new DDDSyntaxPathIndex (null, 0, aSkippedElementNames);
+        }
+        if (aXPathGetter.isStringLiteral ())
+        {
+          // Independent of the document
+          continue;
+        }
+        if (!aXPathGetter.isSimplePath ())
+        {
+          // Cannot be pruned
+          return new DDDSyntaxPathIndex (null, 0, aSkippedElementNames);
+        }
+
+        final ICommonsList <String> aSteps = aXPathGetter.getSimplePathSteps ();
+        MutablePathNode aCur = aRoot;
+        for (final String sStep : aSteps)
+          aCur = aCur.m_aChildren.computeIfAbsent (sStep, k -> new MutablePathNode ());
+        if (aXPathGetter.isSimplePathSelectingText ())
+          aCur.m_bTextRequired = true;
+        nPathCount++;
+      }
+    return new DDDSyntaxPathIndex (new PathNode (aRoot), nPathCount, aSkippedElementNames);
+  }
+}
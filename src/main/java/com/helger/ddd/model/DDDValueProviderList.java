@@ -17,6 +17,8 @@
 package com.helger.ddd.model;
 
 import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
@@ -26,10 +28,13 @@ import org.slf4j.LoggerFactory;
 import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.annotation.style.ReturnsMutableObject;
 import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.state.ESuccess;
 import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsEnumMap;
 import com.helger.collection.commons.CommonsHashMap;
 import com.helger.collection.commons.CommonsTreeMap;
 import com.helger.collection.commons.ICommonsMap;
+import com.helger.collection.commons.ICommonsSet;
 import com.helger.collection.commons.ICommonsSortedMap;
 import com.helger.ddd.model.jaxb.ValueProviderListMarshaller;
 import com.helger.ddd.model.jaxb.vp1.VPSyntaxType;
@@ -44,7 +49,7 @@ import com.helger.io.resource.IReadableResource;
  *
  * @author Philip Helger
  */
-public class DDDValueProviderList
+public class DDDValueProviderList implements IDDDValueProviderList
 {
   private static final Logger LOGGER = LoggerFactory.getLogger (DDDValueProviderList.class);
 
@@ -69,6 +74,7 @@ public class DDDValueProviderList
     m_aVPPerSyntaxes = aSyntaxes;
   }
 
+  @Override
   @NonNull
   public final LocalDate getLastModification ()
   {
@@ -95,6 +101,44 @@ public class DDDValueProviderList
     return m_aVPPerSyntaxes.get (sSyntaxID);
   }
 
+  @Override
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsSet <String> getAllSyntaxIDs ()
+  {
+    return m_aVPPerSyntaxes.copyOfKeySet ();
+  }
+
+  @Override
+  public boolean containsValueProviderForSyntax (@Nullable final String sSyntaxID)
+  {
+    return m_aVPPerSyntaxes.containsKey (sSyntaxID);
+  }
+
+  @Override
+  public void forEachValueProviderPerSyntax (@Nullable final String sSyntaxID,
+                                             @NonNull final Consumer <? super DDDValueProviderPerSyntax> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    final DDDValueProviderPerSyntax aVPPS = m_aVPPerSyntaxes.get (sSyntaxID);
+    if (aVPPS != null)
+      aConsumer.accept (aVPPS);
+  }
+
+  @Override
+  @NonNull
+  public ESuccess forAllDeducedValues (@Nullable final String sSyntaxID,
+                                       @NonNull final Function <EDDDSourceField, String> aSourceProvider,
+                                       @NonNull final VPDeterminedValues aDeterminedValues,
+                                       @NonNull final VPDeterminedFlags aDeterminedFlags)
+  {
+    final DDDValueProviderPerSyntax aVPPS = m_aVPPerSyntaxes.get (sSyntaxID);
+    if (aVPPS == null)
+      return ESuccess.FAILURE;
+    return aVPPS.deduceValues (aSourceProvider, aDeterminedValues, aDeterminedFlags);
+  }
+
   @Override
   public String toString ()
   {
@@ -174,7 +218,7 @@ public class DDDValueProviderList
   private static ICommonsMap <EDDDSourceField, VPSelect> _recursiveMergeSelects (@NonNull final ICommonsMap <EDDDSourceField, VPSelect> aSelects1,
                                                                                  @NonNull final ICommonsMap <EDDDSourceField, VPSelect> aSelects2)
   {
-    final ICommonsMap <EDDDSourceField, VPSelect> aMergedSelects = new CommonsHashMap <> ();
+    final ICommonsMap <EDDDSourceField, VPSelect> aMergedSelects = new CommonsEnumMap <> (EDDDSourceField.class);
     for (final var aEntrySourceField : aSelects1.entrySet ())
     {
       final EDDDSourceField eSourceField = aEntrySourceField.getKey ();
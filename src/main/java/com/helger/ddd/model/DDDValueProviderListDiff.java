@@ -0,0 +1,471 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.equals.EqualsHelper;
+import com.helger.base.hashcode.HashCodeGenerator;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsLinkedHashMap;
+import com.helger.collection.commons.CommonsLinkedHashSet;
+import com.helger.collection.commons.CommonsTreeSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.collection.commons.ICommonsOrderedMap;
+import com.helger.collection.commons.ICommonsOrderedSet;
+
+/**
+ * Impact analysis between two versions of a {@link DDDValueProviderList}. Both lists are walked via
+ * {@link DDDValueProviderPerSyntax#forEachSelector(DDDValueProviderPerSyntax.ISelectorCallback)} and
+ * indexed by syntax ID and condition path (the list of {@link VPSourceValue} leading to a result).
+ * The differences are reported per condition path. Optionally the differences can be joined
+ * against a histogram of observed source values, to estimate the affected traffic without
+ * reprocessing any document.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DDDValueProviderListDiff
+{
+  /**
+   * The type of change of a single condition path.
+   */
+  public enum EChangeType
+  {
+    /** The condition path only exists in the new list */
+    ADDED,
+    /** The condition path only exists in the old list */
+    REMOVED,
+    /** The condition path exists in both lists, but with different results */
+    CHANGED;
+  }
+
+  /**
+   * Key of a single condition path
+   */
+  private static final class PathKey
+  {
+    private final String m_sSyntaxID;
+    private final ICommonsList <VPSourceValue> m_aPath;
+
+    PathKey (@NonNull final String sSyntaxID, @NonNull final ICommonsList <VPSourceValue> aPath)
+    {
+      m_sSyntaxID = sSyntaxID;
+      m_aPath = aPath;
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      if (o == this)
+        return true;
+      if (o == null || !getClass ().equals (o.getClass ()))
+        return false;
+      final PathKey rhs = (PathKey) o;
+      return m_sSyntaxID.equals (rhs.m_sSyntaxID) && m_aPath.equals (rhs.m_aPath);
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      return new HashCodeGenerator (this).append (m_sSyntaxID).append (m_aPath).getHashCode ();
+    }
+  }
+
+  /**
+   * Result of a single condition path
+   */
+  private static final class Outcome
+  {
+    private final ICommonsMap <EDDDDeterminedField, String> m_aValues = new CommonsEnumMap <> (EDDDDeterminedField.class);
+    private final ICommonsOrderedSet <String> m_aFlags = new CommonsLinkedHashSet <> ();
+
+    boolean isSame (@NonNull final Outcome o)
+    {
+      return m_aValues.equals (o.m_aValues) && m_aFlags.equals (o.m_aFlags);
+    }
+  }
+
+  /**
+   * A single difference for a condition path.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class Entry
+  {
+    private final String m_sSyntaxID;
+    private final ICommonsList <VPSourceValue> m_aPath;
+    private final EChangeType m_eChangeType;
+    private final ICommonsMap <EDDDDeterminedField, String> m_aOldValues;
+    private final ICommonsMap <EDDDDeterminedField, String> m_aNewValues;
+    private final ICommonsOrderedSet <String> m_aOldFlags;
+    private final ICommonsOrderedSet <String> m_aNewFlags;
+
+    Entry (@NonNull final PathKey aKey, @Nullable final Outcome aOld, @Nullable final Outcome aNew)
+    {
+      m_sSyntaxID = aKey.m_sSyntaxID;
+      m_aPath = aKey.m_aPath;
+      m_eChangeType = aOld == null ? EChangeType.ADDED : aNew == null ? EChangeType.REMOVED : EChangeType.CHANGED;
+      m_aOldValues = aOld == null ? new CommonsEnumMap <> (EDDDDeterminedField.class) : aOld.m_aValues;
+      m_aNewValues = aNew == null ? new CommonsEnumMap <> (EDDDDeterminedField.class) : aNew.m_aValues;
+      m_aOldFlags = aOld == null ? new CommonsLinkedHashSet <> () : aOld.m_aFlags;
+      m_aNewFlags = aNew == null ? new CommonsLinkedHashSet <> () : aNew.m_aFlags;
+    }
+
+    /**
+     * @return The syntax ID this entry belongs to. Never <code>null</code>.
+     */
+    @NonNull
+    @Nonempty
+    public String getSyntaxID ()
+    {
+      return m_sSyntaxID;
+    }
+
+    /**
+     * @return A copy of the condition path from the outermost to the innermost condition. Never
+     *         <code>null</code> nor empty.
+     */
+    @NonNull
+    @ReturnsMutableCopy
+    public ICommonsList <VPSourceValue> getAllPathElements ()
+    {
+      return m_aPath.getClone ();
+    }
+
+    /**
+     * @return The change type. Never <code>null</code>.
+     */
+    @NonNull
+    public EChangeType getChangeType ()
+    {
+      return m_eChangeType;
+    }
+
+    /**
+     * @param eField
+     *        The determined field to query. May be <code>null</code>.
+     * @return The value of the old list. May be <code>null</code>.
+     */
+    @Nullable
+    public String getOldValue (@Nullable final EDDDDeterminedField eField)
+    {
+      return m_aOldValues.get (eField);
+    }
+
+    /**
+     * @param eField
+     *        The determined field to query. May be <code>null</code>.
+     * @return The value of the new list. May be <code>null</code>.
+     */
+    @Nullable
+    public String getNewValue (@Nullable final EDDDDeterminedField eField)
+    {
+      return m_aNewValues.get (eField);
+    }
+
+    /**
+     * @param eField
+     *        The determined field to check. May be <code>null</code>.
+     * @return <code>true</code> if the old and new value of the provided field differ.
+     */
+    public boolean isValueChanged (@Nullable final EDDDDeterminedField eField)
+    {
+      return !EqualsHelper.equals (getOldValue (eField), getNewValue (eField));
+    }
+
+    /**
+     * @return All determined fields with a different old and new value. Never <code>null</code>
+     *         but maybe empty.
+     */
+    @NonNull
+    @ReturnsMutableCopy
+    public ICommonsList <EDDDDeterminedField> getAllChangedFields ()
+    {
+      return new CommonsArrayList <> (EDDDDeterminedField.values ()).getAll (this::isValueChanged);
+    }
+
+    @NonNull
+    private static ICommonsOrderedSet <String> _getAllMissing (@NonNull final ICommonsOrderedSet <String> aSource,
+                                                               @NonNull final ICommonsOrderedSet <String> aOther)
+    {
+      final ICommonsOrderedSet <String> ret = new CommonsLinkedHashSet <> ();
+      for (final String s : aSource)
+        if (!aOther.contains (s))
+          ret.add (s);
+      return ret;
+    }
+
+    /**
+     * @return All flags that are only present in the new list. Never <code>null</code> but maybe
+     *         empty.
+     */
+    @NonNull
+    @ReturnsMutableCopy
+    public ICommonsOrderedSet <String> getAllAddedFlags ()
+    {
+      return _getAllMissing (m_aNewFlags, m_aOldFlags);
+    }
+
+    /**
+     * @return All flags that are only present in the old list. Never <code>null</code> but maybe
+     *         empty.
+     */
+    @NonNull
+    @ReturnsMutableCopy
+    public ICommonsOrderedSet <String> getAllRemovedFlags ()
+    {
+      return _getAllMissing (m_aOldFlags, m_aNewFlags);
+    }
+
+    /**
+     * Check if the provided source values satisfy all conditions of the path of this entry.
+     *
+     * @param aSourceValues
+     *        The source value provider. May not be <code>null</code>.
+     * @return <code>true</code> if all conditions are satisfied.
+     */
+    public boolean matches (@NonNull final Function <EDDDSourceField, String> aSourceValues)
+    {
+      for (final VPSourceValue aSV : m_aPath)
+        if (!aSV.getSourceValue ().equals (aSourceValues.apply (aSV.getSourceField ())))
+          return false;
+      return true;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("SyntaxID", m_sSyntaxID)
+                                         .append ("Path", m_aPath)
+                                         .append ("ChangeType", m_eChangeType)
+                                         .append ("OldValues", m_aOldValues)
+                                         .append ("NewValues", m_aNewValues)
+                                         .append ("OldFlags", m_aOldFlags)
+                                         .append ("NewFlags", m_aNewFlags)
+                                         .getToString ();
+    }
+  }
+
+  private final ICommonsList <Entry> m_aEntries;
+  // Index: syntax ID to first path element to entries
+  private final ICommonsMap <String, ICommonsMap <VPSourceValue, ICommonsList <Entry>>> m_aIndex = new CommonsHashMap <> ();
+
+  private DDDValueProviderListDiff (@NonNull final ICommonsList <Entry> aEntries)
+  {
+    m_aEntries = aEntries;
+    for (final Entry aEntry : aEntries)
+      m_aIndex.computeIfAbsent (aEntry.m_sSyntaxID, k -> new CommonsHashMap <> ())
+              .computeIfAbsent (aEntry.m_aPath.get (0), k -> new CommonsArrayList <> ())
+              .add (aEntry);
+  }
+
+  /**
+   * @return <code>true</code> if at least one difference was found.
+   */
+  public boolean hasChanges ()
+  {
+    return m_aEntries.isNotEmpty ();
+  }
+
+  /**
+   * @return The number of differences. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getEntryCount ()
+  {
+    return m_aEntries.size ();
+  }
+
+  /**
+   * @return A copy of all differences, ordered by syntax ID. Never <code>null</code> but maybe
+   *         empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <Entry> getAllEntries ()
+  {
+    return m_aEntries.getClone ();
+  }
+
+  /**
+   * @param eChangeType
+   *        The change type to filter. May not be <code>null</code>.
+   * @return A copy of all differences with the provided change type. Never <code>null</code> but
+   *         maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <Entry> getAllEntries (@NonNull final EChangeType eChangeType)
+  {
+    ValueEnforcer.notNull (eChangeType, "ChangeType");
+    return m_aEntries.getAll (x -> x.m_eChangeType == eChangeType);
+  }
+
+  /**
+   * Find all differences whose condition path is satisfied by the provided source values. Note:
+   * precedence between different condition paths is not considered, so the result is an upper
+   * bound.
+   *
+   * @param sSyntaxID
+   *        The syntax ID of the source values. May be <code>null</code>.
+   * @param aSourceValues
+   *        The source value provider. May not be <code>null</code>.
+   * @return A list of all matching differences. Never <code>null</code> but maybe empty.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <Entry> getAllMatchingEntries (@Nullable final String sSyntaxID,
+                                                     @NonNull final Function <EDDDSourceField, String> aSourceValues)
+  {
+    ValueEnforcer.notNull (aSourceValues, "SourceValues");
+
+    final ICommonsList <Entry> ret = new CommonsArrayList <> ();
+    final ICommonsMap <VPSourceValue, ICommonsList <Entry>> aSyntaxIndex = m_aIndex.get (sSyntaxID);
+    if (aSyntaxIndex != null)
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aSourceValues.apply (eField);
+        if (sValue != null && !sValue.isEmpty ())
+        {
+          final ICommonsList <Entry> aCandidates = aSyntaxIndex.get (new VPSourceValue (eField, sValue));
+          if (aCandidates != null)
+            for (final Entry aEntry : aCandidates)
+              if (aEntry.matches (aSourceValues))
+                ret.add (aEntry);
+        }
+      }
+    return ret;
+  }
+
+  /**
+   * Join the differences against a histogram of observed source value combinations of a single
+   * syntax.
+   *
+   * @param sSyntaxID
+   *        The syntax ID of the histogram. May be <code>null</code>.
+   * @param aHistogram
+   *        The histogram, mapping observed source values to the number of documents. May not be
+   *        <code>null</code>.
+   * @return The number of documents potentially changing classification (upper bound). Always
+   *         &ge; 0.
+   */
+  @Nonnegative
+  public long getAffectedCount (@Nullable final String sSyntaxID,
+                                @NonNull final Map <? extends Map <EDDDSourceField, String>, ? extends Number> aHistogram)
+  {
+    ValueEnforcer.notNull (aHistogram, "Histogram");
+
+    long ret = 0;
+    for (final Map.Entry <? extends Map <EDDDSourceField, String>, ? extends Number> aEntry : aHistogram.entrySet ())
+    {
+      final Map <EDDDSourceField, String> aSourceValues = aEntry.getKey ();
+      if (getAllMatchingEntries (sSyntaxID, aSourceValues::get).isNotEmpty ())
+        ret += aEntry.getValue ().longValue ();
+    }
+    return ret;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Entries", m_aEntries).getToString ();
+  }
+
+  @NonNull
+  private static ICommonsOrderedMap <PathKey, Outcome> _index (@NonNull final DDDValueProviderList aList)
+  {
+    final ICommonsOrderedMap <PathKey, Outcome> ret = new CommonsLinkedHashMap <> ();
+    // Sorted for a deterministic order
+    for (final String sSyntaxID : new CommonsTreeSet <> (aList.valueProvidersPerSyntaxes ().keySet ()))
+    {
+      final DDDValueProviderPerSyntax aVP = aList.getValueProviderPerSyntax (sSyntaxID);
+      aVP.forEachSelector (new DDDValueProviderPerSyntax.ISelectorCallback ()
+      {
+        @NonNull
+        private Outcome _get (@NonNull final ICommonsList <VPSourceValue> aSourceValues)
+        {
+          // The path list is modified afterwards and must be copied
+          return ret.computeIfAbsent (new PathKey (sSyntaxID, aSourceValues.getClone ()), k -> new Outcome ());
+        }
+
+        public void acceptDeterminedValue (@NonNull final ICommonsList <VPSourceValue> aSourceValues,
+                                           @NonNull final EDDDDeterminedField eDeterminedField,
+                                           @NonNull final String sDeterminedValue)
+        {
+          _get (aSourceValues).m_aValues.put (eDeterminedField, sDeterminedValue);
+        }
+
+        public void acceptFlag (@NonNull final ICommonsList <VPSourceValue> aSourceValues, @NonNull final String sFlag)
+        {
+          _get (aSourceValues).m_aFlags.add (sFlag);
+        }
+      });
+    }
+    return ret;
+  }
+
+  /**
+   * Create the differences between two value provider lists.
+   *
+   * @param aOldList
+   *        The old (currently used) list. May not be <code>null</code>.
+   * @param aNewList
+   *        The new list. May not be <code>null</code>.
+   * @return The differences and never <code>null</code>.
+   */
+  @NonNull
+  public static DDDValueProviderListDiff createDiff (@NonNull final DDDValueProviderList aOldList,
+                                                     @NonNull final DDDValueProviderList aNewList)
+  {
+    ValueEnforcer.notNull (aOldList, "OldList");
+    ValueEnforcer.notNull (aNewList, "NewList");
+
+    final ICommonsOrderedMap <PathKey, Outcome> aOld = _index (aOldList);
+    final ICommonsOrderedMap <PathKey, Outcome> aNew = _index (aNewList);
+
+    final ICommonsList <Entry> aEntries = new CommonsArrayList <> ();
+    for (final Map.Entry <PathKey, Outcome> aEntry : aOld.entrySet ())
+    {
+      final Outcome aNewOutcome = aNew.get (aEntry.getKey ());
+      if (aNewOutcome == null || !aEntry.getValue ().isSame (aNewOutcome))
+        aEntries.add (new Entry (aEntry.getKey (), aEntry.getValue (), aNewOutcome));
+    }
+    for (final Map.Entry <PathKey, Outcome> aEntry : aNew.entrySet ())
+      if (!aOld.containsKey (aEntry.getKey ()))
+        aEntries.add (new Entry (aEntry.getKey (), null, aEntry.getValue ()));
+
+    // Order by syntax ID
+    aEntries.sort ((x, y) -> x.m_sSyntaxID.compareTo (y.m_sSyntaxID));
+    return new DDDValueProviderListDiff (aEntries);
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.state.ESuccess;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsHashSet;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.collection.commons.ICommonsSet;
+
+/**
+ * A layered view on a base {@link IDDDValueProviderList} and an arbitrary number of additional
+ * layers. Nothing is copied and nothing is merged on construction, so there are no merge conflicts
+ * either. For deduction, the value providers of a syntax are tried in the order defined by the
+ * {@link EDDDOverlayPrecedence} and the first one with a matching condition wins. A layer can
+ * therefore override single conditions of the base, while all other documents fall through to the
+ * base.<br>
+ * For heavily used overlays, {@link #getCompiled()} creates an equivalent overlay that resolves the
+ * value providers per syntax once, so that each lookup is a single map access.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DDDValueProviderListOverlay implements IDDDValueProviderList
+{
+  private static final DDDValueProviderPerSyntax [] NO_VPPS = new DDDValueProviderPerSyntax [0];
+
+  private final IDDDValueProviderList m_aBase;
+  private final EDDDOverlayPrecedence m_ePrecedence;
+  private final ICommonsList <IDDDValueProviderList> m_aLayers;
+  // All value provider lists in lookup order
+  private final IDDDValueProviderList [] m_aLookupOrder;
+  private final LocalDate m_aLastMod;
+  // Only present if compiled
+  private final ICommonsMap <String, DDDValueProviderPerSyntax []> m_aCompiled;
+
+  /**
+   * Constructor
+   *
+   * @param aBase
+   *        The base value provider list that is shared between many overlays. May not be
+   *        <code>null</code>.
+   * @param ePrecedence
+   *        The precedence between the base and the layers. May not be <code>null</code>.
+   * @param aLayers
+   *        The layers to put on top of the base. May neither be <code>null</code> nor contain
+   *        <code>null</code> elements but may be empty.
+   */
+  public DDDValueProviderListOverlay (@NonNull final IDDDValueProviderList aBase,
+                                      @NonNull final EDDDOverlayPrecedence ePrecedence,
+                                      @NonNull final IDDDValueProviderList... aLayers)
+  {
+    ValueEnforcer.notNull (aBase, "Base");
+    ValueEnforcer.notNull (ePrecedence, "Precedence");
+    ValueEnforcer.notNullNoNullValue (aLayers, "Layers");
+
+    m_aBase = aBase;
+    m_ePrecedence = ePrecedence;
+    m_aLayers = new CommonsArrayList <> (aLayers);
+
+    final int nCount = aLayers.length + 1;
+    m_aLookupOrder = new IDDDValueProviderList [nCount];
+    LocalDate aLastMod = aBase.getLastModification ();
+    if (ePrecedence == EDDDOverlayPrecedence.LAYERS_FIRST)
+    {
+      for (int i = 0; i < aLayers.length; ++i)
+        m_aLookupOrder[i] = aLayers[aLayers.length - 1 - i];
+      m_aLookupOrder[nCount - 1] = aBase;
+    }
+    else
+    {
+      m_aLookupOrder[0] = aBase;
+      System.arraycopy (aLayers, 0, m_aLookupOrder, 1, aLayers.length);
+    }
+    for (final IDDDValueProviderList aLayer : aLayers)
+      if (aLayer.getLastModification ().isAfter (aLastMod))
+        aLastMod = aLayer.getLastModification ();
+    m_aLastMod = aLastMod;
+    m_aCompiled = null;
+  }
+
+  private DDDValueProviderListOverlay (@NonNull final DDDValueProviderListOverlay aSrc,
+                                       @NonNull final ICommonsMap <String, DDDValueProviderPerSyntax []> aCompiled)
+  {
+    m_aBase = aSrc.m_aBase;
+    m_ePrecedence = aSrc.m_ePrecedence;
+    m_aLayers = aSrc.m_aLayers;
+    m_aLookupOrder = aSrc.m_aLookupOrder;
+    m_aLastMod = aSrc.m_aLastMod;
+    m_aCompiled = aCompiled;
+  }
+
+  /**
+   * @return The base value provider list as provided in the constructor. Never <code>null</code>.
+   */
+  @NonNull
+  public IDDDValueProviderList getBase ()
+  {
+    return m_aBase;
+  }
+
+  /**
+   * @return The precedence as provided in the constructor. Never <code>null</code>.
+   */
+  @NonNull
+  public EDDDOverlayPrecedence getPrecedence ()
+  {
+    return m_ePrecedence;
+  }
+
+  /**
+   * @return The number of layers on top of the base. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getLayerCount ()
+  {
+    return m_aLayers.size ();
+  }
+
+  /**
+   * @return A copy of all layers in the order provided in the constructor. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsList <IDDDValueProviderList> getAllLayers ()
+  {
+    return m_aLayers.getClone ();
+  }
+
+  /**
+   * @return <code>true</code> if this overlay was created via {@link #getCompiled()} and uses a hash
+   *         based index, <code>false</code> if the layers are walked on every lookup.
+   */
+  public boolean isCompiled ()
+  {
+    return m_aCompiled != null;
+  }
+
+  /**
+   * @return The latest last modification of the base and all layers. Never <code>null</code>.
+   */
+  @Override
+  @NonNull
+  public LocalDate getLastModification ()
+  {
+    return m_aLastMod;
+  }
+
+  @Override
+  @NonNull
+  @ReturnsMutableCopy
+  public ICommonsSet <String> getAllSyntaxIDs ()
+  {
+    if (m_aCompiled != null)
+      return m_aCompiled.copyOfKeySet ();
+
+    final ICommonsSet <String> ret = new CommonsHashSet <> ();
+    for (final IDDDValueProviderList aList : m_aLookupOrder)
+      ret.addAll (aList.getAllSyntaxIDs ());
+    return ret;
+  }
+
+  @Override
+  public boolean containsValueProviderForSyntax (@Nullable final String sSyntaxID)
+  {
+    if (m_aCompiled != null)
+      return m_aCompiled.containsKey (sSyntaxID);
+
+    for (final IDDDValueProviderList aList : m_aLookupOrder)
+      if (aList.containsValueProviderForSyntax (sSyntaxID))
+        return true;
+    return false;
+  }
+
+  @Override
+  public void forEachValueProviderPerSyntax (@Nullable final String sSyntaxID,
+                                             @NonNull final Consumer <? super DDDValueProviderPerSyntax> aConsumer)
+  {
+    ValueEnforcer.notNull (aConsumer, "Consumer");
+
+    if (m_aCompiled != null)
+    {
+      for (final DDDValueProviderPerSyntax aVPPS : m_aCompiled.getOrDefault (sSyntaxID, NO_VPPS))
+        aConsumer.accept (aVPPS);
+    }
+    else
+    {
+      for (final IDDDValueProviderList aList : m_aLookupOrder)
+        aList.forEachValueProviderPerSyntax (sSyntaxID, aConsumer);
+    }
+  }
+
+  @Override
+  @NonNull
+  public ESuccess forAllDeducedValues (@Nullable final String sSyntaxID,
+                                       @NonNull final Function <EDDDSourceField, String> aSourceProvider,
+                                       @NonNull final VPDeterminedValues aDeterminedValues,
+                                       @NonNull final VPDeterminedFlags aDeterminedFlags)
+  {
+    if (m_aCompiled != null)
+    {
+      for (final DDDValueProviderPerSyntax aVPPS : m_aCompiled.getOrDefault (sSyntaxID, NO_VPPS))
+        if (aVPPS.deduceValues (aSourceProvider, aDeterminedValues, aDeterminedFlags).isSuccess ())
+          return ESuccess.SUCCESS;
+    }
+    else
+    {
+      for (final IDDDValueProviderList aList : m_aLookupOrder)
+        if (aList.forAllDeducedValues (sSyntaxID, aSourceProvider, aDeterminedValues, aDeterminedFlags)
+                 .isSuccess ())
+          return ESuccess.SUCCESS;
+    }
+    return ESuccess.FAILURE;
+  }
+
+  /**
+   * Create a compiled version of this overlay. The compiled version resolves the value providers of
+   * all layers once per syntax and answers all lookups from a hash based index. The contained
+   * {@link DDDValueProviderPerSyntax} objects are shared and not copied. Compiling an already
+   * compiled overlay returns the same object.
+   *
+   * @return The compiled overlay. Never <code>null</code>.
+   */
+  @NonNull
+  public DDDValueProviderListOverlay getCompiled ()
+  {
+    if (isCompiled ())
+      return this;
+
+    final ICommonsMap <String, DDDValueProviderPerSyntax []> aCompiled = new CommonsHashMap <> ();
+    for (final String sSyntaxID : getAllSyntaxIDs ())
+    {
+      final ICommonsList <DDDValueProviderPerSyntax> aVPPSs = new CommonsArrayList <> ();
+      forEachValueProviderPerSyntax (sSyntaxID, aVPPSs::add);
+      aCompiled.put (sSyntaxID, aVPPSs.toArray (NO_VPPS));
+    }
+    return new DDDValueProviderListOverlay (this, aCompiled);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Base", m_aBase)
+                                       .append ("Precedence", m_ePrecedence)
+                                       .append ("Layers", m_aLayers)
+                                       .append ("Compiled", isCompiled ())
+                                       .getToString ();
+  }
+}
@@ -16,13 +16,16 @@
  */
 package com.helger.ddd.model;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.function.Function;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 import com.helger.annotation.Nonempty;
 import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.style.ReturnsImmutableObject;
 import com.helger.annotation.style.ReturnsMutableCopy;
 import com.helger.annotation.style.ReturnsMutableObject;
 import com.helger.base.enforce.ValueEnforcer;
@@ -31,7 +34,7 @@ import com.helger.base.string.StringHelper;
 import com.helger.base.string.StringImplode;
 import com.helger.base.tostring.ToStringGenerator;
 import com.helger.collection.commons.CommonsArrayList;
-import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.CommonsEnumMap;
 import com.helger.collection.commons.ICommonsList;
 import com.helger.collection.commons.ICommonsMap;
 import com.helger.ddd.model.jaxb.vp1.VPIfType;
@@ -49,7 +52,10 @@ import com.helger.ddd.model.jaxb.vp1.VPSyntaxType;
 public class DDDValueProviderPerSyntax
 {
   private final String m_sSyntaxID;
+  // Indexed by source field - no hashing on lookup and stable iteration order
   private final ICommonsMap <EDDDSourceField, VPSelect> m_aSelects;
+  // Read-only view on the selects, created once
+  private final Map <EDDDSourceField, VPSelect> m_aSelectsView;
 
   /**
    * Constructor
@@ -66,7 +72,9 @@ public class DDDValueProviderPerSyntax
     ValueEnforcer.notEmpty (sSyntaxID, "SyntaxID");
     ValueEnforcer.notEmpty (aSelects, "Selectors");
     m_sSyntaxID = sSyntaxID;
-    m_aSelects = aSelects;
+    m_aSelects = new CommonsEnumMap <> (EDDDSourceField.class);
+    m_aSelects.putAll (aSelects);
+    m_aSelectsView = Collections.unmodifiableMap (m_aSelects);
   }
 
   @NonNull
@@ -92,13 +100,41 @@ public class DDDValueProviderPerSyntax
     return m_aSelects;
   }
 
+  /**
+   * @return A read-only view on all top-level selects. Compared to {@link #getAllSelects()} and
+   *         {@link #getAllSelectors()} no copy is created. The contained {@link VPSelect} objects
+   *         must not be modified. Never <code>null</code> nor empty.
+   * @since 0.8.11
+   */
+  @NonNull
+  @Nonempty
+  @ReturnsImmutableObject
+  public final Map <EDDDSourceField, VPSelect> getSelectsView ()
+  {
+    return m_aSelectsView;
+  }
+
+  /**
+   * Get the top-level select of the provided source field without copying.
+   *
+   * @param eField
+   *        The source field to query. May be <code>null</code>.
+   * @return <code>null</code> if no such select is present.
+   * @since 0.8.11
+   */
+  @Nullable
+  public final VPSelect getSelectOfField (@Nullable final EDDDSourceField eField)
+  {
+    return eField == null ? null : m_aSelects.get (eField);
+  }
+
   @NonNull
   @Nonempty
   @ReturnsMutableCopy
   public final ICommonsMap <EDDDSourceField, VPSelect> getAllSelectors ()
   {
     // Deep clone
-    final ICommonsMap <EDDDSourceField, VPSelect> ret = new CommonsHashMap <> ();
+    final ICommonsMap <EDDDSourceField, VPSelect> ret = new CommonsEnumMap <> (EDDDSourceField.class);
     for (final Map.Entry <EDDDSourceField, VPSelect> e : m_aSelects.entrySet ())
       ret.put (e.getKey (), e.getValue ().getClone ());
     return ret;
@@ -224,15 +260,48 @@ public class DDDValueProviderPerSyntax
     return ESuccess.FAILURE;
   }
 
-  public void forAllDeducedValues (@NonNull final Function <EDDDSourceField, String> aSourceProvider,
-                                   @NonNull final VPDeterminedValues aDeterminedValues,
-                                   @NonNull final VPDeterminedFlags aDeterminedFlags)
+  /**
+   * Deduce the values and flags from the provided source values. The first matching condition
+   * wins.
+   *
+   * @param aSourceProvider
+   *        The provider of the source values. May not be <code>null</code>.
+   * @param aDeterminedValues
+   *        The determined values to be filled. May not be <code>null</code>.
+   * @param aDeterminedFlags
+   *        The determined flags to be filled. May not be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if a condition matched, {@link ESuccess#FAILURE} if not.
+   * @since 0.8.11
+   */
+  @NonNull
+  public ESuccess deduceValues (@NonNull final Function <EDDDSourceField, String> aSourceProvider,
+                                @NonNull final VPDeterminedValues aDeterminedValues,
+                                @NonNull final VPDeterminedFlags aDeterminedFlags)
   {
     ValueEnforcer.notNull (aSourceProvider, "SourceProvider");
     ValueEnforcer.notNull (aDeterminedValues, "DeterminedValues");
     ValueEnforcer.notNull (aDeterminedFlags, "DeterminedFlags");
 
-    _getAllDeducedValuesRecursive (aSourceProvider, m_aSelects, aDeterminedValues, aDeterminedFlags);
+    return _getAllDeducedValuesRecursive (aSourceProvider, m_aSelects, aDeterminedValues, aDeterminedFlags);
+  }
+
+  /**
+   * Deduce the values and flags from the provided source values. The first matching condition
+   * wins.
+   *
+   * @param aSourceProvider
+   *        The provider of the source values. May not be <code>null</code>.
+   * @param aDeterminedValues
+   *        The determined values to be filled. May not be <code>null</code>.
+   * @param aDeterminedFlags
+   *        The determined flags to be filled. May not be <code>null</code>.
+   * @see #deduceValues(Function, VPDeterminedValues, VPDeterminedFlags)
+   */
+  public void forAllDeducedValues (@NonNull final Function <EDDDSourceField, String> aSourceProvider,
+                                   @NonNull final VPDeterminedValues aDeterminedValues,
+                                   @NonNull final VPDeterminedFlags aDeterminedFlags)
+  {
+    deduceValues (aSourceProvider, aDeterminedValues, aDeterminedFlags);
   }
 
   @Override
@@ -410,7 +479,7 @@ public class DDDValueProviderPerSyntax
     final String sSyntaxID = aJaxbSyntax.getId ();
 
     // Read all selects
-    final ICommonsMap <EDDDSourceField, VPSelect> aSelects = new CommonsHashMap <> ();
+    final ICommonsMap <EDDDSourceField, VPSelect> aSelects = new CommonsEnumMap <> (EDDDSourceField.class);
     for (final VPSelectType aJaxbSelect : aJaxbSyntax.getSelect ())
     {
       final VPSelect aSelect = _createSelectFromJaxb (aJaxbSelect);
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonempty;
+import com.helger.base.id.IHasID;
+import com.helger.base.lang.EnumHelper;
+
+/**
+ * Defines how the source values of a {@link DDDSyntax} are extracted from a document. This is
+ * selected per syntax via the <code>extractor</code> attribute in the syntax definition.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+public enum EDDDExtractorType implements IHasID <String>
+{
+  /** Evaluate each XPath getter on its own. This is the default. */
+  XPATH ("xpath", (x, y) -> null),
+  /** Scan the root children once - see {@link DDDSourceValueExtractorUBL} */
+  UBL ("ubl", (x, y) -> new DDDSourceValueExtractorUBL (x)),
+  /**
+   * Only read the header elements up to the configured stop elements - see
+   * {@link DDDSourceValueExtractorHeader}
+   */
+  HEADER ("header", DDDSourceValueExtractorHeader::new);
+
+  public static final EDDDExtractorType DEFAULT = XPATH;
+
+  private final String m_sID;
+  private final BiFunction <Map <EDDDSourceField, List <IDDDGetter>>, Collection <String>, IDDDSourceValueExtractor> m_aFactory;
+
+  EDDDExtractorType (@NonNull @Nonempty final String sID,
+                     @NonNull final BiFunction <Map <EDDDSourceField, List <IDDDGetter>>,
+                                                Collection <String>,
+                                                IDDDSourceValueExtractor> aFactory)
+  {
+    m_sID = sID;
+    m_aFactory = aFactory;
+  }
+
+  @NonNull
+  @Nonempty
+  public String getID ()
+  {
+    return m_sID;
+  }
+
+  /**
+   * Create the extractor for the provided getters.
+   *
+   * @param aGetters
+   *        The getters of the syntax. May neither be <code>null</code> nor empty.
+   * @return <code>null</code> if the getters should be evaluated one by one.
+   * @throws IllegalArgumentException
+   *         If the getters are not supported by this extractor type.
+   */
+  @Nullable
+  public IDDDSourceValueExtractor createExtractor (@NonNull @Nonempty final Map <EDDDSourceField,
+                                                                                List <IDDDGetter>> aGetters)
+  {
+    return createExtractor (aGetters, null);
+  }
+
+  /**
+   * @return <code>true</code> if this extractor type supports configurable stop elements,
+   *         <code>false</code> if not.
+   */
+  public boolean isSupportsStopElements ()
+  {
+    return this == HEADER;
+  }
+
+  /**
+   * Create the extractor for the provided getters.
+   *
+   * @param aGetters
+   *        The getters of the syntax. May neither be <code>null</code> nor empty.
+   * @param aStopElements
+   *        The local names of the elements at which the extractor stops. Only used if
+   *        {@link #isSupportsStopElements()} is <code>true</code>. May be <code>null</code>.
+   * @return <code>null</code> if the getters should be evaluated one by one.
+   * @throws IllegalArgumentException
+   *         If the getters are not supported by this extractor type.
+   */
+  @Nullable
+  public IDDDSourceValueExtractor createExtractor (@NonNull @Nonempty final Map <EDDDSourceField,
+                                                                                List <IDDDGetter>> aGetters,
+                                                   @Nullable final Collection <String> aStopElements)
+  {
+    return m_aFactory.apply (aGetters, aStopElements);
+  }
+
+  @Nullable
+  public static EDDDExtractorType getFromIDOrNull (@Nullable final String sID)
+  {
+    return EnumHelper.getFromIDOrNull (EDDDExtractorType.class, sID);
+  }
+}
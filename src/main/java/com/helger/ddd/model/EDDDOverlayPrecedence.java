@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+/**
+ * Defines how the layers of an overlay (like {@link DDDSyntaxListOverlay} or
+ * {@link DDDValueProviderListOverlay}) relate to the base.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+public enum EDDDOverlayPrecedence
+{
+  /**
+   * The layers take precedence over the base. Later layers take precedence over earlier layers.
+   * This is the typical setup to customize a shared base.
+   */
+  LAYERS_FIRST,
+  /**
+   * The base takes precedence over the layers. Earlier layers take precedence over later layers.
+   * This can only be used to add new content, but not to override the base.
+   */
+  BASE_FIRST;
+}
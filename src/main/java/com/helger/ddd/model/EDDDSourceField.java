@@ -32,28 +32,32 @@ import com.helger.base.state.EMandatory;
  */
 public enum EDDDSourceField implements IHasID <String>
 {
-  CUSTOMIZATION_ID ("CustomizationID", EMandatory.MANDATORY),
+  CUSTOMIZATION_ID ("CustomizationID", EMandatory.MANDATORY, true),
   // Special case - missing in CII based syntaxes
-  PROCESS_ID ("ProcessID", EMandatory.OPTIONAL),
-  BUSINESS_DOCUMENT_ID ("BusinessDocumentID", EMandatory.OPTIONAL),
+  PROCESS_ID ("ProcessID", EMandatory.OPTIONAL, true),
+  BUSINESS_DOCUMENT_ID ("BusinessDocumentID", EMandatory.OPTIONAL, false),
 
-  SENDER_ID_SCHEME ("SenderIDScheme", EMandatory.OPTIONAL),
-  SENDER_ID_VALUE ("SenderIDValue", EMandatory.OPTIONAL),
-  SENDER_NAME ("SenderName", EMandatory.OPTIONAL),
-  SENDER_COUNTRY_CODE ("SenderCountryCode", EMandatory.OPTIONAL),
+  SENDER_ID_SCHEME ("SenderIDScheme", EMandatory.OPTIONAL, true),
+  SENDER_ID_VALUE ("SenderIDValue", EMandatory.OPTIONAL, false),
+  SENDER_NAME ("SenderName", EMandatory.OPTIONAL, false),
+  SENDER_COUNTRY_CODE ("SenderCountryCode", EMandatory.OPTIONAL, true),
 
-  RECEIVER_ID_SCHEME ("ReceiverIDScheme", EMandatory.OPTIONAL),
-  RECEIVER_ID_VALUE ("ReceiverIDValue", EMandatory.OPTIONAL),
-  RECEIVER_NAME ("ReceiverName", EMandatory.OPTIONAL),
-  RECEIVER_COUNTRY_CODE ("ReceiverCountryCode", EMandatory.OPTIONAL);
+  RECEIVER_ID_SCHEME ("ReceiverIDScheme", EMandatory.OPTIONAL, true),
+  RECEIVER_ID_VALUE ("ReceiverIDValue", EMandatory.OPTIONAL, false),
+  RECEIVER_NAME ("ReceiverName", EMandatory.OPTIONAL, false),
+  RECEIVER_COUNTRY_CODE ("ReceiverCountryCode", EMandatory.OPTIONAL, true);
 
   private final String m_sID;
   private final EMandatory m_eSyntaxDefinitionMandatory;
+  private final boolean m_bLowCardinality;
 
-  EDDDSourceField (@NonNull @Nonempty final String sID, @NonNull final EMandatory eSyntaxDefinitionMandatory)
+  EDDDSourceField (@NonNull @Nonempty final String sID,
+                   @NonNull final EMandatory eSyntaxDefinitionMandatory,
+                   final boolean bLowCardinality)
   {
     m_sID = sID;
     m_eSyntaxDefinitionMandatory = eSyntaxDefinitionMandatory;
+    m_bLowCardinality = bLowCardinality;
   }
 
   @NonNull
@@ -73,6 +77,17 @@ public enum EDDDSourceField implements IHasID <String>
     return m_eSyntaxDefinitionMandatory.isMandatory ();
   }
 
+  /**
+   * @return <code>true</code> if the values of this field usually come from a small vocabulary
+   *         (like identifier schemes or country codes) and are therefore worth interning,
+   *         <code>false</code> if the values are usually unique per document (like names or IDs).
+   * @since 0.8.11
+   */
+  public boolean isLowCardinality ()
+  {
+    return m_bLowCardinality;
+  }
+
   @Nullable
   public static EDDDSourceField getFromIDOrNull (@Nullable final String sID)
   {
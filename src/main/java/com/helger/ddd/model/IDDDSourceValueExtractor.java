@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.util.function.BiConsumer;
+
+import org.jspecify.annotations.NonNull;
+import org.w3c.dom.Element;
+
+import com.helger.diagnostics.error.list.IErrorList;
+
+/**
+ * Extract all source values of a syntax from the effective root element in a single pass. This is
+ * an alternative to evaluating the {@link IDDDGetter} of a {@link DDDSyntax} one field after the
+ * other and must deliver the same values.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+public interface IDDDSourceValueExtractor
+{
+  /**
+   * Extract all source values.
+   *
+   * @param aSourceElement
+   *        The effective (potentially unwrapped) root element of the document. May not be
+   *        <code>null</code>.
+   * @param aValueConsumer
+   *        The consumer that is invoked at most once per source field with the trimmed, non-
+   *        <code>null</code> value. May not be <code>null</code>.
+   * @param aErrorList
+   *        The error list to be filled in case something goes wrong. May not be
+   *        <code>null</code>.
+   */
+  void extractSourceValues (@NonNull Element aSourceElement,
+                            @NonNull BiConsumer <EDDDSourceField, String> aValueConsumer,
+                            @NonNull IErrorList aErrorList);
+}
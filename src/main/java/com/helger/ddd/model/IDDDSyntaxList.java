@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.time.LocalDate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Element;
+
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.collection.commons.ICommonsMap;
+
+/**
+ * Read-only lookup of {@link DDDSyntax} objects. Implemented by the plain {@link DDDSyntaxList} as
+ * well as by the layered {@link DDDSyntaxListOverlay}.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+public interface IDDDSyntaxList
+{
+  /**
+   * @return The last modification of the syntax list. Never <code>null</code>.
+   */
+  @NonNull
+  LocalDate getLastModification ();
+
+  /**
+   * @return A map with all contained syntaxes. Key is the syntax ID and value is the
+   *         {@link DDDSyntax} object. Never <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  ICommonsMap <String, DDDSyntax> getAllSyntaxes ();
+
+  /**
+   * Find a syntax by ID
+   *
+   * @param sSyntaxID
+   *        The syntax ID to search. May be <code>null</code>.
+   * @return <code>null</code> if no such syntax exists.
+   */
+  @Nullable
+  DDDSyntax getSyntaxOfID (@Nullable String sSyntaxID);
+
+  /**
+   * Find a matching syntax based on a root element namespace URI and local name.
+   *
+   * @param sNamespaceURI
+   *        The XML namespace URI to match. May be <code>null</code>.
+   * @param sLocalName
+   *        The XML root element local name to match. May be <code>null</code>.
+   * @return <code>null</code> if no matching syntax was found.
+   */
+  @Nullable
+  DDDSyntax findMatchingSyntax (@Nullable String sNamespaceURI, @Nullable String sLocalName);
+
+  /**
+   * Find a matching syntax based on an XML document root element namespace URI and local name.
+   *
+   * @param aRootElement
+   *        The root element of an XML document. May not be <code>null</code>.
+   * @return <code>null</code> if no matching syntax was found.
+   */
+  @Nullable
+  default DDDSyntax findMatchingSyntax (@NonNull final Element aRootElement)
+  {
+    ValueEnforcer.notNull (aRootElement, "RootElement");
+
+    return findMatchingSyntax (aRootElement.getNamespaceURI (), aRootElement.getLocalName ());
+  }
+}
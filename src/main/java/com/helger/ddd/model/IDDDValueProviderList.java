@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.state.ESuccess;
+import com.helger.collection.commons.ICommonsSet;
+
+/**
+ * Read-only lookup of the value providers per syntax. Implemented by the plain
+ * {@link DDDValueProviderList} as well as by the layered {@link DDDValueProviderListOverlay}, where
+ * more than one {@link DDDValueProviderPerSyntax} may be present for a single syntax.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+public interface IDDDValueProviderList
+{
+  /**
+   * @return The last modification of the value provider list. Never <code>null</code>.
+   */
+  @NonNull
+  LocalDate getLastModification ();
+
+  /**
+   * @return The IDs of all syntaxes that have at least one value provider. Never
+   *         <code>null</code>.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  ICommonsSet <String> getAllSyntaxIDs ();
+
+  /**
+   * Check if at least one value provider is present for the provided syntax.
+   *
+   * @param sSyntaxID
+   *        The syntax ID to check. May be <code>null</code>.
+   * @return <code>true</code> if at least one value provider is present, <code>false</code> if
+   *         not.
+   */
+  boolean containsValueProviderForSyntax (@Nullable String sSyntaxID);
+
+  /**
+   * Invoke the provided consumer for all value providers of the provided syntax, in the order in
+   * which they are used for deduction.
+   *
+   * @param sSyntaxID
+   *        The syntax ID to query. May be <code>null</code>.
+   * @param aConsumer
+   *        The consumer to invoke. May not be <code>null</code>.
+   */
+  void forEachValueProviderPerSyntax (@Nullable String sSyntaxID,
+                                      @NonNull Consumer <? super DDDValueProviderPerSyntax> aConsumer);
+
+  /**
+   * Deduce the values and flags for the provided syntax. The value providers are tried in order
+   * and the first one that matches wins.
+   *
+   * @param sSyntaxID
+   *        The syntax ID to use. May be <code>null</code>.
+   * @param aSourceProvider
+   *        The provider of the source values. May not be <code>null</code>.
+   * @param aDeterminedValues
+   *        The determined values to be filled. May not be <code>null</code>.
+   * @param aDeterminedFlags
+   *        The determined flags to be filled. May not be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if a value provider matched, {@link ESuccess#FAILURE} if
+   *         not.
+   */
+  @NonNull
+  ESuccess forAllDeducedValues (@Nullable String sSyntaxID,
+                                @NonNull Function <EDDDSourceField, String> aSourceProvider,
+                                @NonNull VPDeterminedValues aDeterminedValues,
+                                @NonNull VPDeterminedFlags aDeterminedFlags);
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+
+/**
+ * Determine the document details of many small documents in one go, e.g. high volumes of Peppol
+ * Tax Data documents. The documents are either read from a single stream of concatenated documents
+ * (see {@link DDDConcatenatedXMLSplitter}) or from all files of a directory. Each document is
+ * streamed once with {@link DDDPrunedDocumentBuilder}, so the reading stops as soon as the
+ * extractor of the matching syntax has everything it needs. The per-document setup is minimal: the
+ * pruned builder and the StAX factory are shared and a single DOM document is reused for all
+ * documents of a batch.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDBatchReader
+{
+  /**
+   * Callback interface for the results of a batch.
+   *
+   * @author Philip Helger
+   */
+  @FunctionalInterface
+  public interface IDocumentCallback
+  {
+    /**
+     * Called once per document in the order of the input.
+     *
+     * @param sSourceName
+     *        The name of the source. For concatenated streams this is <code>#</code> followed by
+     *        the 0-based index of the document, for directories it is the file name. Never
+     *        <code>null</code>.
+     * @param aDetails
+     *        The determined document details. <code>null</code> if the document is not well-formed
+     *        or if the document type could not be determined.
+     */
+    void onDocument (@NonNull String sSourceName, @Nullable DocumentDetails aDetails);
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDBatchReader.class);
+
+  private final DocumentDetailsDeterminator m_aDeterminator;
+  private final DDDXMLParserPool m_aParserPool;
+  private final DDDPrunedDocumentBuilder m_aPrunedBuilder;
+
+  /**
+   * Constructor using the default parser pool.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   */
+  public DDDBatchReader (@NonNull final DocumentDetailsDeterminator aDeterminator)
+  {
+    this (aDeterminator, DDDXMLParserPool.getDefaultInstance ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   * @param aParserPool
+   *        The parser pool whose StAX factory is used. May not be <code>null</code>.
+   */
+  public DDDBatchReader (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                         @NonNull final DDDXMLParserPool aParserPool)
+  {
+    ValueEnforcer.notNull (aDeterminator, "Determinator");
+    ValueEnforcer.notNull (aParserPool, "ParserPool");
+    m_aDeterminator = aDeterminator;
+    m_aParserPool = aParserPool;
+    m_aPrunedBuilder = new DDDPrunedDocumentBuilder (aDeterminator);
+  }
+
+  @Nullable
+  private DocumentDetails _findDocumentDetails (@NonNull final InputStream aIS,
+                                                @NonNull final Document aDoc,
+                                                @NonNull final String sSourceName)
+  {
+    try
+    {
+      Element aRoot = null;
+      try
+      {
+        final XMLStreamReader aReader = m_aParserPool.createXMLStreamReader (aIS);
+        try
+        {
+          aRoot = m_aPrunedBuilder.build (aReader, aDoc);
+        }
+        finally
+        {
+          aReader.close ();
+        }
+      }
+      catch (final XMLStreamException ex)
+      {
+        LOGGER.warn ("Failed to stream XML document '" + sSourceName + "': " + ex.getMessage ());
+      }
+
+      if (aRoot == null)
+      {
+        m_aDeterminator.getErrorHdl ().accept ("The provided input does not contain well-formed XML");
+        return null;
+      }
+      return m_aDeterminator.findDocumentDetails (aRoot);
+    }
+    finally
+    {
+      // Make the document reusable for the next input
+      Node aChild;
+      while ((aChild = aDoc.getFirstChild ()) != null)
+        aDoc.removeChild (aChild);
+    }
+  }
+
+  /**
+   * List all files in the provided directory whose name ends with the provided suffix, sorted by
+   * name. Sub directories are not considered.
+   *
+   * @param aDir
+   *        The directory to list. May not be <code>null</code>.
+   * @param sFilenameSuffix
+   *        The file name suffix like <code>.xml</code>. May not be <code>null</code> but may be empty
+   *        to list all files.
+   * @return A new list with all matching files. Never <code>null</code> but maybe empty.
+   * @throws IOException
+   *         If the directory cannot be listed.
+   */
+  @NonNull
+  @ReturnsMutableCopy
+  public static ICommonsList <Path> listFiles (@NonNull final Path aDir, @NonNull final String sFilenameSuffix) throws IOException
+  {
+    ValueEnforcer.notNull (aDir, "Directory");
+    ValueEnforcer.notNull (sFilenameSuffix, "FilenameSuffix");
+
+    final ICommonsList <Path> ret = new CommonsArrayList <> ();
+    try (final DirectoryStream <Path> aDS = Files.newDirectoryStream (aDir))
+    {
+      for (final Path aFile : aDS)
+        if (Files.isRegularFile (aFile) && aFile.getFileName ().toString ().endsWith (sFilenameSuffix))
+          ret.add (aFile);
+    }
+    ret.sort (null);
+    return ret;
+  }
+
+  /**
+   * Create a new empty DOM document that can be passed to {@link #readFile(Path, Document)}. A
+   * work document must only be used by one thread at a time.
+   *
+   * @return A new empty DOM document. Never <code>null</code>.
+   * @throws IllegalStateException
+   *         If the parser pool cannot create a new document
+   */
+  @NonNull
+  public Document newWorkDocument ()
+  {
+    final Document ret = m_aParserPool.newDocument ();
+    if (ret == null)
+      throw new IllegalStateException ("Failed to create a new DOM document");
+    return ret;
+  }
+
+  /**
+   * Determine the document details of a single file.
+   *
+   * @param aFile
+   *        The file to read. May not be <code>null</code>.
+   * @param aWorkDoc
+   *        The work document created by {@link #newWorkDocument()}. It is emptied again afterwards
+   *        and must not be used by another thread at the same time. May not be <code>null</code>.
+   * @return The determined document details or <code>null</code> if the file cannot be read, is not
+   *         well-formed or if the document type could not be determined.
+   */
+  @Nullable
+  public DocumentDetails readFile (@NonNull final Path aFile, @NonNull final Document aWorkDoc)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    ValueEnforcer.notNull (aWorkDoc, "WorkDoc");
+
+    try (final InputStream aIS = Files.newInputStream (aFile))
+    {
+      return _findDocumentDetails (aIS, aWorkDoc, aFile.getFileName ().toString ());
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read file '" + aFile + "': " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  /**
+   * Determine the document details of all documents in a stream of concatenated XML documents.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>. It is not closed. See
+   *        {@link DDDConcatenatedXMLSplitter} for the requirements.
+   * @param aCallback
+   *        The callback to be invoked for each document. May not be <code>null</code>.
+   * @return The number of documents read. Always &ge; 0.
+   * @throws IOException
+   *         If reading from the input stream fails.
+   */
+  @Nonnegative
+  public int readConcatenated (@NonNull final InputStream aIS,
+                               @NonNull final IDocumentCallback aCallback) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aCallback, "Callback");
+
+    final Document aDoc = newWorkDocument ();
+    final DDDConcatenatedXMLSplitter aSplitter = new DDDConcatenatedXMLSplitter (aIS);
+    InputStream aDocIS;
+    int nIndex = 0;
+    while ((aDocIS = aSplitter.readNextDocument ()) != null)
+    {
+      final String sSourceName = "#" + nIndex;
+      aCallback.onDocument (sSourceName, _findDocumentDetails (aDocIS, aDoc, sSourceName));
+      nIndex++;
+    }
+    return nIndex;
+  }
+
+  /**
+   * Determine the document details of all files in the provided directory whose name ends with the
+   * provided suffix. Sub directories are not considered. The files are processed in the order of
+   * their names.
+   *
+   * @param aDir
+   *        The directory to read. May not be <code>null</code>.
+   * @param sFilenameSuffix
+   *        The file name suffix like <code>.xml</code>. May not be <code>null</code> but may be empty
+   *        to read all files.
+   * @param aCallback
+   *        The callback to be invoked for each file. If a file cannot be read, the callback is
+   *        invoked with <code>null</code> details. May not be <code>null</code>.
+   * @return The number of files read. Always &ge; 0.
+   * @throws IOException
+   *         If the directory cannot be listed.
+   */
+  @Nonnegative
+  public int readDirectory (@NonNull final Path aDir,
+                            @NonNull final String sFilenameSuffix,
+                            @NonNull final IDocumentCallback aCallback) throws IOException
+  {
+    ValueEnforcer.notNull (aCallback, "Callback");
+
+    final ICommonsList <Path> aFiles = listFiles (aDir, sFilenameSuffix);
+    final Document aDoc = newWorkDocument ();
+    for (final Path aFile : aFiles)
+      aCallback.onDocument (aFile.getFileName ().toString (), readFile (aFile, aDoc));
+    return aFiles.size ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Determinator", m_aDeterminator)
+                                       .append ("ParserPool", m_aParserPool)
+                                       .getToString ();
+  }
+}
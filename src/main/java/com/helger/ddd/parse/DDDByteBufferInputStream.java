@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.jspecify.annotations.NonNull;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+
+/**
+ * An unsynchronized {@link InputStream} reading from a {@link ByteBuffer}. The remaining bytes of
+ * the buffer are read, without modifying the position of the provided buffer. This works for heap,
+ * direct and memory-mapped buffers alike, without copying the content to the heap first.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@NotThreadSafe
+public final class DDDByteBufferInputStream extends InputStream
+{
+  private final ByteBuffer m_aBuffer;
+  private int m_nMark;
+
+  /**
+   * Constructor
+   *
+   * @param aBuffer
+   *        The buffer to read from. May not be <code>null</code>. The position and limit of the
+   *        buffer are not modified.
+   */
+  public DDDByteBufferInputStream (@NonNull final ByteBuffer aBuffer)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+    m_aBuffer = aBuffer.duplicate ();
+    m_nMark = m_aBuffer.position ();
+  }
+
+  @Override
+  public int read ()
+  {
+    return m_aBuffer.hasRemaining () ? m_aBuffer.get () & 0xff : -1;
+  }
+
+  @Override
+  public int read (@NonNull final byte [] aBuf, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    ValueEnforcer.isArrayOfsLen (aBuf, nOfs, nLen);
+
+    if (nLen == 0)
+      return 0;
+    final int nRemaining = m_aBuffer.remaining ();
+    if (nRemaining == 0)
+      return -1;
+    final int nRead = Math.min (nLen, nRemaining);
+    m_aBuffer.get (aBuf, nOfs, nRead);
+    return nRead;
+  }
+
+  @Override
+  public long skip (final long nCount)
+  {
+    if (nCount <= 0)
+      return 0;
+    final int nSkip = (int) Math.min (nCount, m_aBuffer.remaining ());
+    m_aBuffer.position (m_aBuffer.position () + nSkip);
+    return nSkip;
+  }
+
+  @Override
+  public int available ()
+  {
+    return m_aBuffer.remaining ();
+  }
+
+  @Override
+  public boolean markSupported ()
+  {
+    return true;
+  }
+
+  @Override
+  public void mark (final int nReadLimit)
+  {
+    m_nMark = m_aBuffer.position ();
+  }
+
+  @Override
+  public void reset ()
+  {
+    m_aBuffer.position (m_nMark);
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * Split a stream of concatenated XML documents (e.g. a bulk export of many small documents) into
+ * the single documents without parsing them. The boundaries are determined by a lightweight scan
+ * of the markup only: a document starts with its XML declaration, a DOCTYPE declaration or its root
+ * element and ends with the end tag of its root element. Comments, CDATA sections, processing
+ * instructions and quoted attribute values are recognized, so that markup characters inside them
+ * don't confuse the scan. Comments, processing instructions and text between documents are
+ * ignored.<br>
+ * The scan works on bytes and therefore requires an ASCII compatible encoding like UTF-8 or
+ * ISO-8859-1 - UTF-16 is not supported. Well-formedness is not checked here but by the parser
+ * reading the single documents. The same buffer is reused for all documents, so each document
+ * must be consumed before the next one is read.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@NotThreadSafe
+public final class DDDConcatenatedXMLSplitter
+{
+  /** The default initial size of the document buffer */
+  public static final int DEFAULT_INITIAL_BUFFER_SIZE = 16 * 1024;
+
+  private enum EState
+  {
+    TEXT,
+    LT,
+    BANG,
+    PI,
+    COMMENT,
+    CDATA,
+    DECL,
+    START_TAG,
+    END_TAG
+  }
+
+  private final InputStream m_aIS;
+  private final byte [] m_aReadBuf = new byte [8 * 1024];
+  private int m_nReadPos;
+  private int m_nReadLen;
+  private byte [] m_aDocBuf;
+  private int m_nDocLen;
+  private int m_nDocumentCount;
+
+  /**
+   * Constructor
+   *
+   * @param aIS
+   *        The input stream with the concatenated documents. May not be <code>null</code>. It is not
+   *        closed.
+   */
+  public DDDConcatenatedXMLSplitter (@NonNull final InputStream aIS)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    m_aIS = aIS;
+    m_aDocBuf = new byte [DEFAULT_INITIAL_BUFFER_SIZE];
+  }
+
+  /**
+   * @return The number of documents returned so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getDocumentCount ()
+  {
+    return m_nDocumentCount;
+  }
+
+  private int _read () throws IOException
+  {
+    if (m_nReadPos == m_nReadLen)
+    {
+      m_nReadLen = m_aIS.read (m_aReadBuf);
+      m_nReadPos = 0;
+      if (m_nReadLen <= 0)
+      {
+        m_nReadLen = 0;
+        return -1;
+      }
+    }
+    return m_aReadBuf[m_nReadPos++] & 0xff;
+  }
+
+  private void _append (final int nByte)
+  {
+    if (m_nDocLen == m_aDocBuf.length)
+      m_aDocBuf = Arrays.copyOf (m_aDocBuf, m_aDocBuf.length * 2);
+    m_aDocBuf[m_nDocLen++] = (byte) nByte;
+  }
+
+  private boolean _endsWith (final int nMarkupStart, @NonNull final String sEnd, final int nMinLength)
+  {
+    if (m_nDocLen - nMarkupStart < nMinLength)
+      return false;
+    final int nOfs = m_nDocLen - sEnd.length ();
+    for (int i = 0; i < sEnd.length (); ++i)
+      if (m_aDocBuf[nOfs + i] != sEnd.charAt (i))
+        return false;
+    return true;
+  }
+
+  private boolean _isXMLDeclaration (final int nMarkupStart)
+  {
+    // "<?xml" followed by whitespace
+    return m_nDocLen - nMarkupStart > 6 &&
+           m_aDocBuf[nMarkupStart + 2] == 'x' &&
+           m_aDocBuf[nMarkupStart + 3] == 'm' &&
+           m_aDocBuf[nMarkupStart + 4] == 'l' &&
+           m_aDocBuf[nMarkupStart + 5] <= ' ';
+  }
+
+  /**
+   * Read the next document.
+   *
+   * @return The bytes of the next document in a reused buffer (see {@link #getDocumentLength()}) or
+   *         <code>null</code> if the end of the stream was reached. If the stream ends in the middle
+   *         of a document, the incomplete document is returned so that the parser can report it.
+   * @throws IOException
+   *         If reading from the underlying stream fails.
+   */
+  @Nullable
+  public byte [] readNextDocumentBuffer () throws IOException
+  {
+    m_nDocLen = 0;
+    boolean bStarted = false;
+    int nDepth = 0;
+    EState eState = EState.TEXT;
+    int nMarkupStart = 0;
+    int nQuote = 0;
+    int nBrackets = 0;
+
+    int c;
+    while ((c = _read ()) >= 0)
+    {
+      if (eState == EState.TEXT)
+      {
+        if (c == '<')
+        {
+          nMarkupStart = m_nDocLen;
+          _append (c);
+          eState = EState.LT;
+        }
+        else
+          if (bStarted)
+            _append (c);
+        // else text between documents is ignored
+        continue;
+      }
+
+      _append (c);
+      boolean bEndOfMarkup = false;
+      switch (eState)
+      {
+        case LT:
+          if (c == '?')
+            eState = EState.PI;
+          else
+            if (c == '!')
+              eState = EState.BANG;
+            else
+              if (c == '/')
+                eState = EState.END_TAG;
+              else
+              {
+                eState = EState.START_TAG;
+                nQuote = 0;
+              }
+          break;
+        case BANG:
+          if (c == '-')
+            eState = EState.COMMENT;
+          else
+            if (c == '[')
+              eState = EState.CDATA;
+            else
+            {
+              eState = EState.DECL;
+              nQuote = 0;
+              nBrackets = 0;
+            }
+          break;
+        case PI:
+          if (c == '>' && _endsWith (nMarkupStart, "?>", 4))
+          {
+            if (!bStarted && _isXMLDeclaration (nMarkupStart))
+              bStarted = true;
+            bEndOfMarkup = true;
+          }
+          break;
+        case COMMENT:
+          // "<!---->" is the shortest comment
+          if (c == '>' && _endsWith (nMarkupStart, "-->", 7))
+            bEndOfMarkup = true;
+          break;
+        case CDATA:
+          // "<![CDATA[]]>" is the shortest CDATA section
+          if (c == '>' && _endsWith (nMarkupStart, "]]>", 12))
+            bEndOfMarkup = true;
+          break;
+        case DECL:
+          if (nQuote != 0)
+          {
+            if (c == nQuote)
+              nQuote = 0;
+          }
+          else
+            if (c == '"' || c == '\'')
+              nQuote = c;
+            else
+              if (c == '[')
+                nBrackets++;
+              else
+                if (c == ']')
+                  nBrackets--;
+                else
+                  if (c == '>' && nBrackets <= 0)
+                  {
+                    bStarted = true;
+                    bEndOfMarkup = true;
+                  }
+          break;
+        case START_TAG:
+          if (nQuote != 0)
+          {
+            if (c == nQuote)
+              nQuote = 0;
+          }
+          else
+            if (c == '"' || c == '\'')
+              nQuote = c;
+            else
+              if (c == '>')
+              {
+                bStarted = true;
+                bEndOfMarkup = true;
+                // Self-closing elements don't change the depth
+                if (m_aDocBuf[m_nDocLen - 2] != '/')
+                  nDepth++;
+                else
+                  if (nDepth == 0)
+                  {
+                    // Self-closing root element
+                    m_nDocumentCount++;
+                    return m_aDocBuf;
+                  }
+              }
+          break;
+        case END_TAG:
+          if (c == '>')
+          {
+            bEndOfMarkup = true;
+            nDepth--;
+            if (nDepth <= 0)
+            {
+              m_nDocumentCount++;
+              return m_aDocBuf;
+            }
+          }
+          break;
+        default:
+          throw new IllegalStateException ("Unexpected state " + eState);
+      }
+
+      if (bEndOfMarkup)
+      {
+        if (!bStarted)
+        {
+          // Comment or processing instruction between documents
+          m_nDocLen = nMarkupStart;
+        }
+        eState = EState.TEXT;
+      }
+    }
+
+    if (!bStarted)
+    {
+      // Only text, comments or processing instructions after the last document
+      m_nDocLen = 0;
+      return null;
+    }
+
+    // Incomplete document
+    m_nDocumentCount++;
+    return m_aDocBuf;
+  }
+
+  /**
+   * @return The number of valid bytes in the buffer returned by the last call to
+   *         {@link #readNextDocumentBuffer()}.
+   */
+  @Nonnegative
+  public int getDocumentLength ()
+  {
+    return m_nDocLen;
+  }
+
+  /**
+   * Read the next document as an input stream.
+   *
+   * @return An input stream over the bytes of the next document or <code>null</code> if the end of
+   *         the stream was reached. The input stream is only valid until the next document is read.
+   * @throws IOException
+   *         If reading from the underlying stream fails.
+   */
+  @Nullable
+  public InputStream readNextDocument () throws IOException
+  {
+    final byte [] aBuf = readNextDocumentBuffer ();
+    return aBuf == null ? null : new NonBlockingByteArrayInputStream (aBuf, 0, m_nDocLen);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("DocumentCount", m_nDocumentCount).getToString ();
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+
+/**
+ * Determine {@link DocumentDetails} directly from files on disk. Each file is memory-mapped
+ * read-only instead of being read into a heap <code>byte[]</code>, and all further processing reads
+ * from the mapped buffer. Before the full document is parsed, the root element is sniffed with StAX
+ * and documents that are guaranteed to be unsupported (see
+ * {@link DocumentDetailsDeterminator#isPotentiallySupportedRoot(String, String)}) are rejected after
+ * reading only the first page(s) of the file. Embedded attachments on the skip list of the matched
+ * syntax are discarded while building the DOM (see {@link DDDPrunedDocumentBuilder}), so that
+ * attachment heavy files cost about the same as plain ones.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDMappedFileReader
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDMappedFileReader.class);
+
+  private final DocumentDetailsDeterminator m_aDeterminator;
+  private final DDDXMLParserPool m_aParserPool;
+  private final DDDPrunedDocumentBuilder m_aBuilder;
+
+  /**
+   * Constructor using the default parser pool.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   */
+  public DDDMappedFileReader (@NonNull final DocumentDetailsDeterminator aDeterminator)
+  {
+    this (aDeterminator, DDDXMLParserPool.getDefaultInstance ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   * @param aParserPool
+   *        The parser pool to use. May not be <code>null</code>.
+   */
+  public DDDMappedFileReader (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                              @NonNull final DDDXMLParserPool aParserPool)
+  {
+    ValueEnforcer.notNull (aDeterminator, "Determinator");
+    ValueEnforcer.notNull (aParserPool, "ParserPool");
+    m_aDeterminator = aDeterminator;
+    m_aParserPool = aParserPool;
+    m_aBuilder = new DDDPrunedDocumentBuilder (aDeterminator, false);
+  }
+
+  /**
+   * Map the provided file read-only into memory. The file channel is closed again, the mapping
+   * stays valid until the returned buffer is garbage collected.
+   *
+   * @param aPath
+   *        The file to map. May not be <code>null</code>.
+   * @return The mapped buffer. Never <code>null</code>.
+   * @throws IOException
+   *         If the file cannot be opened, is larger than 2 GB or cannot be mapped.
+   */
+  @NonNull
+  public static ByteBuffer mapReadOnly (@NonNull final Path aPath) throws IOException
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+
+    try (final FileChannel aChannel = FileChannel.open (aPath, StandardOpenOption.READ))
+    {
+      final long nSize = aChannel.size ();
+      if (nSize > Integer.MAX_VALUE)
+        throw new IOException ("The file '" + aPath + "' is too large to be mapped (" + nSize + " bytes)");
+      return aChannel.map (FileChannel.MapMode.READ_ONLY, 0, nSize);
+    }
+  }
+
+  /**
+   * Determine the qualified name of the root element by reading only up to the first start
+   * element. The position of the buffer is not modified.
+   *
+   * @param aBuffer
+   *        The buffer to read. May not be <code>null</code>.
+   * @param aXIF
+   *        The StAX factory to use. May not be <code>null</code>.
+   * @return <code>null</code> if the buffer contains no well-formed start of an XML document.
+   */
+  @Nullable
+  public static QName sniffRootElement (@NonNull final ByteBuffer aBuffer, @NonNull final XMLInputFactory aXIF)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+    ValueEnforcer.notNull (aXIF, "XMLInputFactory");
+
+    try
+    {
+      final XMLStreamReader aReader = aXIF.createXMLStreamReader (new DDDByteBufferInputStream (aBuffer));
+      try
+      {
+        while (aReader.hasNext ())
+          if (aReader.next () == XMLStreamConstants.START_ELEMENT)
+            return aReader.getName ();
+        return null;
+      }
+      finally
+      {
+        aReader.close ();
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      return null;
+    }
+  }
+
+  /**
+   * Determine the document details of the provided buffer, e.g. a memory-mapped file.
+   *
+   * @param aBuffer
+   *        The buffer to read. May not be <code>null</code>. The position is not modified.
+   * @return <code>null</code> if the buffer contains no well-formed XML or if the document type
+   *         could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final ByteBuffer aBuffer)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+
+    // Early termination for unsupported documents
+    final QName aRootName = sniffRootElement (aBuffer, m_aParserPool.getXMLInputFactory ());
+    if (aRootName == null)
+    {
+      m_aDeterminator.getErrorHdl ().accept ("The provided buffer does not contain well-formed XML");
+      return null;
+    }
+    if (!m_aDeterminator.isPotentiallySupportedRoot (aRootName.getNamespaceURI (), aRootName.getLocalPart ()))
+    {
+      m_aDeterminator.getErrorHdl ().accept ("Unsupported Document Type syntax " + aRootName.toString ());
+      return null;
+    }
+
+    final Document aDoc = m_aBuilder.build (new DDDByteBufferInputStream (aBuffer), m_aParserPool);
+    if (aDoc == null)
+    {
+      m_aDeterminator.getErrorHdl ().accept ("The provided buffer does not contain well-formed XML");
+      return null;
+    }
+    return m_aDeterminator.findDocumentDetails (aDoc.getDocumentElement ());
+  }
+
+  /**
+   * Determine the document details of the provided file, which is memory-mapped for reading.
+   *
+   * @param aPath
+   *        The file to read. May not be <code>null</code>.
+   * @return <code>null</code> if the file could not be read, contains no well-formed XML or if the
+   *         document type could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final Path aPath)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+
+    final ByteBuffer aBuffer;
+    try
+    {
+      aBuffer = mapReadOnly (aPath);
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to map file '" + aPath + "': " + ex.getMessage ());
+      return null;
+    }
+    return findDocumentDetails (aBuffer);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Determinator", m_aDeterminator)
+                                       .append ("ParserPool", m_aParserPool)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+
+/**
+ * Determine the document details of many Hungarian OSA documents (<code>InvoiceData</code> and
+ * <code>InvoiceAnnulment</code>) in parallel. The documents can be provided as plain XML, as base64
+ * encoded payloads or inside a NAV API request (like <code>ManageInvoiceRequest</code> or
+ * <code>ManageAnnulmentRequest</code>) that contains the base64 encoded documents in
+ * <code>invoiceData</code> or <code>invoiceAnnulment</code> elements. Base64 is always decoded in a
+ * streaming fashion: standalone payloads are decoded while they are parsed, and the payloads of an
+ * API request are decoded chunk by chunk while the request is read, so that the base64 text is
+ * never materialized as a whole. Each payload is handed to the thread pool as soon as it is
+ * decoded, without copying the decoded bytes. Like plain payloads, base64 payloads are parsed into a
+ * DOM or streamed depending on their decoded size (see {@link DDDSizeRoutingReader}). A base64
+ * payload with an incomplete final group or with wrong padding is rejected. The number of documents in flight is bounded, so
+ * that a fast reader cannot queue up an unbounded number of decoded payloads. The results are
+ * always returned in the order of the input. If determining the details of a single document fails
+ * unexpectedly, the error is logged and its entry is <code>null</code>.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDNAVBatchReader
+{
+  /** The local name of the API request element containing a base64 encoded InvoiceData */
+  public static final String ELEMENT_INVOICE_DATA = "invoiceData";
+  /** The local name of the API request element containing a base64 encoded InvoiceAnnulment */
+  public static final String ELEMENT_INVOICE_ANNULMENT = "invoiceAnnulment";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDNAVBatchReader.class);
+
+  /**
+   * Incremental base64 decoder, that is fed with the character chunks of the StAX reader.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  private static final class Base64ChunkDecoder
+  {
+    private static final int [] DECODE_TABLE = new int [128];
+
+    static
+    {
+      Arrays.fill (DECODE_TABLE, -1);
+      final String sAlphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+      for (int i = 0; i < sAlphabet.length (); ++i)
+        DECODE_TABLE[sAlphabet.charAt (i)] = i;
+    }
+
+    private byte [] m_aBuf = new byte [4096];
+    private int m_nLen;
+    private int m_nBits;
+    private int m_nBitCount;
+    private int m_nPaddingCount;
+    private boolean m_bInvalid;
+
+    /**
+     * Get the decoded size of the provided base64 content without decoding it.
+     *
+     * @param aEncoded
+     *        The base64 content, optionally with line breaks. May not be <code>null</code>.
+     * @return The number of decoded bytes, assuming the content is valid base64.
+     */
+    @Nonnegative
+    static long getDecodedSize (@NonNull final byte [] aEncoded)
+    {
+      long nChars = 0;
+      for (final byte b : aEncoded)
+        if (b >= 0 && DECODE_TABLE[b] >= 0)
+          nChars++;
+      return nChars * 6 / 8;
+    }
+
+    void decode (@NonNull final char [] aChars, final int nOfs, final int nLen)
+    {
+      for (int i = nOfs; i < nOfs + nLen && !m_bInvalid; ++i)
+      {
+        final char c = aChars[i];
+        if (c <= ' ')
+        {
+          // Line breaks and other whitespace
+          continue;
+        }
+        if (c == '=')
+        {
+          m_nPaddingCount++;
+          continue;
+        }
+        final int nValue = c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+        if (nValue < 0 || m_nPaddingCount > 0)
+        {
+          m_bInvalid = true;
+          break;
+        }
+        m_nBits = (m_nBits << 6) | nValue;
+        m_nBitCount += 6;
+        if (m_nBitCount >= 8)
+        {
+          m_nBitCount -= 8;
+          if (m_nLen == m_aBuf.length)
+            m_aBuf = Arrays.copyOf (m_aBuf, m_aBuf.length * 2);
+          m_aBuf[m_nLen++] = (byte) (m_nBits >> m_nBitCount);
+          m_nBits &= (1 << m_nBitCount) - 1;
+        }
+      }
+    }
+
+    /**
+     * @return The decoded bytes without copying them or <code>null</code> if the content is not
+     *         valid base64. The decoder must not be used afterwards.
+     */
+    @Nullable
+    ByteBuffer getDecoded ()
+    {
+      if (m_bInvalid)
+        return null;
+
+      // The bits left over from the last group: 0 for a complete group, 4 after two characters
+      // (one byte) and 2 after three characters (two bytes). A single character is incomplete.
+      // Padding is optional, but if present it must complete the group.
+      final boolean bValidEnd = switch (m_nBitCount)
+      {
+        case 0 -> m_nPaddingCount == 0;
+        case 4 -> m_nPaddingCount == 0 || m_nPaddingCount == 2;
+        case 2 -> m_nPaddingCount == 0 || m_nPaddingCount == 1;
+        default -> false;
+      };
+      return bValidEnd ? ByteBuffer.wrap (m_aBuf, 0, m_nLen) : null;
+    }
+  }
+
+  /**
+   * The results of one call in the order of the input. At most the maximum number of in-flight
+   * documents is submitted ahead of the results, so that the decoded payloads waiting for a thread
+   * do not accumulate.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  private final class ResultWindow
+  {
+    private final Deque <Future <DocumentDetails>> m_aInFlight = new ArrayDeque <> ();
+    private final ICommonsList <DocumentDetails> m_aResults = new CommonsArrayList <> ();
+
+    private void _takeOldest () throws InterruptedException
+    {
+      final Future <DocumentDetails> aFuture = m_aInFlight.removeFirst ();
+      DocumentDetails aDD;
+      try
+      {
+        aDD = aFuture.get ();
+      }
+      catch (final ExecutionException ex)
+      {
+        LOGGER.error ("Failed to determine the document details", ex.getCause ());
+        aDD = null;
+      }
+      m_aResults.add (aDD);
+    }
+
+    private void _makeRoom () throws InterruptedException
+    {
+      // Wait before submitting, so that no more than the window is queued
+      if (m_aInFlight.size () >= m_nMaxInFlight)
+        _takeOldest ();
+    }
+
+    void submit (@NonNull final Callable <DocumentDetails> aTask) throws InterruptedException
+    {
+      _makeRoom ();
+      m_aInFlight.addLast (m_aExecutor.submit (aTask));
+    }
+
+    void addFailure () throws InterruptedException
+    {
+      _makeRoom ();
+      m_aInFlight.addLast (CompletableFuture.completedFuture (null));
+    }
+
+    @NonNull
+    ICommonsList <DocumentDetails> getAll () throws InterruptedException
+    {
+      while (!m_aInFlight.isEmpty ())
+        _takeOldest ();
+      return m_aResults;
+    }
+
+    void cancelRemaining ()
+    {
+      for (final Future <DocumentDetails> aFuture : m_aInFlight)
+        aFuture.cancel (true);
+      m_aInFlight.clear ();
+    }
+  }
+
+  private final DDDSizeRoutingReader m_aReader;
+  private final DDDXMLParserPool m_aParserPool;
+  private final ExecutorService m_aExecutor;
+  private final int m_nMaxInFlight;
+
+  /**
+   * Constructor using one thread per available processor.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   */
+  public DDDNAVBatchReader (@NonNull final DocumentDetailsDeterminator aDeterminator)
+  {
+    this (aDeterminator, Runtime.getRuntime ().availableProcessors ());
+  }
+
+  /**
+   * Constructor with an own thread pool that is reused for all calls. Idle threads are terminated
+   * after a minute, so the reader does not need to be closed. At most twice the thread count of
+   * documents are in flight at any time.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   * @param nThreadCount
+   *        The number of documents to process in parallel. Must be &gt; 0.
+   */
+  public DDDNAVBatchReader (@NonNull final DocumentDetailsDeterminator aDeterminator, final int nThreadCount)
+  {
+    this (aDeterminator, DDDXMLParserPool.getDefaultInstance (), _createExecutor (nThreadCount), nThreadCount * 2);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   * @param aParserPool
+   *        The parser pool to use. May not be <code>null</code>.
+   * @param aExecutor
+   *        The executor to process the documents with. May not be <code>null</code>. It is never
+   *        shut down by this class.
+   * @param nMaxInFlight
+   *        The maximum number of documents per call that are submitted to the executor but whose
+   *        result was not yet collected. Must be &gt; 0.
+   */
+  public DDDNAVBatchReader (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                            @NonNull final DDDXMLParserPool aParserPool,
+                            @NonNull final ExecutorService aExecutor,
+                            final int nMaxInFlight)
+  {
+    ValueEnforcer.notNull (aParserPool, "ParserPool");
+    ValueEnforcer.notNull (aExecutor, "Executor");
+    ValueEnforcer.isGT0 (nMaxInFlight, "MaxInFlight");
+    m_aReader = new DDDSizeRoutingReader (aDeterminator,
+                                          aParserPool,
+                                          DDDSizeRoutingReader.DEFAULT_STREAMING_THRESHOLD);
+    m_aParserPool = aParserPool;
+    m_aExecutor = aExecutor;
+    m_nMaxInFlight = nMaxInFlight;
+  }
+
+  @NonNull
+  private static ExecutorService _createExecutor (final int nThreadCount)
+  {
+    ValueEnforcer.isGT0 (nThreadCount, "ThreadCount");
+    final ThreadPoolExecutor ret = new ThreadPoolExecutor (nThreadCount,
+                                                           nThreadCount,
+                                                           1,
+                                                           TimeUnit.MINUTES,
+                                                           new LinkedBlockingQueue <> (),
+                                                           aRunnable -> {
+                                                             final Thread aThread = new Thread (aRunnable,
+                                                                                                "DDDNAVBatchReader");
+                                                             aThread.setDaemon (true);
+                                                             return aThread;
+                                                           });
+    ret.allowCoreThreadTimeOut (true);
+    return ret;
+  }
+
+  /**
+   * @return The maximum number of documents per call that are submitted to the executor but whose
+   *         result was not yet collected. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxInFlight ()
+  {
+    return m_nMaxInFlight;
+  }
+
+  @Nullable
+  private DocumentDetails _findDocumentDetails (@NonNull final byte [] aPayload, final boolean bBase64Encoded)
+  {
+    if (!bBase64Encoded)
+      return m_aReader.findDocumentDetails (aPayload);
+
+    // Route by the decoded size, like a plain payload
+    final InputStream aIS = Base64.getMimeDecoder ().wrap (new NonBlockingByteArrayInputStream (aPayload));
+    return m_aReader.findDocumentDetails (aIS, Base64ChunkDecoder.getDecodedSize (aPayload));
+  }
+
+  /**
+   * Determine the document details of all provided payloads in parallel.
+   *
+   * @param aPayloads
+   *        The payloads to process. May not be <code>null</code> and may not contain
+   *        <code>null</code> elements.
+   * @param bBase64Encoded
+   *        <code>true</code> if the payloads are base64 encoded XML (line breaks are allowed),
+   *        <code>false</code> if they are plain XML.
+   * @return A list with one entry per payload in the order of the input. An entry is
+   *         <code>null</code> if the payload is not well-formed XML or if the document type could
+   *         not be determined. Never <code>null</code>.
+   * @throws InterruptedException
+   *         If the calling thread was interrupted while waiting for the results.
+   */
+  @NonNull
+  public ICommonsList <DocumentDetails> findAllDocumentDetails (@NonNull final Iterable <byte []> aPayloads,
+                                                                final boolean bBase64Encoded) throws InterruptedException
+  {
+    ValueEnforcer.notNull (aPayloads, "Payloads");
+
+    final ResultWindow aWindow = new ResultWindow ();
+    try
+    {
+      for (final byte [] aPayload : aPayloads)
+      {
+        ValueEnforcer.notNull (aPayload, "Payload");
+        aWindow.submit ( () -> _findDocumentDetails (aPayload, bBase64Encoded));
+      }
+      return aWindow.getAll ();
+    }
+    finally
+    {
+      aWindow.cancelRemaining ();
+    }
+  }
+
+  /**
+   * Determine the document details of all base64 encoded documents contained in a NAV API request.
+   * All elements with the local name {@link #ELEMENT_INVOICE_DATA} or
+   * {@link #ELEMENT_INVOICE_ANNULMENT} are considered, independent of the API version.
+   *
+   * @param aIS
+   *        The input stream with the API request. May not be <code>null</code>. It is not closed.
+   * @return A list with one entry per contained document in the order of the request. An entry is
+   *         <code>null</code> if the payload is not valid base64, not well-formed XML or if the
+   *         document type could not be determined. <code>null</code> if the request itself is not
+   *         well-formed XML.
+   * @throws InterruptedException
+   *         If the calling thread was interrupted while waiting for the results.
+   */
+  @Nullable
+  public ICommonsList <DocumentDetails> findAllDocumentDetailsFromRequest (@NonNull final InputStream aIS) throws InterruptedException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    final ResultWindow aWindow = new ResultWindow ();
+    try
+    {
+      final char [] aChunk = new char [8 * 1024];
+      final XMLStreamReader aReader = m_aParserPool.createXMLStreamReader (aIS);
+      try
+      {
+        Base64ChunkDecoder aDecoder = null;
+        while (aReader.hasNext ())
+        {
+          final int nEventType = aReader.next ();
+          switch (nEventType)
+          {
+            case XMLStreamConstants.DTD:
+              // Consistent with the DOM parsers
+              throw new XMLStreamException ("DOCTYPE declarations are not allowed", aReader.getLocation ());
+            case XMLStreamConstants.START_ELEMENT:
+            {
+              final String sLocalName = aReader.getLocalName ();
+              if (ELEMENT_INVOICE_DATA.equals (sLocalName) || ELEMENT_INVOICE_ANNULMENT.equals (sLocalName))
+                aDecoder = new Base64ChunkDecoder ();
+              break;
+            }
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+              if (aDecoder != null)
+              {
+                // Copy the text in chunks without creating a String
+                int nSourceStart = 0;
+                int nCopied;
+                while ((nCopied = aReader.getTextCharacters (nSourceStart, aChunk, 0, aChunk.length)) > 0)
+                {
+                  aDecoder.decode (aChunk, 0, nCopied);
+                  nSourceStart += nCopied;
+                }
+              }
+              break;
+            case XMLStreamConstants.END_ELEMENT:
+              if (aDecoder != null)
+              {
+                final ByteBuffer aDecoded = aDecoder.getDecoded ();
+                aDecoder = null;
+                if (aDecoded == null)
+                {
+                  LOGGER.warn ("The content of '" + aReader.getLocalName () + "' is not valid base64");
+                  aWindow.addFailure ();
+                }
+                else
+                  aWindow.submit ( () -> m_aReader.findDocumentDetails (aDecoded));
+              }
+              break;
+            default:
+              break;
+          }
+        }
+      }
+      finally
+      {
+        aReader.close ();
+      }
+      return aWindow.getAll ();
+    }
+    catch (final XMLStreamException ex)
+    {
+      LOGGER.warn ("Failed to stream NAV API request: " + ex.getMessage ());
+      return null;
+    }
+    finally
+    {
+      aWindow.cancelRemaining ();
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Reader", m_aReader)
+                                       .append ("Executor", m_aExecutor)
+                                       .append ("MaxInFlight", m_nMaxInFlight)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.string.StringHelper;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.IDDDDocumentUnwrapper;
+import com.helger.ddd.model.DDDSourceValueExtractorSimplePath;
+import com.helger.ddd.model.DDDSyntax;
+import com.helger.ddd.model.DDDSyntaxPathIndex;
+import com.helger.ddd.model.IDDDSyntaxList;
+
+/**
+ * Build a pruned DOM document from a StAX stream, so that document details can be determined with
+ * bounded memory. Only the parts of the document that can influence the result of
+ * {@link DocumentDetailsDeterminator#findDocumentDetails(Element)} are retained:
+ * <ul>
+ * <li>Potential envelopes (see {@link IDDDDocumentUnwrapper#isPotentialWrapper(String, String)})
+ * and elements outside of any known syntax are retained completely.</li>
+ * <li>Below an element that is the root of a known syntax, only the elements on the getter paths
+ * of that syntax are retained (see {@link DDDSyntax#getPathIndex()}). Text is only retained where
+ * a getter reads it. All other subtrees are skipped without creating any DOM node. This can be
+ * disabled in the constructor.</li>
+ * <li>Below an element that is the root of a known syntax, the subtrees of all elements on the
+ * skip list of that syntax (see {@link DDDSyntaxPathIndex#isSkippedElement(String)}) are skipped.
+ * This always applies and discards embedded attachments without ever requesting their character
+ * data from the StAX reader.</li>
+ * <li>When pruning to the getter paths, the reading stops early at the first stop element of the
+ * extractor of the syntax (see {@link DDDSyntax#getSourceValueExtractor()} and
+ * {@link DDDSourceValueExtractorSimplePath#isStopElement(int, String)}). The rest of the input is
+ * never read.</li>
+ * </ul>
+ * The resulting DOM mirrors the text node layout of {@link DDDXMLParserPool} (comments are
+ * ignored, CDATA sections are not coalesced), so that the getters return the same values on the
+ * pruned document as on the fully parsed document for all documents that follow the schema of
+ * their syntax. Because the input after a stop element is never read, this builder is more lenient
+ * than a DOM parser: a truncated or malformed tail, or elements on a getter path that violate the
+ * schema by occurring after a stop element, are not detected. Use the constructor to disable the
+ * early stop if that matters. If the root element is not potentially supported (see
+ * {@link DocumentDetailsDeterminator#isPotentiallySupportedRoot(String, String)}) only the empty
+ * root element is created.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDPrunedDocumentBuilder
+{
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDPrunedDocumentBuilder.class);
+
+  private final DocumentDetailsDeterminator m_aDeterminator;
+  private final boolean m_bPruneToGetterPaths;
+  private final boolean m_bStopEarly;
+
+  /**
+   * Constructor that prunes to the getter paths.
+   *
+   * @param aDeterminator
+   *        The determinator whose syntaxes and unwrappers define what needs to be retained. May not
+   *        be <code>null</code>. It must not be modified while this builder is in use.
+   */
+  public DDDPrunedDocumentBuilder (@NonNull final DocumentDetailsDeterminator aDeterminator)
+  {
+    this (aDeterminator, true, true);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator whose syntaxes and unwrappers define what needs to be retained. May not
+   *        be <code>null</code>. It must not be modified while this builder is in use.
+   * @param bPruneToGetterPaths
+   *        <code>true</code> to retain only the getter paths below syntax root elements,
+   *        <code>false</code> to retain everything except for the skip list. The latter creates a
+   *        DOM that is equivalent to a full parse without the embedded attachments.
+   */
+  public DDDPrunedDocumentBuilder (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                                   final boolean bPruneToGetterPaths)
+  {
+    this (aDeterminator, bPruneToGetterPaths, true);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator whose syntaxes and unwrappers define what needs to be retained. May not
+   *        be <code>null</code>. It must not be modified while this builder is in use.
+   * @param bPruneToGetterPaths
+   *        <code>true</code> to retain only the getter paths below syntax root elements,
+   *        <code>false</code> to retain everything except for the skip list. The latter creates a
+   *        DOM that is equivalent to a full parse without the embedded attachments.
+   * @param bStopEarly
+   *        <code>true</code> to stop reading at the first stop element when pruning to the getter
+   *        paths, <code>false</code> to always read the input until the end, so that it is
+   *        completely checked for well-formedness.
+   */
+  public DDDPrunedDocumentBuilder (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                                   final boolean bPruneToGetterPaths,
+                                   final boolean bStopEarly)
+  {
+    ValueEnforcer.notNull (aDeterminator, "Determinator");
+    m_aDeterminator = aDeterminator;
+    m_bPruneToGetterPaths = bPruneToGetterPaths;
+    m_bStopEarly = bStopEarly;
+  }
+
+  /**
+   * @return <code>true</code> if only the getter paths below syntax root elements are retained,
+   *         <code>false</code> if everything except for the skip list is retained.
+   */
+  public boolean isPruneToGetterPaths ()
+  {
+    return m_bPruneToGetterPaths;
+  }
+
+  /**
+   * @return <code>true</code> if the reading stops at the first stop element when pruning to the
+   *         getter paths, <code>false</code> if the input is always read until the end.
+   */
+  public boolean isStopEarly ()
+  {
+    return m_bStopEarly;
+  }
+
+  private static boolean _isPotentialWrapper (@NonNull final ICommonsList <IDDDDocumentUnwrapper> aUnwrappers,
+                                              @Nullable final String sNamespaceURI,
+                                              @NonNull final String sLocalName)
+  {
+    for (final IDDDDocumentUnwrapper aUnwrapper : aUnwrappers)
+      if (aUnwrapper.isPotentialWrapper (sNamespaceURI, sLocalName))
+        return true;
+    return false;
+  }
+
+  @NonNull
+  private static String _getQName (@Nullable final String sPrefix, @NonNull final String sLocalName)
+  {
+    return StringHelper.isEmpty (sPrefix) ? sLocalName : sPrefix + ":" + sLocalName;
+  }
+
+  @NonNull
+  private static Element _createElement (@NonNull final Document aDoc, @NonNull final XMLStreamReader aReader)
+  {
+    final String sNamespaceURI = aReader.getNamespaceURI ();
+    final Element ret = aDoc.createElementNS (StringHelper.isEmpty (sNamespaceURI) ? null : sNamespaceURI,
+                                              _getQName (aReader.getPrefix (), aReader.getLocalName ()));
+
+    // Namespace declarations
+    final int nNSCount = aReader.getNamespaceCount ();
+    for (int i = 0; i < nNSCount; ++i)
+    {
+      final String sNSPrefix = aReader.getNamespacePrefix (i);
+      final String sNSURI = aReader.getNamespaceURI (i);
+      ret.setAttributeNS (XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                          StringHelper.isEmpty (sNSPrefix) ? XMLConstants.XMLNS_ATTRIBUTE
+                                                           : _getQName (XMLConstants.XMLNS_ATTRIBUTE, sNSPrefix),
+                          sNSURI == null ? "" : sNSURI);
+    }
+
+    // Attributes
+    final int nAttrCount = aReader.getAttributeCount ();
+    for (int i = 0; i < nAttrCount; ++i)
+    {
+      final String sAttrNamespaceURI = aReader.getAttributeNamespace (i);
+      ret.setAttributeNS (StringHelper.isEmpty (sAttrNamespaceURI) ? null : sAttrNamespaceURI,
+                          _getQName (aReader.getAttributePrefix (i), aReader.getAttributeLocalName (i)),
+                          aReader.getAttributeValue (i));
+    }
+    return ret;
+  }
+
+  private static void _appendText (@NonNull final Node aParent, @NonNull final String sText)
+  {
+    // Adjacent character data is merged into a single text node, like a DOM parser does
+    final Node aLastChild = aParent.getLastChild ();
+    if (aLastChild != null && aLastChild.getNodeType () == Node.TEXT_NODE)
+      ((Text) aLastChild).appendData (sText);
+    else
+      aParent.appendChild (aParent.getOwnerDocument ().createTextNode (sText));
+  }
+
+  private static void _skipElement (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    // The reader is positioned on the start element. The text of the skipped events is never
+    // requested, so no character data is materialized
+    int nDepth = 1;
+    while (nDepth > 0)
+    {
+      final int nEventType = aReader.next ();
+      if (nEventType == XMLStreamConstants.START_ELEMENT)
+        nDepth++;
+      else
+        if (nEventType == XMLStreamConstants.END_ELEMENT)
+          nDepth--;
+    }
+  }
+
+  /**
+   * Read the provided StAX stream until the end and append the pruned root element to the provided
+   * document.
+   *
+   * @param aReader
+   *        The StAX reader to read from. May not be <code>null</code>. It is not closed.
+   * @param aDoc
+   *        The empty DOM document to fill. May not be <code>null</code>.
+   * @return The created root element or <code>null</code> if the stream contains no element.
+   * @throws XMLStreamException
+   *         If the stream is not well-formed or contains a DOCTYPE declaration.
+   */
+  @Nullable
+  public Element build (@NonNull final XMLStreamReader aReader, @NonNull final Document aDoc) throws XMLStreamException
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aDoc, "Document");
+
+    final IDDDSyntaxList aSyntaxList = m_aDeterminator.getEffectiveSyntaxList ();
+    final ICommonsList <IDDDDocumentUnwrapper> aUnwrappers = m_aDeterminator.getAllUnwrappers ();
+
+    // The currently open retained elements, their path nodes and the index of the enclosing syntax.
+    // A null path node means that everything below the element is retained, a null index means
+    // that the element is not inside a known syntax
+    final List <Element> aElementStack = new ArrayList <> ();
+    final List <DDDSyntaxPathIndex.PathNode> aPathStack = new ArrayList <> ();
+    final List <DDDSyntaxPathIndex> aIndexStack = new ArrayList <> ();
+    Element aRootElement = null;
+    Element aCurElement = null;
+    DDDSyntaxPathIndex.PathNode aCurPath = null;
+    DDDSyntaxPathIndex aCurIndex = null;
+    boolean bKeepText = false;
+    // For stopping early - only for the first pruned syntax root element
+    DDDSourceValueExtractorSimplePath aStopExtractor = null;
+    int nStopRootDepth = -1;
+
+    while (aReader.hasNext ())
+    {
+      final int nEventType = aReader.next ();
+      switch (nEventType)
+      {
+        case XMLStreamConstants.DTD:
+          // Consistent with the DOM parsers
+          throw new XMLStreamException ("DOCTYPE declarations are not allowed", aReader.getLocation ());
+        case XMLStreamConstants.START_ELEMENT:
+        {
+          final String sNamespaceURI = aReader.getNamespaceURI ();
+          final String sLocalName = aReader.getLocalName ();
+          final DDDSyntaxPathIndex.PathNode aPath;
+          final DDDSyntaxPathIndex aIndex;
+          if (aCurPath != null)
+          {
+            // Pruned context
+            aPath = aCurPath.getChild (sLocalName);
+            if (aPath == null)
+            {
+              if (aStopExtractor != null &&
+                  aStopExtractor.isStopElement (aElementStack.size () - nStopRootDepth, sLocalName))
+              {
+                // E.g. the first UBL line - by the schema nothing relevant follows
+                return aRootElement;
+              }
+
+              // Not read by any getter
+              _skipElement (aReader);
+              break;
+            }
+            aIndex = aCurIndex;
+          }
+          else
+          {
+            if (aCurElement == null && !m_aDeterminator.isPotentiallySupportedRoot (sNamespaceURI, sLocalName))
+            {
+              // The root element alone is sufficient for the determinator to reject the document
+              aRootElement = _createElement (aDoc, aReader);
+              aDoc.appendChild (aRootElement);
+              return aRootElement;
+            }
+
+            if (aCurIndex != null && aCurIndex.isSkippedElement (sLocalName))
+            {
+              // E.g. an embedded attachment
+              _skipElement (aReader);
+              break;
+            }
+
+            if (_isPotentialWrapper (aUnwrappers, sNamespaceURI, sLocalName))
+            {
+              // Envelopes need to be retained completely, even if they are a syntax on their own
+              aPath = null;
+              aIndex = null;
+            }
+            else
+            {
+              final DDDSyntax aSyntax = aSyntaxList.findMatchingSyntax (sNamespaceURI, sLocalName);
+              if (aSyntax != null)
+              {
+                aIndex = aSyntax.getPathIndex ();
+                // null if at least one getter is not a simple path
+                aPath = m_bPruneToGetterPaths ? aIndex.getRoot () : null;
+                if (aPath != null &&
+                    m_bStopEarly &&
+                    aStopExtractor == null &&
+                    aSyntax.getSourceValueExtractor () instanceof final DDDSourceValueExtractorSimplePath aExtractor)
+                {
+                  aStopExtractor = aExtractor;
+                  nStopRootDepth = aElementStack.size ();
+                }
+              }
+              else
+              {
+                // Unknown element - stay in the current context
+                aPath = null;
+                aIndex = aCurIndex;
+              }
+            }
+          }
+
+          final Element aElement = _createElement (aDoc, aReader);
+          if (aCurElement == null)
+          {
+            aDoc.appendChild (aElement);
+            aRootElement = aElement;
+          }
+          else
+            aCurElement.appendChild (aElement);
+          aElementStack.add (aElement);
+          aPathStack.add (aPath);
+          aIndexStack.add (aIndex);
+          aCurElement = aElement;
+          aCurPath = aPath;
+          aCurIndex = aIndex;
+          bKeepText = aPath == null || aPath.isTextRequired ();
+          break;
+        }
+        case XMLStreamConstants.END_ELEMENT:
+        {
+          final int nLast = aElementStack.size () - 1;
+          aElementStack.remove (nLast);
+          aPathStack.remove (nLast);
+          aIndexStack.remove (nLast);
+          if (aStopExtractor != null && nLast == nStopRootDepth)
+          {
+            // The syntax root element itself is closed
+            aStopExtractor = null;
+          }
+          if (nLast == 0)
+          {
+            aCurElement = null;
+            aCurPath = null;
+            aCurIndex = null;
+            bKeepText = false;
+          }
+          else
+          {
+            aCurElement = aElementStack.get (nLast - 1);
+            aCurPath = aPathStack.get (nLast - 1);
+            aCurIndex = aIndexStack.get (nLast - 1);
+            bKeepText = aCurPath == null || aCurPath.isTextRequired ();
+          }
+          break;
+        }
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+          if (bKeepText)
+            _appendText (aCurElement, aReader.getText ());
+          break;
+        case XMLStreamConstants.CDATA:
+          if (bKeepText)
+            aCurElement.appendChild (aDoc.createCDATASection (aReader.getText ()));
+          break;
+        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+          // Processing instructions split text nodes
+          if (bKeepText)
+            aCurElement.appendChild (aDoc.createProcessingInstruction (aReader.getPITarget (),
+                                                                       aReader.getPIData ()));
+          break;
+        default:
+          // Comments are ignored like in the DOM parsers
+          break;
+      }
+    }
+    return aRootElement;
+  }
+
+  /**
+   * Read the provided input stream with the StAX factory of the provided pool and create the pruned
+   * document.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>. It is not closed.
+   * @param aParserPool
+   *        The parser pool to use. May not be <code>null</code>.
+   * @return <code>null</code> if the input is not well-formed XML.
+   */
+  @Nullable
+  public Document build (@NonNull final InputStream aIS, @NonNull final DDDXMLParserPool aParserPool)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aParserPool, "ParserPool");
+
+    final Document aDoc = aParserPool.newDocument ();
+    if (aDoc == null)
+      return null;
+
+    try
+    {
+      final XMLStreamReader aReader = aParserPool.createXMLStreamReader (aIS);
+      try
+      {
+        return build (aReader, aDoc) == null ? null : aDoc;
+      }
+      finally
+      {
+        aReader.close ();
+      }
+    }
+    catch (final XMLStreamException ex)
+    {
+      LOGGER.warn ("Failed to stream XML document: " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Determinator", m_aDeterminator)
+                                       .append ("PruneToGetterPaths", m_bPruneToGetterPaths)
+                                       .append ("StopEarly", m_bStopEarly)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.annotation.style.ReturnsMutableCopy;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.equals.EqualsHelper;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.unwrap.DDDSBDHHeader;
+import com.helger.peppolid.IIdentifier;
+
+/**
+ * Determine {@link DocumentDetails} from the Standard Business Document Header only (see
+ * {@link DocumentDetailsDeterminator#findDocumentDetailsFromSBDH(DDDSBDHHeader)}). The input is
+ * streamed up to the end of the header and the payload is not parsed at all. If the input has no
+ * SBDH or the SBDH is incomplete, the payload is used as a fallback via
+ * {@link DDDSizeRoutingReader}.<br>
+ * The header based result can be checked against the payload on demand via
+ * {@link Result#isConsistentWithPayload()}. Only then the payload is parsed - at most once per
+ * result.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDSBDHFastPathReader
+{
+  /**
+   * The result of {@link DDDSBDHFastPathReader}, with a lazy check against the payload.
+   *
+   * @author Philip Helger
+   */
+  @ThreadSafe
+  public static final class Result
+  {
+    private final DDDSBDHHeader m_aHeader;
+    private final DocumentDetails m_aDD;
+    private final boolean m_bFromHeader;
+    private final Supplier <DocumentDetails> m_aPayloadSupplier;
+    private final ReentrantLock m_aLock = new ReentrantLock ();
+    // Status vars
+    private boolean m_bPayloadDetermined;
+    private DocumentDetails m_aPayloadDD;
+
+    Result (@Nullable final DDDSBDHHeader aHeader,
+            @NonNull final DocumentDetails aDD,
+            final boolean bFromHeader,
+            @NonNull final Supplier <DocumentDetails> aPayloadSupplier)
+    {
+      m_aHeader = aHeader;
+      m_aDD = aDD;
+      m_bFromHeader = bFromHeader;
+      m_aPayloadSupplier = aPayloadSupplier;
+      if (!bFromHeader)
+      {
+        // Already determined from the payload
+        m_bPayloadDetermined = true;
+        m_aPayloadDD = aDD;
+      }
+    }
+
+    /**
+     * @return The SBDH values. <code>null</code> if the input contains no SBDH.
+     */
+    @Nullable
+    public DDDSBDHHeader getHeader ()
+    {
+      return m_aHeader;
+    }
+
+    /**
+     * @return The determined document details. Never <code>null</code>.
+     * @see #isFromHeader()
+     */
+    @NonNull
+    public DocumentDetails getDocumentDetails ()
+    {
+      return m_aDD;
+    }
+
+    /**
+     * @return <code>true</code> if the document details were built from the SBDH only,
+     *         <code>false</code> if the payload had to be used.
+     */
+    public boolean isFromHeader ()
+    {
+      return m_bFromHeader;
+    }
+
+    /**
+     * Get the document details determined from the payload. On the first call for a header based
+     * result the payload is parsed.
+     *
+     * @return <code>null</code> if the payload could not be determined.
+     */
+    @Nullable
+    public DocumentDetails getPayloadDocumentDetails ()
+    {
+      m_aLock.lock ();
+      try
+      {
+        if (!m_bPayloadDetermined)
+        {
+          m_aPayloadDD = m_aPayloadSupplier.get ();
+          m_bPayloadDetermined = true;
+        }
+        return m_aPayloadDD;
+      }
+      finally
+      {
+        m_aLock.unlock ();
+      }
+    }
+
+    private static boolean _equals (@Nullable final IIdentifier aID1, @Nullable final IIdentifier aID2)
+    {
+      if (aID1 == null || aID2 == null)
+        return aID1 == aID2;
+      return aID1.getURIEncoded ().equals (aID2.getURIEncoded ());
+    }
+
+    /**
+     * Compare the routing relevant fields (syntax ID, document type ID, process ID, sender ID and
+     * receiver ID) of the header based result with the payload. This parses the payload if not yet
+     * done.
+     *
+     * @return The names of all fields that differ. Never <code>null</code> but empty if the result
+     *         is consistent with the payload. Contains only <code>Payload</code> if the payload
+     *         could not be determined.
+     */
+    @NonNull
+    @ReturnsMutableCopy
+    public ICommonsList <String> getAllPayloadMismatches ()
+    {
+      final ICommonsList <String> ret = new CommonsArrayList <> ();
+      final DocumentDetails aPayloadDD = getPayloadDocumentDetails ();
+      if (aPayloadDD == null)
+        ret.add ("Payload");
+      else
+      {
+        if (!EqualsHelper.equals (m_aDD.getSyntaxID (), aPayloadDD.getSyntaxID ()))
+          ret.add ("SyntaxID");
+        if (!_equals (m_aDD.getDocumentTypeID (), aPayloadDD.getDocumentTypeID ()))
+          ret.add ("DocumentTypeID");
+        if (!_equals (m_aDD.getProcessID (), aPayloadDD.getProcessID ()))
+          ret.add ("ProcessID");
+        if (!_equals (m_aDD.getSenderID (), aPayloadDD.getSenderID ()))
+          ret.add ("SenderID");
+        if (!_equals (m_aDD.getReceiverID (), aPayloadDD.getReceiverID ()))
+          ret.add ("ReceiverID");
+      }
+      return ret;
+    }
+
+    /**
+     * @return <code>true</code> if the routing relevant fields of the result match the payload.
+     * @see #getAllPayloadMismatches()
+     */
+    public boolean isConsistentWithPayload ()
+    {
+      return getAllPayloadMismatches ().isEmpty ();
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("Header", m_aHeader)
+                                         .append ("DocumentDetails", m_aDD)
+                                         .append ("FromHeader", m_bFromHeader)
+                                         .getToString ();
+    }
+  }
+
+  @FunctionalInterface
+  private interface IInputStreamProvider
+  {
+    @NonNull
+    InputStream openStream () throws IOException;
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDSBDHFastPathReader.class);
+
+  private final DocumentDetailsDeterminator m_aDeterminator;
+  private final DDDXMLParserPool m_aParserPool;
+  private final DDDSizeRoutingReader m_aPayloadReader;
+
+  /**
+   * Constructor using the default parser pool.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use. It should contain the SBDH unwrapper for the payload fallback.
+   */
+  public DDDSBDHFastPathReader (@NonNull final DocumentDetailsDeterminator aDeterminator)
+  {
+    this (aDeterminator, DDDXMLParserPool.getDefaultInstance ());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use. It should contain the SBDH unwrapper for the payload fallback.
+   * @param aParserPool
+   *        The parser pool to use. May not be <code>null</code>.
+   */
+  public DDDSBDHFastPathReader (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                                @NonNull final DDDXMLParserPool aParserPool)
+  {
+    ValueEnforcer.notNull (aDeterminator, "Determinator");
+    ValueEnforcer.notNull (aParserPool, "ParserPool");
+    m_aDeterminator = aDeterminator;
+    m_aParserPool = aParserPool;
+    m_aPayloadReader = new DDDSizeRoutingReader (aDeterminator,
+                                                 aParserPool,
+                                                 DDDSizeRoutingReader.DEFAULT_STREAMING_THRESHOLD);
+  }
+
+  @Nullable
+  private DDDSBDHHeader _readHeader (@NonNull final IInputStreamProvider aISP)
+  {
+    try (final InputStream aIS = aISP.openStream ())
+    {
+      final XMLStreamReader aReader = m_aParserPool.createXMLStreamReader (aIS);
+      try
+      {
+        return DDDSBDHHeader.readFromStream (aReader);
+      }
+      finally
+      {
+        aReader.close ();
+      }
+    }
+    catch (final IOException | XMLStreamException ex)
+    {
+      LOGGER.warn ("Failed to read SBDH: " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  @Nullable
+  private DocumentDetails _readPayload (@NonNull final IInputStreamProvider aISP, final long nContentLength)
+  {
+    try (final InputStream aIS = aISP.openStream ())
+    {
+      return m_aPayloadReader.findDocumentDetails (aIS, nContentLength);
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read payload: " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  @Nullable
+  private Result _find (@NonNull final IInputStreamProvider aISP, final long nContentLength)
+  {
+    final Supplier <DocumentDetails> aPayloadSupplier = () -> _readPayload (aISP, nContentLength);
+
+    final DDDSBDHHeader aHeader = _readHeader (aISP);
+    if (aHeader != null)
+    {
+      final DocumentDetails aDD = m_aDeterminator.findDocumentDetailsFromSBDH (aHeader);
+      if (aDD != null)
+        return new Result (aHeader, aDD, true, aPayloadSupplier);
+    }
+
+    // Fall back to the payload
+    final DocumentDetails aDD = aPayloadSupplier.get ();
+    return aDD == null ? null : new Result (aHeader, aDD, false, aPayloadSupplier);
+  }
+
+  /**
+   * Determine the document details of the provided bytes.
+   *
+   * @param aBytes
+   *        The bytes to read. May not be <code>null</code>. They must not be modified afterwards, as
+   *        the lazy payload check reads them again.
+   * @return <code>null</code> if neither the SBDH nor the payload lead to document details.
+   */
+  @Nullable
+  public Result findDocumentDetails (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    return _find ( () -> new NonBlockingByteArrayInputStream (aBytes), aBytes.length);
+  }
+
+  /**
+   * Determine the document details of the remaining bytes of the provided buffer.
+   *
+   * @param aBuffer
+   *        The buffer to read. May not be <code>null</code>. The position is not modified. The
+   *        content must not be modified afterwards, as the lazy payload check reads it again.
+   * @return <code>null</code> if neither the SBDH nor the payload lead to document details.
+   */
+  @Nullable
+  public Result findDocumentDetails (@NonNull final ByteBuffer aBuffer)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+    return _find ( () -> new DDDByteBufferInputStream (aBuffer), aBuffer.remaining ());
+  }
+
+  /**
+   * Determine the document details of the provided file.
+   *
+   * @param aPath
+   *        The file to read. May not be <code>null</code>. It must not be modified afterwards, as
+   *        the lazy payload check reads it again.
+   * @return <code>null</code> if the file cannot be read or if neither the SBDH nor the payload
+   *         lead to document details.
+   */
+  @Nullable
+  public Result findDocumentDetails (@NonNull final Path aPath)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+
+    final long nSize;
+    try
+    {
+      nSize = Files.size (aPath);
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read file '" + aPath + "': " + ex.getMessage ());
+      return null;
+    }
+    return _find ( () -> Files.newInputStream (aPath), nSize);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Determinator", m_aDeterminator)
+                                       .append ("ParserPool", m_aParserPool)
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.unwrap.DDDStreamUnwrapperMIME;
+
+/**
+ * A front end for {@link DocumentDetailsDeterminator} that chooses between DOM based and streaming
+ * determination based on the size of the input. Inputs smaller than the streaming threshold are
+ * parsed into a DOM, larger inputs and inputs of unknown size are streamed with
+ * {@link DDDPrunedDocumentBuilder}, so that memory consumption is bounded regardless of the input.
+ * By default the streaming mode reads the input until the end, so that both modes return the same
+ * {@link DocumentDetails} and reject the same malformed input. Optionally the streaming mode can
+ * stop reading at the first stop element (see
+ * {@link #DDDSizeRoutingReader(DocumentDetailsDeterminator, DDDXMLParserPool, long, boolean)}). It
+ * is then more lenient: a truncated or malformed tail after that element is accepted, whereas the
+ * DOM mode rejects the input.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDSizeRoutingReader
+{
+  /** The default threshold from which on streaming is used: 8 MB */
+  public static final long DEFAULT_STREAMING_THRESHOLD = 8L * 1024 * 1024;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDSizeRoutingReader.class);
+
+  private final DocumentDetailsDeterminator m_aDeterminator;
+  private final DDDXMLParserPool m_aParserPool;
+  private final long m_nStreamingThreshold;
+  private final DDDPrunedDocumentBuilder m_aPrunedBuilder;
+
+  /**
+   * Constructor using the default parser pool and the default streaming threshold. The input is
+   * always read until the end.
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   */
+  public DDDSizeRoutingReader (@NonNull final DocumentDetailsDeterminator aDeterminator)
+  {
+    this (aDeterminator, DDDXMLParserPool.getDefaultInstance (), DEFAULT_STREAMING_THRESHOLD);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   * @param aParserPool
+   *        The parser pool to use for both modes. May not be <code>null</code>.
+   * @param nStreamingThreshold
+   *        The input size in bytes from which on streaming is used. Must be &ge; 0. Use 0 to always
+   *        stream. The input is always read until the end.
+   */
+  public DDDSizeRoutingReader (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                               @NonNull final DDDXMLParserPool aParserPool,
+                               @Nonnegative final long nStreamingThreshold)
+  {
+    this (aDeterminator, aParserPool, nStreamingThreshold, false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aDeterminator
+   *        The determinator to use. May not be <code>null</code>. It must not be modified while this
+   *        reader is in use.
+   * @param aParserPool
+   *        The parser pool to use for both modes. May not be <code>null</code>.
+   * @param nStreamingThreshold
+   *        The input size in bytes from which on streaming is used. Must be &ge; 0. Use 0 to always
+   *        stream.
+   * @param bStopEarly
+   *        <code>true</code> to stop streaming at the first stop element and accept a malformed
+   *        tail after it, <code>false</code> to always read the input until the end, so that
+   *        malformed input is rejected like in the DOM mode. See
+   *        {@link DDDPrunedDocumentBuilder#isStopEarly()}.
+   */
+  public DDDSizeRoutingReader (@NonNull final DocumentDetailsDeterminator aDeterminator,
+                               @NonNull final DDDXMLParserPool aParserPool,
+                               @Nonnegative final long nStreamingThreshold,
+                               final boolean bStopEarly)
+  {
+    ValueEnforcer.notNull (aDeterminator, "Determinator");
+    ValueEnforcer.notNull (aParserPool, "ParserPool");
+    ValueEnforcer.isGE0 (nStreamingThreshold, "StreamingThreshold");
+    m_aDeterminator = aDeterminator;
+    m_aParserPool = aParserPool;
+    m_nStreamingThreshold = nStreamingThreshold;
+    m_aPrunedBuilder = new DDDPrunedDocumentBuilder (aDeterminator, true, bStopEarly);
+  }
+
+  /**
+   * @return The input size in bytes from which on streaming is used. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getStreamingThreshold ()
+  {
+    return m_nStreamingThreshold;
+  }
+
+  /**
+   * @return <code>true</code> if streaming stops at the first stop element, <code>false</code> if
+   *         the input is always read until the end.
+   */
+  public boolean isStopEarly ()
+  {
+    return m_aPrunedBuilder.isStopEarly ();
+  }
+
+  /**
+   * Determine the parse mode to be used for an input of the provided size.
+   *
+   * @param nContentLength
+   *        The size of the input in bytes. A negative value indicates an unknown size.
+   * @return {@link EDDDParseMode#DOM} if the size is known and below the streaming threshold,
+   *         {@link EDDDParseMode#STREAMING} otherwise. Never <code>null</code>.
+   */
+  @NonNull
+  public EDDDParseMode getParseMode (final long nContentLength)
+  {
+    if (nContentLength < 0 || nContentLength >= m_nStreamingThreshold)
+      return EDDDParseMode.STREAMING;
+    return EDDDParseMode.DOM;
+  }
+
+  /**
+   * Determine the document details of the provided input stream using the provided parse mode.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>. It is not closed.
+   * @param eParseMode
+   *        The parse mode to use. May not be <code>null</code>.
+   * @return <code>null</code> if the input contains no well-formed XML or if the document type
+   *         could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final InputStream aIS, @NonNull final EDDDParseMode eParseMode)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (eParseMode, "ParseMode");
+
+    final Document aDoc = switch (eParseMode)
+    {
+      case DOM -> m_aParserPool.parse (aIS);
+      case STREAMING -> m_aPrunedBuilder.build (aIS, m_aParserPool);
+    };
+    if (aDoc == null)
+    {
+      m_aDeterminator.getErrorHdl ().accept ("The provided input does not contain well-formed XML");
+      return null;
+    }
+    return m_aDeterminator.findDocumentDetails (aDoc.getDocumentElement ());
+  }
+
+  /**
+   * Determine the document details of the provided input stream, choosing the parse mode based on
+   * the provided content length.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>. It is not closed.
+   * @param nContentLength
+   *        The size of the input in bytes, e.g. from a <code>Content-Length</code> header. A
+   *        negative value indicates an unknown size, in which case streaming is used.
+   * @return <code>null</code> if the input contains no well-formed XML or if the document type
+   *         could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final InputStream aIS, final long nContentLength)
+  {
+    return findDocumentDetails (aIS, getParseMode (nContentLength));
+  }
+
+  /**
+   * Determine the document details of a MIME body, e.g. of an AS2 message. The first XML part is
+   * found incrementally (see {@link DDDStreamUnwrapperMIME}) and streamed into the determination
+   * without buffering the message. Each multipart level is added as a
+   * {@link DDDStreamUnwrapperMIME#WRAPPING_TYPE} wrapper in front of the wrappers found inside the
+   * XML part.
+   *
+   * @param aIS
+   *        The MIME body to read from. May not be <code>null</code>. It is not closed.
+   * @param sContentType
+   *        The content type of the MIME body including the <code>boundary</code> parameter for
+   *        multiparts. May not be <code>null</code>. XML content types are read directly.
+   * @return <code>null</code> if the body contains no XML part, if the XML part is not well-formed
+   *         or if the document type could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetailsFromMIME (@NonNull final InputStream aIS,
+                                                      @NonNull final String sContentType)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (sContentType, "ContentType");
+
+    final DDDStreamUnwrapperMIME.XMLPart aPart;
+    try
+    {
+      aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (aIS, sContentType);
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read MIME content: " + ex.getMessage ());
+      return null;
+    }
+    if (aPart == null)
+    {
+      m_aDeterminator.getErrorHdl ().accept ("The provided MIME content of type '" +
+                                             sContentType +
+                                             "' does not contain an XML part");
+      return null;
+    }
+
+    final DocumentDetails aDD = findDocumentDetails (aPart.getInputStream (), EDDDParseMode.STREAMING);
+    final ICommonsList <String> aMimeWrappers = aPart.getAllWrappers ();
+    if (aDD == null || aMimeWrappers.isEmpty ())
+      return aDD;
+
+    // The MIME wrappers are the outermost ones
+    final ICommonsList <String> aInnerWrappers = aDD.getAllWrappers ();
+    return DocumentDetails.builder (aDD)
+                          .wrappers ((Collection <String>) null)
+                          .wrappers (aMimeWrappers)
+                          .wrappers (aInnerWrappers)
+                          .build ();
+  }
+
+  /**
+   * Determine the document details of the provided bytes.
+   *
+   * @param aBytes
+   *        The bytes to read. May not be <code>null</code>.
+   * @return <code>null</code> if the input contains no well-formed XML or if the document type
+   *         could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    return findDocumentDetails (new NonBlockingByteArrayInputStream (aBytes), aBytes.length);
+  }
+
+  /**
+   * Determine the document details of the remaining bytes of the provided buffer, e.g. a
+   * memory-mapped file.
+   *
+   * @param aBuffer
+   *        The buffer to read. May not be <code>null</code>. The position is not modified.
+   * @return <code>null</code> if the input contains no well-formed XML or if the document type
+   *         could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final ByteBuffer aBuffer)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+    return findDocumentDetails (new DDDByteBufferInputStream (aBuffer), aBuffer.remaining ());
+  }
+
+  /**
+   * Determine the document details of the provided file.
+   *
+   * @param aPath
+   *        The file to read. May not be <code>null</code>.
+   * @return <code>null</code> if the file could not be read, contains no well-formed XML or if the
+   *         document type could not be determined.
+   */
+  @Nullable
+  public DocumentDetails findDocumentDetails (@NonNull final Path aPath)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+
+    try (final InputStream aIS = Files.newInputStream (aPath))
+    {
+      return findDocumentDetails (aIS, Files.size (aPath));
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read file '" + aPath + "': " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("Determinator", m_aDeterminator)
+                                       .append ("ParserPool", m_aParserPool)
+                                       .append ("StreamingThreshold", m_nStreamingThreshold)
+                                       .append ("StopEarly", isStopEarly ())
+                                       .getToString ();
+  }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import com.helger.annotation.Nonnegative;
+import com.helger.annotation.concurrent.ThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * A bounded pool of pre-configured DOM parsers together with a matching StAX factory, so that
+ * callers of {@link com.helger.ddd.DocumentDetailsDeterminator} don't need to create and configure
+ * their own parsers for every document. All parsers are namespace aware, non-validating and secure:
+ * DOCTYPE declarations, external entities, external DTDs and XInclude are disabled.<br>
+ * Parsers are borrowed from the pool for a single parse operation and returned afterwards. If the
+ * pool is empty a new parser is created, and if the pool is full the returned parser is discarded,
+ * so the pool never blocks.<br>
+ * All parse methods return <code>null</code> if the input is not well-formed XML, consistent with
+ * <code>DOMReader</code>.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@ThreadSafe
+public final class DDDXMLParserPool
+{
+  /** The default maximum number of pooled DOM parsers */
+  public static final int DEFAULT_MAX_POOL_SIZE = Math.max (4, Runtime.getRuntime ().availableProcessors () * 2);
+
+  /** Xerces specific feature for deferred DOM node expansion */
+  public static final String FEATURE_DEFER_NODE_EXPANSION = "http://apache.org/xml/features/dom/defer-node-expansion";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDXMLParserPool.class);
+
+  private static final ErrorHandler ERROR_HANDLER = new ErrorHandler ()
+  {
+    public void warning (@NonNull final SAXParseException ex)
+    {
+      // ignore
+    }
+
+    public void error (@NonNull final SAXParseException ex) throws SAXException
+    {
+      throw ex;
+    }
+
+    public void fatalError (@NonNull final SAXParseException ex) throws SAXException
+    {
+      throw ex;
+    }
+  };
+
+  private static final class SingletonHolder
+  {
+    static final DDDXMLParserPool INSTANCE = new DDDXMLParserPool (DEFAULT_MAX_POOL_SIZE, false);
+  }
+
+  private final int m_nMaxPoolSize;
+  private final boolean m_bDeferNodeExpansion;
+  private final DocumentBuilderFactory m_aDBF;
+  private final XMLInputFactory m_aXIF;
+  private final ArrayBlockingQueue <DocumentBuilder> m_aPool;
+  private final AtomicLong m_aCreationCount = new AtomicLong (0);
+
+  /**
+   * Constructor
+   *
+   * @param nMaxPoolSize
+   *        The maximum number of idle DOM parsers to keep. Must be &gt; 0.
+   * @param bDeferNodeExpansion
+   *        <code>true</code> to enable deferred node expansion, if supported by the underlying DOM
+   *        implementation. Deferred expansion creates the DOM nodes only when they are accessed,
+   *        which is beneficial if only few elements of large documents are used.
+   */
+  public DDDXMLParserPool (@Nonnegative final int nMaxPoolSize, final boolean bDeferNodeExpansion)
+  {
+    ValueEnforcer.isGT0 (nMaxPoolSize, "MaxPoolSize");
+    m_nMaxPoolSize = nMaxPoolSize;
+    m_bDeferNodeExpansion = bDeferNodeExpansion;
+    m_aDBF = createDocumentBuilderFactory (bDeferNodeExpansion);
+    m_aXIF = createXMLInputFactory ();
+    m_aPool = new ArrayBlockingQueue <> (nMaxPoolSize);
+  }
+
+  /**
+   * @return The shared default instance without deferred node expansion. Never <code>null</code>.
+   */
+  @NonNull
+  public static DDDXMLParserPool getDefaultInstance ()
+  {
+    return SingletonHolder.INSTANCE;
+  }
+
+  /**
+   * Create a new secure, namespace aware and non-validating DOM factory.
+   *
+   * @param bDeferNodeExpansion
+   *        <code>true</code> to enable deferred node expansion if supported.
+   * @return A new factory. Never <code>null</code>.
+   */
+  @NonNull
+  public static DocumentBuilderFactory createDocumentBuilderFactory (final boolean bDeferNodeExpansion)
+  {
+    final DocumentBuilderFactory ret = DocumentBuilderFactory.newInstance ();
+    ret.setNamespaceAware (true);
+    ret.setValidating (false);
+    ret.setXIncludeAware (false);
+    ret.setExpandEntityReferences (false);
+    ret.setIgnoringComments (true);
+    ret.setCoalescing (false);
+    _setFeature (ret, XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    _setFeature (ret, "http://apache.org/xml/features/disallow-doctype-decl", true);
+    _setFeature (ret, "http://xml.org/sax/features/external-general-entities", false);
+    _setFeature (ret, "http://xml.org/sax/features/external-parameter-entities", false);
+    _setFeature (ret, "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    _setFeature (ret, FEATURE_DEFER_NODE_EXPANSION, bDeferNodeExpansion);
+    return ret;
+  }
+
+  private static void _setFeature (@NonNull final DocumentBuilderFactory aDBF,
+                                   @NonNull final String sFeature,
+                                   final boolean bValue)
+  {
+    try
+    {
+      aDBF.setFeature (sFeature, bValue);
+    }
+    catch (final ParserConfigurationException ex)
+    {
+      LOGGER.warn ("DOM parser feature '" + sFeature + "' is not supported by " + aDBF.getClass ().getName ());
+    }
+  }
+
+  /**
+   * Create a new secure, namespace aware StAX factory. The returned factory is thread-safe after
+   * configuration.
+   *
+   * @return A new factory. Never <code>null</code>.
+   */
+  @NonNull
+  public static XMLInputFactory createXMLInputFactory ()
+  {
+    final XMLInputFactory ret = XMLInputFactory.newFactory ();
+    ret.setProperty (XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    ret.setProperty (XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    ret.setProperty (XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return ret;
+  }
+
+  /**
+   * @return The maximum number of idle DOM parsers as provided in the constructor. Always &gt; 0.
+   */
+  @Nonnegative
+  public int getMaxPoolSize ()
+  {
+    return m_nMaxPoolSize;
+  }
+
+  /**
+   * @return <code>true</code> if deferred node expansion was requested.
+   */
+  public boolean isDeferNodeExpansion ()
+  {
+    return m_bDeferNodeExpansion;
+  }
+
+  /**
+   * @return The number of currently idle DOM parsers in the pool. Always &ge; 0.
+   */
+  @Nonnegative
+  public int getIdleCount ()
+  {
+    return m_aPool.size ();
+  }
+
+  /**
+   * @return The number of DOM parsers created so far. Always &ge; 0.
+   */
+  @Nonnegative
+  public long getCreationCount ()
+  {
+    return m_aCreationCount.get ();
+  }
+
+  /**
+   * @return The shared StAX factory of this pool. Never <code>null</code>. It must not be
+   *         reconfigured.
+   */
+  @NonNull
+  public XMLInputFactory getXMLInputFactory ()
+  {
+    return m_aXIF;
+  }
+
+  @NonNull
+  private DocumentBuilder _borrow () throws ParserConfigurationException
+  {
+    final DocumentBuilder ret = m_aPool.poll ();
+    if (ret != null)
+      return ret;
+
+    final DocumentBuilder aNew = m_aDBF.newDocumentBuilder ();
+    aNew.setErrorHandler (ERROR_HANDLER);
+    m_aCreationCount.incrementAndGet ();
+    return aNew;
+  }
+
+  private void _return (@NonNull final DocumentBuilder aDB)
+  {
+    // Drop if the pool is full
+    aDB.reset ();
+    aDB.setErrorHandler (ERROR_HANDLER);
+    m_aPool.offer (aDB);
+  }
+
+  /**
+   * Parse an XML document from the provided input stream. The stream is not closed.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @return <code>null</code> if parsing failed.
+   */
+  @Nullable
+  public Document parse (@NonNull final InputStream aIS)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+
+    final DocumentBuilder aDB;
+    try
+    {
+      aDB = _borrow ();
+    }
+    catch (final ParserConfigurationException ex)
+    {
+      LOGGER.error ("Failed to create DOM parser", ex);
+      return null;
+    }
+
+    boolean bReturn = false;
+    try
+    {
+      final Document ret = aDB.parse (aIS);
+      bReturn = true;
+      return ret;
+    }
+    catch (final SAXException ex)
+    {
+      // The parser itself is fine
+      bReturn = true;
+      LOGGER.warn ("Failed to parse XML document: " + ex.getMessage ());
+      return null;
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read XML document: " + ex.getMessage ());
+      return null;
+    }
+    finally
+    {
+      if (bReturn)
+        _return (aDB);
+    }
+  }
+
+  /**
+   * Parse an XML document from the provided bytes.
+   *
+   * @param aBytes
+   *        The bytes to parse. May not be <code>null</code>.
+   * @return <code>null</code> if parsing failed.
+   */
+  @Nullable
+  public Document parse (@NonNull final byte [] aBytes)
+  {
+    ValueEnforcer.notNull (aBytes, "Bytes");
+    return parse (new NonBlockingByteArrayInputStream (aBytes));
+  }
+
+  /**
+   * Parse an XML document from the remaining bytes of the provided buffer. The position of the
+   * buffer is not modified.
+   *
+   * @param aBuffer
+   *        The buffer to parse. May not be <code>null</code>.
+   * @return <code>null</code> if parsing failed.
+   */
+  @Nullable
+  public Document parse (@NonNull final ByteBuffer aBuffer)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+    if (aBuffer.hasArray ())
+      return parse (new NonBlockingByteArrayInputStream (aBuffer.array (),
+                                                         aBuffer.arrayOffset () + aBuffer.position (),
+                                                         aBuffer.remaining ()));
+    return parse (new DDDByteBufferInputStream (aBuffer));
+  }
+
+  /**
+   * Parse an XML document from the provided file.
+   *
+   * @param aPath
+   *        The file to parse. May not be <code>null</code>.
+   * @return <code>null</code> if the file could not be read or parsing failed.
+   */
+  @Nullable
+  public Document parse (@NonNull final Path aPath)
+  {
+    ValueEnforcer.notNull (aPath, "Path");
+    try (final InputStream aIS = Files.newInputStream (aPath))
+    {
+      return parse (aIS);
+    }
+    catch (final IOException ex)
+    {
+      LOGGER.warn ("Failed to read XML file '" + aPath + "': " + ex.getMessage ());
+      return null;
+    }
+  }
+
+  /**
+   * Create a new empty namespace aware DOM document, e.g. to be filled by a streaming front end.
+   *
+   * @return <code>null</code> if no DOM parser could be created.
+   */
+  @Nullable
+  public Document newDocument ()
+  {
+    final DocumentBuilder aDB;
+    try
+    {
+      aDB = _borrow ();
+    }
+    catch (final ParserConfigurationException ex)
+    {
+      LOGGER.error ("Failed to create DOM parser", ex);
+      return null;
+    }
+
+    try
+    {
+      return aDB.newDocument ();
+    }
+    finally
+    {
+      _return (aDB);
+    }
+  }
+
+  /**
+   * Create a StAX reader on the provided input stream using the shared factory of this pool.
+   *
+   * @param aIS
+   *        The input stream to read from. May not be <code>null</code>.
+   * @return The new reader. Never <code>null</code>. Must be closed by the caller.
+   * @throws XMLStreamException
+   *         If the reader cannot be created
+   */
+  @NonNull
+  public XMLStreamReader createXMLStreamReader (@NonNull final InputStream aIS) throws XMLStreamException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    return m_aXIF.createXMLStreamReader (aIS);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).append ("MaxPoolSize", m_nMaxPoolSize)
+                                       .append ("DeferNodeExpansion", m_bDeferNodeExpansion)
+                                       .append ("IdleCount", getIdleCount ())
+                                       .append ("CreationCount", getCreationCount ())
+                                       .getToString ();
+  }
+}
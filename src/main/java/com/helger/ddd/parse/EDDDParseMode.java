@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+/**
+ * Defines how a document is read to determine its document details.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ * @see DDDSizeRoutingReader
+ */
+public enum EDDDParseMode
+{
+  /**
+   * The complete document is parsed into a DOM. This is the fastest option for small documents.
+   */
+  DOM,
+  /**
+   * The document is streamed and only the relevant parts are retained (see
+   * {@link DDDPrunedDocumentBuilder}). Memory consumption is independent of the document size.
+   */
+  STREAMING;
+}
@@ -52,6 +52,12 @@ public class DDDDocumentUnwrapperSBDH implements IDDDDocumentUnwrapper
     return WRAPPING_TYPE;
   }
 
+  @Override
+  public boolean isPotentialWrapper (@Nullable final String sNamespaceURI, @Nullable final String sLocalName)
+  {
+    return NAMESPACE_URI.equals (sNamespaceURI) && "StandardBusinessDocument".equals (sLocalName);
+  }
+
   @Nullable
   public Element unwrap (@NonNull final Element aRootElement)
   {
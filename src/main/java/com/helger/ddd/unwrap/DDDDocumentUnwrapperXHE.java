@@ -73,6 +73,12 @@ public class DDDDocumentUnwrapperXHE implements IDDDDocumentUnwrapper
     return null;
   }
 
+  @Override
+  public boolean isPotentialWrapper (@Nullable final String sNamespaceURI, @Nullable final String sLocalName)
+  {
+    return NAMESPACE_URI_XHE.equals (sNamespaceURI) && "XHE".equals (sLocalName);
+  }
+
   @Nullable
   public Element unwrap (@NonNull final Element aRootElement)
   {
@@ -0,0 +1,523 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.unwrap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.builder.IBuilder;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.equals.EqualsHelper;
+import com.helger.base.hashcode.HashCodeGenerator;
+import com.helger.base.string.StringHelper;
+import com.helger.base.tostring.ToStringGenerator;
+
+/**
+ * The routing relevant values of a Peppol Standard Business Document Header (SBDH): sender,
+ * receiver, document type, process and the country of the original sender (C1). Values can be read
+ * from a DOM element or directly from a StAX stream - in the latter case the stream is only read up
+ * to the end of the header and the payload is never touched.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DDDSBDHHeader
+{
+  /** The SBDH scope type for the document type identifier */
+  public static final String SCOPE_TYPE_DOCUMENT_ID = "DOCUMENTID";
+  /** The SBDH scope type for the process identifier */
+  public static final String SCOPE_TYPE_PROCESS_ID = "PROCESSID";
+  /** The SBDH scope type for the country of the original sender */
+  public static final String SCOPE_TYPE_COUNTRY_C1 = "COUNTRY_C1";
+
+  private static final String ELEMENT_SBD = "StandardBusinessDocument";
+  private static final String ELEMENT_SBDH = "StandardBusinessDocumentHeader";
+
+  private final String m_sSenderIDScheme;
+  private final String m_sSenderIDValue;
+  private final String m_sReceiverIDScheme;
+  private final String m_sReceiverIDValue;
+  private final String m_sDocTypeIDScheme;
+  private final String m_sDocTypeIDValue;
+  private final String m_sProcessIDScheme;
+  private final String m_sProcessIDValue;
+  private final String m_sCountryC1;
+  private final String m_sInstanceIdentifier;
+
+  private DDDSBDHHeader (@NonNull final Builder aBuilder)
+  {
+    m_sSenderIDScheme = aBuilder.m_sSenderIDScheme;
+    m_sSenderIDValue = aBuilder.m_sSenderIDValue;
+    m_sReceiverIDScheme = aBuilder.m_sReceiverIDScheme;
+    m_sReceiverIDValue = aBuilder.m_sReceiverIDValue;
+    m_sDocTypeIDScheme = aBuilder.m_sDocTypeIDScheme;
+    m_sDocTypeIDValue = aBuilder.m_sDocTypeIDValue;
+    m_sProcessIDScheme = aBuilder.m_sProcessIDScheme;
+    m_sProcessIDValue = aBuilder.m_sProcessIDValue;
+    m_sCountryC1 = aBuilder.m_sCountryC1;
+    m_sInstanceIdentifier = aBuilder.m_sInstanceIdentifier;
+  }
+
+  /**
+   * @return The <code>Authority</code> of the sender identifier, e.g.
+   *         <code>iso6523-actorid-upis</code>. May be <code>null</code>.
+   */
+  @Nullable
+  public String getSenderIDScheme ()
+  {
+    return m_sSenderIDScheme;
+  }
+
+  /**
+   * @return The sender identifier value, e.g. <code>0088:123</code>. May be <code>null</code>.
+   */
+  @Nullable
+  public String getSenderIDValue ()
+  {
+    return m_sSenderIDValue;
+  }
+
+  /**
+   * @return The <code>Authority</code> of the receiver identifier. May be <code>null</code>.
+   */
+  @Nullable
+  public String getReceiverIDScheme ()
+  {
+    return m_sReceiverIDScheme;
+  }
+
+  /**
+   * @return The receiver identifier value. May be <code>null</code>.
+   */
+  @Nullable
+  public String getReceiverIDValue ()
+  {
+    return m_sReceiverIDValue;
+  }
+
+  /**
+   * @return The identifier scheme of the <code>DOCUMENTID</code> scope. May be <code>null</code>.
+   */
+  @Nullable
+  public String getDocumentTypeIDScheme ()
+  {
+    return m_sDocTypeIDScheme;
+  }
+
+  /**
+   * @return The instance identifier of the <code>DOCUMENTID</code> scope. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  public String getDocumentTypeIDValue ()
+  {
+    return m_sDocTypeIDValue;
+  }
+
+  /**
+   * @return The identifier scheme of the <code>PROCESSID</code> scope. May be <code>null</code>.
+   */
+  @Nullable
+  public String getProcessIDScheme ()
+  {
+    return m_sProcessIDScheme;
+  }
+
+  /**
+   * @return The instance identifier of the <code>PROCESSID</code> scope. May be <code>null</code>.
+   */
+  @Nullable
+  public String getProcessIDValue ()
+  {
+    return m_sProcessIDValue;
+  }
+
+  /**
+   * @return The instance identifier of the <code>COUNTRY_C1</code> scope. May be
+   *         <code>null</code>.
+   */
+  @Nullable
+  public String getCountryC1 ()
+  {
+    return m_sCountryC1;
+  }
+
+  /**
+   * @return The instance identifier of the SBDH itself (from
+   *         <code>DocumentIdentification</code>). May be <code>null</code>.
+   */
+  @Nullable
+  public String getInstanceIdentifier ()
+  {
+    return m_sInstanceIdentifier;
+  }
+
+  /**
+   * @return <code>true</code> if sender, receiver, document type and process are present, which is
+   *         the minimum to build document details from the header alone.
+   */
+  public boolean isComplete ()
+  {
+    return StringHelper.isNotEmpty (m_sSenderIDValue) &&
+           StringHelper.isNotEmpty (m_sReceiverIDValue) &&
+           StringHelper.isNotEmpty (m_sDocTypeIDValue) &&
+           StringHelper.isNotEmpty (m_sProcessIDValue);
+  }
+
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o == null || !getClass ().equals (o.getClass ()))
+      return false;
+    final DDDSBDHHeader rhs = (DDDSBDHHeader) o;
+    return EqualsHelper.equals (m_sSenderIDScheme, rhs.m_sSenderIDScheme) &&
+           EqualsHelper.equals (m_sSenderIDValue, rhs.m_sSenderIDValue) &&
+           EqualsHelper.equals (m_sReceiverIDScheme, rhs.m_sReceiverIDScheme) &&
+           EqualsHelper.equals (m_sReceiverIDValue, rhs.m_sReceiverIDValue) &&
+           EqualsHelper.equals (m_sDocTypeIDScheme, rhs.m_sDocTypeIDScheme) &&
+           EqualsHelper.equals (m_sDocTypeIDValue, rhs.m_sDocTypeIDValue) &&
+           EqualsHelper.equals (m_sProcessIDScheme, rhs.m_sProcessIDScheme) &&
+           EqualsHelper.equals (m_sProcessIDValue, rhs.m_sProcessIDValue) &&
+           EqualsHelper.equals (m_sCountryC1, rhs.m_sCountryC1) &&
+           EqualsHelper.equals (m_sInstanceIdentifier, rhs.m_sInstanceIdentifier);
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    return new HashCodeGenerator (this).append (m_sSenderIDScheme)
+                                       .append (m_sSenderIDValue)
+                                       .append (m_sReceiverIDScheme)
+                                       .append (m_sReceiverIDValue)
+                                       .append (m_sDocTypeIDScheme)
+                                       .append (m_sDocTypeIDValue)
+                                       .append (m_sProcessIDScheme)
+                                       .append (m_sProcessIDValue)
+                                       .append (m_sCountryC1)
+                                       .append (m_sInstanceIdentifier)
+                                       .getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (null).appendIfNotNull ("SenderIDScheme", m_sSenderIDScheme)
+                                       .appendIfNotNull ("SenderIDValue", m_sSenderIDValue)
+                                       .appendIfNotNull ("ReceiverIDScheme", m_sReceiverIDScheme)
+                                       .appendIfNotNull ("ReceiverIDValue", m_sReceiverIDValue)
+                                       .appendIfNotNull ("DocTypeIDScheme", m_sDocTypeIDScheme)
+                                       .appendIfNotNull ("DocTypeIDValue", m_sDocTypeIDValue)
+                                       .appendIfNotNull ("ProcessIDScheme", m_sProcessIDScheme)
+                                       .appendIfNotNull ("ProcessIDValue", m_sProcessIDValue)
+                                       .appendIfNotNull ("CountryC1", m_sCountryC1)
+                                       .appendIfNotNull ("InstanceIdentifier", m_sInstanceIdentifier)
+                                       .getToString ();
+  }
+
+  @NonNull
+  public static Builder builder ()
+  {
+    return new Builder ();
+  }
+
+  /**
+   * Collects the header values from the end events of all elements below the header, identified by
+   * their local name path relative to the header. Works for DOM and StAX alike.
+   */
+  private static final class Collector
+  {
+    private final Builder m_aBuilder = new Builder ();
+    private String m_sScopeType;
+    private String m_sScopeInstanceIdentifier;
+    private String m_sScopeIdentifier;
+
+    void onElementEnd (@NonNull final String sPath, @Nullable final String sAuthority, @Nullable final String sText)
+    {
+      switch (sPath)
+      {
+        case "Sender/Identifier":
+          // Only the first one
+          if (m_aBuilder.m_sSenderIDValue == null)
+            m_aBuilder.senderID (sAuthority, sText);
+          break;
+        case "Receiver/Identifier":
+          if (m_aBuilder.m_sReceiverIDValue == null)
+            m_aBuilder.receiverID (sAuthority, sText);
+          break;
+        case "DocumentIdentification/InstanceIdentifier":
+          m_aBuilder.instanceIdentifier (sText);
+          break;
+        case "BusinessScope/Scope/Type":
+          m_sScopeType = sText;
+          break;
+        case "BusinessScope/Scope/InstanceIdentifier":
+          m_sScopeInstanceIdentifier = sText;
+          break;
+        case "BusinessScope/Scope/Identifier":
+          m_sScopeIdentifier = sText;
+          break;
+        case "BusinessScope/Scope":
+          if (SCOPE_TYPE_DOCUMENT_ID.equals (m_sScopeType) && m_aBuilder.m_sDocTypeIDValue == null)
+            m_aBuilder.documentTypeID (m_sScopeIdentifier, m_sScopeInstanceIdentifier);
+          else
+            if (SCOPE_TYPE_PROCESS_ID.equals (m_sScopeType) && m_aBuilder.m_sProcessIDValue == null)
+              m_aBuilder.processID (m_sScopeIdentifier, m_sScopeInstanceIdentifier);
+            else
+              if (SCOPE_TYPE_COUNTRY_C1.equals (m_sScopeType) && m_aBuilder.m_sCountryC1 == null)
+                m_aBuilder.countryC1 (m_sScopeInstanceIdentifier);
+          m_sScopeType = null;
+          m_sScopeInstanceIdentifier = null;
+          m_sScopeIdentifier = null;
+          break;
+        default:
+          // Not relevant
+          break;
+      }
+    }
+  }
+
+  @Nullable
+  private static String _getTrimmedOrNull (@Nullable final String s)
+  {
+    final String ret = StringHelper.trim (s);
+    return StringHelper.isEmpty (ret) ? null : ret;
+  }
+
+  private static void _collect (@NonNull final Element aParent,
+                                @NonNull final String sParentPath,
+                                @NonNull final Collector aCollector)
+  {
+    for (Node aChild = aParent.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+      if (aChild instanceof final Element aChildElement)
+      {
+        final String sPath = sParentPath.isEmpty () ? aChildElement.getLocalName ()
+                                                    : sParentPath + "/" + aChildElement.getLocalName ();
+        _collect (aChildElement, sPath, aCollector);
+        aCollector.onElementEnd (sPath,
+                                 _getTrimmedOrNull (aChildElement.getAttribute ("Authority")),
+                                 _getTrimmedOrNull (aChildElement.getTextContent ()));
+      }
+  }
+
+  private static boolean _isSBDHElement (@Nullable final String sNamespaceURI,
+                                         @Nullable final String sLocalName,
+                                         @NonNull final String sExpectedLocalName)
+  {
+    return DDDDocumentUnwrapperSBDH.NAMESPACE_URI.equals (sNamespaceURI) && sExpectedLocalName.equals (sLocalName);
+  }
+
+  /**
+   * Read the header values from a DOM element.
+   *
+   * @param aElement
+   *        Either the <code>StandardBusinessDocument</code> or the
+   *        <code>StandardBusinessDocumentHeader</code> element. May not be <code>null</code>.
+   * @return <code>null</code> if the element is neither of the two or if the SBD contains no
+   *         header.
+   */
+  @Nullable
+  public static DDDSBDHHeader createFromElement (@NonNull final Element aElement)
+  {
+    ValueEnforcer.notNull (aElement, "Element");
+
+    Element aHeader = null;
+    if (_isSBDHElement (aElement.getNamespaceURI (), aElement.getLocalName (), ELEMENT_SBDH))
+      aHeader = aElement;
+    else
+      if (_isSBDHElement (aElement.getNamespaceURI (), aElement.getLocalName (), ELEMENT_SBD))
+      {
+        // The header must be the first child element
+        for (Node aChild = aElement.getFirstChild (); aChild != null; aChild = aChild.getNextSibling ())
+          if (aChild instanceof final Element aChildElement)
+          {
+            if (_isSBDHElement (aChildElement.getNamespaceURI (), aChildElement.getLocalName (), ELEMENT_SBDH))
+              aHeader = aChildElement;
+            break;
+          }
+      }
+    if (aHeader == null)
+      return null;
+
+    final Collector aCollector = new Collector ();
+    _collect (aHeader, "", aCollector);
+    return aCollector.m_aBuilder.build ();
+  }
+
+  private static boolean _nextStartElement (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    while (aReader.hasNext ())
+    {
+      final int nEventType = aReader.next ();
+      if (nEventType == XMLStreamConstants.START_ELEMENT)
+        return true;
+      if (nEventType == XMLStreamConstants.END_ELEMENT)
+        return false;
+    }
+    return false;
+  }
+
+  /**
+   * Read the header values from a StAX stream. The stream is read up to the end of the header
+   * element only, so the payload is never parsed.
+   *
+   * @param aReader
+   *        The StAX reader, positioned before the <code>StandardBusinessDocument</code> root
+   *        element. May not be <code>null</code>. It is not closed.
+   * @return <code>null</code> if the root element is not a <code>StandardBusinessDocument</code> or
+   *         if its first child element is not a <code>StandardBusinessDocumentHeader</code>.
+   * @throws XMLStreamException
+   *         If the stream is not well-formed
+   */
+  @Nullable
+  public static DDDSBDHHeader readFromStream (@NonNull final XMLStreamReader aReader) throws XMLStreamException
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+
+    if (!_nextStartElement (aReader) ||
+        !_isSBDHElement (aReader.getNamespaceURI (), aReader.getLocalName (), ELEMENT_SBD))
+      return null;
+    if (!_nextStartElement (aReader) ||
+        !_isSBDHElement (aReader.getNamespaceURI (), aReader.getLocalName (), ELEMENT_SBDH))
+      return null;
+
+    final Collector aCollector = new Collector ();
+    final List <String> aPath = new ArrayList <> ();
+    final StringBuilder aText = new StringBuilder ();
+    String sAuthority = null;
+    while (aReader.hasNext ())
+    {
+      final int nEventType = aReader.next ();
+      switch (nEventType)
+      {
+        case XMLStreamConstants.START_ELEMENT:
+          aPath.add (aReader.getLocalName ());
+          sAuthority = aReader.getAttributeValue (null, "Authority");
+          aText.setLength (0);
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.SPACE:
+        case XMLStreamConstants.CDATA:
+          aText.append (aReader.getText ());
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (aPath.isEmpty ())
+          {
+            // End of header
+            return aCollector.m_aBuilder.build ();
+          }
+          // Authority and text are only meaningful for leaf elements
+          aCollector.onElementEnd (String.join ("/", aPath),
+                                   _getTrimmedOrNull (sAuthority),
+                                   _getTrimmedOrNull (aText.toString ()));
+          aPath.remove (aPath.size () - 1);
+          break;
+        default:
+          break;
+      }
+    }
+    throw new XMLStreamException ("Unexpected end of the StandardBusinessDocumentHeader");
+  }
+
+  /**
+   * Builder for {@link DDDSBDHHeader}.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  public static final class Builder implements IBuilder <DDDSBDHHeader>
+  {
+    private String m_sSenderIDScheme;
+    private String m_sSenderIDValue;
+    private String m_sReceiverIDScheme;
+    private String m_sReceiverIDValue;
+    private String m_sDocTypeIDScheme;
+    private String m_sDocTypeIDValue;
+    private String m_sProcessIDScheme;
+    private String m_sProcessIDValue;
+    private String m_sCountryC1;
+    private String m_sInstanceIdentifier;
+
+    private Builder ()
+    {}
+
+    @NonNull
+    public Builder senderID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sSenderIDScheme = sScheme;
+      m_sSenderIDValue = sValue;
+      return this;
+    }
+
+    @NonNull
+    public Builder receiverID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sReceiverIDScheme = sScheme;
+      m_sReceiverIDValue = sValue;
+      return this;
+    }
+
+    @NonNull
+    public Builder documentTypeID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sDocTypeIDScheme = sScheme;
+      m_sDocTypeIDValue = sValue;
+      return this;
+    }
+
+    @NonNull
+    public Builder processID (@Nullable final String sScheme, @Nullable final String sValue)
+    {
+      m_sProcessIDScheme = sScheme;
+      m_sProcessIDValue = sValue;
+      return this;
+    }
+
+    @NonNull
+    public Builder countryC1 (@Nullable final String s)
+    {
+      m_sCountryC1 = s;
+      return this;
+    }
+
+    @NonNull
+    public Builder instanceIdentifier (@Nullable final String s)
+    {
+      m_sInstanceIdentifier = s;
+      return this;
+    }
+
+    @NonNull
+    public DDDSBDHHeader build ()
+    {
+      return new DDDSBDHHeader (this);
+    }
+  }
+}
@@ -0,0 +1,561 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.unwrap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.helger.annotation.concurrent.Immutable;
+import com.helger.annotation.concurrent.NotThreadSafe;
+import com.helger.base.enforce.ValueEnforcer;
+import com.helger.base.tostring.ToStringGenerator;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+
+/**
+ * Byte stream counterpart of {@link com.helger.ddd.IDDDDocumentUnwrapper} for MIME messages, e.g.
+ * the body of an AS2 message. For <code>multipart/*</code> content the boundaries are scanned
+ * incrementally and the first part with an XML content type is returned as a stream that ends at
+ * the next boundary. Nested multiparts (e.g. the <code>multipart/signed</code> body of an AS2
+ * message) are descended into, base64 transfer encoding is decoded on the fly and parts with other
+ * transfer encodings are skipped. The message is never buffered as a whole: the returned stream
+ * reads the part directly from the source, and parts before it are skipped without being retained.
+ * Each multipart level is reported as a {@link #WRAPPING_TYPE} wrapper.
+ *
+ * @author Philip Helger
+ * @since 0.8.11
+ */
+@Immutable
+public final class DDDStreamUnwrapperMIME
+{
+  public static final String WRAPPING_TYPE = "MIME";
+
+  /** The maximum length of a single MIME header line in bytes */
+  public static final int MAX_HEADER_LINE_LENGTH = 8 * 1024;
+
+  /** The maximum number of nested multipart levels */
+  public static final int MAX_NESTING_LEVEL = 8;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger (DDDStreamUnwrapperMIME.class);
+
+  /**
+   * The XML part that was found.
+   *
+   * @author Philip Helger
+   */
+  @Immutable
+  public static final class XMLPart
+  {
+    private final InputStream m_aIS;
+    private final String m_sContentType;
+    private final ICommonsList <String> m_aWrappers;
+
+    XMLPart (@NonNull final InputStream aIS,
+             @NonNull final String sContentType,
+             @NonNull final ICommonsList <String> aWrappers)
+    {
+      m_aIS = aIS;
+      m_sContentType = sContentType;
+      m_aWrappers = aWrappers;
+    }
+
+    /**
+     * @return The stream with the content of the XML part. It ends at the end of the part and reads
+     *         directly from the source stream. Never <code>null</code>.
+     */
+    @NonNull
+    public InputStream getInputStream ()
+    {
+      return m_aIS;
+    }
+
+    /**
+     * @return The content type of the XML part. Never <code>null</code>.
+     */
+    @NonNull
+    public String getContentType ()
+    {
+      return m_sContentType;
+    }
+
+    /**
+     * @return The wrappers that were unwrapped, outermost first - one {@link #WRAPPING_TYPE} per
+     *         multipart level. Never <code>null</code> but maybe empty.
+     */
+    @NonNull
+    public ICommonsList <String> getAllWrappers ()
+    {
+      return m_aWrappers.getClone ();
+    }
+
+    @Override
+    public String toString ()
+    {
+      return new ToStringGenerator (null).append ("ContentType", m_sContentType)
+                                         .append ("Wrappers", m_aWrappers)
+                                         .getToString ();
+    }
+  }
+
+  /**
+   * Incremental scanner for the parts of a single multipart level.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  private static final class MultipartScanner
+  {
+    private final InputStream m_aIS;
+    private final String m_sDashBoundary;
+    // The delimiter is preceded by CRLF - the CR is optional to support LF-only messages
+    private final byte [] m_aDelimiter;
+    private final byte [] m_aBuf;
+    private int m_nPos;
+    private int m_nLimit;
+    private boolean m_bEOF;
+    private boolean m_bClosed;
+    // The line break before the first delimiter of an empty body was already consumed by the headers
+    private boolean m_bBodyStart;
+
+    MultipartScanner (@NonNull final InputStream aIS, @NonNull final String sBoundary)
+    {
+      m_aIS = aIS;
+      m_sDashBoundary = "--" + sBoundary;
+      m_aDelimiter = ("\n" + m_sDashBoundary).getBytes (StandardCharsets.ISO_8859_1);
+      m_aBuf = new byte [2 * MAX_HEADER_LINE_LENGTH];
+    }
+
+    private void _fill () throws IOException
+    {
+      if (m_nPos > 0)
+      {
+        System.arraycopy (m_aBuf, m_nPos, m_aBuf, 0, m_nLimit - m_nPos);
+        m_nLimit -= m_nPos;
+        m_nPos = 0;
+      }
+      if (!m_bEOF && m_nLimit < m_aBuf.length)
+      {
+        final int nRead = m_aIS.read (m_aBuf, m_nLimit, m_aBuf.length - m_nLimit);
+        if (nRead < 0)
+          m_bEOF = true;
+        else
+          m_nLimit += nRead;
+      }
+    }
+
+    @Nullable
+    private String _readLine () throws IOException
+    {
+      int nSearchStart = m_nPos;
+      while (true)
+      {
+        for (int i = nSearchStart; i < m_nLimit; ++i)
+          if (m_aBuf[i] == '\n')
+          {
+            final int nEnd = i > m_nPos && m_aBuf[i - 1] == '\r' ? i - 1 : i;
+            final String ret = new String (m_aBuf, m_nPos, nEnd - m_nPos, StandardCharsets.ISO_8859_1);
+            m_nPos = i + 1;
+            return ret;
+          }
+        if (m_bEOF)
+        {
+          if (m_nPos == m_nLimit)
+            return null;
+          final String ret = new String (m_aBuf, m_nPos, m_nLimit - m_nPos, StandardCharsets.ISO_8859_1);
+          m_nPos = m_nLimit;
+          return ret;
+        }
+        if (m_nLimit - m_nPos >= MAX_HEADER_LINE_LENGTH)
+          throw new IOException ("MIME line exceeds " + MAX_HEADER_LINE_LENGTH + " bytes");
+        nSearchStart = m_nLimit - m_nPos;
+        _fill ();
+      }
+    }
+
+    private void _handleDelimiterLine (@NonNull final String sRest)
+    {
+      // Either the close delimiter or transport padding
+      if (sRest.startsWith ("--"))
+        m_bClosed = true;
+    }
+
+    /**
+     * Skip everything up to and including the first delimiter line.
+     *
+     * @return <code>true</code> if a part follows.
+     */
+    boolean skipPreamble () throws IOException
+    {
+      String sLine;
+      while ((sLine = _readLine ()) != null)
+        if (sLine.startsWith (m_sDashBoundary))
+        {
+          _handleDelimiterLine (sLine.substring (m_sDashBoundary.length ()));
+          return !m_bClosed;
+        }
+      return false;
+    }
+
+    /**
+     * Read the headers of the next part. Header names are lower cased.
+     *
+     * @return <code>null</code> if no further part follows.
+     */
+    @Nullable
+    ICommonsMap <String, String> readPartHeaders () throws IOException
+    {
+      if (m_bClosed)
+        return null;
+
+      final ICommonsMap <String, String> ret = new CommonsHashMap <> ();
+      String sLastName = null;
+      String sLine;
+      while ((sLine = _readLine ()) != null)
+      {
+        if (sLine.isEmpty ())
+        {
+          m_bBodyStart = true;
+          return ret;
+        }
+        if ((sLine.charAt (0) == ' ' || sLine.charAt (0) == '\t') && sLastName != null)
+        {
+          // Folded header line
+          ret.put (sLastName, ret.get (sLastName) + " " + sLine.trim ());
+          continue;
+        }
+        final int nColon = sLine.indexOf (':');
+        if (nColon > 0)
+        {
+          sLastName = sLine.substring (0, nColon).trim ().toLowerCase (Locale.ROOT);
+          ret.put (sLastName, sLine.substring (nColon + 1).trim ());
+        }
+      }
+      // Truncated message
+      return null;
+    }
+
+    private int _indexOfDelimiter ()
+    {
+      final int nLast = m_nLimit - m_aDelimiter.length;
+      outer: for (int i = m_nPos; i <= nLast; ++i)
+      {
+        for (int j = 0; j < m_aDelimiter.length; ++j)
+          if (m_aBuf[i + j] != m_aDelimiter[j])
+            continue outer;
+        return i;
+      }
+      return -1;
+    }
+
+    private boolean _startsWithDashBoundary () throws IOException
+    {
+      // The dash boundary is the delimiter without the leading line break
+      final int nLen = m_aDelimiter.length - 1;
+      while (!m_bEOF && m_nLimit - m_nPos < nLen)
+        _fill ();
+      if (m_nLimit - m_nPos < nLen)
+        return false;
+      for (int i = 0; i < nLen; ++i)
+        if (m_aBuf[m_nPos + i] != m_aDelimiter[i + 1])
+          return false;
+      return true;
+    }
+
+    private void _readDelimiterRest () throws IOException
+    {
+      final String sRest = _readLine ();
+      if (sRest == null)
+        m_bClosed = true;
+      else
+        _handleDelimiterLine (sRest);
+    }
+
+    /**
+     * @return A stream with the body of the current part. It must be read until the end before the
+     *         next part can be read.
+     */
+    @NonNull
+    InputStream openPart ()
+    {
+      return new InputStream ()
+      {
+        private boolean m_bEnd;
+
+        @Override
+        public int read () throws IOException
+        {
+          final byte [] aOne = new byte [1];
+          final int nRead = read (aOne, 0, 1);
+          return nRead < 0 ? -1 : aOne[0] & 0xff;
+        }
+
+        @Override
+        public int read (@NonNull final byte [] aBuf, final int nOfs, final int nLen) throws IOException
+        {
+          if (m_bEnd)
+            return -1;
+          if (nLen == 0)
+            return 0;
+
+          if (m_bBodyStart)
+          {
+            m_bBodyStart = false;
+            if (_startsWithDashBoundary ())
+            {
+              // Empty body
+              m_nPos += m_aDelimiter.length - 1;
+              m_bEnd = true;
+              _readDelimiterRest ();
+              return -1;
+            }
+          }
+
+          while (true)
+          {
+            final int nFound = _indexOfDelimiter ();
+            // Bytes before the end index can be delivered
+            final int nEnd;
+            if (nFound >= 0)
+              nEnd = nFound > m_nPos && m_aBuf[nFound - 1] == '\r' ? nFound - 1 : nFound;
+            else
+              nEnd = m_bEOF ? m_nLimit : m_nLimit - m_aDelimiter.length;
+
+            if (nEnd > m_nPos)
+            {
+              final int nCount = Math.min (nLen, nEnd - m_nPos);
+              System.arraycopy (m_aBuf, m_nPos, aBuf, nOfs, nCount);
+              m_nPos += nCount;
+              return nCount;
+            }
+
+            if (nFound >= 0)
+            {
+              // End of the part
+              m_nPos = nFound + m_aDelimiter.length;
+              m_bEnd = true;
+              _readDelimiterRest ();
+              return -1;
+            }
+            if (m_bEOF)
+            {
+              // Truncated message
+              m_bEnd = true;
+              m_bClosed = true;
+              return -1;
+            }
+            _fill ();
+          }
+        }
+      };
+    }
+  }
+
+  private DDDStreamUnwrapperMIME ()
+  {}
+
+  @NonNull
+  private static String _getMimeType (@NonNull final String sContentType)
+  {
+    final int nSemi = sContentType.indexOf (';');
+    return (nSemi < 0 ? sContentType : sContentType.substring (0, nSemi)).trim ().toLowerCase (Locale.ROOT);
+  }
+
+  /**
+   * Check if the provided content type denotes XML, like <code>application/xml</code>,
+   * <code>text/xml</code> or <code>application/*+xml</code>.
+   *
+   * @param sContentType
+   *        The content type including optional parameters. May be <code>null</code>.
+   * @return <code>true</code> if it is an XML content type.
+   */
+  public static boolean isXMLContentType (@Nullable final String sContentType)
+  {
+    if (sContentType == null)
+      return false;
+    final String sMimeType = _getMimeType (sContentType);
+    return sMimeType.equals ("application/xml") || sMimeType.equals ("text/xml") || sMimeType.endsWith ("+xml");
+  }
+
+  /**
+   * Check if the provided content type denotes a multipart, like <code>multipart/mixed</code> or
+   * <code>multipart/signed</code>.
+   *
+   * @param sContentType
+   *        The content type including optional parameters. May be <code>null</code>.
+   * @return <code>true</code> if it is a multipart content type.
+   */
+  public static boolean isMultipartContentType (@Nullable final String sContentType)
+  {
+    return sContentType != null && _getMimeType (sContentType).startsWith ("multipart/");
+  }
+
+  /**
+   * Get the <code>boundary</code> parameter of the provided content type.
+   *
+   * @param sContentType
+   *        The content type including parameters. May be <code>null</code>.
+   * @return <code>null</code> if no boundary parameter is present.
+   */
+  @Nullable
+  public static String getBoundary (@Nullable final String sContentType)
+  {
+    if (sContentType == null)
+      return null;
+
+    final String sLC = sContentType.toLowerCase (Locale.ROOT);
+    int nIndex = -1;
+    int nSearch = 0;
+    while ((nSearch = sLC.indexOf ("boundary", nSearch)) >= 0)
+    {
+      // Must be a parameter name
+      int nAfter = nSearch + "boundary".length ();
+      final boolean bParamStart = nSearch > 0 && (sLC.charAt (nSearch - 1) == ';' || sLC.charAt (nSearch - 1) <= ' ');
+      while (nAfter < sLC.length () && sLC.charAt (nAfter) <= ' ')
+        nAfter++;
+      if (bParamStart && nAfter < sLC.length () && sLC.charAt (nAfter) == '=')
+      {
+        nIndex = nAfter + 1;
+        break;
+      }
+      nSearch = nAfter;
+    }
+    if (nIndex < 0)
+      return null;
+
+    while (nIndex < sContentType.length () && sContentType.charAt (nIndex) <= ' ')
+      nIndex++;
+    final String ret;
+    if (nIndex < sContentType.length () && sContentType.charAt (nIndex) == '"')
+    {
+      final int nEnd = sContentType.indexOf ('"', nIndex + 1);
+      if (nEnd < 0)
+        return null;
+      ret = sContentType.substring (nIndex + 1, nEnd);
+    }
+    else
+    {
+      int nEnd = nIndex;
+      while (nEnd < sContentType.length () && sContentType.charAt (nEnd) != ';' && sContentType.charAt (nEnd) > ' ')
+        nEnd++;
+      ret = sContentType.substring (nIndex, nEnd);
+    }
+    return ret.isEmpty () ? null : ret;
+  }
+
+  @Nullable
+  private static XMLPart _unwrap (@NonNull final InputStream aIS,
+                                  @NonNull final String sContentType,
+                                  @NonNull final ICommonsList <String> aWrappers,
+                                  final int nLevel) throws IOException
+  {
+    if (isXMLContentType (sContentType))
+      return new XMLPart (aIS, sContentType, aWrappers);
+
+    if (!isMultipartContentType (sContentType))
+      return null;
+
+    if (nLevel >= MAX_NESTING_LEVEL)
+    {
+      LOGGER.warn ("Multipart nesting exceeds " + MAX_NESTING_LEVEL + " levels");
+      return null;
+    }
+
+    final String sBoundary = getBoundary (sContentType);
+    if (sBoundary == null)
+    {
+      LOGGER.warn ("The multipart content type '" + sContentType + "' has no boundary");
+      return null;
+    }
+
+    // One wrapper per multipart level
+    final ICommonsList <String> aLevelWrappers = aWrappers.getClone ();
+    aLevelWrappers.add (WRAPPING_TYPE);
+
+    final MultipartScanner aScanner = new MultipartScanner (aIS, sBoundary);
+    if (!aScanner.skipPreamble ())
+      return null;
+
+    final byte [] aSkipBuf = new byte [4096];
+    ICommonsMap <String, String> aHeaders;
+    while ((aHeaders = aScanner.readPartHeaders ()) != null)
+    {
+      final InputStream aPartIS = aScanner.openPart ();
+      // The MIME default
+      final String sPartContentType = aHeaders.getOrDefault ("content-type", "text/plain");
+      if (isXMLContentType (sPartContentType) || isMultipartContentType (sPartContentType))
+      {
+        final String sEncoding = aHeaders.get ("content-transfer-encoding");
+        InputStream aBodyIS = null;
+        if (sEncoding == null ||
+            sEncoding.equalsIgnoreCase ("7bit") ||
+            sEncoding.equalsIgnoreCase ("8bit") ||
+            sEncoding.equalsIgnoreCase ("binary"))
+          aBodyIS = aPartIS;
+        else
+          if (sEncoding.equalsIgnoreCase ("base64"))
+            aBodyIS = Base64.getMimeDecoder ().wrap (aPartIS);
+          else
+            LOGGER.warn ("Skipping MIME part with unsupported transfer encoding '" + sEncoding + "'");
+
+        if (aBodyIS != null)
+        {
+          final XMLPart ret = _unwrap (aBodyIS, sPartContentType, aLevelWrappers, nLevel + 1);
+          if (ret != null)
+            return ret;
+        }
+      }
+
+      // Skip the rest of the part without retaining it
+      while (aPartIS.read (aSkipBuf) >= 0)
+      {}
+    }
+    return null;
+  }
+
+  /**
+   * Find the first XML part of the provided MIME content.
+   *
+   * @param aIS
+   *        The MIME body to read from. May not be <code>null</code>. It is not closed.
+   * @param sContentType
+   *        The content type of the MIME body including the <code>boundary</code> parameter for
+   *        multiparts, e.g. from the HTTP <code>Content-Type</code> header. May not be
+   *        <code>null</code>. If it is an XML content type, the input stream itself is returned.
+   * @return <code>null</code> if the content contains no XML part.
+   * @throws IOException
+   *         If reading fails or a MIME header line is too long.
+   */
+  @Nullable
+  public static XMLPart findFirstXMLPart (@NonNull final InputStream aIS,
+                                         @NonNull final String sContentType) throws IOException
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (sContentType, "ContentType");
+
+    return _unwrap (aIS, sContentType, new CommonsArrayList <> (), 0);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link DDDValueInterner}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDValueInternerTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final DDDValueInterner aInterner = new DDDValueInterner (2);
+    assertNull (aInterner.intern (null));
+    assertEquals (0, aInterner.getSize ());
+
+    final String s1 = new String ("abc");
+    final String s2 = new String ("abc");
+    assertNotSame (s1, s2);
+    assertSame (s1, aInterner.intern (s1));
+    assertSame (s1, aInterner.intern (s2));
+    assertEquals (1, aInterner.getSize ());
+
+    final String s3 = new String ("def");
+    assertSame (s3, aInterner.intern (s3));
+    assertEquals (2, aInterner.getSize ());
+
+    // Bounded - returned as is
+    final String s4 = new String ("ghi");
+    final String s5 = new String ("ghi");
+    assertSame (s4, aInterner.intern (s4));
+    assertSame (s5, aInterner.intern (s5));
+    assertEquals (2, aInterner.getSize ());
+
+    aInterner.clear ();
+    assertEquals (0, aInterner.getSize ());
+  }
+
+  @Test
+  public void testWithDeterminator ()
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).setValueInterner (new DDDValueInterner (100));
+
+    final Document aDoc1 = DOMReader.readXMLDOM (new ClassPathResource ("external/ubl2-invoice/good/base-example.xml"));
+    final Document aDoc2 = DOMReader.readXMLDOM (new ClassPathResource ("external/ubl2-invoice/good/base-example.xml"));
+    assertNotNull (aDoc1);
+    assertNotNull (aDoc2);
+
+    final DocumentDetails aDD1 = aDDD.findDocumentDetails (aDoc1.getDocumentElement ());
+    final DocumentDetails aDD2 = aDDD.findDocumentDetails (aDoc2.getDocumentElement ());
+    assertNotNull (aDD1);
+    assertNotNull (aDD2);
+    assertEquals (aDD1, aDD2);
+
+    // Low cardinality values are shared
+    assertSame (aDD1.getCustomizationID (), aDD2.getCustomizationID ());
+    assertSame (aDD1.getSenderCountryCode (), aDD2.getSenderCountryCode ());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.ddd.parse.DDDBatchReader;
+import com.helger.ddd.parse.DDDSizeRoutingReader;
+import com.helger.ddd.parse.DDDXMLParserPool;
+import com.helger.json.IJsonObject;
+import com.helger.json.serialize.JsonReader;
+
+/**
+ * Test class for class {@link DocumentDetailsBatchProcessor}.
+ *
+ * @author Philip Helger
+ */
+public final class DocumentDetailsBatchProcessorTest
+{
+  @Test
+  public void testReportingDirectories () throws IOException
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    final DDDSizeRoutingReader aDOMReader = new DDDSizeRoutingReader (aDDD,
+                                                                      DDDXMLParserPool.getDefaultInstance (),
+                                                                      Long.MAX_VALUE);
+    final DocumentDetailsBatchProcessor aProcessor = new DocumentDetailsBatchProcessor (aDDD, 3);
+    assertEquals (3, aProcessor.getThreadCount ());
+
+    for (final String sSyntaxID : new String [] { "peppol-eusr", "peppol-tsr" })
+    {
+      final Path aDir = Paths.get ("src/test/resources/external/" + sSyntaxID + "/good");
+      final StringBuilder aSB = new StringBuilder ();
+      final DocumentDetailsBatchProcessor.Summary aSummary = aProcessor.processDirectory (aDir, ".xml", aSB);
+      assertTrue (aSummary.getFileCount () > 0);
+      assertEquals (aSummary.getFileCount (), aSummary.getSuccessCount ());
+      assertEquals (0, aSummary.getFailureCount ());
+      assertTrue (aSummary.getThroughputPerSecond () > 0);
+      assertTrue (aSummary.getMaxLatencyNanos () >= aSummary.getAverageLatencyNanos ());
+
+      assertTrue (aSB.toString ().endsWith ("\n"));
+      final String [] aLines = aSB.toString ().split ("\n");
+      assertEquals (aSummary.getFileCount (), aLines.length);
+
+      String sLastFile = "";
+      for (final String sLine : aLines)
+      {
+        final IJsonObject aJson = JsonReader.builder ().source (sLine).readAsObject ();
+        assertNotNull (sLine, aJson);
+        final String sFile = aJson.getAsString (DocumentDetailsBatchProcessor.JSON_FILE);
+        assertTrue (sFile + " after " + sLastFile, sFile.compareTo (sLastFile) > 0);
+        sLastFile = sFile;
+        assertTrue (aJson.getAsLong (DocumentDetailsBatchProcessor.JSON_LATENCY_MICROS) >= 0);
+
+        final DocumentDetails aExpected = aDOMReader.findDocumentDetails (aDir.resolve (sFile));
+        assertNotNull (sFile, aExpected);
+        assertEquals (sSyntaxID, aExpected.getSyntaxID ());
+        assertEquals (sFile,
+                      aExpected.getAsJson ().getAsJsonString (),
+                      aJson.getAsObject (DocumentDetailsBatchProcessor.JSON_DOCUMENT_DETAILS).getAsJsonString ());
+      }
+    }
+  }
+
+  @Test
+  public void testMoreFilesThanInFlight () throws IOException
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    // One thread means at most two files in flight
+    final DocumentDetailsBatchProcessor aProcessor = new DocumentDetailsBatchProcessor (aDDD,
+                                                                                        new DDDXMLParserPool (1, false),
+                                                                                        1);
+    final Path aDir = Paths.get ("src/test/resources/external/peppol-eusr/good");
+    final ICommonsList <Path> aFiles = DDDBatchReader.listFiles (aDir, ".xml");
+    assertTrue (aFiles.size () > 2);
+
+    final StringBuilder aSB = new StringBuilder ();
+    final DocumentDetailsBatchProcessor.Summary aSummary = aProcessor.processDirectory (aDir, ".xml", aSB);
+    assertEquals (aFiles.size (), aSummary.getFileCount ());
+    assertEquals (0, aSummary.getFailureCount ());
+
+    final String [] aLines = aSB.toString ().split ("\n");
+    assertEquals (aFiles.size (), aLines.length);
+    for (int i = 0; i < aLines.length; ++i)
+      assertEquals (aFiles.get (i).getFileName ().toString (),
+                    JsonReader.builder ()
+                              .source (aLines[i])
+                              .readAsObject ()
+                              .getAsString (DocumentDetailsBatchProcessor.JSON_FILE));
+  }
+
+  @Test
+  public void testFailures () throws IOException
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    final DocumentDetailsBatchProcessor aProcessor = new DocumentDetailsBatchProcessor (aDDD);
+
+    final DocumentDetailsBatchProcessor.FileResult aResult = aProcessor.processFile (Paths.get ("does-not-exist.xml"));
+    assertNull (aResult.getDocumentDetails ());
+    final StringBuilder aSB = new StringBuilder ();
+    DocumentDetailsBatchProcessor.writeNDJSONLine (aResult, aSB);
+    assertTrue (aSB.toString (), aSB.toString ().startsWith ("{\"file\":\"does-not-exist.xml\",\"latencyMicros\":"));
+    assertTrue (aSB.toString (), aSB.toString ().endsWith (",\"documentDetails\":null}\n"));
+
+    final DocumentDetailsBatchProcessor.Summary aSummary = aProcessor.processDirectory (Paths.get ("src/test/resources/external/ubl2-invoice/bad"),
+                                                                                        ".xml",
+                                                                                        new StringBuilder ());
+    assertEquals (1, aSummary.getFileCount ());
+    assertEquals (1, aSummary.getFailureCount ());
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.SimpleIdentifierFactory;
+
+/**
+ * Test class for class {@link DocumentDetailsBinaryWriter} and {@link DocumentDetailsBinaryReader}.
+ *
+ * @author Philip Helger
+ */
+public final class DocumentDetailsBinaryWriterTest
+{
+  private static final IIdentifierFactory IF = SimpleIdentifierFactory.INSTANCE;
+
+  @NonNull
+  private static DocumentDetails _createDD (@NonNull final String sBDID)
+  {
+    return DocumentDetails.builder ()
+                          .syntaxID ("syn")
+                          .syntaxVersion ("1.0")
+                          .senderID (IF.parseParticipantIdentifier ("iso6523-actorid-upis::9915:sender"))
+                          .receiverID ("iso6523-actorid-upis", "9915:receiver")
+                          .documentTypeID (IF.parseDocumentTypeIdentifier ("bla::fo:o"))
+                          .processID ("pro", "cess")
+                          .customizationID ("cust")
+                          .businessDocumentID (sBDID)
+                          .senderName ("Sender \u00e4\u00f6\u00fc")
+                          .senderCountryCode ("AT")
+                          .receiverName ("rn")
+                          .receiverCountryCode ("DE")
+                          .vesid ("ves")
+                          .profileName ("pn")
+                          .flags ("f1", "f2")
+                          .wrappers ("SBDH", "XHE")
+                          .build ();
+  }
+
+  @Test
+  public void testRoundtripSingle ()
+  {
+    final DocumentDetails aDDEmpty = DocumentDetails.builder ().build ();
+    assertEquals (aDDEmpty,
+                  DocumentDetailsBinaryReader.getAsDocumentDetails (DocumentDetailsBinaryWriter.getAsBytes (aDDEmpty),
+                                                                    IF));
+
+    final DocumentDetails aDD = _createDD ("id");
+    final byte [] aBytes = DocumentDetailsBinaryWriter.getAsBytes (aDD);
+    final DocumentDetails aDD2 = DocumentDetailsBinaryReader.getAsDocumentDetails (aBytes, IF);
+    assertEquals (aDD, aDD2);
+    assertEquals (aDD.getAllFlags (), aDD2.getAllFlags ());
+    assertEquals (aDD.getAllWrappers (), aDD2.getAllWrappers ());
+
+    // Much smaller than JSON
+    assertTrue (aBytes.length < DocumentDetailsJsonWriter.getAsJsonString (aDD).length ());
+
+    assertNull (DocumentDetailsBinaryReader.getAsDocumentDetails (null, IF));
+  }
+
+  @Test
+  public void testRoundtripStream () throws IOException
+  {
+    final int nCount = 100;
+    final byte [] aBytes;
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      final DocumentDetailsBinaryWriter aWriter = new DocumentDetailsBinaryWriter (aBAOS);
+      for (int i = 0; i < nCount; ++i)
+        aWriter.write (_createDD ("id" + i));
+      assertEquals (nCount, aWriter.getRecordCount ());
+      aBytes = aBAOS.toByteArray ();
+    }
+
+    // The dictionary avoids repeating the same strings
+    assertTrue (aBytes.length < nCount * DocumentDetailsBinaryWriter.getAsBytes (_createDD ("id0")).length / 2);
+
+    try (final NonBlockingByteArrayInputStream aBAIS = new NonBlockingByteArrayInputStream (aBytes))
+    {
+      final DocumentDetailsBinaryReader aReader = new DocumentDetailsBinaryReader (aBAIS, IF);
+      for (int i = 0; i < nCount; ++i)
+        assertEquals (_createDD ("id" + i), aReader.read ());
+      assertNull (aReader.read ());
+      assertEquals (nCount, aReader.getRecordCount ());
+    }
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    try
+    {
+      DocumentDetailsBinaryReader.getAsDocumentDetails ("bla".getBytes (StandardCharsets.ISO_8859_1), IF);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+
+    // Truncated
+    final byte [] aBytes = DocumentDetailsBinaryWriter.getAsBytes (_createDD ("id"));
+    final byte [] aTruncated = new byte [aBytes.length - 3];
+    System.arraycopy (aBytes, 0, aTruncated, 0, aTruncated.length);
+    try
+    {
+      DocumentDetailsBinaryReader.getAsDocumentDetails (aTruncated, IF);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @NonNull
+  private static byte [] _createRecord (final int... aBytes)
+  {
+    final byte [] ret = new byte [DocumentDetailsBinaryWriter.MAGIC.length + 1 + aBytes.length];
+    System.arraycopy (DocumentDetailsBinaryWriter.MAGIC, 0, ret, 0, DocumentDetailsBinaryWriter.MAGIC.length);
+    ret[DocumentDetailsBinaryWriter.MAGIC.length] = DocumentDetailsBinaryWriter.VERSION_1;
+    for (int i = 0; i < aBytes.length; ++i)
+      ret[DocumentDetailsBinaryWriter.MAGIC.length + 1 + i] = (byte) aBytes[i];
+    return ret;
+  }
+
+  private static void _assertMalformed (@NonNull final byte [] aBytes)
+  {
+    try (final NonBlockingByteArrayInputStream aBAIS = new NonBlockingByteArrayInputStream (aBytes))
+    {
+      new DocumentDetailsBinaryReader (aBAIS, IF).read ();
+      fail ();
+    }
+    catch (final IOException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMalformedSizes ()
+  {
+    // Field mask with syntax ID, literal string with a varint length that would be negative
+    _assertMalformed (_createRecord (0x01, 0x00, 0xff, 0xff, 0xff, 0xff, 0x0f));
+    // Varint with too many bytes
+    _assertMalformed (_createRecord (0x01, 0x00, 0x80, 0x80, 0x80, 0x80, 0x80, 0x01));
+    // Literal string longer than the maximum
+    _assertMalformed (_createRecord (0x01, 0x00, 0xff, 0xff, 0xff, 0xff, 0x07));
+    // Literal string longer than the stream, but below the maximum
+    _assertMalformed (_createRecord (0x01, 0x00, 0x80, 0x80, 0x80, 0x04, 'a', 'b'));
+    // Flag count larger than the maximum
+    _assertMalformed (_createRecord (0x00, 0xff, 0xff, 0xff, 0xff, 0x07));
+  }
+}
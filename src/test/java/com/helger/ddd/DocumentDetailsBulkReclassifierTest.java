@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.io.file.FileSystemIterator;
+import com.helger.io.file.IFileFilter;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link DocumentDetailsBulkReclassifier}.
+ *
+ * @author Philip Helger
+ */
+public final class DocumentDetailsBulkReclassifierTest
+{
+  private static final int REPEAT = 3;
+
+  @Test
+  public void testBasic () throws IOException
+  {
+    final DDDValueProviderList aVPL = DDDValueProviderList.getDefaultValueProviderList ();
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              aVPL).setRetainSourceValues (true);
+
+    // Determine all test files multiple times
+    final ICommonsList <DocumentDetails> aDDs = new CommonsArrayList <> ();
+    for (final String sSyntaxID : aDDD.getEffectiveSyntaxList ().getAllSyntaxes ().keySet ())
+      for (final File f : new FileSystemIterator ("src/test/resources/external/" + sSyntaxID + "/good")
+                                                                                                    .withFilter (IFileFilter.filenameEndsWith (".xml")))
+      {
+        final Document aDoc = DOMReader.readXMLDOM (f);
+        assertNotNull (aDoc);
+        final DocumentDetails aDD = aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+        assertNotNull (aDD);
+        for (int i = 0; i < REPEAT; ++i)
+          aDDs.add (aDD);
+      }
+    // Not reclassifiable - passed through
+    aDDs.add (DocumentDetails.builder ().vesid ("ves").build ());
+
+    // NDJSON
+    {
+      final StringBuilder aSB = new StringBuilder ();
+      DocumentDetailsJsonWriter.writeNDJSON (aDDs, aSB);
+
+      final DocumentDetailsBulkReclassifier aReclassifier = new DocumentDetailsBulkReclassifier (aDDD, aVPL);
+      final StringBuilder aResult = new StringBuilder ();
+      assertEquals (aDDs.size (),
+                    aReclassifier.reclassifyNDJSON (new BufferedReader (new StringReader (aSB.toString ())), aResult));
+      // Same value providers - same results
+      assertEquals (aSB.toString (), aResult.toString ());
+
+      assertEquals (aDDs.size (), aReclassifier.getRecordCount ());
+      assertEquals (1, aReclassifier.getSkippedCount ());
+      // Deduction is performed only once per distinct tuple
+      assertTrue (aReclassifier.getDeductionCount () <= (aDDs.size () - 1) / REPEAT);
+      assertEquals (aReclassifier.getDeductionCount (), aReclassifier.getDistinctTupleCount ());
+    }
+
+    // Binary
+    {
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+      final DocumentDetailsBinaryWriter aWriter = new DocumentDetailsBinaryWriter (aBAOS);
+      for (final DocumentDetails aDD : aDDs)
+        aWriter.write (aDD);
+
+      final DocumentDetailsBulkReclassifier aReclassifier = new DocumentDetailsBulkReclassifier (aDDD, aVPL, 0);
+      final NonBlockingByteArrayOutputStream aResult = new NonBlockingByteArrayOutputStream ();
+      assertEquals (aDDs.size (),
+                    aReclassifier.reclassifyBinary (new NonBlockingByteArrayInputStream (aBAOS.toByteArray ()), aResult));
+      // No caching
+      assertEquals (0, aReclassifier.getDistinctTupleCount ());
+      assertEquals (aDDs.size () - 1, aReclassifier.getDeductionCount ());
+
+      final DocumentDetailsBinaryReader aReader = new DocumentDetailsBinaryReader (new NonBlockingByteArrayInputStream (aResult.toByteArray ()),
+                                                                                   aDDD.getIdentifierFactory ());
+      for (final DocumentDetails aDD : aDDs)
+        assertEquals (aDD, aReader.read ());
+      assertNull (aReader.read ());
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.SimpleIdentifierFactory;
+
+/**
+ * Test class for class {@link DocumentDetailsDeterminatorRegistry}.
+ *
+ * @author Philip Helger
+ */
+public final class DocumentDetailsDeterminatorRegistryTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final DocumentDetailsDeterminator aTemplate = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                                   DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DocumentDetailsDeterminatorRegistry aRegistry = new DocumentDetailsDeterminatorRegistry (aTemplate, 2);
+    assertEquals (0, aRegistry.getTenantCount ());
+    assertNull (aRegistry.getDeterminatorOfTenant ("t1"));
+
+    final IParticipantIdentifier aSender1 = SimpleIdentifierFactory.INSTANCE.createParticipantIdentifier ("iso6523-actorid-upis",
+                                                                                                          "9915:sender1");
+    final IParticipantIdentifier aSender2 = SimpleIdentifierFactory.INSTANCE.createParticipantIdentifier ("iso6523-actorid-upis",
+                                                                                                          "9915:sender2");
+    assertTrue (aRegistry.registerTenant ("t1",
+                                          new DocumentDetailsDeterminatorRegistry.TenantSettings (null,
+                                                                                                  aSender1,
+                                                                                                  null,
+                                                                                                  null))
+                         .isChanged ());
+    // Same settings as t1
+    assertTrue (aRegistry.registerTenant ("t2",
+                                          new DocumentDetailsDeterminatorRegistry.TenantSettings (null,
+                                                                                                  aSender1,
+                                                                                                  null,
+                                                                                                  null))
+                         .isChanged ());
+    assertTrue (aRegistry.registerTenant ("t3",
+                                          new DocumentDetailsDeterminatorRegistry.TenantSettings (null,
+                                                                                                  aSender2,
+                                                                                                  null,
+                                                                                                  "other-scheme"))
+                         .isChanged ());
+    assertTrue (aRegistry.registerTenant ("t4", DocumentDetailsDeterminatorRegistry.TenantSettings.DEFAULT)
+                         .isChanged ());
+    assertEquals (4, aRegistry.getTenantCount ());
+
+    final FrozenDocumentDetailsDeterminator aDDD1 = aRegistry.getDeterminatorOfTenant ("t1");
+    assertNotNull (aDDD1);
+    assertSame (aDDD1, aRegistry.getDeterminatorOfTenant ("t2"));
+    assertEquals (aSender1, aDDD1.getFallbackSenderID ());
+    assertEquals (aTemplate.getParticipantIDScheme (), aDDD1.getParticipantIDScheme ());
+    assertSame (aTemplate.getEffectiveSyntaxList (), aDDD1.getEffectiveSyntaxList ());
+    assertSame (aTemplate.getEffectiveValueProviderList (), aDDD1.getEffectiveValueProviderList ());
+    assertEquals (1, aRegistry.getCreationCount ());
+
+    final FrozenDocumentDetailsDeterminator aDDD3 = aRegistry.getDeterminatorOfTenant ("t3");
+    assertNotNull (aDDD3);
+    assertNotSame (aDDD1, aDDD3);
+    assertEquals (aSender2, aDDD3.getFallbackSenderID ());
+    assertEquals ("other-scheme", aDDD3.getParticipantIDScheme ());
+
+    // Evicts the settings of t1 and t2
+    final FrozenDocumentDetailsDeterminator aDDD4 = aRegistry.getDeterminatorOfTenant ("t4");
+    assertNotNull (aDDD4);
+    assertNull (aDDD4.getFallbackSenderID ());
+    assertEquals (2, aRegistry.getCachedDeterminatorCount ());
+    assertEquals (3, aRegistry.getCreationCount ());
+
+    // Recreated on demand
+    assertNotSame (aDDD1, aRegistry.getDeterminatorOfTenant ("t1"));
+    assertEquals (4, aRegistry.getCreationCount ());
+
+    assertTrue (aRegistry.unregisterTenant ("t1").isChanged ());
+    assertTrue (aRegistry.unregisterTenant ("t1").isUnchanged ());
+    assertNull (aRegistry.getDeterminatorOfTenant ("t1"));
+    assertEquals (3, aRegistry.getTenantCount ());
+  }
+
+  @Test
+  public void testNoFallbackID ()
+  {
+    final IParticipantIdentifier aSender = SimpleIdentifierFactory.INSTANCE.createParticipantIdentifier ("iso6523-actorid-upis",
+                                                                                                         "9915:sender");
+    final IParticipantIdentifier aReceiver = SimpleIdentifierFactory.INSTANCE.createParticipantIdentifier ("iso6523-actorid-upis",
+                                                                                                           "9915:receiver");
+    final DocumentDetailsDeterminator aTemplate = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                                   DDDValueProviderList.getDefaultValueProviderList ()).setFallbackSenderID (aSender)
+                                                                                                                                       .setFallbackReceiverID (aReceiver);
+    final DocumentDetailsDeterminatorRegistry aRegistry = new DocumentDetailsDeterminatorRegistry (aTemplate, 10);
+
+    // null means inherit
+    assertTrue (aRegistry.registerTenant ("inherit", DocumentDetailsDeterminatorRegistry.TenantSettings.builder ().build ())
+                         .isChanged ());
+    final FrozenDocumentDetailsDeterminator aInherit = aRegistry.getDeterminatorOfTenant ("inherit");
+    assertEquals (aSender, aInherit.getFallbackSenderID ());
+    assertEquals (aReceiver, aInherit.getFallbackReceiverID ());
+
+    // Explicitly remove the fallback IDs of the template
+    final DocumentDetailsDeterminatorRegistry.TenantSettings aNone = DocumentDetailsDeterminatorRegistry.TenantSettings.builder ()
+                                                                                                                     .noFallbackSenderID ()
+                                                                                                                     .noFallbackReceiverID ()
+                                                                                                                     .build ();
+    assertTrue (aNone.isNoFallbackSenderID ());
+    assertTrue (aNone.isNoFallbackReceiverID ());
+    assertNotEquals (DocumentDetailsDeterminatorRegistry.TenantSettings.DEFAULT, aNone);
+    assertTrue (aRegistry.registerTenant ("none", aNone).isChanged ());
+    final FrozenDocumentDetailsDeterminator aNoneDDD = aRegistry.getDeterminatorOfTenant ("none");
+    assertNull (aNoneDDD.getFallbackSenderID ());
+    assertNull (aNoneDDD.getFallbackReceiverID ());
+    assertNotSame (aInherit, aNoneDDD);
+
+    // Setting an ID afterwards overrides the removal
+    final DocumentDetailsDeterminatorRegistry.TenantSettings aOther = DocumentDetailsDeterminatorRegistry.TenantSettings.builder ()
+                                                                                                                      .noFallbackSenderID ()
+                                                                                                                      .fallbackSenderID (aReceiver)
+                                                                                                                      .build ();
+    assertFalse (aOther.isNoFallbackSenderID ());
+    assertTrue (aRegistry.registerTenant ("other", aOther).isChanged ());
+    assertEquals (aReceiver, aRegistry.getDeterminatorOfTenant ("other").getFallbackSenderID ());
+  }
+
+  @Test
+  public void testConcurrentAccess () throws Exception
+  {
+    final DocumentDetailsDeterminator aTemplate = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                                   DDDValueProviderList.getDefaultValueProviderList ());
+    final int nSettings = 8;
+    final DocumentDetailsDeterminatorRegistry aRegistry = new DocumentDetailsDeterminatorRegistry (aTemplate, nSettings);
+    for (int i = 0; i < 32; ++i)
+      aRegistry.registerTenant ("t" + i,
+                                DocumentDetailsDeterminatorRegistry.TenantSettings.builder ()
+                                                                                  .participantIDScheme ("scheme" +
+                                                                                                        (i % nSettings))
+                                                                                  .build ());
+
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final Future <?> [] aFutures = new Future <?> [4];
+      for (int t = 0; t < aFutures.length; ++t)
+        aFutures[t] = aES.submit ( () -> {
+          for (int i = 0; i < 10_000; ++i)
+          {
+            final int nTenant = i % 32;
+            final FrozenDocumentDetailsDeterminator aDDD = aRegistry.getDeterminatorOfTenant ("t" + nTenant);
+            assertEquals ("scheme" + (nTenant % nSettings), aDDD.getParticipantIDScheme ());
+          }
+        });
+      for (final Future <?> aFuture : aFutures)
+        aFuture.get ();
+    }
+    finally
+    {
+      aES.shutdown ();
+      assertTrue (aES.awaitTermination (10, TimeUnit.SECONDS));
+    }
+
+    // Everything fits into the cache, so each determinator is created only once
+    assertEquals (nSettings, aRegistry.getCachedDeterminatorCount ());
+    assertEquals (nSettings, aRegistry.getCreationCount ());
+  }
+}
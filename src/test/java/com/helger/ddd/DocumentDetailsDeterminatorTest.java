@@ -21,8 +21,10 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.time.LocalDate;
 import java.util.Map;
 
 import org.junit.Test;
@@ -30,14 +32,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
 import com.helger.ddd.model.DDDSyntax;
 import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDSyntaxListOverlay;
 import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.ddd.model.DDDValueProviderListOverlay;
+import com.helger.ddd.model.DDDValueProviderPerSyntax;
+import com.helger.ddd.model.EDDDDeterminedField;
+import com.helger.ddd.model.EDDDOverlayPrecedence;
 import com.helger.ddd.model.EDDDSourceField;
+import com.helger.ddd.model.VPIf;
+import com.helger.ddd.model.VPSelect;
 import com.helger.diagnostics.error.list.ErrorList;
 import com.helger.io.file.FileSystemIterator;
 import com.helger.io.file.IFileFilter;
 import com.helger.io.resource.ClassPathResource;
+import com.helger.peppolid.IParticipantIdentifier;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
 import com.helger.xml.serialize.read.DOMReader;
 
 /**
@@ -214,6 +230,36 @@ public final class DocumentDetailsDeterminatorTest
     assertTrue (aDD.flags ().contains ("IsEN16931-2017CIUS"));
   }
 
+  @Test
+  public void testInvalidParticipantIDFallback ()
+  {
+    final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource ("external/ubl2-invoice/good/base-example.xml"));
+    assertNotNull (aDoc);
+    // Present, but too long to be a valid Peppol participant identifier value
+    aDoc.getElementsByTagNameNS ("urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2", "EndpointID")
+        .item (0)
+        .setTextContent ("9".repeat (200));
+
+    final IParticipantIdentifier aFallbackSenderID = PeppolIdentifierFactory.INSTANCE.createParticipantIdentifierWithDefaultScheme ("9915:fallback");
+    final ICommonsList <String> aWarnings = new CommonsArrayList <> ();
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).setIdentifierFactory (PeppolIdentifierFactory.INSTANCE)
+                                                                                                                                  .setFallbackSenderID (aFallbackSenderID)
+                                                                                                                                  .setWarnHdl (aWarnings::add);
+    final DocumentDetails aDD = aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+    assertNotNull (aDD);
+    assertEquals (aFallbackSenderID, aDD.getSenderID ());
+    assertEquals ("0002:FR23342", aDD.getReceiverID ().getValue ());
+    assertTrue (aWarnings.toString (), aWarnings.stream ().anyMatch (x -> x.contains ("default sender ID")));
+
+    // No fallback - no sender ID
+    aDDD.setFallbackSenderID (null);
+    final DocumentDetails aDD2 = aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+    assertNotNull (aDD2);
+    assertFalse (aDD2.hasSenderID ());
+    assertNull (aDD2.getSenderID ());
+  }
+
   @Test
   public void testDiscoveryMultipleConditions ()
   {
@@ -547,6 +593,106 @@ public final class DocumentDetailsDeterminatorTest
     assertTrue ("At least the testfiles must have been read", nFilesRead >= 3);
   }
 
+  @Test
+  public void testReclassify ()
+  {
+    final DDDValueProviderList aVPL = DDDValueProviderList.getDefaultValueProviderList ();
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              aVPL).setRetainSourceValues (true);
+    int nFilesRead = 0;
+    for (final String sSyntaxID : aDDD.getEffectiveSyntaxList ().getAllSyntaxes ().keySet ())
+      for (final File f : new FileSystemIterator ("src/test/resources/external/" + sSyntaxID + "/good")
+                                                                                                    .withFilter (IFileFilter.filenameEndsWith (".xml")))
+      {
+        final Document aDoc = DOMReader.readXMLDOM (f);
+        assertNotNull (aDoc);
+        nFilesRead++;
+
+        final DocumentDetails aDD = aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+        assertNotNull (aDD);
+        assertTrue (aDD.hasSourceValues ());
+        assertNotNull (aDD.getSourceValue (EDDDSourceField.CUSTOMIZATION_ID));
+
+        // Reclassification without the source document must lead to the same result
+        assertEquals (f.toString (), aDD, aDDD.reclassify (aDD, aVPL));
+
+        // Also after persisting
+        assertEquals (aDD,
+                      aDDD.reclassify (DocumentDetailsJsonHelper.getAsDocumentDetails (aDD.getAsJson (),
+                                                                                       aDDD.getIdentifierFactory ()),
+                                       aVPL));
+        assertEquals (aDD,
+                      aDDD.reclassify (DocumentDetailsBinaryReader.getAsDocumentDetails (DocumentDetailsBinaryWriter.getAsBytes (aDD),
+                                                                                         aDDD.getIdentifierFactory ()),
+                                       aVPL));
+      }
+    assertTrue (nFilesRead >= 3);
+
+    // No source values retained
+    final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource ("external/ubl2-invoice/good/base-example.xml"));
+    final DocumentDetails aDD = DDD.findDocumentDetails (aDoc.getDocumentElement ());
+    assertNotNull (aDD);
+    assertFalse (aDD.hasSourceValues ());
+    assertNull (aDDD.reclassify (aDD, aVPL));
+  }
+
+  @Test
+  @SuppressWarnings ("deprecation")
+  public void testOverlay ()
+  {
+    // Tenant specific override of a single condition
+    final VPIf aIf = new VPIf ("urn:cen.eu:en16931:2017#compliant#urn:fdc:peppol.eu:2017:poacc:billing:3.0");
+    aIf.determinedValues ().put (EDDDDeterminedField.PROFILE_NAME, "Tenant BIS3");
+    final VPSelect aSelect = new VPSelect (EDDDSourceField.CUSTOMIZATION_ID);
+    aSelect.addIf (aIf);
+    final ICommonsMap <EDDDSourceField, VPSelect> aSelects = new CommonsEnumMap <> (EDDDSourceField.class);
+    aSelects.put (EDDDSourceField.CUSTOMIZATION_ID, aSelect);
+    final ICommonsMap <String, DDDValueProviderPerSyntax> aVPPSs = new CommonsHashMap <> ();
+    aVPPSs.put ("ubl2-invoice", new DDDValueProviderPerSyntax ("ubl2-invoice", aSelects));
+    final DDDValueProviderList aTenantLayer = new DDDValueProviderList (LocalDate.now (), aVPPSs);
+
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (new DDDSyntaxListOverlay (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                                                        EDDDOverlayPrecedence.LAYERS_FIRST).getCompiled (),
+                                                                              new DDDValueProviderListOverlay (DDDValueProviderList.getDefaultValueProviderList (),
+                                                                                                               EDDDOverlayPrecedence.LAYERS_FIRST,
+                                                                                                               aTenantLayer).getCompiled ());
+
+    final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource ("external/ubl2-invoice/good/base-example.xml"));
+    final DocumentDetails aDD = aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+    assertNotNull (aDD);
+    assertEquals ("ubl2-invoice", aDD.getSyntaxID ());
+    assertEquals ("Tenant BIS3", aDD.getProfileName ());
+    assertNull (aDD.getVESID ());
+
+    // The deprecated accessors only expose plain lists
+    assertNotNull (aDDD.getEffectiveSyntaxList ());
+    assertNotNull (aDDD.getEffectiveValueProviderList ());
+    try
+    {
+      aDDD.getSyntaxList ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    try
+    {
+      aDDD.getValueProviderList ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    assertNotNull (DDD.getSyntaxList ());
+    assertNotNull (DDD.getValueProviderList ());
+
+    // The shared default is not affected
+    assertEquals ("Peppol BIS Billing UBL Invoice V3",
+                  DDD.findDocumentDetails (aDoc.getDocumentElement ()).getProfileName ());
+  }
+
   @Test
   public void testAllBadCases ()
   {
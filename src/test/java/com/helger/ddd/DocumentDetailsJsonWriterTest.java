@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.ddd.parse.DDDXMLParserPool;
+import com.helger.json.IJsonObject;
+import com.helger.json.serialize.JsonReader;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.SimpleIdentifierFactory;
+
+/**
+ * Test class for class {@link DocumentDetailsJsonWriter}.
+ *
+ * @author Philip Helger
+ */
+public final class DocumentDetailsJsonWriterTest
+{
+  private static final String [] SPECIAL_VALUES = { "quote\"d\"",
+                                                    "back\\slash\\",
+                                                    "tab\tcr\rlf\nbs\bff\f",
+                                                    "nul\u0000soh\u0001us\u001fdel\u007f",
+                                                    "\uD83D\uDE00 non-BMP \uD834\uDD1E",
+                                                    "umlaut \u00e4 euro \u20ac",
+                                                    "</script>" };
+
+  @NonNull
+  private static DocumentDetails _createDD (@NonNull final String sBDID)
+  {
+    final IIdentifierFactory aIF = SimpleIdentifierFactory.INSTANCE;
+    return DocumentDetails.builder ()
+                          .syntaxID ("syn")
+                          .syntaxVersion ("1.0")
+                          .senderID (aIF.parseParticipantIdentifier ("a::b"))
+                          .receiverID (aIF.parseParticipantIdentifier ("c::def"))
+                          .documentTypeID (aIF.parseDocumentTypeIdentifier ("bla::fo:o"))
+                          .processID (aIF.parseProcessIdentifier ("pro::cess"))
+                          .customizationID ("cust")
+                          .businessDocumentID (sBDID)
+                          .senderName ("sn")
+                          .senderCountryCode ("sc")
+                          .receiverName ("rn")
+                          .receiverCountryCode ("rc")
+                          .vesid ("ves")
+                          .profileName ("pn")
+                          .flags ("f1", "f2")
+                          .wrappers ("w1")
+                          .build ();
+  }
+
+  @Test
+  public void testSameAsJsonTree ()
+  {
+    final DocumentDetails aDDEmpty = DocumentDetails.builder ().build ();
+    assertEquals ("{}", DocumentDetailsJsonWriter.getAsJsonString (aDDEmpty));
+    assertEquals (aDDEmpty.getAsJson ().getAsJsonString (), DocumentDetailsJsonWriter.getAsJsonString (aDDEmpty));
+
+    final DocumentDetails aDD = _createDD ("id");
+    assertEquals (aDD.getAsJson ().getAsJsonString (), DocumentDetailsJsonWriter.getAsJsonString (aDD));
+  }
+
+  @Test
+  public void testEscaping ()
+  {
+    final DocumentDetails aDD = DocumentDetails.builder ().businessDocumentID ("a\"b\\c\nd\u0001e").build ();
+    assertEquals ("{\"bdid\":\"a\\\"b\\\\c\\nd\\u0001e\"}", DocumentDetailsJsonWriter.getAsJsonString (aDD));
+
+    final DocumentDetails aDD2 = DocumentDetails.builder ()
+                                                .businessDocumentID ("\t\r\b\f\u0000\u001f\u007f/")
+                                                .senderName ("\uD83D\uDE00\u20ac")
+                                                .build ();
+    // DEL, slash and non-BMP characters are not escaped
+    assertEquals ("{\"bdid\":\"\\t\\r\\b\\f\\u0000\\u001f\u007f/\",\"senderName\":\"\uD83D\uDE00\u20ac\"}",
+                  DocumentDetailsJsonWriter.getAsJsonString (aDD2));
+  }
+
+  @Test
+  public void testEscapingParity () throws IOException
+  {
+    for (final String s : SPECIAL_VALUES)
+    {
+      final DocumentDetails aDD = DocumentDetails.builder ()
+                                                 .businessDocumentID (s)
+                                                 .senderName (s)
+                                                 .flags (s)
+                                                 .wrappers (s)
+                                                 .build ();
+      final String sStreamed = DocumentDetailsJsonWriter.getAsJsonString (aDD);
+
+      // Must be the same JSON as created by the existing JSON helper
+      final IJsonObject aStreamed = JsonReader.builder ().source (sStreamed).readAsObject ();
+      assertNotNull (sStreamed, aStreamed);
+      assertEquals (sStreamed, aDD.getAsJson (), aStreamed);
+      assertEquals (aDD, DocumentDetailsJsonHelper.getAsDocumentDetails (aStreamed, SimpleIdentifierFactory.INSTANCE));
+
+      // The UTF-8 version contains the same characters
+      try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+      {
+        DocumentDetailsJsonWriter.write (aDD, aBAOS);
+        assertEquals (sStreamed, new String (aBAOS.toByteArray (), StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  @Test
+  public void testEquivalentOnTestFiles () throws IOException
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).setRetainSourceValues (true);
+    final DDDXMLParserPool aPool = DDDXMLParserPool.getDefaultInstance ();
+
+    final List <Path> aFiles;
+    try (final Stream <Path> aStream = Files.walk (Paths.get ("src/test/resources/external")))
+    {
+      aFiles = aStream.filter (Files::isRegularFile).toList ();
+    }
+    int nCount = 0;
+    for (final Path aFile : aFiles)
+    {
+      final Document aDoc = aPool.parse (aFile);
+      final DocumentDetails aDD = aDoc == null ? null : aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+      if (aDD == null)
+        continue;
+
+      final String sStreamed = DocumentDetailsJsonWriter.getAsJsonString (aDD);
+      final IJsonObject aStreamed = JsonReader.builder ().source (sStreamed).readAsObject ();
+      assertNotNull (aFile.toString (), aStreamed);
+      assertEquals (aFile.toString (), aDD.getAsJson (), aStreamed);
+      nCount++;
+    }
+    assertTrue (nCount > 0);
+  }
+
+  @Test
+  public void testNDJSON () throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    final long nLines = DocumentDetailsJsonWriter.writeNDJSON (new CommonsArrayList <> (_createDD ("id1"),
+                                                                                        _createDD ("id2"),
+                                                                                        _createDD ("id3")),
+                                                               aSB);
+    assertEquals (3, nLines);
+
+    final String [] aLines = aSB.toString ().split ("\n");
+    assertEquals (3, aLines.length);
+    assertEquals (DocumentDetailsJsonWriter.getAsJsonString (_createDD ("id2")), aLines[1]);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.SimpleIdentifierFactory;
+import com.helger.xml.microdom.IMicroDocument;
+import com.helger.xml.microdom.IMicroElement;
+import com.helger.xml.microdom.serialize.MicroReader;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link DocumentDetailsStAXHelper}.
+ *
+ * @author Philip Helger
+ */
+public final class DocumentDetailsStAXHelperTest
+{
+  private static final IIdentifierFactory IF = SimpleIdentifierFactory.INSTANCE;
+
+  @NonNull
+  private static DocumentDetails _createDD (@NonNull final String sBDID)
+  {
+    return DocumentDetails.builder ()
+                          .syntaxID ("syn")
+                          .senderID (IF.parseParticipantIdentifier ("a::b"))
+                          .receiverID (IF.parseParticipantIdentifier ("c::def"))
+                          .documentTypeID (IF.parseDocumentTypeIdentifier ("bla::fo:o"))
+                          .processID (IF.parseProcessIdentifier ("pro::cess"))
+                          .businessDocumentID (sBDID)
+                          .senderName ("sn <&>")
+                          .vesid ("ves")
+                          .flags ("f1", "f2")
+                          .wrappers ("SBDH")
+                          .build ();
+  }
+
+  @NonNull
+  private static byte [] _write (@NonNull final ICommonsList <DocumentDetails> aDDs,
+                                 final String sNamespaceURI) throws XMLStreamException
+  {
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      assertEquals (aDDs.size (),
+                    DocumentDetailsStAXHelper.writeDocument (aDDs, aBAOS, sNamespaceURI, "List", "Item"));
+      return aBAOS.toByteArray ();
+    }
+  }
+
+  @Test
+  public void testRoundtrip () throws XMLStreamException
+  {
+    final ICommonsList <DocumentDetails> aDDs = new CommonsArrayList <> ();
+    aDDs.add (DocumentDetails.builder ().build ());
+    for (int i = 0; i < 10; ++i)
+      aDDs.add (_createDD ("id" + i));
+
+    for (final String sNamespaceURI : new String [] { null, "urn:test" })
+    {
+      final byte [] aBytes = _write (aDDs, sNamespaceURI);
+
+      final ICommonsList <DocumentDetails> aRead = new CommonsArrayList <> ();
+      final long nCount = DocumentDetailsStAXHelper.readDocument (new NonBlockingByteArrayInputStream (aBytes),
+                                                                  IF,
+                                                                  aRead::add);
+      assertEquals (aDDs.size (), nCount);
+      assertEquals (aDDs, aRead);
+    }
+  }
+
+  @Test
+  public void testCompatibleWithMicroDOM () throws XMLStreamException
+  {
+    final DocumentDetails aDD = _createDD ("id");
+    final byte [] aBytes = _write (new CommonsArrayList <> (aDD), null);
+
+    // Read with the tree based helper
+    final IMicroDocument aDoc = MicroReader.readMicroXML (new String (aBytes, StandardCharsets.UTF_8));
+    final IMicroElement eItem = aDoc.getDocumentElement ().getFirstChildElement ("Item");
+    assertEquals (aDD, DocumentDetailsXMLHelper.getAsDocumentDetails (eItem, IF));
+  }
+
+  @Test
+  public void testWhitespaceSameAsDOMReader () throws XMLStreamException
+  {
+    final String sXML = "<?xml version=\"1.0\"?><root><Item><BusinessDocumentID> id </BusinessDocumentID>" +
+                        "<Flag>\n  f1  \n</Flag><Flag> f2</Flag><Wrapper>\tSBDH </Wrapper></Item></root>";
+    final ICommonsList <DocumentDetails> aRead = new CommonsArrayList <> ();
+    DocumentDetailsStAXHelper.readDocument (new NonBlockingByteArrayInputStream (sXML.getBytes (StandardCharsets.UTF_8)),
+                                            IF,
+                                            aRead::add);
+    assertEquals (1, aRead.size ());
+    final DocumentDetails aDD = aRead.get (0);
+
+    // All values are kept as is
+    assertEquals (DocumentDetails.builder ()
+                                 .businessDocumentID (" id ")
+                                 .flags ("\n  f1  \n", " f2")
+                                 .wrappers ("\tSBDH ")
+                                 .build (),
+                  aDD);
+
+    // The W3C DOM reader behaves the same
+    final Element eDOMItem = (Element) DOMReader.readXMLDOM (sXML).getDocumentElement ().getFirstChild ();
+    assertEquals (aDD, DocumentDetailsXMLHelper.getAsDocumentDetails (eDOMItem, IF));
+
+    // The micro DOM reader always trimmed flags and wrappers
+    final IMicroElement eMicroItem = MicroReader.readMicroXML (sXML).getDocumentElement ().getFirstChildElement ("Item");
+    assertEquals (DocumentDetails.builder ()
+                                 .businessDocumentID (" id ")
+                                 .flags ("f1", "f2")
+                                 .wrappers ("SBDH")
+                                 .build (),
+                  DocumentDetailsXMLHelper.getAsDocumentDetails (eMicroItem, IF));
+
+    // And the written form reads back identically
+    final byte [] aBytes = _write (new CommonsArrayList <> (aDD), null);
+    final ICommonsList <DocumentDetails> aReRead = new CommonsArrayList <> ();
+    DocumentDetailsStAXHelper.readDocument (new NonBlockingByteArrayInputStream (aBytes), IF, aReRead::add);
+    assertEquals (new CommonsArrayList <> (aDD), aReRead);
+  }
+
+  @Test
+  public void testUnknownElementsIgnored () throws XMLStreamException
+  {
+    final String sXML = "<?xml version=\"1.0\"?><root><x><Unknown><Nested>a</Nested></Unknown><VESID>v</VESID>" +
+                        "<Flag> f </Flag></x></root>";
+    final ICommonsList <DocumentDetails> aRead = new CommonsArrayList <> ();
+    DocumentDetailsStAXHelper.readDocument (new NonBlockingByteArrayInputStream (sXML.getBytes (StandardCharsets.UTF_8)),
+                                            IF,
+                                            aRead::add);
+    assertEquals (1, aRead.size ());
+    assertEquals ("v", aRead.get (0).getVESID ());
+    assertTrue (aRead.get (0).hasFlag (" f "));
+  }
+}
@@ -18,8 +18,10 @@ package com.helger.ddd;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.jspecify.annotations.NonNull;
@@ -27,8 +29,12 @@ import org.junit.Test;
 import org.w3c.dom.Element;
 
 import com.helger.base.system.ENewLineMode;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsHashMap;
 import com.helger.collection.commons.CommonsLinkedHashSet;
+import com.helger.ddd.model.EDDDSourceField;
 import com.helger.peppolid.factory.IIdentifierFactory;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
 import com.helger.peppolid.factory.SimpleIdentifierFactory;
 import com.helger.xml.XMLFactory;
 import com.helger.xml.microdom.IMicroElement;
@@ -284,4 +290,131 @@ public final class DocumentDetailsTest
     assertNotNull (aDD2);
     assertEquals (aDD, aDD2);
   }
+
+  @Test
+  public void testIdentifiersFromParts ()
+  {
+    final IIdentifierFactory aIF = SimpleIdentifierFactory.INSTANCE;
+    final DocumentDetails aDD = DocumentDetails.builder ()
+                                               .identifierFactory (aIF)
+                                               .senderID ("a", "b")
+                                               .receiverID ("c", "def")
+                                               .documentTypeID ("bla", "fo:o")
+                                               .processID ("pro", "cess")
+                                               .businessDocumentID ("id")
+                                               .senderName ("sn")
+                                               .senderCountryCode ("sc")
+                                               .receiverName ("rn")
+                                               .receiverCountryCode ("rc")
+                                               .vesid ("ves")
+                                               .profileName ("pn")
+                                               .flags ("f1", "f2")
+                                               .build ();
+    // Equal to the version with eagerly created identifiers
+    assertEquals (_createDD (), aDD);
+    assertEquals (_createDD ().hashCode (), aDD.hashCode ());
+
+    assertTrue (aDD.hasSenderID ());
+    assertEquals ("b", aDD.getSenderID ().getValue ());
+    // Created once in build
+    assertSame (aDD.getSenderID (), aDD.getSenderID ());
+    assertSame (aDD.getDocumentTypeID (), aDD.getDocumentTypeID ());
+
+    // Copy keeps everything
+    assertEquals (aDD, DocumentDetails.builder (aDD).build ());
+
+    // Null value means no identifier
+    final DocumentDetails aDD2 = DocumentDetails.builder ().senderID ("a", null).build ();
+    assertFalse (aDD2.hasSenderID ());
+    assertNull (aDD2.getSenderID ());
+
+    // Rejected by the identifier factory means no identifier
+    final DocumentDetails aDD3 = DocumentDetails.builder ()
+                                                .identifierFactory (PeppolIdentifierFactory.INSTANCE)
+                                                .senderID ("iso6523-actorid-upis", "9".repeat (200))
+                                                .build ();
+    assertFalse (aDD3.hasSenderID ());
+    assertNull (aDD3.getSenderID ());
+  }
+
+  @Test
+  public void testFlagsAndWrappers ()
+  {
+    final DocumentDetails aDD = DocumentDetails.builder ()
+                                               .flags ("f1", "f2", "f1")
+                                               .wrappers ("SBDH", "XHE")
+                                               .build ();
+    assertEquals (2, aDD.getFlagCount ());
+    assertTrue (aDD.hasFlag ("f1"));
+    assertTrue (aDD.hasFlag ("f2"));
+    assertFalse (aDD.hasFlag ("f3"));
+    assertFalse (aDD.hasFlag (null));
+    assertEquals (2, aDD.getWrapperCount ());
+    assertEquals (new CommonsArrayList <> ("SBDH", "XHE"), aDD.getAllWrappers ());
+
+    // Flag order is not relevant for equality
+    assertEquals (aDD, DocumentDetails.builder ().flags ("f2", "f1").wrappers ("SBDH", "XHE").build ());
+    // Wrapper order is relevant for equality
+    assertNotEquals (aDD, DocumentDetails.builder ().flags ("f1", "f2").wrappers ("XHE", "SBDH").build ());
+  }
+
+  @Test
+  @SuppressWarnings ("removal")
+  public void testDeprecatedFlagsAndWrappersAreCopies ()
+  {
+    final DocumentDetails aDD = DocumentDetails.builder ().flags ("f1").wrappers ("SBDH").build ();
+    aDD.flags ().add ("f2");
+    aDD.wrappers ().add ("XHE");
+    assertEquals (new CommonsLinkedHashSet <> ("f1"), aDD.getAllFlags ());
+    assertEquals (new CommonsArrayList <> ("SBDH"), aDD.getAllWrappers ());
+  }
+
+  @Test
+  public void testSourceValues ()
+  {
+    final DocumentDetails aDDNone = DocumentDetails.builder ().vesid ("ves").build ();
+    assertFalse (aDDNone.hasSourceValues ());
+    assertNull (aDDNone.getSourceValue (EDDDSourceField.CUSTOMIZATION_ID));
+    assertTrue (aDDNone.getAllSourceValues ().isEmpty ());
+
+    final DocumentDetails aDD = DocumentDetails.builder ()
+                                               .vesid ("ves")
+                                               .sourceValue (EDDDSourceField.CUSTOMIZATION_ID, "cust")
+                                               .sourceValue (EDDDSourceField.SENDER_NAME, "sn <&>")
+                                               .build ();
+    assertTrue (aDD.hasSourceValues ());
+    assertEquals ("cust", aDD.getSourceValue (EDDDSourceField.CUSTOMIZATION_ID));
+    assertNull (aDD.getSourceValue (EDDDSourceField.PROCESS_ID));
+    assertNull (aDD.getSourceValue (null));
+    assertEquals (2, aDD.getAllSourceValues ().size ());
+    assertNotEquals (aDDNone, aDD);
+    assertEquals (aDD, DocumentDetails.builder (aDD).build ());
+
+    // Retained but without any value
+    final DocumentDetails aDDEmpty = DocumentDetails.builder ().sourceValues (new CommonsHashMap <> ()).build ();
+    assertTrue (aDDEmpty.hasSourceValues ());
+
+    final IIdentifierFactory aIF = SimpleIdentifierFactory.INSTANCE;
+    for (final DocumentDetails aCur : new DocumentDetails [] { aDDNone, aDD, aDDEmpty })
+    {
+      // JSON
+      assertEquals (aCur, DocumentDetailsJsonHelper.getAsDocumentDetails (aCur.getAsJson (), aIF));
+      assertEquals (aCur.getAsJson ().getAsJsonString (), DocumentDetailsJsonWriter.getAsJsonString (aCur));
+
+      // Micro DOM
+      final IMicroElement eRoot = new MicroElement ("root");
+      aCur.appendToMicroElement (eRoot);
+      assertEquals (aCur, DocumentDetailsXMLHelper.getAsDocumentDetails (eRoot, aIF));
+
+      // DOM
+      final var aDoc = XMLFactory.newDocument ();
+      final Element eDOMRoot = (Element) aDoc.appendChild (aDoc.createElement ("root"));
+      aCur.appendToDOMElement (eDOMRoot);
+      assertEquals (aCur, DocumentDetailsXMLHelper.getAsDocumentDetails (eDOMRoot, aIF));
+
+      // Binary
+      assertEquals (aCur,
+                    DocumentDetailsBinaryReader.getAsDocumentDetails (DocumentDetailsBinaryWriter.getAsBytes (aCur), aIF));
+    }
+  }
 }
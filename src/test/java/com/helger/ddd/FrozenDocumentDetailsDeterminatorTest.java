@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.io.resource.ClassPathResource;
+import com.helger.peppolid.factory.PeppolIdentifierFactory;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link FrozenDocumentDetailsDeterminator}.
+ *
+ * @author Philip Helger
+ */
+public final class FrozenDocumentDetailsDeterminatorTest
+{
+  @Test
+  public void testBuilder () throws Exception
+  {
+    final FrozenDocumentDetailsDeterminator.Builder aBuilder = FrozenDocumentDetailsDeterminator.builder (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                                                           DDDValueProviderList.getDefaultValueProviderList ())
+                                                                                                  .identifierFactory (PeppolIdentifierFactory.INSTANCE)
+                                                                                                  .addDefaultUnwrappers ();
+    final FrozenDocumentDetailsDeterminator aFrozen = aBuilder.build ();
+    assertEquals (2, aFrozen.getAllUnwrappers ().size ());
+    assertTrue (aFrozen.getIdentifierFactory () instanceof PeppolIdentifierFactory);
+
+    // Modifying the builder afterwards has no effect
+    aBuilder.retainSourceValues (true).participantIDScheme ("other");
+    assertTrue (aBuilder.build ().isRetainSourceValues ());
+    assertEquals (DocumentDetailsDeterminator.DEFAULT_PARTICIPANT_ID_SCHEME, aFrozen.getParticipantIDScheme ());
+
+    final Document aDoc = DOMReader.readXMLDOM (new ClassPathResource ("external/ubl2-invoice/good/base-example.xml"));
+    assertNotNull (aDoc);
+    final DocumentDetails aExpected = aFrozen.getAsMutableCopy ().findDocumentDetails (aDoc.getDocumentElement ());
+    assertNotNull (aExpected);
+    assertFalse (aExpected.hasSourceValues ());
+
+    // Share between threads
+    final ExecutorService aES = Executors.newFixedThreadPool (4);
+    try
+    {
+      final ICommonsList <Future <DocumentDetails>> aFutures = new CommonsArrayList <> ();
+      for (int i = 0; i < 16; ++i)
+        aFutures.add (aES.submit ( () -> aFrozen.findDocumentDetails (DOMReader.readXMLDOM (new ClassPathResource ("external/ubl2-invoice/good/base-example.xml"))
+                                                                               .getDocumentElement ())));
+      for (final Future <DocumentDetails> aFuture : aFutures)
+        assertEquals (aExpected, aFuture.get ());
+    }
+    finally
+    {
+      aES.shutdown ();
+      assertTrue (aES.awaitTermination (10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testCreateFrozenCopy ()
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    final FrozenDocumentDetailsDeterminator aFrozen = FrozenDocumentDetailsDeterminator.createFrozenCopy (aDDD);
+    assertEquals (0, aFrozen.getAllUnwrappers ().size ());
+
+    // Modifying the source has no effect
+    aDDD.addDefaultUnwrappers ().setParticipantIDScheme ("other");
+    assertEquals (0, aFrozen.getAllUnwrappers ().size ());
+    assertEquals (DocumentDetailsDeterminator.DEFAULT_PARTICIPANT_ID_SCHEME, aFrozen.getParticipantIDScheme ());
+    assertEquals (2, FrozenDocumentDetailsDeterminator.createFrozenCopy (aDDD).getAllUnwrappers ().size ());
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.diagnostics.error.list.ErrorList;
+import com.helger.io.file.FileSystemIterator;
+import com.helger.io.file.IFileFilter;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link DDDSourceValueExtractorHeader}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDSourceValueExtractorHeaderTest
+{
+  /**
+   * Check that the extractor of the provided syntax returns the same values as the XPath getters
+   * for all good test files of the syntax.
+   *
+   * @param aSyntax
+   *        The syntax to check.
+   * @return The number of files read.
+   */
+  private static int _checkSameValuesAsXPath (final DDDSyntax aSyntax)
+  {
+    final IDDDSourceValueExtractor aExtractor = aSyntax.getSourceValueExtractor ();
+    assertTrue (aSyntax.getID (), aExtractor instanceof DDDSourceValueExtractorHeader);
+
+    int nFilesRead = 0;
+    for (final File f : new FileSystemIterator ("src/test/resources/external/" + aSyntax.getID () + "/good")
+                                                                                                             .withFilter (IFileFilter.filenameEndsWith (".xml")))
+    {
+      final Document aDoc = DOMReader.readXMLDOM (f);
+      assertNotNull (f.toString (), aDoc);
+      final Element aRoot = aDoc.getDocumentElement ();
+
+      final Map <EDDDSourceField, String> aExpected = new EnumMap <> (EDDDSourceField.class);
+      for (final EDDDSourceField eField : EDDDSourceField.values ())
+      {
+        final String sValue = aSyntax.getValue (eField, aRoot, new ErrorList ());
+        if (sValue != null)
+          aExpected.put (eField, sValue);
+      }
+
+      final Map <EDDDSourceField, String> aActual = new EnumMap <> (EDDDSourceField.class);
+      aExtractor.extractSourceValues (aRoot, (k, v) -> assertNull (aActual.put (k, v)), new ErrorList ());
+      assertEquals (f.toString (), aExpected, aActual);
+      nFilesRead++;
+    }
+    return nFilesRead;
+  }
+
+  @Test
+  public void testStopElements ()
+  {
+    final DDDSyntaxList aSL = DDDSyntaxList.getDefaultSyntaxList ();
+    final Map <String, Set <String>> aExpected = Map.of ("cii",
+                                                         Set.of ("ApplicableHeaderTradeDelivery",
+                                                                 "ApplicableHeaderTradeSettlement"),
+                                                         "zugferd1",
+                                                         Set.of ("ApplicableSupplyChainTradeDelivery",
+                                                                 "ApplicableSupplyChainTradeSettlement"),
+                                                         "fatturapa-12",
+                                                         Set.of (),
+                                                         "ksef-fa1",
+                                                         Set.of ("Adnotacje"),
+                                                         "ksef-fa2",
+                                                         Set.of ("Adnotacje"),
+                                                         "ksef-fa3",
+                                                         Set.of ("Adnotacje"),
+                                                         "peppol-eusr",
+                                                         Set.of ("Header"),
+                                                         "peppol-tsr",
+                                                         Set.of ("Header"));
+    for (final Map.Entry <String, Set <String>> aEntry : aExpected.entrySet ())
+    {
+      final DDDSyntax aSyntax = aSL.getSyntaxOfID (aEntry.getKey ());
+      assertSame (aEntry.getKey (), EDDDExtractorType.HEADER, aSyntax.getExtractorType ());
+      assertEquals (aEntry.getValue (), Set.copyOf (aSyntax.getAllStopElements ()));
+
+      final IDDDSourceValueExtractor aExtractor = aSyntax.getSourceValueExtractor ();
+      assertTrue (aExtractor instanceof DDDSourceValueExtractorHeader);
+      assertEquals (aEntry.getValue (), ((DDDSourceValueExtractorHeader) aExtractor).getAllStopElements ());
+      for (final String sStopElement : aEntry.getValue ())
+      {
+        // Independent of the depth
+        assertTrue (((DDDSourceValueExtractorHeader) aExtractor).isStopElement (1, sStopElement));
+        assertTrue (((DDDSourceValueExtractorHeader) aExtractor).isStopElement (3, sStopElement));
+      }
+      assertFalse (((DDDSourceValueExtractorHeader) aExtractor).isStopElement (1, "Other"));
+    }
+  }
+
+  @Test
+  public void testStopElementsOnlyForHeader ()
+  {
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsEnumMap <> (EDDDSourceField.class);
+    aGetters.put (EDDDSourceField.CUSTOMIZATION_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='CustomizationID']/text()")));
+    final ICommonsList <String> aStopElements = new CommonsArrayList <> ("Header");
+
+    final DDDSyntax aSyntax = new DDDSyntax ("id",
+                                             "urn:test",
+                                             "Root",
+                                             "Name",
+                                             null,
+                                             aGetters,
+                                             EDDDExtractorType.HEADER,
+                                             aStopElements);
+    assertEquals (aStopElements, aSyntax.getAllStopElements ());
+
+    for (final EDDDExtractorType eType : EDDDExtractorType.values ())
+      if (!eType.isSupportsStopElements ())
+        try
+        {
+          new DDDSyntax ("id", "urn:test", "Root", "Name", null, aGetters, eType, aStopElements);
+          fail ("Stop elements are not supported by " + eType);
+        }
+        catch (final IllegalArgumentException ex)
+        {
+          // expected
+        }
+  }
+
+  @Test
+  public void testEbInterface ()
+  {
+    int nSyntaxes = 0;
+    int nFilesRead = 0;
+    for (final DDDSyntax aSyntax : DDDSyntaxList.getDefaultSyntaxList ().getAllSyntaxes ().values ())
+      if (aSyntax.getID ().startsWith ("ebinterface-"))
+      {
+        nSyntaxes++;
+        assertSame (aSyntax.getID (), EDDDExtractorType.HEADER, aSyntax.getExtractorType ());
+        assertEquals (Set.of ("Details"), Set.copyOf (aSyntax.getAllStopElements ()));
+        nFilesRead += _checkSameValuesAsXPath (aSyntax);
+      }
+    assertEquals (9, nSyntaxes);
+    assertTrue (nFilesRead >= 9);
+  }
+
+  @Test
+  public void testCII ()
+  {
+    final DDDSyntaxList aSL = DDDSyntaxList.getDefaultSyntaxList ();
+    assertSame (EDDDExtractorType.HEADER, aSL.getSyntaxOfID ("zugferd1").getExtractorType ());
+
+    final DDDSyntax aSyntax = aSL.getSyntaxOfID ("cii");
+    assertSame (EDDDExtractorType.HEADER, aSyntax.getExtractorType ());
+    final DDDSourceValueExtractorHeader aExtractor = (DDDSourceValueExtractorHeader) aSyntax.getSourceValueExtractor ();
+    assertTrue (aExtractor.isStopElement (2, "ApplicableHeaderTradeDelivery"));
+    assertFalse (aExtractor.isStopElement (2, "IncludedSupplyChainTradeLineItem"));
+    assertTrue (_checkSameValuesAsXPath (aSyntax) > 0);
+  }
+
+  @Test
+  public void testTaxData ()
+  {
+    final DDDSyntaxList aSL = DDDSyntaxList.getDefaultSyntaxList ();
+    for (final String sID : new String [] { "peppol-tdd", "peppol-om-tdd", "peppol-sk-tdd", "peppol-vida-tdd" })
+    {
+      final DDDSyntax aSyntax = aSL.getSyntaxOfID (sID);
+      assertSame (sID, EDDDExtractorType.HEADER, aSyntax.getExtractorType ());
+      assertEquals (Set.of ("ReportedTransaction"), Set.copyOf (aSyntax.getAllStopElements ()));
+    }
+    assertTrue (_checkSameValuesAsXPath (aSL.getSyntaxOfID ("peppol-om-tdd")) > 0);
+  }
+
+  @Test
+  public void testSameValuesAsXPath ()
+  {
+    final DDDSyntaxList aSL = DDDSyntaxList.getDefaultSyntaxList ();
+    for (final String sID : new String [] { "cii",
+                                            "fatturapa-12",
+                                            "ksef-fa1",
+                                            "ksef-fa2",
+                                            "ksef-fa3",
+                                            "peppol-eusr",
+                                            "peppol-tsr" })
+      assertTrue (sID, _checkSameValuesAsXPath (aSL.getSyntaxOfID (sID)) > 0);
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.parse.DDDPrunedDocumentBuilder;
+import com.helger.ddd.parse.DDDXMLParserPool;
+import com.helger.diagnostics.error.IError;
+import com.helger.diagnostics.error.list.ErrorList;
+import com.helger.io.file.FileSystemIterator;
+import com.helger.io.file.IFileFilter;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link DDDSourceValueExtractorSimplePath} and all its subclasses.
+ *
+ * @author Philip Helger
+ */
+public final class DDDSourceValueExtractorSimplePathTest
+{
+  private static Map <EDDDSourceField, String> _extract (final IDDDSourceValueExtractor aExtractor,
+                                                         final Element aElement)
+  {
+    final Map <EDDDSourceField, String> ret = new EnumMap <> (EDDDSourceField.class);
+    aExtractor.extractSourceValues (aElement, (f, v) -> assertNull (ret.put (f, v)), new ErrorList ());
+    return ret;
+  }
+
+  private static Map <EDDDSourceField, String> _getAllValues (final DDDSyntax aSyntax, final Element aElement)
+  {
+    final Map <EDDDSourceField, String> ret = new EnumMap <> (EDDDSourceField.class);
+    for (final EDDDSourceField eField : EDDDSourceField.values ())
+    {
+      final String sValue = aSyntax.getValue (eField, aElement, new ErrorList ());
+      if (sValue != null)
+        ret.put (eField, sValue);
+    }
+    return ret;
+  }
+
+  @Test
+  public void testSameValuesAsXPath () throws Exception
+  {
+    final DDDSyntaxList aSL = DDDSyntaxList.getDefaultSyntaxList ();
+    final DDDPrunedDocumentBuilder aPrunedBuilder = new DDDPrunedDocumentBuilder (new DocumentDetailsDeterminator (aSL,
+                                                                                                                  DDDValueProviderList.getDefaultValueProviderList ()));
+    final Map <EDDDExtractorType, int []> aFilesPerType = new EnumMap <> (EDDDExtractorType.class);
+
+    // All syntaxes with an extractor and all their test files
+    for (final DDDSyntax aSyntax : aSL.getAllSyntaxes ().values ())
+    {
+      final IDDDSourceValueExtractor aExtractor = aSyntax.getSourceValueExtractor ();
+      if (aExtractor == null)
+        continue;
+      assertTrue (aSyntax.getID (), aExtractor instanceof DDDSourceValueExtractorSimplePath);
+
+      final File aDir = new File ("src/test/resources/external/" + aSyntax.getID () + "/good");
+      if (!aDir.isDirectory ())
+        continue;
+
+      for (final File f : new FileSystemIterator (aDir).withFilter (IFileFilter.filenameEndsWith (".xml")))
+      {
+        final Document aDoc = DOMReader.readXMLDOM (f);
+        assertNotNull (f.toString (), aDoc);
+        final Map <EDDDSourceField, String> aExpected = _getAllValues (aSyntax, aDoc.getDocumentElement ());
+
+        // DOM based
+        assertEquals (f.toString (), aExpected, _extract (aExtractor, aDoc.getDocumentElement ()));
+
+        // Streaming, stopping at the first stop element
+        try (final InputStream aIS = new FileInputStream (f))
+        {
+          final Document aPrunedDoc = aPrunedBuilder.build (aIS, DDDXMLParserPool.getDefaultInstance ());
+          assertNotNull (f.toString (), aPrunedDoc);
+          assertEquals (f.toString (), aExpected, _getAllValues (aSyntax, aPrunedDoc.getDocumentElement ()));
+          assertEquals (f.toString (), aExpected, _extract (aExtractor, aPrunedDoc.getDocumentElement ()));
+        }
+
+        aFilesPerType.computeIfAbsent (aSyntax.getExtractorType (), k -> new int [1])[0]++;
+      }
+    }
+
+    // Each extractor type is covered
+    for (final EDDDExtractorType eType : EDDDExtractorType.values ())
+      if (eType != EDDDExtractorType.XPATH)
+        assertTrue (eType.getID (), aFilesPerType.containsKey (eType));
+  }
+
+  @Test
+  public void testSemantics ()
+  {
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsEnumMap <> (EDDDSourceField.class);
+    aGetters.put (EDDDSourceField.CUSTOMIZATION_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='CustomizationID']/text()")));
+    // Duplicate element - no value
+    aGetters.put (EDDDSourceField.PROCESS_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='ProfileID']/text()"),
+                                           new DDDGetterXPath ("'fallback'")));
+    // Positional predicate
+    aGetters.put (EDDDSourceField.SENDER_NAME,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='Party'][2]/*[local-name()='Name']/text()")));
+    aGetters.put (EDDDSourceField.SENDER_ID_SCHEME,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='Party'][1]" +
+                                                               "/*[local-name()='EndpointID']/@schemeID")));
+    final DDDSyntax aSyntax = new DDDSyntax ("test", "urn:test", "Root", "Test", null, aGetters, EDDDExtractorType.HEADER);
+
+    final Document aDoc = DOMReader.readXMLDOM ("<Root xmlns='urn:test'>" +
+                                                "<CustomizationID> cust<![CDATA[1]]> </CustomizationID>" +
+                                                "<ProfileID>a</ProfileID><ProfileID>b</ProfileID>" +
+                                                "<Party><EndpointID schemeID='0088'>x</EndpointID><Name>n1</Name></Party>" +
+                                                "<Party><Name>n2</Name></Party>" +
+                                                "</Root>");
+    assertNotNull (aDoc);
+    final Element aRoot = aDoc.getDocumentElement ();
+    final Map <EDDDSourceField, String> aValues = _extract (aSyntax.getSourceValueExtractor (), aRoot);
+    assertEquals (_getAllValues (aSyntax, aRoot), aValues);
+    assertEquals ("fallback", aValues.get (EDDDSourceField.PROCESS_ID));
+    assertEquals ("n2", aValues.get (EDDDSourceField.SENDER_NAME));
+    assertEquals ("0088", aValues.get (EDDDSourceField.SENDER_ID_SCHEME));
+    assertNotNull (aValues.get (EDDDSourceField.CUSTOMIZATION_ID));
+  }
+
+  @Test
+  public void testDuplicateElements ()
+  {
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsEnumMap <> (EDDDSourceField.class);
+    aGetters.put (EDDDSourceField.CUSTOMIZATION_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='CustomizationID']/text()")));
+    // Repeatable element below a unique element
+    aGetters.put (EDDDSourceField.SENDER_ID_VALUE,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='Party']/*[local-name()='URI']/*[local-name()='ID']/text()")));
+    aGetters.put (EDDDSourceField.SENDER_NAME,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='Party']/*[local-name()='Name']/text()")));
+    final DDDSyntax aSyntax = new DDDSyntax ("test", "urn:test", "Root", "Test", null, aGetters, EDDDExtractorType.HEADER);
+    final IDDDSourceValueExtractor aExtractor = aSyntax.getSourceValueExtractor ();
+
+    // Each duplicate is a different node - no value and an error per getter
+    final Document aDoc = DOMReader.readXMLDOM ("<Root xmlns='urn:test'>" +
+                                                "<CustomizationID>a</CustomizationID><CustomizationID>b</CustomizationID>" +
+                                                "<Party><Name>n</Name><URI><ID>1</ID></URI><URI><ID>2</ID></URI></Party>" +
+                                                "</Root>");
+    assertNotNull (aDoc);
+    final Element aRoot = aDoc.getDocumentElement ();
+    final ErrorList aErrorList = new ErrorList ();
+    final Map <EDDDSourceField, String> aValues = new EnumMap <> (EDDDSourceField.class);
+    aExtractor.extractSourceValues (aRoot, aValues::put, aErrorList);
+    assertEquals (_getAllValues (aSyntax, aRoot), aValues);
+    assertEquals (Map.of (EDDDSourceField.SENDER_NAME, "n"), aValues);
+    assertEquals (2, aErrorList.size ());
+    for (final IError aError : aErrorList)
+      assertTrue (aError.getAsString (Locale.US).contains ("a NodeSet with 2 elements"));
+
+    // Multiple text nodes separated by an element count as multiple nodes as well
+    final Document aDoc2 = DOMReader.readXMLDOM ("<Root xmlns='urn:test'><CustomizationID>a<x/>b</CustomizationID></Root>");
+    assertNotNull (aDoc2);
+    assertEquals (_getAllValues (aSyntax, aDoc2.getDocumentElement ()), _extract (aExtractor, aDoc2.getDocumentElement ()));
+    assertNull (_extract (aExtractor, aDoc2.getDocumentElement ()).get (EDDDSourceField.CUSTOMIZATION_ID));
+  }
+
+  @Test
+  public void testStopElement ()
+  {
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsEnumMap <> (EDDDSourceField.class);
+    aGetters.put (EDDDSourceField.CUSTOMIZATION_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='Header']/*[local-name()='ID']/text()")));
+    aGetters.put (EDDDSourceField.BUSINESS_DOCUMENT_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='Trailer']/*[local-name()='ID']/text()")));
+    final DDDSyntax aSyntax = new DDDSyntax ("test",
+                                             "urn:test",
+                                             "Root",
+                                             "Test",
+                                             null,
+                                             aGetters,
+                                             EDDDExtractorType.HEADER,
+                                             new CommonsArrayList <> ("Stop"));
+
+    // The nested stop element ends the complete scan - the trailer is never read
+    final Document aDoc = DOMReader.readXMLDOM ("<Root xmlns='urn:test'>" +
+                                                "<Header><Other/><Stop/><ID>late</ID></Header>" +
+                                                "<Trailer><ID>t</ID></Trailer>" +
+                                                "</Root>");
+    assertNotNull (aDoc);
+    final Element aRoot = aDoc.getDocumentElement ();
+    assertEquals (Map.of (), _extract (aSyntax.getSourceValueExtractor (), aRoot));
+
+    // The generic extractor never stops and returns the same as XPath
+    final IDDDSourceValueExtractor aGeneric = new DDDSourceValueExtractorSimplePath (aSyntax.getGettersView ());
+    assertEquals (_getAllValues (aSyntax, aRoot), _extract (aGeneric, aRoot));
+    assertEquals (2, _extract (aGeneric, aRoot).size ());
+
+    // A stop element after the last getter element does not change the result
+    final Document aDoc2 = DOMReader.readXMLDOM ("<Root xmlns='urn:test'>" +
+                                                 "<Header><ID>h</ID></Header>" +
+                                                 "<Trailer><ID>t</ID><Stop/></Trailer>" +
+                                                 "</Root>");
+    assertNotNull (aDoc2);
+    assertEquals (2, _extract (aSyntax.getSourceValueExtractor (), aDoc2.getDocumentElement ()).size ());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testUnsupportedGetter ()
+  {
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsEnumMap <> (EDDDSourceField.class);
+    aGetters.put (EDDDSourceField.CUSTOMIZATION_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("//*[local-name()='CustomizationID']/text()")));
+    new DDDSyntax ("test", "urn:test", "Root", "Test", null, aGetters, EDDDExtractorType.HEADER);
+  }
+}
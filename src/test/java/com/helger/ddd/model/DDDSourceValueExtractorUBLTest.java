@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+import com.helger.diagnostics.error.list.ErrorList;
+import com.helger.xml.serialize.read.DOMReader;
+
+/**
+ * Test class for class {@link DDDSourceValueExtractorUBL}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDSourceValueExtractorUBLTest
+{
+  @Test
+  public void testLineElementHeuristic ()
+  {
+    final ICommonsMap <EDDDSourceField, ICommonsList <IDDDGetter>> aGetters = new CommonsEnumMap <> (EDDDSourceField.class);
+    aGetters.put (EDDDSourceField.CUSTOMIZATION_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='CustomizationID']/text()")));
+    aGetters.put (EDDDSourceField.SENDER_COUNTRY_CODE,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='AccountingSupplierParty']" +
+                                                               "/*[local-name()='Party']" +
+                                                               "/*[local-name()='PostalAddress']" +
+                                                               "/*[local-name()='Country']" +
+                                                               "/*[local-name()='IdentificationCode']/text()")));
+    aGetters.put (EDDDSourceField.BUSINESS_DOCUMENT_ID,
+                  new CommonsArrayList <> (new DDDGetterXPath ("*[local-name()='ID']/text()")));
+    final DDDSyntax aSyntax = new DDDSyntax ("test", "urn:test", "Root", "Test", null, aGetters, EDDDExtractorType.UBL);
+    final DDDSourceValueExtractorUBL aExtractor = (DDDSourceValueExtractorUBL) aSyntax.getSourceValueExtractor ();
+
+    // All root children ending with "Line"
+    assertTrue (aExtractor.isStopElement (1, "InvoiceLine"));
+    assertTrue (aExtractor.isStopElement (1, "CreditNoteLine"));
+    assertTrue (aExtractor.isStopElement (1, "OrderLine"));
+    assertTrue (aExtractor.isStopElement (1, "DespatchLine"));
+    // Case sensitive
+    assertFalse (aExtractor.isStopElement (1, "Deadline"));
+    assertFalse (aExtractor.isStopElement (1, "LineCountNumeric"));
+    // Only root children
+    assertFalse (aExtractor.isStopElement (2, "AddressLine"));
+    assertFalse (aExtractor.isStopElement (4, "AddressLine"));
+
+    // AddressLine precedes Country and must not stop the scan
+    final Document aDoc = DOMReader.readXMLDOM ("<Root xmlns='urn:test'>" +
+                                                "<CustomizationID>c</CustomizationID>" +
+                                                "<LineCountNumeric>1</LineCountNumeric>" +
+                                                "<AccountingSupplierParty><Party><PostalAddress>" +
+                                                "<AddressLine><Line>street</Line></AddressLine>" +
+                                                "<Country><IdentificationCode>AT</IdentificationCode></Country>" +
+                                                "</PostalAddress></Party></AccountingSupplierParty>" +
+                                                "<InvoiceLine><ID>1</ID></InvoiceLine>" +
+                                                "<ID>after the first line</ID>" +
+                                                "</Root>");
+    assertNotNull (aDoc);
+    final Map <EDDDSourceField, String> aValues = new EnumMap <> (EDDDSourceField.class);
+    aExtractor.extractSourceValues (aDoc.getDocumentElement (), aValues::put, new ErrorList ());
+    assertEquals (Map.of (EDDDSourceField.CUSTOMIZATION_ID, "c", EDDDSourceField.SENDER_COUNTRY_CODE, "AT"), aValues);
+  }
+}
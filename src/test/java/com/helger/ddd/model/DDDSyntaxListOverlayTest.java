@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsMap;
+
+/**
+ * Test class for class {@link DDDSyntaxListOverlay}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDSyntaxListOverlayTest
+{
+  private static final String NS_CII = "urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100";
+
+  @NonNull
+  private static DDDSyntaxList _createLayer (@NonNull final DDDSyntax... aSyntaxes)
+  {
+    final ICommonsMap <String, DDDSyntax> aMap = new CommonsHashMap <> ();
+    for (final DDDSyntax aSyntax : aSyntaxes)
+      aMap.put (aSyntax.getID (), aSyntax);
+    return new DDDSyntaxList (LocalDate.of (2030, 1, 1), aMap);
+  }
+
+  private static void _testLookups (@NonNull final IDDDSyntaxList aList,
+                                    @NonNull final DDDSyntax aTenantCII,
+                                    @NonNull final DDDSyntax aTenantNew)
+  {
+    // Replaced
+    assertSame (aTenantCII, aList.getSyntaxOfID ("cii"));
+    assertNull (aList.findMatchingSyntax (NS_CII, "CrossIndustryInvoice"));
+    assertSame (aTenantCII, aList.findMatchingSyntax ("urn:tenant:cii", "CrossIndustryInvoice"));
+
+    // Added
+    assertSame (aTenantNew, aList.getSyntaxOfID ("tenant-new"));
+    assertSame (aTenantNew, aList.findMatchingSyntax ("urn:tenant:new", "Root"));
+
+    // Inherited from the base
+    final DDDSyntax aBaseInvoice = DDDSyntaxList.getDefaultSyntaxList ().getSyntaxOfID ("ubl2-invoice");
+    assertSame (aBaseInvoice, aList.getSyntaxOfID ("ubl2-invoice"));
+    assertSame (aBaseInvoice,
+                aList.findMatchingSyntax (aBaseInvoice.getRootElementNamespaceURI (),
+                                          aBaseInvoice.getRootElementLocalName ()));
+
+    assertNull (aList.getSyntaxOfID ("does-not-exist"));
+    assertNull (aList.findMatchingSyntax (null, "Root"));
+    assertEquals (DDDSyntaxList.getDefaultSyntaxList ().getAllSyntaxes ().size () + 1, aList.getAllSyntaxes ().size ());
+    assertEquals (LocalDate.of (2030, 1, 1), aList.getLastModification ());
+  }
+
+  @Test
+  public void testLayersFirst ()
+  {
+    final DDDSyntaxList aBase = DDDSyntaxList.getDefaultSyntaxList ();
+    final DDDSyntax aBaseCII = aBase.getSyntaxOfID ("cii");
+    final DDDSyntax aTenantCII = new DDDSyntax ("cii",
+                                                "urn:tenant:cii",
+                                                "CrossIndustryInvoice",
+                                                "Tenant CII",
+                                                null,
+                                                aBaseCII.getAllGetters ());
+    final DDDSyntax aTenantNew = new DDDSyntax ("tenant-new",
+                                                "urn:tenant:new",
+                                                "Root",
+                                                "Tenant specific",
+                                                "1.0",
+                                                aBaseCII.getAllGetters ());
+
+    final DDDSyntaxListOverlay aOverlay = new DDDSyntaxListOverlay (aBase,
+                                                                    EDDDOverlayPrecedence.LAYERS_FIRST,
+                                                                    _createLayer (aTenantCII),
+                                                                    _createLayer (aTenantNew));
+    assertFalse (aOverlay.isCompiled ());
+    assertEquals (2, aOverlay.getLayerCount ());
+    _testLookups (aOverlay, aTenantCII, aTenantNew);
+
+    final DDDSyntaxListOverlay aCompiled = aOverlay.getCompiled ();
+    assertTrue (aCompiled.isCompiled ());
+    assertSame (aCompiled, aCompiled.getCompiled ());
+    _testLookups (aCompiled, aTenantCII, aTenantNew);
+
+    // The base is unchanged
+    assertSame (aBaseCII, aBase.findMatchingSyntax (NS_CII, "CrossIndustryInvoice"));
+  }
+
+  @Test
+  public void testBaseFirst ()
+  {
+    final DDDSyntaxList aBase = DDDSyntaxList.getDefaultSyntaxList ();
+    final DDDSyntax aBaseCII = aBase.getSyntaxOfID ("cii");
+    final DDDSyntax aTenantCII = new DDDSyntax ("cii",
+                                                "urn:tenant:cii",
+                                                "CrossIndustryInvoice",
+                                                "Tenant CII",
+                                                null,
+                                                aBaseCII.getAllGetters ());
+
+    final DDDSyntaxListOverlay aOverlay = new DDDSyntaxListOverlay (aBase,
+                                                                    EDDDOverlayPrecedence.BASE_FIRST,
+                                                                    _createLayer (aTenantCII));
+    for (final IDDDSyntaxList aList : new IDDDSyntaxList [] { aOverlay, aOverlay.getCompiled () })
+    {
+      // The base cannot be overridden
+      assertSame (aBaseCII, aList.getSyntaxOfID ("cii"));
+      assertSame (aBaseCII, aList.findMatchingSyntax (NS_CII, "CrossIndustryInvoice"));
+      assertNull (aList.findMatchingSyntax ("urn:tenant:cii", "CrossIndustryInvoice"));
+    }
+  }
+}
@@ -18,8 +18,14 @@ package com.helger.ddd.model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -119,4 +125,63 @@ public final class DDDSyntaxListTest
     assertNull (aSL.findMatchingSyntax (null, "Invoice"));
     assertNull (aSL.findMatchingSyntax ("urn:oasis:names:specification:ubl:schema:xsd:Invoice-2", null));
   }
+
+  @Test
+  public void testGettersView ()
+  {
+    for (final DDDSyntax aSyntax : DDDSyntaxList.getDefaultSyntaxList ().getAllSyntaxes ().values ())
+    {
+      final Map <EDDDSourceField, List <IDDDGetter>> aView = aSyntax.getGettersView ();
+      assertEquals (aSyntax.getAllGetters ().size (), aView.size ());
+      // No copy is created
+      assertSame (aView, aSyntax.getGettersView ());
+
+      // Mandatory field is always present
+      assertTrue (aSyntax.hasGetters (EDDDSourceField.CUSTOMIZATION_ID));
+      final List <IDDDGetter> aGetters = aSyntax.getGettersOfField (EDDDSourceField.CUSTOMIZATION_ID);
+      assertNotNull (aGetters);
+      assertSame (aGetters, aView.get (EDDDSourceField.CUSTOMIZATION_ID));
+      assertNull (aSyntax.getGettersOfField (null));
+
+      try
+      {
+        aGetters.clear ();
+        fail ();
+      }
+      catch (final UnsupportedOperationException ex)
+      {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testRootIndex ()
+  {
+    final DDDSyntaxList aSL = DDDSyntaxList.getDefaultSyntaxList ();
+    for (final DDDSyntax aSyntax : aSL.getAllSyntaxes ().values ())
+      assertSame (aSyntax,
+                  aSL.findMatchingSyntax (aSyntax.getRootElementNamespaceURI (), aSyntax.getRootElementLocalName ()));
+  }
+
+  @Test
+  public void testSharedGetters ()
+  {
+    final DDDSyntaxList aSL = DDDSyntaxList.getDefaultSyntaxList ();
+    final DDDSyntax aEbi40 = aSL.getSyntaxOfID ("ebinterface-4p0");
+    final DDDSyntax aEbi61 = aSL.getSyntaxOfID ("ebinterface-6p1");
+    assertSame (EDDDExtractorType.HEADER, aEbi40.getExtractorType ());
+    assertSame (EDDDExtractorType.HEADER, aEbi61.getExtractorType ());
+
+    // Same XPath - same getter object
+    assertSame (aEbi40.getGettersOfField (EDDDSourceField.SENDER_NAME).get (0),
+                aEbi61.getGettersOfField (EDDDSourceField.SENDER_NAME).get (0));
+    // Different literal - different getter object
+    assertNotSame (aEbi40.getGettersOfField (EDDDSourceField.CUSTOMIZATION_ID).get (0),
+                   aEbi61.getGettersOfField (EDDDSourceField.CUSTOMIZATION_ID).get (0));
+
+    // Shared across families as well
+    assertSame (aSL.getSyntaxOfID ("ubl2-invoice").getGettersOfField (EDDDSourceField.CUSTOMIZATION_ID).get (0),
+                aSL.getSyntaxOfID ("ubl2-order").getGettersOfField (EDDDSourceField.CUSTOMIZATION_ID).get (0));
+  }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.jspecify.annotations.NonNull;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+
+/**
+ * Test class for class {@link DDDValueProviderListDiff}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDValueProviderListDiffTest
+{
+  private static final String SYNTAX_ID = "test-syntax";
+
+  @NonNull
+  private static VPIf _createIf (@NonNull final String sCondition,
+                                 @NonNull final String sProfileName,
+                                 final String... aFlags)
+  {
+    final VPIf ret = new VPIf (sCondition);
+    ret.determinedValues ().put (EDDDDeterminedField.PROFILE_NAME, sProfileName);
+    for (final String sFlag : aFlags)
+      ret.determinedFlags ().add (sFlag);
+    return ret;
+  }
+
+  @NonNull
+  private static DDDValueProviderList _createList (@NonNull final VPIf... aIfs)
+  {
+    final VPSelect aSelect = new VPSelect (EDDDSourceField.CUSTOMIZATION_ID);
+    for (final VPIf aIf : aIfs)
+      aSelect.addIf (aIf);
+    final ICommonsMap <EDDDSourceField, VPSelect> aSelects = new CommonsEnumMap <> (EDDDSourceField.class);
+    aSelects.put (EDDDSourceField.CUSTOMIZATION_ID, aSelect);
+    final ICommonsMap <String, DDDValueProviderPerSyntax> aSyntaxes = new CommonsHashMap <> ();
+    aSyntaxes.put (SYNTAX_ID, new DDDValueProviderPerSyntax (SYNTAX_ID, aSelects));
+    return new DDDValueProviderList (LocalDate.now (), aSyntaxes);
+  }
+
+  @NonNull
+  private static Map <EDDDSourceField, String> _sourceValues (@NonNull final String sCustomizationID)
+  {
+    final Map <EDDDSourceField, String> ret = new CommonsEnumMap <> (EDDDSourceField.class);
+    ret.put (EDDDSourceField.CUSTOMIZATION_ID, sCustomizationID);
+    return ret;
+  }
+
+  @Test
+  public void testDefaultListUnchanged ()
+  {
+    final DDDValueProviderList aList = DDDValueProviderList.getDefaultValueProviderList ();
+    final DDDValueProviderListDiff aDiff = DDDValueProviderListDiff.createDiff (aList, aList);
+    assertFalse (aDiff.hasChanges ());
+    assertEquals (0, aDiff.getEntryCount ());
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final DDDValueProviderList aOld = _createList (_createIf ("a", "Profile A"),
+                                                   _createIf ("b", "Profile B", "flag1"),
+                                                   _createIf ("c", "Profile C"));
+    final DDDValueProviderList aNew = _createList (_createIf ("a", "Profile A"),
+                                                   _createIf ("b", "Profile B", "flag2"),
+                                                   _createIf ("d", "Profile D"));
+
+    final DDDValueProviderListDiff aDiff = DDDValueProviderListDiff.createDiff (aOld, aNew);
+    assertTrue (aDiff.hasChanges ());
+    assertEquals (3, aDiff.getEntryCount ());
+
+    // Flags of "b" changed
+    final ICommonsList <DDDValueProviderListDiff.Entry> aChanged = aDiff.getAllEntries (DDDValueProviderListDiff.EChangeType.CHANGED);
+    assertEquals (1, aChanged.size ());
+    final DDDValueProviderListDiff.Entry aEntry = aChanged.get (0);
+    assertEquals (SYNTAX_ID, aEntry.getSyntaxID ());
+    assertFalse (aEntry.isValueChanged (EDDDDeterminedField.PROFILE_NAME));
+    assertTrue (aEntry.getAllChangedFields ().isEmpty ());
+    assertEquals (1, aEntry.getAllAddedFlags ().size ());
+    assertTrue (aEntry.getAllAddedFlags ().contains ("flag2"));
+    assertEquals (1, aEntry.getAllRemovedFlags ().size ());
+    assertTrue (aEntry.getAllRemovedFlags ().contains ("flag1"));
+
+    // "c" removed
+    final ICommonsList <DDDValueProviderListDiff.Entry> aRemoved = aDiff.getAllEntries (DDDValueProviderListDiff.EChangeType.REMOVED);
+    assertEquals (1, aRemoved.size ());
+    assertEquals ("Profile C", aRemoved.get (0).getOldValue (EDDDDeterminedField.PROFILE_NAME));
+    assertNull (aRemoved.get (0).getNewValue (EDDDDeterminedField.PROFILE_NAME));
+
+    // "d" added
+    final ICommonsList <DDDValueProviderListDiff.Entry> aAdded = aDiff.getAllEntries (DDDValueProviderListDiff.EChangeType.ADDED);
+    assertEquals (1, aAdded.size ());
+    assertEquals ("Profile D", aAdded.get (0).getNewValue (EDDDDeterminedField.PROFILE_NAME));
+
+    // Join with a histogram
+    final Map <Map <EDDDSourceField, String>, Long> aHistogram = new CommonsHashMap <> ();
+    aHistogram.put (_sourceValues ("a"), Long.valueOf (100));
+    aHistogram.put (_sourceValues ("b"), Long.valueOf (20));
+    aHistogram.put (_sourceValues ("c"), Long.valueOf (3));
+    aHistogram.put (_sourceValues ("x"), Long.valueOf (1000));
+    assertEquals (23, aDiff.getAffectedCount (SYNTAX_ID, aHistogram));
+    assertEquals (0, aDiff.getAffectedCount ("other-syntax", aHistogram));
+
+    assertTrue (aDiff.getAllMatchingEntries (SYNTAX_ID, _sourceValues ("a")::get).isEmpty ());
+    assertEquals (1, aDiff.getAllMatchingEntries (SYNTAX_ID, _sourceValues ("d")::get).size ());
+  }
+}
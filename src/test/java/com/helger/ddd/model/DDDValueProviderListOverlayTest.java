@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.junit.Test;
+
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.CommonsEnumMap;
+import com.helger.collection.commons.CommonsHashMap;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.collection.commons.ICommonsMap;
+
+/**
+ * Test class for class {@link DDDValueProviderListOverlay}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDValueProviderListOverlayTest
+{
+  private static final String SYNTAX_ID = "ubl2-invoice";
+  private static final String CUSTOMIZATION_BIS3 = "urn:cen.eu:en16931:2017#compliant#urn:fdc:peppol.eu:2017:poacc:billing:3.0";
+  private static final String CUSTOMIZATION_TENANT = "urn:tenant:invoice:1.0";
+
+  @NonNull
+  private static DDDValueProviderList _createLayer (@NonNull final String sSyntaxID,
+                                                    @NonNull final String sCustomizationID,
+                                                    @NonNull final String sProfileName)
+  {
+    final VPIf aIf = new VPIf (sCustomizationID);
+    aIf.determinedValues ().put (EDDDDeterminedField.PROFILE_NAME, sProfileName);
+    final VPSelect aSelect = new VPSelect (EDDDSourceField.CUSTOMIZATION_ID);
+    aSelect.addIf (aIf);
+    final ICommonsMap <EDDDSourceField, VPSelect> aSelects = new CommonsEnumMap <> (EDDDSourceField.class);
+    aSelects.put (EDDDSourceField.CUSTOMIZATION_ID, aSelect);
+    final ICommonsMap <String, DDDValueProviderPerSyntax> aSyntaxes = new CommonsHashMap <> ();
+    aSyntaxes.put (sSyntaxID, new DDDValueProviderPerSyntax (sSyntaxID, aSelects));
+    return new DDDValueProviderList (LocalDate.of (2030, 1, 1), aSyntaxes);
+  }
+
+  @Nullable
+  private static String _getProfileName (@NonNull final IDDDValueProviderList aList,
+                                         @NonNull final String sSyntaxID,
+                                         @NonNull final String sCustomizationID)
+  {
+    final VPDeterminedValues aValues = new VPDeterminedValues ();
+    final VPDeterminedFlags aFlags = new VPDeterminedFlags ();
+    aList.forAllDeducedValues (sSyntaxID,
+                               x -> x == EDDDSourceField.CUSTOMIZATION_ID ? sCustomizationID : null,
+                               aValues,
+                               aFlags);
+    return aValues.get (EDDDDeterminedField.PROFILE_NAME);
+  }
+
+  @Test
+  public void testLayersFirst ()
+  {
+    final DDDValueProviderList aBase = DDDValueProviderList.getDefaultValueProviderList ();
+    final String sBaseProfile = _getProfileName (aBase, SYNTAX_ID, CUSTOMIZATION_BIS3);
+    assertEquals ("Peppol BIS Billing UBL Invoice V3", sBaseProfile);
+
+    final DDDValueProviderListOverlay aOverlay = new DDDValueProviderListOverlay (aBase,
+                                                                                  EDDDOverlayPrecedence.LAYERS_FIRST,
+                                                                                  _createLayer (SYNTAX_ID,
+                                                                                                CUSTOMIZATION_TENANT,
+                                                                                                "Tenant Invoice"),
+                                                                                  _createLayer (SYNTAX_ID,
+                                                                                                CUSTOMIZATION_BIS3,
+                                                                                                "Tenant BIS3"),
+                                                                                  _createLayer ("tenant-syntax",
+                                                                                                CUSTOMIZATION_TENANT,
+                                                                                                "Tenant Syntax"));
+    assertFalse (aOverlay.isCompiled ());
+    assertEquals (3, aOverlay.getLayerCount ());
+    assertEquals (LocalDate.of (2030, 1, 1), aOverlay.getLastModification ());
+
+    final DDDValueProviderListOverlay aCompiled = aOverlay.getCompiled ();
+    assertTrue (aCompiled.isCompiled ());
+    assertSame (aCompiled, aCompiled.getCompiled ());
+
+    for (final IDDDValueProviderList aList : new IDDDValueProviderList [] { aOverlay, aCompiled })
+    {
+      // New condition
+      assertEquals ("Tenant Invoice", _getProfileName (aList, SYNTAX_ID, CUSTOMIZATION_TENANT));
+      // Overridden condition
+      assertEquals ("Tenant BIS3", _getProfileName (aList, SYNTAX_ID, CUSTOMIZATION_BIS3));
+      // Inherited condition
+      assertEquals (_getProfileName (aBase, SYNTAX_ID, "urn:cen.eu:en16931:2017"),
+                    _getProfileName (aList, SYNTAX_ID, "urn:cen.eu:en16931:2017"));
+      // New syntax
+      assertTrue (aList.containsValueProviderForSyntax ("tenant-syntax"));
+      assertEquals ("Tenant Syntax", _getProfileName (aList, "tenant-syntax", CUSTOMIZATION_TENANT));
+      assertEquals (aBase.getAllSyntaxIDs ().size () + 1, aList.getAllSyntaxIDs ().size ());
+
+      // Two layers and the base, in lookup order
+      final ICommonsList <DDDValueProviderPerSyntax> aVPPSs = new CommonsArrayList <> ();
+      aList.forEachValueProviderPerSyntax (SYNTAX_ID, aVPPSs::add);
+      assertEquals (3, aVPPSs.size ());
+      assertSame (aBase.getValueProviderPerSyntax (SYNTAX_ID), aVPPSs.getLastOrNull ());
+
+      assertFalse (aList.containsValueProviderForSyntax ("does-not-exist"));
+      assertFalse (aList.forAllDeducedValues ("does-not-exist",
+                                              x -> CUSTOMIZATION_TENANT,
+                                              new VPDeterminedValues (),
+                                              new VPDeterminedFlags ()).isSuccess ());
+    }
+
+    // The base is unchanged
+    assertEquals (sBaseProfile, _getProfileName (aBase, SYNTAX_ID, CUSTOMIZATION_BIS3));
+  }
+
+  @Test
+  public void testBaseFirst ()
+  {
+    final DDDValueProviderList aBase = DDDValueProviderList.getDefaultValueProviderList ();
+    final DDDValueProviderListOverlay aOverlay = new DDDValueProviderListOverlay (aBase,
+                                                                                  EDDDOverlayPrecedence.BASE_FIRST,
+                                                                                  _createLayer (SYNTAX_ID,
+                                                                                                CUSTOMIZATION_TENANT,
+                                                                                                "Tenant Invoice"),
+                                                                                  _createLayer (SYNTAX_ID,
+                                                                                                CUSTOMIZATION_BIS3,
+                                                                                                "Tenant BIS3"));
+    for (final IDDDValueProviderList aList : new IDDDValueProviderList [] { aOverlay, aOverlay.getCompiled () })
+    {
+      // Only additions are possible
+      assertEquals ("Tenant Invoice", _getProfileName (aList, SYNTAX_ID, CUSTOMIZATION_TENANT));
+      assertEquals ("Peppol BIS Billing UBL Invoice V3", _getProfileName (aList, SYNTAX_ID, CUSTOMIZATION_BIS3));
+    }
+  }
+}
@@ -77,7 +77,15 @@ public final class DDDValueProviderListTest
     assertEquals (DDDSyntaxList.getDefaultSyntaxList ().getAllSyntaxes ().size (), aMap.size ());
 
     for (final DDDValueProviderPerSyntax aVPS : aMap.values ())
+    {
       _recursiveTest (aVPS.getSyntaxID (), aVPS.getAllSelectors ());
+
+      // Views are not copied
+      assertSame (aVPS.getSelectsView (), aVPS.getSelectsView ());
+      assertEquals (aVPS.getAllSelectors ().size (), aVPS.getSelectsView ().size ());
+      for (final Map.Entry <EDDDSourceField, VPSelect> aEntry : aVPS.getSelectsView ().entrySet ())
+        assertSame (aEntry.getValue (), aVPS.getSelectOfField (aEntry.getKey ()));
+    }
   }
 
   @Test
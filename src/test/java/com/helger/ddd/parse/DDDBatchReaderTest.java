@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+
+/**
+ * Test class for class {@link DDDBatchReader}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDBatchReaderTest
+{
+  private static final Path TDD_DIR = Paths.get ("src/test/resources/external/peppol-om-tdd/good");
+  private static final Path TDD_FILE = TDD_DIR.resolve ("simple.xml");
+  private static final Path UBL_FILE = Paths.get ("src/test/resources/external/ubl2-invoice/good/SB-base-example.xml");
+
+  private static DocumentDetailsDeterminator _createDeterminator ()
+  {
+    return new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                            DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+  }
+
+  @Test
+  public void testConcatenated () throws IOException
+  {
+    final DocumentDetailsDeterminator aDDD = _createDeterminator ();
+    final DDDSizeRoutingReader aDOMReader = new DDDSizeRoutingReader (aDDD,
+                                                                      DDDXMLParserPool.getDefaultInstance (),
+                                                                      Long.MAX_VALUE);
+    final DocumentDetails aTDD = aDOMReader.findDocumentDetails (TDD_FILE);
+    assertNotNull (aTDD);
+    assertEquals ("peppol-om-tdd", aTDD.getSyntaxID ());
+    final DocumentDetails aUBL = aDOMReader.findDocumentDetails (UBL_FILE);
+    assertNotNull (aUBL);
+
+    final byte [] aTDDBytes = Files.readAllBytes (TDD_FILE);
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      for (int i = 0; i < 5; ++i)
+      {
+        aBAOS.write (aTDDBytes);
+        aBAOS.write ('\n');
+      }
+      aBAOS.write (Files.readAllBytes (UBL_FILE));
+      aBAOS.write ("<root xmlns='urn:unknown'/>".getBytes (StandardCharsets.UTF_8));
+      aBAOS.write (aTDDBytes);
+      aBAOS.write ("<root>".getBytes (StandardCharsets.UTF_8));
+
+      final ICommonsList <String> aNames = new CommonsArrayList <> ();
+      final ICommonsList <DocumentDetails> aResults = new CommonsArrayList <> ();
+      final DDDBatchReader aBatchReader = new DDDBatchReader (aDDD);
+      final int nCount = aBatchReader.readConcatenated (new NonBlockingByteArrayInputStream (aBAOS.toByteArray ()),
+                                                        (n, d) -> {
+                                                          aNames.add (n);
+                                                          aResults.add (d);
+                                                        });
+      assertEquals (9, nCount);
+      assertEquals (9, aResults.size ());
+      assertEquals ("#0", aNames.getFirstOrNull ());
+      assertEquals ("#8", aNames.getLastOrNull ());
+      for (int i = 0; i < 5; ++i)
+        assertEquals (aTDD, aResults.get (i));
+      assertEquals (aUBL, aResults.get (5));
+      assertNull (aResults.get (6));
+      assertEquals (aTDD, aResults.get (7));
+      assertNull (aResults.get (8));
+    }
+  }
+
+  @Test
+  public void testDirectory () throws IOException
+  {
+    final DocumentDetailsDeterminator aDDD = _createDeterminator ();
+    final DDDSizeRoutingReader aDOMReader = new DDDSizeRoutingReader (aDDD,
+                                                                      DDDXMLParserPool.getDefaultInstance (),
+                                                                      Long.MAX_VALUE);
+
+    final ICommonsList <String> aNames = new CommonsArrayList <> ();
+    final int nCount = new DDDBatchReader (aDDD).readDirectory (TDD_DIR, ".xml", (n, d) -> {
+      assertNotNull (n, d);
+      assertEquals (n, aDOMReader.findDocumentDetails (TDD_DIR.resolve (n)), d);
+      aNames.add (n);
+    });
+    assertEquals (nCount, aNames.size ());
+    assertEquals ("simple.xml", aNames.getFirstOrNull ());
+    assertEquals (aNames, DDDBatchReader.listFiles (TDD_DIR, ".xml").getAllMapped (x -> x.getFileName ().toString ()));
+
+    final DDDBatchReader aBatchReader = new DDDBatchReader (aDDD);
+    final Document aWorkDoc = aBatchReader.newWorkDocument ();
+    assertEquals (aDOMReader.findDocumentDetails (TDD_FILE), aBatchReader.readFile (TDD_FILE, aWorkDoc));
+    assertNull (aWorkDoc.getFirstChild ());
+    assertNull (aBatchReader.readFile (TDD_DIR.resolve ("does-not-exist.xml"), aWorkDoc));
+
+    assertEquals (0, new DDDBatchReader (aDDD).readDirectory (TDD_DIR, ".does-not-exist", (n, d) -> {
+      throw new IllegalStateException ();
+    }));
+  }
+}
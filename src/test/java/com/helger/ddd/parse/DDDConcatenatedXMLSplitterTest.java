@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+
+/**
+ * Test class for class {@link DDDConcatenatedXMLSplitter}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDConcatenatedXMLSplitterTest
+{
+  private static ICommonsList <String> _split (final String s) throws IOException
+  {
+    final byte [] aBytes = s.getBytes (StandardCharsets.UTF_8);
+    final DDDConcatenatedXMLSplitter aSplitter = new DDDConcatenatedXMLSplitter (new NonBlockingByteArrayInputStream (aBytes));
+    final ICommonsList <String> ret = new CommonsArrayList <> ();
+    byte [] aBuf;
+    while ((aBuf = aSplitter.readNextDocumentBuffer ()) != null)
+      ret.add (new String (aBuf, 0, aSplitter.getDocumentLength (), StandardCharsets.UTF_8));
+    assertEquals (ret.size (), aSplitter.getDocumentCount ());
+    assertNull (aSplitter.readNextDocumentBuffer ());
+    return ret;
+  }
+
+  @Test
+  public void testBasic () throws IOException
+  {
+    assertEquals (new CommonsArrayList <> (), _split (""));
+    assertEquals (new CommonsArrayList <> (), _split ("  \n<!-- only a comment -->\n"));
+    assertEquals (new CommonsArrayList <> ("<a/>"), _split ("<a/>"));
+    assertEquals (new CommonsArrayList <> ("<a/>", "<b></b>", "<c><d/></c>"), _split ("<a/>\n<b></b><c><d/></c>\n"));
+  }
+
+  @Test
+  public void testMarkupInsideDocuments () throws IOException
+  {
+    final String sDoc1 = "<?xml version=\"1.0\"?>\n<!-- <x> -->" +
+                         "<a x='>/' y=\"</a>\"><![CDATA[</a>]]><b/><?pi </a>?></a>";
+    final String sDoc2 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><!DOCTYPE r [<!ELEMENT r ANY>]><r/>";
+    assertEquals (new CommonsArrayList <> (sDoc1, sDoc2),
+                  _split (sDoc1 + "\n text <!-- between --> <?pi x?>\n" + sDoc2 + "<!-- trailing"));
+  }
+
+  @Test
+  public void testIncomplete () throws IOException
+  {
+    assertEquals (new CommonsArrayList <> ("<a/>", "<b><c>"), _split ("<a/><b><c>"));
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.xml.namespace.QName;
+
+import org.junit.Test;
+
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.ddd.unwrap.DDDDocumentUnwrapperSBDH;
+
+/**
+ * Test class for class {@link DDDMappedFileReader}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDMappedFileReaderTest
+{
+  private static final Path TEST_FILE = Paths.get ("src/test/resources/external/ubl2-invoice/good/base-example.xml");
+
+  @Test
+  public void testBasic () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DDDMappedFileReader aReader = new DDDMappedFileReader (aDDD, new DDDXMLParserPool (1, true));
+
+    final DocumentDetails aDD = aReader.findDocumentDetails (TEST_FILE);
+    assertNotNull (aDD);
+    assertEquals ("ubl2-invoice", aDD.getSyntaxID ());
+    assertEquals (aDD,
+                  aDDD.findDocumentDetails (DDDXMLParserPool.getDefaultInstance ()
+                                                            .parse (TEST_FILE)
+                                                            .getDocumentElement ()));
+
+    assertNull (aReader.findDocumentDetails (Paths.get ("does-not-exist.xml")));
+    assertNull (aReader.findDocumentDetails (ByteBuffer.wrap ("<root>".getBytes (StandardCharsets.UTF_8))));
+    assertNull (aReader.findDocumentDetails (ByteBuffer.wrap ("<root xmlns='urn:unknown'/>".getBytes (StandardCharsets.UTF_8))));
+    assertNull (aReader.findDocumentDetails (ByteBuffer.allocate (0)));
+  }
+
+  @Test
+  public void testSniffRootElement () throws Exception
+  {
+    final ByteBuffer aBuffer = DDDMappedFileReader.mapReadOnly (TEST_FILE);
+    final QName aQName = DDDMappedFileReader.sniffRootElement (aBuffer,
+                                                               DDDXMLParserPool.getDefaultInstance ().getXMLInputFactory ());
+    assertNotNull (aQName);
+    assertEquals ("urn:oasis:names:specification:ubl:schema:xsd:Invoice-2", aQName.getNamespaceURI ());
+    assertEquals ("Invoice", aQName.getLocalPart ());
+    assertEquals (0, aBuffer.position ());
+  }
+
+  @Test
+  public void testIsPotentiallySupportedRoot ()
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    assertTrue (aDDD.isPotentiallySupportedRoot ("urn:oasis:names:specification:ubl:schema:xsd:Invoice-2", "Invoice"));
+    assertFalse (aDDD.isPotentiallySupportedRoot (DDDDocumentUnwrapperSBDH.NAMESPACE_URI, "StandardBusinessDocument"));
+    aDDD.addDefaultUnwrappers ();
+    assertTrue (aDDD.isPotentiallySupportedRoot (DDDDocumentUnwrapperSBDH.NAMESPACE_URI, "StandardBusinessDocument"));
+    assertFalse (aDDD.isPotentiallySupportedRoot ("urn:unknown", "Invoice"));
+    assertFalse (aDDD.isPotentiallySupportedRoot (null, null));
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.collection.commons.ICommonsList;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+
+/**
+ * Test class for class {@link DDDNAVBatchReader}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDNAVBatchReaderTest
+{
+  private static final Path DATA_FILE = Paths.get ("src/test/resources/external/osa-invoice-data-3/good/example.xml");
+  private static final Path ANNULMENT_FILE = Paths.get ("src/test/resources/external/osa-invoice-annulment-3/good/example.xml");
+
+  private static DocumentDetailsDeterminator _createDeterminator ()
+  {
+    return new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                            DDDValueProviderList.getDefaultValueProviderList ());
+  }
+
+  @Test
+  public void testPayloads () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = _createDeterminator ();
+    final DDDSizeRoutingReader aDOMReader = new DDDSizeRoutingReader (aDDD);
+
+    final ICommonsList <byte []> aPlain = new CommonsArrayList <> ();
+    final ICommonsList <byte []> aEncoded = new CommonsArrayList <> ();
+    final ICommonsList <DocumentDetails> aExpected = new CommonsArrayList <> ();
+    for (final String sSyntaxID : new String [] { "osa-invoice-data-2",
+                                                  "osa-invoice-annulment-2",
+                                                  "osa-invoice-data-3",
+                                                  "osa-invoice-annulment-3" })
+    {
+      final byte [] aBytes = Files.readAllBytes (Paths.get ("src/test/resources/external/" +
+                                                            sSyntaxID +
+                                                            "/good/example.xml"));
+      final DocumentDetails aDD = aDOMReader.findDocumentDetails (aBytes);
+      assertNotNull (sSyntaxID, aDD);
+      assertEquals (sSyntaxID, aDD.getSyntaxID ());
+      aPlain.add (aBytes);
+      // With line breaks
+      aEncoded.add (Base64.getMimeEncoder ().encode (aBytes));
+      aExpected.add (aDD);
+    }
+    aPlain.add ("<InvoiceData>".getBytes (StandardCharsets.UTF_8));
+    aEncoded.add ("!!!".getBytes (StandardCharsets.UTF_8));
+    aExpected.add (null);
+
+    final DDDNAVBatchReader aReader = new DDDNAVBatchReader (aDDD, 2);
+    assertEquals (4, aReader.getMaxInFlight ());
+    assertEquals (aExpected, aReader.findAllDocumentDetails (aPlain, false));
+    assertEquals (aExpected, aReader.findAllDocumentDetails (aEncoded, true));
+    assertEquals (new CommonsArrayList <> (), aReader.findAllDocumentDetails (new CommonsArrayList <> (), true));
+    // The thread pool is reused
+    assertEquals (aExpected, aReader.findAllDocumentDetails (aEncoded, true));
+  }
+
+  @Test
+  public void testExternalExecutor () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = _createDeterminator ();
+    final DocumentDetails aData = new DDDSizeRoutingReader (aDDD).findDocumentDetails (DATA_FILE);
+    assertNotNull (aData);
+    // Failures inside the executor are logged and result in null
+    aDDD.setErrorHdl (x -> {
+      throw new IllegalStateException (x);
+    });
+
+    final ExecutorService aExecutor = Executors.newSingleThreadExecutor ();
+    try
+    {
+      final DDDNAVBatchReader aReader = new DDDNAVBatchReader (aDDD, DDDXMLParserPool.getDefaultInstance (), aExecutor, 1);
+      assertEquals (1, aReader.getMaxInFlight ());
+
+      final byte [] aBytes = Files.readAllBytes (DATA_FILE);
+      final ICommonsList <byte []> aPayloads = new CommonsArrayList <> ();
+      for (int i = 0; i < 3; ++i)
+        aPayloads.add (aBytes);
+      aPayloads.add ("<InvoiceData>".getBytes (StandardCharsets.UTF_8));
+      aPayloads.add (aBytes);
+
+      final ICommonsList <DocumentDetails> aResults = aReader.findAllDocumentDetails (aPayloads, false);
+      assertEquals (5, aResults.size ());
+      for (final int i : new int [] { 0, 1, 2, 4 })
+        assertEquals (aData, aResults.get (i));
+      assertNull (aResults.get (3));
+
+      // The executor is not shut down
+      assertFalse (aExecutor.isShutdown ());
+    }
+    finally
+    {
+      aExecutor.shutdownNow ();
+    }
+  }
+
+  @Test
+  public void testRequest () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = _createDeterminator ();
+    final DDDSizeRoutingReader aDOMReader = new DDDSizeRoutingReader (aDDD);
+    final DocumentDetails aData = aDOMReader.findDocumentDetails (DATA_FILE);
+    assertNotNull (aData);
+    final DocumentDetails aAnnulment = aDOMReader.findDocumentDetails (ANNULMENT_FILE);
+    assertNotNull (aAnnulment);
+
+    final String sData = Base64.getMimeEncoder ().encodeToString (Files.readAllBytes (DATA_FILE));
+    final String sAnnulment = Base64.getEncoder ().encodeToString (Files.readAllBytes (ANNULMENT_FILE));
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append ("<ManageInvoiceRequest xmlns='http://schemas.nav.gov.hu/OSA/3.0/api'><invoiceOperations>");
+    for (int i = 1; i <= 5; ++i)
+      aSB.append ("<invoiceOperation><index>")
+         .append (i)
+         .append ("</index><invoiceOperation>CREATE</invoiceOperation><invoiceData>")
+         .append (sData)
+         .append ("</invoiceData></invoiceOperation>");
+    aSB.append ("<invoiceOperation><index>6</index><invoiceData>no base64!</invoiceData></invoiceOperation>");
+    aSB.append ("<invoiceOperation><index>7</index><invoiceAnnulment>")
+       .append (sAnnulment)
+       .append ("</invoiceAnnulment></invoiceOperation>");
+    aSB.append ("</invoiceOperations></ManageInvoiceRequest>");
+
+    final DDDNAVBatchReader aReader = new DDDNAVBatchReader (aDDD);
+    final ICommonsList <DocumentDetails> aResults = aReader.findAllDocumentDetailsFromRequest (new NonBlockingByteArrayInputStream (aSB.toString ()
+                                                                                                                                        .getBytes (StandardCharsets.UTF_8)));
+    assertNotNull (aResults);
+    assertEquals (7, aResults.size ());
+    for (int i = 0; i < 5; ++i)
+      assertEquals (aData, aResults.get (i));
+    assertNull (aResults.get (5));
+    assertEquals (aAnnulment, aResults.get (6));
+
+    // Not well-formed
+    assertNull (aReader.findAllDocumentDetailsFromRequest (new NonBlockingByteArrayInputStream ("<ManageInvoiceRequest>".getBytes (StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  public void testIncompleteBase64 () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = _createDeterminator ();
+    final DocumentDetails aAnnulment = new DDDSizeRoutingReader (aDDD).findDocumentDetails (ANNULMENT_FILE);
+    assertNotNull (aAnnulment);
+
+    // Pad the XML with trailing whitespace, so that the base64 needs no padding
+    final StringBuilder aXML = new StringBuilder (Files.readString (ANNULMENT_FILE, StandardCharsets.UTF_8));
+    while (aXML.toString ().getBytes (StandardCharsets.UTF_8).length % 3 != 0)
+      aXML.append (' ');
+    final String sComplete = Base64.getEncoder ().encodeToString (aXML.toString ().getBytes (StandardCharsets.UTF_8));
+    assertFalse (sComplete.endsWith ("="));
+
+    final DDDNAVBatchReader aReader = new DDDNAVBatchReader (aDDD);
+    for (final String sSuffix : new String [] { "", "Q", "=", "QQ=" })
+    {
+      final String sRequest = "<ManageAnnulmentRequest xmlns='http://schemas.nav.gov.hu/OSA/3.0/api'>" +
+                              "<annulmentOperations><annulmentOperation><index>1</index><invoiceAnnulment>" +
+                              sComplete +
+                              sSuffix +
+                              "</invoiceAnnulment></annulmentOperation></annulmentOperations></ManageAnnulmentRequest>";
+      final ICommonsList <DocumentDetails> aResults = aReader.findAllDocumentDetailsFromRequest (new NonBlockingByteArrayInputStream (sRequest.getBytes (StandardCharsets.UTF_8)));
+      assertNotNull (aResults);
+      assertEquals (1, aResults.size ());
+      // A dangling character or wrong padding is not silently dropped
+      assertEquals (sSuffix, sSuffix.isEmpty () ? aAnnulment : null, aResults.get (0));
+
+      // Same for standalone payloads
+      final ICommonsList <byte []> aPayloads = new CommonsArrayList <> ();
+      aPayloads.add ((sComplete + sSuffix).getBytes (StandardCharsets.US_ASCII));
+      final ICommonsList <DocumentDetails> aPayloadResults = aReader.findAllDocumentDetails (aPayloads, true);
+      assertEquals (1, aPayloadResults.size ());
+      assertEquals (sSuffix, sSuffix.isEmpty () ? aAnnulment : null, aPayloadResults.get (0));
+    }
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.model.DDDGetterXPath;
+import com.helger.ddd.model.DDDSyntax;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDSyntaxPathIndex;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.ddd.model.EDDDSourceField;
+import com.helger.diagnostics.error.list.ErrorList;
+
+/**
+ * Test class for class {@link DDDPrunedDocumentBuilder}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDPrunedDocumentBuilderTest
+{
+  private static DocumentDetailsDeterminator _createDDD ()
+  {
+    return new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                            DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+  }
+
+  @Test
+  public void testSimplePath ()
+  {
+    DDDGetterXPath aGetter = new DDDGetterXPath ("*[local-name()='A']/*[local-name()='B'][1]/text()");
+    assertTrue (aGetter.isSimplePath ());
+    assertEquals (List.of ("A", "B"), aGetter.getSimplePathSteps ());
+    assertTrue (aGetter.isSimplePathSelectingText ());
+
+    aGetter = new DDDGetterXPath ("@versione");
+    assertTrue (aGetter.isSimplePath ());
+    assertTrue (aGetter.getSimplePathSteps ().isEmpty ());
+    assertFalse (aGetter.isSimplePathSelectingText ());
+
+    aGetter = new DDDGetterXPath ("\"constant\"");
+    assertFalse (aGetter.isSimplePath ());
+    assertNull (aGetter.getSimplePathSteps ());
+    assertTrue (aGetter.isStringLiteral ());
+
+    aGetter = new DDDGetterXPath ("//*[local-name()='A']/text()");
+    assertFalse (aGetter.isSimplePath ());
+    assertFalse (aGetter.isStringLiteral ());
+
+    // All default syntaxes can be pruned
+    for (final DDDSyntax aSyntax : DDDSyntaxList.getDefaultSyntaxList ().getAllSyntaxes ().values ())
+      assertTrue (aSyntax.getID (), aSyntax.getPathIndex ().isComplete ());
+  }
+
+  @Test
+  public void testPruning ()
+  {
+    final DDDPrunedDocumentBuilder aBuilder = new DDDPrunedDocumentBuilder (_createDDD ());
+    final String sXML = "<Invoice xmlns='urn:oasis:names:specification:ubl:schema:xsd:Invoice-2'" +
+                        " xmlns:cbc='urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2'>" +
+                        "<cbc:CustomizationID>a<!-- c -->b</cbc:CustomizationID>" +
+                        "<cbc:Note>Note</cbc:Note>" +
+                        "<InvoiceLine><cbc:ID>1</cbc:ID></InvoiceLine>" +
+                        "</Invoice>";
+    final Document aDoc = aBuilder.build (new NonBlockingByteArrayInputStream (sXML.getBytes (StandardCharsets.UTF_8)),
+                                          DDDXMLParserPool.getDefaultInstance ());
+    assertNotNull (aDoc);
+    final Element aRoot = aDoc.getDocumentElement ();
+    assertEquals ("Invoice", aRoot.getLocalName ());
+    assertEquals (1, aRoot.getChildNodes ().getLength ());
+    final Element aCustomizationID = (Element) aRoot.getFirstChild ();
+    assertEquals ("urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2",
+                  aCustomizationID.getNamespaceURI ());
+    // Comment was ignored and text was merged
+    assertEquals (1, aCustomizationID.getChildNodes ().getLength ());
+    assertEquals ("ab", aCustomizationID.getTextContent ());
+
+    // Unsupported root
+    final Document aDoc2 = aBuilder.build (new NonBlockingByteArrayInputStream ("<root><a/></root>".getBytes (StandardCharsets.UTF_8)),
+                                           DDDXMLParserPool.getDefaultInstance ());
+    assertNotNull (aDoc2);
+    assertFalse (aDoc2.getDocumentElement ().hasChildNodes ());
+
+    // Not well-formed
+    assertNull (aBuilder.build (new NonBlockingByteArrayInputStream ("<Invoice xmlns='urn:oasis:names:specification:ubl:schema:xsd:Invoice-2'>".getBytes (StandardCharsets.UTF_8)),
+                                DDDXMLParserPool.getDefaultInstance ()));
+  }
+
+  @Test
+  public void testSkipList ()
+  {
+    final DDDSyntax aSyntax = DDDSyntaxList.getDefaultSyntaxList ().getSyntaxOfID ("ubl2-invoice");
+    assertNotNull (aSyntax);
+    final DDDSyntaxPathIndex aIndex = aSyntax.getPathIndex ();
+    assertTrue (aIndex.isSkippedElement ("EmbeddedDocumentBinaryObject"));
+    assertTrue (aIndex.isSkippedElement ("Attachment"));
+    assertFalse (aIndex.isSkippedElement ("CustomizationID"));
+    assertFalse (aIndex.isSkippedElement (null));
+    assertEquals (DDDSyntaxPathIndex.getAllDefaultSkipCandidates (), aIndex.getAllSkippedElementNames ());
+
+    // Candidates referenced by a getter are never skipped
+    final DDDSyntaxPathIndex aIndex2 = DDDSyntaxPathIndex.create (Map.of (EDDDSourceField.CUSTOMIZATION_ID,
+                                                                          List.of (new DDDGetterXPath ("*[local-name()='Attachment']/text()"))),
+                                                                  Set.of ("Attachment", "Allegati"));
+    assertFalse (aIndex2.isSkippedElement ("Attachment"));
+    assertTrue (aIndex2.isSkippedElement ("Allegati"));
+
+    final DocumentDetailsDeterminator aDDD = _createDDD ();
+    final DDDPrunedDocumentBuilder aBuilder = new DDDPrunedDocumentBuilder (aDDD, false);
+    assertFalse (aBuilder.isPruneToGetterPaths ());
+    final String sXML = "<Invoice xmlns='urn:oasis:names:specification:ubl:schema:xsd:Invoice-2'" +
+                        " xmlns:cac='urn:oasis:names:specification:ubl:schema:xsd:CommonAggregateComponents-2'" +
+                        " xmlns:cbc='urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2'>" +
+                        "<cbc:Note>Note</cbc:Note>" +
+                        "<cac:AdditionalDocumentReference><cbc:ID>1</cbc:ID>" +
+                        "<cac:Attachment><cbc:EmbeddedDocumentBinaryObject mimeCode='application/pdf'>" +
+                        "QUJD".repeat (10_000) +
+                        "</cbc:EmbeddedDocumentBinaryObject></cac:Attachment>" +
+                        "</cac:AdditionalDocumentReference>" +
+                        "</Invoice>";
+    final Document aDoc = aBuilder.build (new NonBlockingByteArrayInputStream (sXML.getBytes (StandardCharsets.UTF_8)),
+                                          DDDXMLParserPool.getDefaultInstance ());
+    assertNotNull (aDoc);
+    final Element aRoot = aDoc.getDocumentElement ();
+    // Everything except the attachment is retained
+    assertEquals (2, aRoot.getChildNodes ().getLength ());
+    final Element aDocRef = (Element) aRoot.getLastChild ();
+    assertEquals ("AdditionalDocumentReference", aDocRef.getLocalName ());
+    assertEquals (1, aDocRef.getChildNodes ().getLength ());
+    assertEquals ("ID", aDocRef.getFirstChild ().getLocalName ());
+  }
+
+  @Test
+  public void testSameResultAsDOM () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = _createDDD ();
+    final DDDPrunedDocumentBuilder aBuilder = new DDDPrunedDocumentBuilder (aDDD);
+    final DDDXMLParserPool aPool = DDDXMLParserPool.getDefaultInstance ();
+
+    final List <Path> aFiles;
+    try (final Stream <Path> aStream = Files.walk (Paths.get ("src/test/resources/external")))
+    {
+      aFiles = aStream.filter (Files::isRegularFile).toList ();
+    }
+    assertFalse (aFiles.isEmpty ());
+
+    final DDDPrunedDocumentBuilder aSkipOnlyBuilder = new DDDPrunedDocumentBuilder (aDDD, false);
+    for (final Path aFile : aFiles)
+    {
+      final DocumentDetails aDOMDD;
+      try (final InputStream aIS = Files.newInputStream (aFile))
+      {
+        final Document aDoc = aPool.parse (aIS);
+        aDOMDD = aDoc == null ? null : aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+      }
+
+      final DocumentDetails aStreamingDD;
+      try (final InputStream aIS = Files.newInputStream (aFile))
+      {
+        final Document aDoc = aBuilder.build (aIS, aPool);
+        aStreamingDD = aDoc == null ? null : aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+      }
+
+      assertEquals (aFile.toString (), aDOMDD, aStreamingDD);
+
+      try (final InputStream aIS = Files.newInputStream (aFile))
+      {
+        final Document aDoc = aSkipOnlyBuilder.build (aIS, aPool);
+        assertEquals (aFile.toString (),
+                      aDOMDD,
+                      aDoc == null ? null : aDDD.findDocumentDetails (aDoc.getDocumentElement ()));
+      }
+    }
+  }
+
+  @Test
+  public void testStopEarly ()
+  {
+    final DDDPrunedDocumentBuilder aBuilder = new DDDPrunedDocumentBuilder (_createDDD ());
+    assertTrue (aBuilder.isStopEarly ());
+    final DDDPrunedDocumentBuilder aStrictBuilder = new DDDPrunedDocumentBuilder (_createDDD (), true, false);
+    assertFalse (aStrictBuilder.isStopEarly ());
+
+    // The input is truncated after the stop element - never read
+    final String sCII = "<rsm:CrossIndustryInvoice xmlns:rsm='urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100'" +
+                        " xmlns:ram='urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100'>" +
+                        "<rsm:ExchangedDocumentContext><ram:GuidelineSpecifiedDocumentContextParameter>" +
+                        "<ram:ID>urn:cen.eu:en16931:2017</ram:ID>" +
+                        "</ram:GuidelineSpecifiedDocumentContextParameter></rsm:ExchangedDocumentContext>" +
+                        "<rsm:ExchangedDocument><ram:ID>INV-1</ram:ID></rsm:ExchangedDocument>" +
+                        "<rsm:SupplyChainTradeTransaction>" +
+                        "<ram:IncludedSupplyChainTradeLineItem><ram:Note>1</ram:Note></ram:IncludedSupplyChainTradeLineItem>" +
+                        "<ram:ApplicableHeaderTradeAgreement><ram:SellerTradeParty><ram:Name>Seller</ram:Name>" +
+                        "</ram:SellerTradeParty></ram:ApplicableHeaderTradeAgreement>" +
+                        "<ram:ApplicableHeaderTradeDelivery><ram:Note>truncated";
+    final Document aDoc = aBuilder.build (new NonBlockingByteArrayInputStream (sCII.getBytes (StandardCharsets.UTF_8)),
+                                          DDDXMLParserPool.getDefaultInstance ());
+    assertNotNull (aDoc);
+    final Element aRoot = aDoc.getDocumentElement ();
+    assertEquals (3, aRoot.getChildNodes ().getLength ());
+    // The line item was skipped
+    final Element aTransaction = (Element) aRoot.getLastChild ();
+    assertEquals (1, aTransaction.getChildNodes ().getLength ());
+    assertEquals ("ApplicableHeaderTradeAgreement", aTransaction.getFirstChild ().getLocalName ());
+
+    final DDDSyntax aSyntax = DDDSyntaxList.getDefaultSyntaxList ().getSyntaxOfID ("cii");
+    assertEquals ("urn:cen.eu:en16931:2017",
+                  aSyntax.getValue (EDDDSourceField.CUSTOMIZATION_ID, aRoot, new ErrorList ()));
+    assertEquals ("Seller", aSyntax.getValue (EDDDSourceField.SENDER_NAME, aRoot, new ErrorList ()));
+
+    // The strict builder reads until the end and detects the truncation
+    assertNull (aStrictBuilder.build (new NonBlockingByteArrayInputStream (sCII.getBytes (StandardCharsets.UTF_8)),
+                                      DDDXMLParserPool.getDefaultInstance ()));
+
+    // Truncated before the stop element - the truncation is reached
+    final String sCII2 = sCII.substring (0, sCII.indexOf ("<ram:ApplicableHeaderTradeAgreement>"));
+    assertNull (aBuilder.build (new NonBlockingByteArrayInputStream (sCII2.getBytes (StandardCharsets.UTF_8)),
+                                DDDXMLParserPool.getDefaultInstance ()));
+
+    // UBL stops at the first line
+    final String sUBL = "<Invoice xmlns='urn:oasis:names:specification:ubl:schema:xsd:Invoice-2'" +
+                        " xmlns:cbc='urn:oasis:names:specification:ubl:schema:xsd:CommonBasicComponents-2'>" +
+                        "<cbc:ID>1</cbc:ID>" +
+                        "<InvoiceLine><cbc:ID>truncated";
+    assertNotNull (aBuilder.build (new NonBlockingByteArrayInputStream (sUBL.getBytes (StandardCharsets.UTF_8)),
+                                   DDDXMLParserPool.getDefaultInstance ()));
+    assertNull (aStrictBuilder.build (new NonBlockingByteArrayInputStream (sUBL.getBytes (StandardCharsets.UTF_8)),
+                                      DDDXMLParserPool.getDefaultInstance ()));
+
+    // KSeF stops at the annotations after the invoice number - the lines are never read
+    final String sKSeF = "<Faktura xmlns='http://crd.gov.pl/wzor/2023/06/29/12648/'>" +
+                         "<Naglowek><KodFormularza kodSystemowy='FA (2)'>FA</KodFormularza></Naglowek>" +
+                         "<Podmiot1><DaneIdentyfikacyjne><NIP>1111111111</NIP></DaneIdentyfikacyjne></Podmiot1>" +
+                         "<Podmiot2><DaneIdentyfikacyjne><NIP>2222222222</NIP></DaneIdentyfikacyjne></Podmiot2>" +
+                         "<Fa><KodWaluty>PLN</KodWaluty><P_1>2024-01-01</P_1><P_2>FV/1</P_2>" +
+                         "<P_15>100</P_15><Adnotacje><P_16>truncated";
+    final Document aDocKSeF = aBuilder.build (new NonBlockingByteArrayInputStream (sKSeF.getBytes (StandardCharsets.UTF_8)),
+                                              DDDXMLParserPool.getDefaultInstance ());
+    assertNotNull (aDocKSeF);
+    final DDDSyntax aSyntaxKSeF = DDDSyntaxList.getDefaultSyntaxList ().getSyntaxOfID ("ksef-fa2");
+    assertEquals ("FV/1",
+                  aSyntaxKSeF.getValue (EDDDSourceField.BUSINESS_DOCUMENT_ID,
+                                        aDocKSeF.getDocumentElement (),
+                                        new ErrorList ()));
+    assertEquals ("2222222222",
+                  aSyntaxKSeF.getValue (EDDDSourceField.RECEIVER_ID_VALUE,
+                                        aDocKSeF.getDocumentElement (),
+                                        new ErrorList ()));
+  }
+
+  @Test
+  public void testRepeatedPathElements ()
+  {
+    final DDDPrunedDocumentBuilder aBuilder = new DDDPrunedDocumentBuilder (_createDDD ());
+    final DDDSyntax aSyntax = DDDSyntaxList.getDefaultSyntaxList ().getSyntaxOfID ("cii");
+
+    // URIUniversalCommunication is repeatable - the second occurrence must be read
+    final String sCII = "<rsm:CrossIndustryInvoice xmlns:rsm='urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100'" +
+                        " xmlns:ram='urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100'>" +
+                        "<rsm:ExchangedDocumentContext><ram:GuidelineSpecifiedDocumentContextParameter>" +
+                        "<ram:ID>urn:cen.eu:en16931:2017</ram:ID>" +
+                        "</ram:GuidelineSpecifiedDocumentContextParameter></rsm:ExchangedDocumentContext>" +
+                        "<rsm:ExchangedDocument><ram:ID>INV-1</ram:ID></rsm:ExchangedDocument>" +
+                        "<rsm:SupplyChainTradeTransaction>" +
+                        "<ram:ApplicableHeaderTradeAgreement><ram:SellerTradeParty><ram:Name>Seller</ram:Name>" +
+                        "<ram:URIUniversalCommunication><ram:URIID schemeID='0088'>1</ram:URIID></ram:URIUniversalCommunication>" +
+                        "<ram:URIUniversalCommunication><ram:URIID schemeID='EM'>a@b.c</ram:URIID></ram:URIUniversalCommunication>" +
+                        "</ram:SellerTradeParty></ram:ApplicableHeaderTradeAgreement>" +
+                        "<ram:ApplicableHeaderTradeDelivery/><ram:ApplicableHeaderTradeSettlement/>" +
+                        "</rsm:SupplyChainTradeTransaction></rsm:CrossIndustryInvoice>";
+    final Document aPrunedDoc = aBuilder.build (new NonBlockingByteArrayInputStream (sCII.getBytes (StandardCharsets.UTF_8)),
+                                                DDDXMLParserPool.getDefaultInstance ());
+    assertNotNull (aPrunedDoc);
+    final Document aFullDoc = DDDXMLParserPool.getDefaultInstance ()
+                                              .parse (new NonBlockingByteArrayInputStream (sCII.getBytes (StandardCharsets.UTF_8)));
+    assertNotNull (aFullDoc);
+
+    for (final EDDDSourceField eField : EDDDSourceField.values ())
+      assertEquals (eField.name (),
+                    aSyntax.getValue (eField, aFullDoc.getDocumentElement (), new ErrorList ()),
+                    aSyntax.getValue (eField, aPrunedDoc.getDocumentElement (), new ErrorList ()));
+    // Ambiguous in both cases
+    assertNull (aSyntax.getValue (EDDDSourceField.SENDER_ID_VALUE, aPrunedDoc.getDocumentElement (), new ErrorList ()));
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.ddd.model.EDDDSourceField;
+import com.helger.ddd.unwrap.DDDDocumentUnwrapperSBDH;
+import com.helger.ddd.unwrap.DDDSBDHHeader;
+
+/**
+ * Test class for class {@link DDDSBDHFastPathReader}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDSBDHFastPathReaderTest
+{
+  private static final Path PAYLOAD_FILE = Paths.get ("src/test/resources/external/ubl2-invoice/good/base-example.xml");
+  private static final String DOCTYPE_ID = "urn:oasis:names:specification:ubl:schema:xsd:Invoice-2::Invoice##" +
+                                           "urn:cen.eu:en16931:2017#compliant#urn:fdc:peppol.eu:2017:poacc:billing:3.0::2.1";
+  private static final String PROCESS_ID = "urn:fdc:peppol.eu:2017:poacc:billing:01:1.0";
+
+  private static byte [] _createSBD (final String sSenderID, final String sDocTypeID) throws Exception
+  {
+    final String sPayload = Files.readString (PAYLOAD_FILE, StandardCharsets.UTF_8);
+    final StringBuilder aSB = new StringBuilder ();
+    aSB.append ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+       .append ("<StandardBusinessDocument xmlns=\"")
+       .append (DDDDocumentUnwrapperSBDH.NAMESPACE_URI)
+       .append ("\"><StandardBusinessDocumentHeader>")
+       .append ("<HeaderVersion>1.0</HeaderVersion>");
+    if (sSenderID != null)
+      aSB.append ("<Sender><Identifier Authority=\"iso6523-actorid-upis\">")
+         .append (sSenderID)
+         .append ("</Identifier></Sender>");
+    aSB.append ("<Receiver><Identifier Authority=\"iso6523-actorid-upis\">0002:FR23342</Identifier></Receiver>")
+       .append ("<DocumentIdentification><Standard>urn:oasis:names:specification:ubl:schema:xsd:Invoice-2</Standard>")
+       .append ("<TypeVersion>2.1</TypeVersion><InstanceIdentifier>abc-123</InstanceIdentifier>")
+       .append ("<Type>Invoice</Type><CreationDateAndTime>2026-01-01T00:00:00Z</CreationDateAndTime>")
+       .append ("</DocumentIdentification><BusinessScope>")
+       .append ("<Scope><Type>DOCUMENTID</Type><InstanceIdentifier>")
+       .append (sDocTypeID)
+       .append ("</InstanceIdentifier><Identifier>busdox-docid-qns</Identifier></Scope>")
+       .append ("<Scope><Type>PROCESSID</Type><InstanceIdentifier>")
+       .append (PROCESS_ID)
+       .append ("</InstanceIdentifier><Identifier>cenbii-procid-ubl</Identifier></Scope>")
+       .append ("<Scope><Type>COUNTRY_C1</Type><InstanceIdentifier>GB</InstanceIdentifier></Scope>")
+       .append ("</BusinessScope></StandardBusinessDocumentHeader>")
+       // Strip the XML declaration of the payload
+       .append (sPayload.substring (sPayload.indexOf ("?>") + 2))
+       .append ("</StandardBusinessDocument>");
+    return aSB.toString ().getBytes (StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testFromHeader () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DDDSBDHFastPathReader aReader = new DDDSBDHFastPathReader (aDDD);
+    final byte [] aBytes = _createSBD ("0088:9482348239847239874", DOCTYPE_ID);
+
+    final DDDSBDHFastPathReader.Result aResult = aReader.findDocumentDetails (aBytes);
+    assertNotNull (aResult);
+    assertTrue (aResult.isFromHeader ());
+
+    final DDDSBDHHeader aHeader = aResult.getHeader ();
+    assertNotNull (aHeader);
+    assertTrue (aHeader.isComplete ());
+    assertEquals ("iso6523-actorid-upis", aHeader.getSenderIDScheme ());
+    assertEquals ("0088:9482348239847239874", aHeader.getSenderIDValue ());
+    assertEquals ("0002:FR23342", aHeader.getReceiverIDValue ());
+    assertEquals (DOCTYPE_ID, aHeader.getDocumentTypeIDValue ());
+    assertEquals (PROCESS_ID, aHeader.getProcessIDValue ());
+    assertEquals ("GB", aHeader.getCountryC1 ());
+    assertEquals ("abc-123", aHeader.getInstanceIdentifier ());
+
+    final DocumentDetails aDD = aResult.getDocumentDetails ();
+    assertEquals ("ubl2-invoice", aDD.getSyntaxID ());
+    assertEquals ("iso6523-actorid-upis::0088:9482348239847239874", aDD.getSenderID ().getURIEncoded ());
+    assertNotNull (aDD.getReceiverID ());
+    assertEquals ("GB", aDD.getSenderCountryCode ());
+    assertTrue (aDD.getAllWrappers ().contains (DDDDocumentUnwrapperSBDH.WRAPPING_TYPE));
+
+    // Lazy check against the payload
+    assertTrue (aResult.getAllPayloadMismatches ().toString (), aResult.isConsistentWithPayload ());
+    assertNotNull (aResult.getPayloadDocumentDetails ());
+
+    // Same result from all sources
+    final DDDSBDHFastPathReader.Result aResult2 = aReader.findDocumentDetails (ByteBuffer.wrap (aBytes));
+    assertNotNull (aResult2);
+    assertEquals (aDD, aResult2.getDocumentDetails ());
+
+    final Path aTempFile = Files.createTempFile ("ddd-sbdh", ".xml");
+    try
+    {
+      Files.write (aTempFile, aBytes);
+      final DDDSBDHFastPathReader.Result aResult3 = aReader.findDocumentDetails (aTempFile);
+      assertNotNull (aResult3);
+      assertEquals (aDD, aResult3.getDocumentDetails ());
+    }
+    finally
+    {
+      Files.delete (aTempFile);
+    }
+  }
+
+  @Test
+  public void testMismatch () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DDDSBDHFastPathReader aReader = new DDDSBDHFastPathReader (aDDD);
+
+    final DDDSBDHFastPathReader.Result aResult = aReader.findDocumentDetails (_createSBD ("0088:123", DOCTYPE_ID));
+    assertNotNull (aResult);
+    assertTrue (aResult.isFromHeader ());
+    assertFalse (aResult.isConsistentWithPayload ());
+    assertEquals ("[SenderID]", aResult.getAllPayloadMismatches ().toString ());
+  }
+
+  @Test
+  public void testFallbackToPayload () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DDDSBDHFastPathReader aReader = new DDDSBDHFastPathReader (aDDD);
+
+    // Incomplete header - no sender
+    DDDSBDHFastPathReader.Result aResult = aReader.findDocumentDetails (_createSBD (null, DOCTYPE_ID));
+    assertNotNull (aResult);
+    assertFalse (aResult.isFromHeader ());
+    assertNotNull (aResult.getHeader ());
+    assertFalse (aResult.getHeader ().isComplete ());
+    assertEquals ("ubl2-invoice", aResult.getDocumentDetails ().getSyntaxID ());
+    assertTrue (aResult.isConsistentWithPayload ());
+
+    // Unparsable document type
+    aResult = aReader.findDocumentDetails (_createSBD ("0088:9482348239847239874", "foo"));
+    assertNotNull (aResult);
+    assertFalse (aResult.isFromHeader ());
+
+    // No SBDH at all
+    aResult = aReader.findDocumentDetails (PAYLOAD_FILE);
+    assertNotNull (aResult);
+    assertFalse (aResult.isFromHeader ());
+    assertNull (aResult.getHeader ());
+    assertEquals ("ubl2-invoice", aResult.getDocumentDetails ().getSyntaxID ());
+
+    assertNull (aReader.findDocumentDetails ("<root>".getBytes (StandardCharsets.UTF_8)));
+    assertNull (aReader.findDocumentDetails (Paths.get ("does-not-exist.xml")));
+  }
+
+  @Test
+  public void testCreateFromBuilder ()
+  {
+    final DDDSBDHHeader aHeader = DDDSBDHHeader.builder ()
+                                               .senderID ("iso6523-actorid-upis", "0088:9482348239847239874")
+                                               .receiverID ("iso6523-actorid-upis", "0002:FR23342")
+                                               .documentTypeID ("busdox-docid-qns", DOCTYPE_ID)
+                                               .processID ("cenbii-procid-ubl", PROCESS_ID)
+                                               .build ();
+    assertTrue (aHeader.isComplete ());
+    assertNull (aHeader.getCountryC1 ());
+
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    final DocumentDetails aDD = aDDD.findDocumentDetailsFromSBDH (aHeader);
+    assertNotNull (aDD);
+    assertEquals ("ubl2-invoice", aDD.getSyntaxID ());
+    assertEquals (PROCESS_ID, aDD.getProcessID ().getValue ());
+
+    assertNull (aDDD.findDocumentDetailsFromSBDH (DDDSBDHHeader.builder ().build ()));
+  }
+
+  @Test
+  public void testSourceValuesSameAsPayload () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ()
+                                                                                                                                   .setRetainSourceValues (true);
+    final DDDSBDHFastPathReader aReader = new DDDSBDHFastPathReader (aDDD);
+
+    final DDDSBDHFastPathReader.Result aResult = aReader.findDocumentDetails (_createSBD ("0088:9482348239847239874",
+                                                                                          DOCTYPE_ID));
+    assertNotNull (aResult);
+    assertTrue (aResult.isFromHeader ());
+
+    // Scheme and value are split like in the payload
+    final DocumentDetails aDD = aResult.getDocumentDetails ();
+    assertEquals ("0088", aDD.getSourceValue (EDDDSourceField.SENDER_ID_SCHEME));
+    assertEquals ("9482348239847239874", aDD.getSourceValue (EDDDSourceField.SENDER_ID_VALUE));
+    assertEquals ("0002", aDD.getSourceValue (EDDDSourceField.RECEIVER_ID_SCHEME));
+    assertEquals ("FR23342", aDD.getSourceValue (EDDDSourceField.RECEIVER_ID_VALUE));
+
+    final DocumentDetails aPayloadDD = aResult.getPayloadDocumentDetails ();
+    assertNotNull (aPayloadDD);
+    for (final EDDDSourceField eField : new EDDDSourceField [] { EDDDSourceField.SENDER_ID_SCHEME,
+                                                                 EDDDSourceField.SENDER_ID_VALUE,
+                                                                 EDDDSourceField.RECEIVER_ID_SCHEME,
+                                                                 EDDDSourceField.RECEIVER_ID_VALUE })
+      assertEquals (eField.name (), aPayloadDD.getSourceValue (eField), aDD.getSourceValue (eField));
+    assertEquals (aPayloadDD.getSenderID (), aDD.getSenderID ());
+    assertEquals (aPayloadDD.getReceiverID (), aDD.getReceiverID ());
+  }
+
+  @Test
+  public void testSelfBilling ()
+  {
+    final String sDocTypeID = "urn:oasis:names:specification:ubl:schema:xsd:CreditNote-2::CreditNote##" +
+                              "urn:peppol:pint:selfbilling-1@ae-1::2.1";
+    final String sProcessID = "urn:peppol:bis:selfbilling";
+    final DDDSBDHHeader aHeader = DDDSBDHHeader.builder ()
+                                               .senderID ("iso6523-actorid-upis", "0235:sender")
+                                               .receiverID ("iso6523-actorid-upis", "0235:receiver")
+                                               .documentTypeID ("peppol-doctype-wildcard", sDocTypeID)
+                                               .processID ("cenbii-procid-ubl", sProcessID)
+                                               .build ();
+
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    final DocumentDetails aDD = aDDD.findDocumentDetailsFromSBDH (aHeader);
+    assertNotNull (aDD);
+    assertEquals ("ubl2-creditnote", aDD.getSyntaxID ());
+    assertEquals ("Peppol PINT AE Credit Note Self-Billing", aDD.getProfileName ());
+    assertFalse (aDD.hasFlag ("Action-SwapSenderAndReceiver"));
+
+    // The SBDH contains the actual sender and receiver - no swapping
+    assertEquals ("iso6523-actorid-upis::0235:sender", aDD.getSenderID ().getURIEncoded ());
+    assertEquals ("iso6523-actorid-upis::0235:receiver", aDD.getReceiverID ().getURIEncoded ());
+
+    // The identifiers of the SBDH are kept including their schemes
+    assertEquals ("peppol-doctype-wildcard", aDD.getDocumentTypeID ().getScheme ());
+    assertEquals (sDocTypeID, aDD.getDocumentTypeID ().getValue ());
+    assertEquals ("cenbii-procid-ubl", aDD.getProcessID ().getScheme ());
+    assertEquals (sProcessID, aDD.getProcessID ().getValue ());
+  }
+
+  @Test
+  public void testDocumentTypeIDWithoutSyntaxVersion ()
+  {
+    // No value provider sets a syntax version for this customization ID
+    final String sDocTypeID = "urn:oasis:names:specification:ubl:schema:xsd:Invoice-2::Invoice##urn:example:unknown::2.1";
+    final DDDSBDHHeader aHeader = DDDSBDHHeader.builder ()
+                                               .senderID ("iso6523-actorid-upis", "0088:sender")
+                                               .receiverID ("iso6523-actorid-upis", "0088:receiver")
+                                               .documentTypeID ("busdox-docid-qns", sDocTypeID)
+                                               .processID ("cenbii-procid-ubl", PROCESS_ID)
+                                               .build ();
+
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    final DocumentDetails aDD = aDDD.findDocumentDetailsFromSBDH (aHeader);
+    assertNotNull (aDD);
+    assertEquals ("ubl2-invoice", aDD.getSyntaxID ());
+    assertNull (aDD.getSyntaxVersion ());
+    assertNotNull (aDD.getDocumentTypeID ());
+    assertEquals ("busdox-docid-qns", aDD.getDocumentTypeID ().getScheme ());
+    assertEquals (sDocTypeID, aDD.getDocumentTypeID ().getValue ());
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.collection.commons.CommonsArrayList;
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+import com.helger.ddd.unwrap.DDDStreamUnwrapperMIME;
+
+/**
+ * Test class for class {@link DDDSizeRoutingReader}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDSizeRoutingReaderTest
+{
+  private static final Path TEST_FILE = Paths.get ("src/test/resources/external/ubl2-invoice/good/SB-base-example.xml");
+
+  @Test
+  public void testParseMode ()
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    final DDDSizeRoutingReader aReader = new DDDSizeRoutingReader (aDDD, DDDXMLParserPool.getDefaultInstance (), 1000);
+    assertEquals (1000, aReader.getStreamingThreshold ());
+    assertEquals (EDDDParseMode.DOM, aReader.getParseMode (0));
+    assertEquals (EDDDParseMode.DOM, aReader.getParseMode (999));
+    assertEquals (EDDDParseMode.STREAMING, aReader.getParseMode (1000));
+    assertEquals (EDDDParseMode.STREAMING, aReader.getParseMode (-1));
+
+    assertEquals (EDDDParseMode.STREAMING,
+                  new DDDSizeRoutingReader (aDDD, DDDXMLParserPool.getDefaultInstance (), 0).getParseMode (0));
+  }
+
+  @Test
+  public void testSameResult () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DDDSizeRoutingReader aDOMReader = new DDDSizeRoutingReader (aDDD,
+                                                                      DDDXMLParserPool.getDefaultInstance (),
+                                                                      Long.MAX_VALUE);
+    final DDDSizeRoutingReader aStreamingReader = new DDDSizeRoutingReader (aDDD,
+                                                                            DDDXMLParserPool.getDefaultInstance (),
+                                                                            0);
+
+    final DocumentDetails aDD = aDOMReader.findDocumentDetails (TEST_FILE);
+    assertNotNull (aDD);
+    assertEquals ("ubl2-invoice", aDD.getSyntaxID ());
+    assertEquals (aDD, aStreamingReader.findDocumentDetails (TEST_FILE));
+
+    final byte [] aBytes = Files.readAllBytes (TEST_FILE);
+    assertEquals (aDD, aDOMReader.findDocumentDetails (aBytes));
+    assertEquals (aDD, aStreamingReader.findDocumentDetails (aBytes));
+    assertEquals (aDD, aStreamingReader.findDocumentDetails (ByteBuffer.wrap (aBytes)));
+    assertEquals (aDD,
+                  aDOMReader.findDocumentDetails (new NonBlockingByteArrayInputStream (aBytes),
+                                                  EDDDParseMode.STREAMING));
+
+    for (final DDDSizeRoutingReader aReader : new DDDSizeRoutingReader [] { aDOMReader, aStreamingReader })
+    {
+      assertNull (aReader.findDocumentDetails (Paths.get ("does-not-exist.xml")));
+      assertNull (aReader.findDocumentDetails ("<root>".getBytes (StandardCharsets.UTF_8)));
+      assertNull (aReader.findDocumentDetails ("<root xmlns='urn:unknown'/>".getBytes (StandardCharsets.UTF_8)));
+      assertNull (aReader.findDocumentDetails (new byte [0]));
+    }
+  }
+
+  @Test
+  public void testParity ()
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DDDSizeRoutingReader aDOMReader = new DDDSizeRoutingReader (aDDD,
+                                                                      DDDXMLParserPool.getDefaultInstance (),
+                                                                      Long.MAX_VALUE);
+    final DDDSizeRoutingReader aStreamingReader = new DDDSizeRoutingReader (aDDD,
+                                                                            DDDXMLParserPool.getDefaultInstance (),
+                                                                            0);
+    final DDDSizeRoutingReader aLenientStreamingReader = new DDDSizeRoutingReader (aDDD,
+                                                                                   DDDXMLParserPool.getDefaultInstance (),
+                                                                                   0,
+                                                                                   true);
+    // Strict by default
+    assertFalse (aStreamingReader.isStopEarly ());
+    assertFalse (new DDDSizeRoutingReader (aDDD).isStopEarly ());
+    assertTrue (aLenientStreamingReader.isStopEarly ());
+
+    final String sPrefix = "<rsm:CrossIndustryInvoice xmlns:rsm='urn:un:unece:uncefact:data:standard:CrossIndustryInvoice:100'" +
+                           " xmlns:ram='urn:un:unece:uncefact:data:standard:ReusableAggregateBusinessInformationEntity:100'>" +
+                           "<rsm:ExchangedDocumentContext><ram:GuidelineSpecifiedDocumentContextParameter>" +
+                           "<ram:ID>urn:cen.eu:en16931:2017#compliant#urn:fdc:peppol.eu:2017:poacc:billing:3.0</ram:ID>" +
+                           "</ram:GuidelineSpecifiedDocumentContextParameter></rsm:ExchangedDocumentContext>" +
+                           "<rsm:ExchangedDocument><ram:ID>INV-1</ram:ID></rsm:ExchangedDocument>" +
+                           "<rsm:SupplyChainTradeTransaction>" +
+                           "<ram:ApplicableHeaderTradeAgreement>" +
+                           "<ram:SellerTradeParty><ram:Name>Seller</ram:Name>" +
+                           "<ram:URIUniversalCommunication><ram:URIID schemeID='0088'>1</ram:URIID></ram:URIUniversalCommunication>" +
+                           "<ram:URIUniversalCommunication><ram:URIID schemeID='0088'>2</ram:URIID></ram:URIUniversalCommunication>" +
+                           "</ram:SellerTradeParty>" +
+                           "<ram:BuyerTradeParty><ram:Name>Buyer</ram:Name>" +
+                           "<ram:URIUniversalCommunication><ram:URIID schemeID='0088'>3</ram:URIID></ram:URIUniversalCommunication>" +
+                           "</ram:BuyerTradeParty>" +
+                           "</ram:ApplicableHeaderTradeAgreement>" +
+                           "<ram:ApplicableHeaderTradeDelivery>";
+
+    // Duplicate header elements - the same result in all modes
+    final byte [] aDuplicates = (sPrefix +
+                                 "</ram:ApplicableHeaderTradeDelivery><ram:ApplicableHeaderTradeSettlement/>" +
+                                 "</rsm:SupplyChainTradeTransaction></rsm:CrossIndustryInvoice>").getBytes (StandardCharsets.UTF_8);
+    final DocumentDetails aDD = aDOMReader.findDocumentDetails (aDuplicates);
+    assertNotNull (aDD);
+    assertEquals ("cii", aDD.getSyntaxID ());
+    // The sender ID is ambiguous
+    assertNull (aDD.getSenderID ());
+    assertNotNull (aDD.getReceiverID ());
+    assertEquals (aDD, aStreamingReader.findDocumentDetails (aDuplicates));
+    assertEquals (aDD, aLenientStreamingReader.findDocumentDetails (aDuplicates));
+
+    // Malformed tail after the stop element - only the lenient streaming mode accepts it
+    final byte [] aMalformed = (sPrefix + "<ram:Note>truncated").getBytes (StandardCharsets.UTF_8);
+    assertNull (aDOMReader.findDocumentDetails (aMalformed));
+    assertNull (aStreamingReader.findDocumentDetails (aMalformed));
+    assertEquals (aDD, aLenientStreamingReader.findDocumentDetails (aMalformed));
+  }
+
+  @Test
+  public void testMIME () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ()).addDefaultUnwrappers ();
+    final DDDSizeRoutingReader aReader = new DDDSizeRoutingReader (aDDD, DDDXMLParserPool.getDefaultInstance (), 1000);
+    final DocumentDetails aDD = aReader.findDocumentDetails (TEST_FILE);
+    assertNotNull (aDD);
+
+    // AS2 like signed message
+    final String sBody = "--sig\r\n" +
+                         "Content-Type: application/xml\r\n" +
+                         "\r\n" +
+                         new String (Files.readAllBytes (TEST_FILE), StandardCharsets.ISO_8859_1) +
+                         "\r\n--sig\r\n" +
+                         "Content-Type: application/pkcs7-signature\r\n" +
+                         "\r\n" +
+                         "SIGNATURE\r\n" +
+                         "--sig--\r\n";
+    final DocumentDetails aMimeDD = aReader.findDocumentDetailsFromMIME (new NonBlockingByteArrayInputStream (sBody.getBytes (StandardCharsets.ISO_8859_1)),
+                                                                         "multipart/signed; boundary=\"sig\"");
+    assertNotNull (aMimeDD);
+    assertEquals (new CommonsArrayList <> (DDDStreamUnwrapperMIME.WRAPPING_TYPE), aMimeDD.getAllWrappers ());
+    assertEquals (aDD, DocumentDetails.builder (aMimeDD).wrappers ((String []) null).build ());
+
+    // Plain XML
+    assertEquals (aDD,
+                  aReader.findDocumentDetailsFromMIME (new NonBlockingByteArrayInputStream (Files.readAllBytes (TEST_FILE)),
+                                                       "application/xml"));
+
+    // No XML part
+    assertNull (aReader.findDocumentDetailsFromMIME (new NonBlockingByteArrayInputStream ("--b\r\n\r\ntext\r\n--b--".getBytes (StandardCharsets.ISO_8859_1)),
+                                                     "multipart/mixed; boundary=b"));
+  }
+}
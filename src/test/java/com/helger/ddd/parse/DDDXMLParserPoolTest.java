@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import com.helger.ddd.DocumentDetails;
+import com.helger.ddd.DocumentDetailsDeterminator;
+import com.helger.ddd.model.DDDSyntaxList;
+import com.helger.ddd.model.DDDValueProviderList;
+
+/**
+ * Test class for class {@link DDDXMLParserPool}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDXMLParserPoolTest
+{
+  private static final Path TEST_FILE = Paths.get ("src/test/resources/external/ubl2-invoice/good/base-example.xml");
+
+  @Test
+  public void testAllInputs () throws Exception
+  {
+    final DocumentDetailsDeterminator aDDD = new DocumentDetailsDeterminator (DDDSyntaxList.getDefaultSyntaxList (),
+                                                                              DDDValueProviderList.getDefaultValueProviderList ());
+    for (final boolean bDefer : new boolean [] { false, true })
+    {
+      final DDDXMLParserPool aPool = new DDDXMLParserPool (2, bDefer);
+      final byte [] aBytes = Files.readAllBytes (TEST_FILE);
+
+      final Document aDoc = aPool.parse (TEST_FILE);
+      assertNotNull (aDoc);
+      final DocumentDetails aExpected = aDDD.findDocumentDetails (aDoc.getDocumentElement ());
+      assertNotNull (aExpected);
+
+      // Parse again with all inputs
+      final ByteBuffer aDirect = ByteBuffer.allocateDirect (aBytes.length);
+      aDirect.put (aBytes).flip ();
+      for (final Document aDoc2 : new Document [] { aPool.parse (aBytes),
+                                                    aPool.parse (ByteBuffer.wrap (aBytes)),
+                                                    aPool.parse (aDirect),
+                                                    aPool.parse (Files.newInputStream (TEST_FILE)) })
+      {
+        assertNotNull (aDoc2);
+        assertEquals (aExpected, aDDD.findDocumentDetails (aDoc2.getDocumentElement ()));
+      }
+      // The position of the buffer is untouched
+      assertEquals (0, aDirect.position ());
+
+      // Sequential use needs only one parser
+      assertEquals (1, aPool.getCreationCount ());
+      assertEquals (1, aPool.getIdleCount ());
+    }
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final DDDXMLParserPool aPool = DDDXMLParserPool.getDefaultInstance ();
+    assertNull (aPool.parse ("<root>".getBytes (StandardCharsets.UTF_8)));
+    assertNull (aPool.parse (new byte [0]));
+    assertNull (aPool.parse (Paths.get ("does-not-exist.xml")));
+
+    // DOCTYPE declarations are rejected
+    assertNull (aPool.parse ("<!DOCTYPE root [<!ENTITY e SYSTEM \"file:///etc/passwd\">]><root>&e;</root>".getBytes (StandardCharsets.UTF_8)));
+
+    // Still works afterwards
+    assertNotNull (aPool.parse ("<root xmlns='urn:test'/>".getBytes (StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2023-2026 Philip Helger (www.helger.com)
+ * philip[at]helger[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.helger.ddd.unwrap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.Test;
+
+import com.helger.base.io.nonblocking.NonBlockingByteArrayInputStream;
+import com.helger.base.io.nonblocking.NonBlockingByteArrayOutputStream;
+import com.helger.collection.commons.CommonsArrayList;
+
+/**
+ * Test class for class {@link DDDStreamUnwrapperMIME}.
+ *
+ * @author Philip Helger
+ */
+public final class DDDStreamUnwrapperMIMETest
+{
+  private static final String XML = "<Invoice xmlns='urn:test'>\r\n--outer is no delimiter\r\n</Invoice>";
+
+  private static InputStream _is (final String s)
+  {
+    return new NonBlockingByteArrayInputStream (s.getBytes (StandardCharsets.ISO_8859_1));
+  }
+
+  private static String _readAll (final InputStream aIS) throws IOException
+  {
+    try (final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ())
+    {
+      // Small chunks to cross the delimiter detection boundaries
+      final byte [] aBuf = new byte [3];
+      int nRead;
+      while ((nRead = aIS.read (aBuf)) >= 0)
+        aBAOS.write (aBuf, 0, nRead);
+      return new String (aBAOS.toByteArray (), StandardCharsets.ISO_8859_1);
+    }
+  }
+
+  @Test
+  public void testContentTypes ()
+  {
+    assertTrue (DDDStreamUnwrapperMIME.isXMLContentType ("application/xml"));
+    assertTrue (DDDStreamUnwrapperMIME.isXMLContentType ("Text/XML; charset=UTF-8"));
+    assertTrue (DDDStreamUnwrapperMIME.isXMLContentType ("application/soap+xml"));
+    assertFalse (DDDStreamUnwrapperMIME.isXMLContentType ("text/plain"));
+    assertFalse (DDDStreamUnwrapperMIME.isXMLContentType (null));
+
+    assertTrue (DDDStreamUnwrapperMIME.isMultipartContentType ("multipart/signed; boundary=x"));
+    assertFalse (DDDStreamUnwrapperMIME.isMultipartContentType ("application/xml"));
+    assertFalse (DDDStreamUnwrapperMIME.isMultipartContentType (null));
+
+    assertEquals ("abc", DDDStreamUnwrapperMIME.getBoundary ("multipart/mixed;boundary=abc;x=y"));
+    assertEquals ("a b", DDDStreamUnwrapperMIME.getBoundary ("multipart/mixed; xboundary=1; Boundary = \"a b\""));
+    assertNull (DDDStreamUnwrapperMIME.getBoundary ("multipart/mixed; xboundary=1"));
+    assertNull (DDDStreamUnwrapperMIME.getBoundary ("multipart/mixed; boundary=\"open"));
+    assertNull (DDDStreamUnwrapperMIME.getBoundary (null));
+  }
+
+  @Test
+  public void testPlainXML () throws IOException
+  {
+    final DDDStreamUnwrapperMIME.XMLPart aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (_is (XML), "text/xml");
+    assertNotNull (aPart);
+    assertEquals (new CommonsArrayList <> (), aPart.getAllWrappers ());
+    assertEquals (XML, _readAll (aPart.getInputStream ()));
+
+    assertNull (DDDStreamUnwrapperMIME.findFirstXMLPart (_is (XML), "application/octet-stream"));
+  }
+
+  @Test
+  public void testAS2Signed () throws IOException
+  {
+    final String sInner = "--inner\r\n" +
+                          "Content-Type: text/plain\r\n" +
+                          "\r\n" +
+                          "not relevant\r\n" +
+                          "--inner\r\n" +
+                          "Content-Type: application/xml\r\n" +
+                          "Content-Transfer-Encoding: quoted-printable\r\n" +
+                          "\r\n" +
+                          "<skipped/>\r\n" +
+                          "--inner\r\n" +
+                          "Content-Type: application/xml\r\n" +
+                          "Content-Transfer-Encoding: base64\r\n" +
+                          "\r\n" +
+                          Base64.getMimeEncoder ().encodeToString (XML.getBytes (StandardCharsets.ISO_8859_1)) +
+                          "\r\n--inner--\r\n";
+    final String sMessage = "This is a preamble\r\n" +
+                            "--outer\r\n" +
+                            "Content-Type: multipart/mixed;\r\n" +
+                            "\tboundary=\"inner\"\r\n" +
+                            "\r\n" +
+                            sInner +
+                            "\r\n--outer\r\n" +
+                            "Content-Type: application/pkcs7-signature\r\n" +
+                            "\r\n" +
+                            "SIGNATURE\r\n" +
+                            "--outer--\r\n" +
+                            "This is an epilogue";
+    final DDDStreamUnwrapperMIME.XMLPart aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (_is (sMessage),
+                                                                                           "multipart/signed; protocol=\"application/pkcs7-signature\"; boundary=outer");
+    assertNotNull (aPart);
+    assertEquals ("application/xml", aPart.getContentType ());
+    assertEquals (new CommonsArrayList <> (DDDStreamUnwrapperMIME.WRAPPING_TYPE, DDDStreamUnwrapperMIME.WRAPPING_TYPE),
+                  aPart.getAllWrappers ());
+    assertEquals (XML, _readAll (aPart.getInputStream ()));
+  }
+
+  @Test
+  public void testEdgeCases () throws IOException
+  {
+    // LF only line breaks
+    DDDStreamUnwrapperMIME.XMLPart aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("--b\nContent-Type: text/xml\n\n<a/>\n--b--\n"),
+                                                                                     "multipart/related; boundary=b");
+    assertNotNull (aPart);
+    assertEquals (new CommonsArrayList <> (DDDStreamUnwrapperMIME.WRAPPING_TYPE), aPart.getAllWrappers ());
+    assertEquals ("<a/>", _readAll (aPart.getInputStream ()));
+
+    // Truncated
+    aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("--b\r\nContent-Type: text/xml\r\n\r\n<a>"),
+                                                     "multipart/mixed; boundary=b");
+    assertNotNull (aPart);
+    assertEquals ("<a>", _readAll (aPart.getInputStream ()));
+
+    // Empty part before the XML part
+    aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("--b\r\nContent-Type: text/plain\r\n\r\n--b\r\nContent-Type: text/xml\r\n\r\n<a/>\r\n--b--"),
+                                                     "multipart/mixed; boundary=b");
+    assertNotNull (aPart);
+    assertEquals ("<a/>", _readAll (aPart.getInputStream ()));
+    aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("--b\nContent-Type: text/plain\n\n--b\nContent-Type: text/xml\n\n<a/>\n--b--"),
+                                                     "multipart/mixed; boundary=b");
+    assertNotNull (aPart);
+    assertEquals ("<a/>", _readAll (aPart.getInputStream ()));
+
+    // Empty XML part
+    aPart = DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("--b\r\nContent-Type: text/xml\r\n\r\n--b--\r\n"),
+                                                     "multipart/mixed; boundary=b");
+    assertNotNull (aPart);
+    assertEquals ("", _readAll (aPart.getInputStream ()));
+
+    // No XML part
+    assertNull (DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("--b\r\nContent-Type: text/plain\r\n\r\nx\r\n--b--"),
+                                                         "multipart/mixed; boundary=b"));
+    // No boundary
+    assertNull (DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("--b\r\n\r\n"), "multipart/mixed"));
+    // No delimiter at all
+    assertNull (DDDStreamUnwrapperMIME.findFirstXMLPart (_is ("<a/>"), "multipart/mixed; boundary=b"));
+  }
+}